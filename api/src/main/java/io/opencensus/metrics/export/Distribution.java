@@ -21,9 +21,11 @@ import io.opencensus.common.ExperimentalApi;
 import io.opencensus.common.Function;
 import io.opencensus.internal.Utils;
 import io.opencensus.metrics.data.Exemplar;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.RandomAccess;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.Immutable;
 
@@ -73,6 +75,60 @@ public abstract class Distribution {
         count, sum, sumOfSquaredDeviations, bucketOptions, bucketsCopy);
   }
 
+  /**
+   * Creates a {@link Distribution} from the counts and {@link Exemplar}s of its buckets.
+   *
+   * <p>The arrays are copied, and the {@code Bucket}s are only created if {@link #getBuckets()} is
+   * read, so this is cheaper than {@link #create(long, double, double, BucketOptions, List)} when
+   * the histogram is exported with {@link #getBucketCount(int)} and {@link
+   * #getBucketExemplar(int)}.
+   *
+   * @param count the count of the population values.
+   * @param sum the sum of the population values.
+   * @param sumOfSquaredDeviations the sum of squared deviations of the population values.
+   * @param bucketOptions the bucket options used to create a histogram for the distribution.
+   * @param bucketCounts the number of values in each bucket of the histogram.
+   * @param exemplars the {@code Exemplar} of each bucket, or {@code null} for the buckets without
+   *     one. May be {@code null} if no bucket has an {@code Exemplar}, otherwise it must have the
+   *     same length as {@code bucketCounts}.
+   * @return a {@code Distribution}.
+   * @since 0.21
+   */
+  public static Distribution createFromBucketCounts(
+      long count,
+      double sum,
+      double sumOfSquaredDeviations,
+      BucketOptions bucketOptions,
+      long[] bucketCounts,
+      @Nullable Exemplar[] exemplars) {
+    Utils.checkArgument(count >= 0, "count should be non-negative.");
+    Utils.checkArgument(
+        sumOfSquaredDeviations >= 0, "sum of squared deviations should be non-negative.");
+    if (count == 0) {
+      Utils.checkArgument(sum == 0, "sum should be 0 if count is 0.");
+      Utils.checkArgument(
+          sumOfSquaredDeviations == 0, "sum of squared deviations should be 0 if count is 0.");
+    }
+    Utils.checkNotNull(bucketOptions, "bucketOptions");
+    long[] bucketCountsCopy = Utils.checkNotNull(bucketCounts, "bucketCounts").clone();
+    for (long bucketCount : bucketCountsCopy) {
+      Utils.checkArgument(bucketCount >= 0, "bucket count should be non-negative.");
+    }
+    @Nullable Exemplar[] exemplarsCopy = null;
+    if (exemplars != null) {
+      Utils.checkArgument(
+          exemplars.length == bucketCountsCopy.length,
+          "exemplars should have the same length as bucketCounts.");
+      exemplarsCopy = exemplars.clone();
+    }
+    return new AutoValue_Distribution(
+        count,
+        sum,
+        sumOfSquaredDeviations,
+        bucketOptions,
+        new BucketArray(bucketCountsCopy, exemplarsCopy));
+  }
+
   /**
    * Returns the aggregated count.
    *
@@ -122,6 +178,43 @@ public abstract class Distribution {
    */
   public abstract List<Bucket> getBuckets();
 
+  /**
+   * Returns the number of values in the histogram bucket at the given index. Unlike {@code
+   * getBuckets().get(index).getCount()}, this doesn't create a {@link Bucket} if this {@code
+   * Distribution} was created from bucket counts.
+   *
+   * @param index the index of the bucket, between 0 and {@code getBuckets().size() - 1}.
+   * @return the number of values in the bucket.
+   * @throws IndexOutOfBoundsException if there is no bucket at the given index.
+   * @since 0.21
+   */
+  public final long getBucketCount(int index) {
+    List<Bucket> buckets = getBuckets();
+    if (buckets instanceof BucketArray) {
+      return ((BucketArray) buckets).getCount(index);
+    }
+    return buckets.get(index).getCount();
+  }
+
+  /**
+   * Returns the {@link Exemplar} of the histogram bucket at the given index, or {@code null} if
+   * there isn't one. Unlike {@code getBuckets().get(index).getExemplar()}, this doesn't create a
+   * {@link Bucket} if this {@code Distribution} was created from bucket counts.
+   *
+   * @param index the index of the bucket, between 0 and {@code getBuckets().size() - 1}.
+   * @return the {@code Exemplar} of the bucket, or {@code null} if there isn't one.
+   * @throws IndexOutOfBoundsException if there is no bucket at the given index.
+   * @since 0.21
+   */
+  @Nullable
+  public final Exemplar getBucketExemplar(int index) {
+    List<Bucket> buckets = getBuckets();
+    if (buckets instanceof BucketArray) {
+      return ((BucketArray) buckets).getExemplar(index);
+    }
+    return buckets.get(index).getExemplar();
+  }
+
   /**
    * The bucket options used to create a histogram for the distribution.
    *
@@ -158,6 +251,30 @@ public abstract class Distribution {
       return ExplicitOptions.create(bucketBoundaries);
     }
 
+    /**
+     * Returns a {@link ExponentialOptions}.
+     *
+     * <p>The bucket boundaries for that histogram are {@code scale * growthFactor^i} for {@code i}
+     * in {@code [0, numFiniteBuckets]}. This defines {@code numFiniteBuckets + 2} (= N) buckets.
+     * The boundaries for bucket index i are:
+     *
+     * <ul>
+     *   <li>{@code [0, scale) for i == 0}
+     *   <li>{@code [scale * growthFactor^(i-1), scale * growthFactor^i) for 0 < i < N-1}
+     *   <li>{@code [scale * growthFactor^(N-2), +infinity) for i == N-1}
+     * </ul>
+     *
+     * @param numFiniteBuckets the number of finite buckets, must be positive.
+     * @param growthFactor the ratio between two consecutive boundaries, must be greater than 1.
+     * @param scale the first boundary, must be positive.
+     * @return a {@code ExponentialOptions} {@code BucketOptions}.
+     * @since 0.21
+     */
+    public static BucketOptions exponentialOptions(
+        int numFiniteBuckets, double growthFactor, double scale) {
+      return ExponentialOptions.create(numFiniteBuckets, growthFactor, scale);
+    }
+
     /**
      * Applies the given match function to the underlying BucketOptions.
      *
@@ -173,6 +290,24 @@ public abstract class Distribution {
         Function<? super ExplicitOptions, T> explicitFunction,
         Function<? super BucketOptions, T> defaultFunction);
 
+    /**
+     * Applies the given match function to the underlying BucketOptions.
+     *
+     * @param explicitFunction the function that should be applied if the BucketOptions has type
+     *     {@code ExplicitOptions}.
+     * @param exponentialFunction the function that should be applied if the BucketOptions has type
+     *     {@code ExponentialOptions}.
+     * @param defaultFunction the function that should be applied if the BucketOptions has a type
+     *     that was added after this {@code match} method was added to the API. See {@link
+     *     io.opencensus.common.Functions} for some common functions for handling unknown types.
+     * @return the result of the function applied to the underlying BucketOptions.
+     * @since 0.21
+     */
+    public abstract <T> T match(
+        Function<? super ExplicitOptions, T> explicitFunction,
+        Function<? super ExponentialOptions, T> exponentialFunction,
+        Function<? super BucketOptions, T> defaultFunction);
+
     /** A Bucket with explicit bounds {@link BucketOptions}. */
     @AutoValue
     @Immutable
@@ -187,6 +322,14 @@ public abstract class Distribution {
         return explicitFunction.apply(this);
       }
 
+      @Override
+      public final <T> T match(
+          Function<? super ExplicitOptions, T> explicitFunction,
+          Function<? super ExponentialOptions, T> exponentialFunction,
+          Function<? super BucketOptions, T> defaultFunction) {
+        return explicitFunction.apply(this);
+      }
+
       /**
        * Creates a {@link ExplicitOptions}.
        *
@@ -223,6 +366,81 @@ public abstract class Distribution {
        */
       public abstract List<Double> getBucketBoundaries();
     }
+
+    /**
+     * A Bucket with exponentially growing bounds {@link BucketOptions}.
+     *
+     * @since 0.21
+     */
+    @AutoValue
+    @Immutable
+    public abstract static class ExponentialOptions extends BucketOptions {
+
+      ExponentialOptions() {}
+
+      @Override
+      public final <T> T match(
+          Function<? super ExplicitOptions, T> explicitFunction,
+          Function<? super BucketOptions, T> defaultFunction) {
+        return defaultFunction.apply(this);
+      }
+
+      @Override
+      public final <T> T match(
+          Function<? super ExplicitOptions, T> explicitFunction,
+          Function<? super ExponentialOptions, T> exponentialFunction,
+          Function<? super BucketOptions, T> defaultFunction) {
+        return exponentialFunction.apply(this);
+      }
+
+      private static ExponentialOptions create(
+          int numFiniteBuckets, double growthFactor, double scale) {
+        Utils.checkArgument(numFiniteBuckets > 0, "numFiniteBuckets should be positive.");
+        Utils.checkArgument(growthFactor > 1, "growthFactor should be greater than 1.");
+        Utils.checkArgument(scale > 0, "scale should be positive.");
+        return new AutoValue_Distribution_BucketOptions_ExponentialOptions(
+            numFiniteBuckets, growthFactor, scale);
+      }
+
+      /**
+       * Returns the number of finite buckets.
+       *
+       * @return the number of finite buckets.
+       * @since 0.21
+       */
+      public abstract int getNumFiniteBuckets();
+
+      /**
+       * Returns the ratio between two consecutive bucket boundaries.
+       *
+       * @return the ratio between two consecutive bucket boundaries.
+       * @since 0.21
+       */
+      public abstract double getGrowthFactor();
+
+      /**
+       * Returns the first bucket boundary.
+       *
+       * @return the first bucket boundary.
+       * @since 0.21
+       */
+      public abstract double getScale();
+
+      /**
+       * Returns the bucket boundaries of this distribution, for backends that only support explicit
+       * bucket boundaries.
+       *
+       * @return the bucket boundaries of this distribution.
+       * @since 0.21
+       */
+      public final List<Double> getBucketBoundaries() {
+        List<Double> bucketBoundaries = new ArrayList<Double>(getNumFiniteBuckets() + 1);
+        for (int i = 0; i <= getNumFiniteBuckets(); i++) {
+          bucketBoundaries.add(getScale() * Math.pow(getGrowthFactor(), i));
+        }
+        return Collections.unmodifiableList(bucketBoundaries);
+      }
+    }
   }
 
   /**
@@ -281,4 +499,46 @@ public abstract class Distribution {
     @Nullable
     public abstract Exemplar getExemplar();
   }
+
+  // An unmodifiable list of Buckets that is backed by arrays of bucket counts and exemplars, and
+  // creates the Buckets when they are read. It is equal to any list with the same Buckets.
+  private static final class BucketArray extends AbstractList<Bucket> implements RandomAccess {
+    private final long[] counts;
+    @Nullable private final Exemplar[] exemplars;
+
+    private BucketArray(long[] counts, @Nullable Exemplar[] exemplars) {
+      this.counts = counts;
+      this.exemplars = exemplars;
+    }
+
+    private long getCount(int index) {
+      checkIndex(index);
+      return counts[index];
+    }
+
+    @Nullable
+    private Exemplar getExemplar(int index) {
+      checkIndex(index);
+      return exemplars == null ? null : exemplars[index];
+    }
+
+    @Override
+    public Bucket get(int index) {
+      Exemplar exemplar = getExemplar(index);
+      return exemplar == null
+          ? Bucket.create(counts[index])
+          : Bucket.create(counts[index], exemplar);
+    }
+
+    @Override
+    public int size() {
+      return counts.length;
+    }
+
+    private void checkIndex(int index) {
+      if (index < 0 || index >= counts.length) {
+        throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + counts.length);
+      }
+    }
+  }
 }
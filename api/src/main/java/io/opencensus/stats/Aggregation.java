@@ -19,19 +19,23 @@ package io.opencensus.stats;
 import com.google.auto.value.AutoValue;
 import io.opencensus.common.Function;
 import io.opencensus.internal.Utils;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import javax.annotation.concurrent.Immutable;
 
 /**
  * {@link Aggregation} is the process of combining a certain set of {@code MeasureValue}s for a
  * given {@code Measure} into an {@link AggregationData}.
  *
- * <p>{@link Aggregation} currently supports 4 types of basic aggregation:
+ * <p>{@link Aggregation} currently supports 5 types of basic aggregation:
  *
  * <ul>
  *   <li>Sum
  *   <li>Count
  *   <li>Distribution
  *   <li>LastValue
+ *   <li>Percentiles
  * </ul>
  *
  * <p>When creating a {@link View}, one {@link Aggregation} needs to be specified as how to
@@ -236,4 +240,95 @@ public abstract class Aggregation {
       return p3.apply(this);
     }
   }
+
+  /**
+   * Calculate the percentiles of aggregated {@code MeasureValue}s, without knowing their range
+   * ahead of time.
+   *
+   * <p>The values are kept in a quantile sketch, with buckets whose width grows exponentially with
+   * their values, so that the value at any percentile is estimated within a relative error of
+   * {@link #getRelativeAccuracy()}. The sketches of different time series and time intervals can be
+   * merged, and their size is bounded: when there are too many buckets, the ones with the lowest
+   * values are merged, which only affects the accuracy of the lowest percentiles.
+   *
+   * <p>Negative values are recorded as 0. The percentiles are exported as a {@code Summary}.
+   *
+   * @since 0.21
+   */
+  @Immutable
+  @AutoValue
+  public abstract static class Percentiles extends Aggregation {
+
+    /**
+     * The relative accuracy of a {@code Percentiles} that is created without one.
+     *
+     * @since 0.21
+     */
+    public static final double DEFAULT_RELATIVE_ACCURACY = 0.01;
+
+    Percentiles() {}
+
+    /**
+     * Construct a {@code Percentiles} with the {@link #DEFAULT_RELATIVE_ACCURACY}.
+     *
+     * @param percentiles the percentiles to export, each in the interval (0.0, 100.0].
+     * @return a new {@code Percentiles}.
+     * @since 0.21
+     */
+    public static Percentiles create(List<Double> percentiles) {
+      return create(percentiles, DEFAULT_RELATIVE_ACCURACY);
+    }
+
+    /**
+     * Construct a {@code Percentiles}.
+     *
+     * @param percentiles the percentiles to export, each in the interval (0.0, 100.0].
+     * @param relativeAccuracy the relative accuracy of the values at the percentiles, in the
+     *     interval (0.0, 1.0).
+     * @return a new {@code Percentiles}.
+     * @since 0.21
+     */
+    public static Percentiles create(List<Double> percentiles, double relativeAccuracy) {
+      Utils.checkNotNull(percentiles, "percentiles");
+      List<Double> percentilesCopy = new ArrayList<Double>(percentiles);
+      Utils.checkArgument(!percentilesCopy.isEmpty(), "percentiles should not be empty.");
+      for (Double percentile : percentilesCopy) {
+        Utils.checkNotNull(percentile, "percentile");
+        Utils.checkArgument(
+            0 < percentile && percentile <= 100.0,
+            "percentile must be in the interval (0.0, 100.0]");
+      }
+      Utils.checkArgument(
+          0 < relativeAccuracy && relativeAccuracy < 1.0,
+          "relativeAccuracy must be in the interval (0.0, 1.0)");
+      return new AutoValue_Aggregation_Percentiles(
+          Collections.unmodifiableList(percentilesCopy), relativeAccuracy);
+    }
+
+    /**
+     * Returns the percentiles to export.
+     *
+     * @return the percentiles to export.
+     * @since 0.21
+     */
+    public abstract List<Double> getPercentiles();
+
+    /**
+     * Returns the relative accuracy of the values at the percentiles.
+     *
+     * @return the relative accuracy of the values at the percentiles.
+     * @since 0.21
+     */
+    public abstract double getRelativeAccuracy();
+
+    @Override
+    public final <T> T match(
+        Function<? super Sum, T> p0,
+        Function<? super Count, T> p1,
+        Function<? super Distribution, T> p2,
+        Function<? super LastValue, T> p3,
+        Function<? super Aggregation, T> defaultFunction) {
+      return defaultFunction.apply(this);
+    }
+  }
 }
@@ -20,6 +20,7 @@ import com.google.auto.value.AutoValue;
 import io.opencensus.common.Function;
 import io.opencensus.internal.Utils;
 import io.opencensus.metrics.data.Exemplar;
+import io.opencensus.metrics.export.Summary.Snapshot.ValueAtPercentile;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -29,7 +30,7 @@ import javax.annotation.concurrent.Immutable;
  * {@link AggregationData} is the result of applying a given {@link Aggregation} to a set of {@code
  * MeasureValue}s.
  *
- * <p>{@link AggregationData} currently supports 6 types of basic aggregation values:
+ * <p>{@link AggregationData} currently supports 7 types of basic aggregation values:
  *
  * <ul>
  *   <li>SumDataDouble
@@ -38,6 +39,7 @@ import javax.annotation.concurrent.Immutable;
  *   <li>DistributionData
  *   <li>LastValueDataDouble
  *   <li>LastValueDataLong
+ *   <li>PercentilesData
  * </ul>
  *
  * <p>{@link ViewData} will contain one {@link AggregationData}, corresponding to its {@link
@@ -529,4 +531,72 @@ public abstract class AggregationData {
       return p5.apply(this);
     }
   }
+
+  /**
+   * The estimated percentiles of aggregated {@code MeasureValue}s.
+   *
+   * @since 0.21
+   */
+  @Immutable
+  @AutoValue
+  public abstract static class PercentilesData extends AggregationData {
+
+    PercentilesData() {}
+
+    /**
+     * Creates a {@code PercentilesData}.
+     *
+     * @param count the aggregated count.
+     * @param sum the aggregated sum.
+     * @param valueAtPercentiles the estimated values at the percentiles.
+     * @return a {@code PercentilesData}.
+     * @since 0.21
+     */
+    public static PercentilesData create(
+        long count, double sum, List<ValueAtPercentile> valueAtPercentiles) {
+      Utils.checkArgument(count >= 0, "count must be non-negative.");
+      Utils.checkListElementNotNull(
+          Utils.checkNotNull(valueAtPercentiles, "valueAtPercentiles"), "valueAtPercentile");
+      return new AutoValue_AggregationData_PercentilesData(
+          count,
+          sum,
+          Collections.unmodifiableList(new ArrayList<ValueAtPercentile>(valueAtPercentiles)));
+    }
+
+    /**
+     * Returns the aggregated count.
+     *
+     * @return the aggregated count.
+     * @since 0.21
+     */
+    public abstract long getCount();
+
+    /**
+     * Returns the aggregated sum.
+     *
+     * @return the aggregated sum.
+     * @since 0.21
+     */
+    public abstract double getSum();
+
+    /**
+     * Returns the estimated values at the percentiles.
+     *
+     * @return the estimated values at the percentiles.
+     * @since 0.21
+     */
+    public abstract List<ValueAtPercentile> getValueAtPercentiles();
+
+    @Override
+    public final <T> T match(
+        Function<? super SumDataDouble, T> p0,
+        Function<? super SumDataLong, T> p1,
+        Function<? super CountData, T> p2,
+        Function<? super DistributionData, T> p3,
+        Function<? super LastValueDataDouble, T> p4,
+        Function<? super LastValueDataLong, T> p5,
+        Function<? super AggregationData, T> defaultFunction) {
+      return defaultFunction.apply(this);
+    }
+  }
 }
@@ -17,6 +17,7 @@
 package io.opencensus.stats;
 
 import com.google.auto.value.AutoValue;
+import io.opencensus.common.Function;
 import io.opencensus.internal.Utils;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -28,6 +29,11 @@ import javax.annotation.concurrent.Immutable;
 /**
  * The bucket boundaries for a histogram.
  *
+ * <p>The boundaries can be given explicitly, or follow an {@link #exponential exponential} or a
+ * {@link #logLinear log-linear} layout. The {@link Layout} of the boundaries allows the
+ * implementation to find the bucket of a value without searching the boundaries, and exporters to
+ * use a more compact representation when the backend supports it.
+ *
  * @since 0.8
  */
 @Immutable
@@ -58,7 +64,70 @@ public abstract class BucketBoundaries {
       }
     }
     return new AutoValue_BucketBoundaries(
-        Collections.unmodifiableList(dropNegativeBucketBounds(bucketBoundariesCopy)));
+        Collections.unmodifiableList(dropNegativeBucketBounds(bucketBoundariesCopy)),
+        Layout.Explicit.create());
+  }
+
+  /**
+   * Returns a {@code BucketBoundaries} with exponentially growing buckets.
+   *
+   * <p>There are {@code numFiniteBuckets + 1} boundaries, {@code scale * growthFactor^i} for {@code
+   * i} in {@code [0, numFiniteBuckets]}. Together with the underflow and overflow buckets this
+   * defines {@code numFiniteBuckets + 2} buckets.
+   *
+   * @param numFiniteBuckets the number of finite buckets, must be positive.
+   * @param growthFactor the ratio between two consecutive boundaries, must be greater than 1.
+   * @param scale the first boundary, must be positive.
+   * @return a new {@code BucketBoundaries} with the specified layout.
+   * @throws IllegalArgumentException if any of the arguments is invalid, or if the last boundary is
+   *     not finite.
+   * @since 0.21
+   */
+  public static final BucketBoundaries exponential(
+      int numFiniteBuckets, double growthFactor, double scale) {
+    Layout.Exponential layout = Layout.Exponential.create(numFiniteBuckets, growthFactor, scale);
+    List<Double> boundaries = new ArrayList<Double>(numFiniteBuckets + 1);
+    for (int i = 0; i <= numFiniteBuckets; i++) {
+      boundaries.add(layout.getBoundary(i));
+    }
+    checkLastBoundaryIsFinite(boundaries);
+    return new AutoValue_BucketBoundaries(Collections.unmodifiableList(boundaries), layout);
+  }
+
+  /**
+   * Returns a {@code BucketBoundaries} with log-linear buckets, as used by HDR histograms.
+   *
+   * <p>Each power of two between {@code lowestBound} and {@code lowestBound * 2^numOctaves} (an
+   * octave) is split into {@code subBucketCount} buckets of equal width. This bounds the relative
+   * error of every bucket to {@code 1 / subBucketCount}, with far fewer buckets than an explicit
+   * list of boundaries with the same precision.
+   *
+   * <p>There are {@code numOctaves * subBucketCount + 1} boundaries, {@code lowestBound * 2^k * (1
+   * + j / subBucketCount)} for {@code k} in {@code [0, numOctaves)} and {@code j} in {@code [0,
+   * subBucketCount)}, followed by {@code lowestBound * 2^numOctaves}.
+   *
+   * @param lowestBound the first boundary, must be positive.
+   * @param numOctaves the number of powers of two covered by the buckets, must be positive.
+   * @param subBucketCount the number of buckets in each octave, must be positive.
+   * @return a new {@code BucketBoundaries} with the specified layout.
+   * @throws IllegalArgumentException if any of the arguments is invalid, or if the last boundary is
+   *     not finite.
+   * @since 0.21
+   */
+  public static final BucketBoundaries logLinear(
+      double lowestBound, int numOctaves, int subBucketCount) {
+    Layout.LogLinear layout = Layout.LogLinear.create(lowestBound, numOctaves, subBucketCount);
+    List<Double> boundaries = new ArrayList<Double>(numOctaves * subBucketCount + 1);
+    for (int i = 0; i <= numOctaves * subBucketCount; i++) {
+      boundaries.add(layout.getBoundary(i));
+    }
+    checkLastBoundaryIsFinite(boundaries);
+    return new AutoValue_BucketBoundaries(Collections.unmodifiableList(boundaries), layout);
+  }
+
+  private static void checkLastBoundaryIsFinite(List<Double> boundaries) {
+    Utils.checkArgument(
+        !Double.isInfinite(boundaries.get(boundaries.size() - 1)), "Bucket boundaries overflow.");
   }
 
   private static List<Double> dropNegativeBucketBounds(List<Double> bucketBoundaries) {
@@ -96,4 +165,192 @@ public abstract class BucketBoundaries {
    * @since 0.8
    */
   public abstract List<Double> getBoundaries();
+
+  /**
+   * Returns the {@link Layout} of the histogram bucket boundaries.
+   *
+   * @return the {@code Layout} of the histogram bucket boundaries.
+   * @since 0.21
+   */
+  public abstract Layout getLayout();
+
+  /**
+   * How the histogram bucket boundaries were defined.
+   *
+   * @since 0.21
+   */
+  @Immutable
+  public abstract static class Layout {
+
+    private Layout() {}
+
+    /**
+     * Applies the given match function to the underlying layout.
+     *
+     * @param explicitFunction the function that should be applied if the layout is {@link
+     *     Explicit}.
+     * @param exponentialFunction the function that should be applied if the layout is {@link
+     *     Exponential}.
+     * @param logLinearFunction the function that should be applied if the layout is {@link
+     *     LogLinear}.
+     * @param defaultFunction the function that should be applied if the layout has a type that was
+     *     added after this {@code match} method was added to the API. See {@link
+     *     io.opencensus.common.Functions} for some common functions for handling unknown types.
+     * @return the result of the function applied to the underlying layout.
+     * @since 0.21
+     */
+    public abstract <T> T match(
+        Function<? super Explicit, T> explicitFunction,
+        Function<? super Exponential, T> exponentialFunction,
+        Function<? super LogLinear, T> logLinearFunction,
+        Function<? super Layout, T> defaultFunction);
+
+    /**
+     * Boundaries given as an explicit list, see {@link BucketBoundaries#create(List)}.
+     *
+     * @since 0.21
+     */
+    @Immutable
+    @AutoValue
+    public abstract static class Explicit extends Layout {
+
+      Explicit() {}
+
+      private static final Explicit INSTANCE = new AutoValue_BucketBoundaries_Layout_Explicit();
+
+      private static Explicit create() {
+        return INSTANCE;
+      }
+
+      @Override
+      public final <T> T match(
+          Function<? super Explicit, T> explicitFunction,
+          Function<? super Exponential, T> exponentialFunction,
+          Function<? super LogLinear, T> logLinearFunction,
+          Function<? super Layout, T> defaultFunction) {
+        return explicitFunction.apply(this);
+      }
+    }
+
+    /**
+     * Exponentially growing boundaries, see {@link BucketBoundaries#exponential(int, double,
+     * double)}.
+     *
+     * @since 0.21
+     */
+    @Immutable
+    @AutoValue
+    public abstract static class Exponential extends Layout {
+
+      Exponential() {}
+
+      private static Exponential create(int numFiniteBuckets, double growthFactor, double scale) {
+        Utils.checkArgument(numFiniteBuckets > 0, "numFiniteBuckets should be positive.");
+        Utils.checkArgument(growthFactor > 1, "growthFactor should be greater than 1.");
+        Utils.checkArgument(scale > 0, "scale should be positive.");
+        return new AutoValue_BucketBoundaries_Layout_Exponential(
+            numFiniteBuckets, growthFactor, scale);
+      }
+
+      /**
+       * Returns the number of finite buckets.
+       *
+       * @return the number of finite buckets.
+       * @since 0.21
+       */
+      public abstract int getNumFiniteBuckets();
+
+      /**
+       * Returns the ratio between two consecutive boundaries.
+       *
+       * @return the ratio between two consecutive boundaries.
+       * @since 0.21
+       */
+      public abstract double getGrowthFactor();
+
+      /**
+       * Returns the first boundary.
+       *
+       * @return the first boundary.
+       * @since 0.21
+       */
+      public abstract double getScale();
+
+      // Returns the i-th boundary.
+      private double getBoundary(int i) {
+        return getScale() * Math.pow(getGrowthFactor(), i);
+      }
+
+      @Override
+      public final <T> T match(
+          Function<? super Explicit, T> explicitFunction,
+          Function<? super Exponential, T> exponentialFunction,
+          Function<? super LogLinear, T> logLinearFunction,
+          Function<? super Layout, T> defaultFunction) {
+        return exponentialFunction.apply(this);
+      }
+    }
+
+    /**
+     * Log-linear (HDR-style) boundaries, see {@link BucketBoundaries#logLinear(double, int, int)}.
+     *
+     * @since 0.21
+     */
+    @Immutable
+    @AutoValue
+    public abstract static class LogLinear extends Layout {
+
+      LogLinear() {}
+
+      private static LogLinear create(double lowestBound, int numOctaves, int subBucketCount) {
+        Utils.checkArgument(lowestBound > 0, "lowestBound should be positive.");
+        Utils.checkArgument(numOctaves > 0, "numOctaves should be positive.");
+        Utils.checkArgument(subBucketCount > 0, "subBucketCount should be positive.");
+        Utils.checkArgument(
+            (long) numOctaves * subBucketCount < Integer.MAX_VALUE, "Too many buckets.");
+        return new AutoValue_BucketBoundaries_Layout_LogLinear(
+            lowestBound, numOctaves, subBucketCount);
+      }
+
+      /**
+       * Returns the first boundary.
+       *
+       * @return the first boundary.
+       * @since 0.21
+       */
+      public abstract double getLowestBound();
+
+      /**
+       * Returns the number of powers of two covered by the buckets.
+       *
+       * @return the number of powers of two covered by the buckets.
+       * @since 0.21
+       */
+      public abstract int getNumOctaves();
+
+      /**
+       * Returns the number of buckets in each power of two.
+       *
+       * @return the number of buckets in each power of two.
+       * @since 0.21
+       */
+      public abstract int getSubBucketCount();
+
+      // Returns the i-th boundary.
+      private double getBoundary(int i) {
+        int subBucketCount = getSubBucketCount();
+        double octaveStart = Math.scalb(getLowestBound(), i / subBucketCount);
+        return octaveStart * (subBucketCount + i % subBucketCount) / subBucketCount;
+      }
+
+      @Override
+      public final <T> T match(
+          Function<? super Explicit, T> explicitFunction,
+          Function<? super Exponential, T> exponentialFunction,
+          Function<? super LogLinear, T> logLinearFunction,
+          Function<? super Layout, T> defaultFunction) {
+        return logLinearFunction.apply(this);
+      }
+    }
+  }
 }
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2017, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.stats;
+
+import io.opencensus.tags.TagContext;
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * A batch of {@link MeasureMap}s, each recorded with its own {@link TagContext}, that are recorded
+ * at the same time.
+ *
+ * <p>Recording a batch is cheaper than recording each of its {@code MeasureMap}s separately, e.g.
+ * for code that aggregates measurements locally and flushes them periodically:
+ *
+ * <pre>{@code
+ * MeasureBatch batch = statsRecorder.newMeasureBatch();
+ * batch.newMeasureMap().put(LATENCY_MS, 12.5).record(tagsForMethodA);
+ * batch.newMeasureMap().put(LATENCY_MS, 3.0).record(tagsForMethodB);
+ * batch.record();
+ * }</pre>
+ *
+ * @since 0.21
+ */
+@NotThreadSafe
+public abstract class MeasureBatch {
+
+  /**
+   * Returns a new {@link MeasureMap} that belongs to this batch. Calling {@link
+   * MeasureMap#record(TagContext)} or {@link MeasureMap#record()} on it adds its measurements, with
+   * the given or current {@link TagContext}, to this batch rather than recording them.
+   *
+   * <p>Implementations that don't support batching may record the measurements right away instead.
+   *
+   * @return a new {@code MeasureMap} that belongs to this batch.
+   * @since 0.21
+   */
+  public abstract MeasureMap newMeasureMap();
+
+  /**
+   * Records all of the measurements that were added to this batch, and removes them from it.
+   *
+   * @since 0.21
+   */
+  public abstract void record();
+}
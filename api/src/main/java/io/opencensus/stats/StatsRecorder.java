@@ -31,4 +31,34 @@ public abstract class StatsRecorder {
    * @since 0.8
    */
   public abstract MeasureMap newMeasureMap();
+
+  /**
+   * Returns an object for recording multiple {@link MeasureMap}s, with different tags, at the same
+   * time.
+   *
+   * @return an object for recording multiple {@code MeasureMap}s at the same time.
+   * @since 0.21
+   */
+  public MeasureBatch newMeasureBatch() {
+    // Provides a default implementation to avoid breaking other existing sub-classes.
+    return new UnbatchedMeasureBatch(this);
+  }
+
+  // A MeasureBatch that records every MeasureMap right away, for implementations that don't
+  // support batching.
+  private static final class UnbatchedMeasureBatch extends MeasureBatch {
+    private final StatsRecorder statsRecorder;
+
+    private UnbatchedMeasureBatch(StatsRecorder statsRecorder) {
+      this.statsRecorder = statsRecorder;
+    }
+
+    @Override
+    public MeasureMap newMeasureMap() {
+      return statsRecorder.newMeasureMap();
+    }
+
+    @Override
+    public void record() {}
+  }
 }
@@ -44,6 +44,14 @@ public abstract class View {
 
   @DefaultVisibilityForTesting static final int NAME_MAX_LENGTH = 255;
 
+  /**
+   * The value of {@link #getMaxTimeSeries()} for views that don't limit their number of time
+   * series.
+   *
+   * @since 0.21
+   */
+  public static final int UNLIMITED_TIME_SERIES = Integer.MAX_VALUE;
+
   private static final Comparator<TagKey> TAG_KEY_COMPARATOR =
       new Comparator<TagKey>() {
         @Override
@@ -102,6 +110,16 @@ public abstract class View {
   @Deprecated
   public abstract AggregationWindow getWindow();
 
+  /**
+   * Returns the maximum number of time series, i.e. distinct combinations of tag values, of this
+   * view. Once it is reached, measurements recorded with a new combination of tag values are
+   * aggregated into a single overflow time series instead.
+   *
+   * @return the maximum number of time series of this view, or {@link #UNLIMITED_TIME_SERIES}.
+   * @since 0.21
+   */
+  public abstract int getMaxTimeSeries();
+
   /**
    * Constructs a new {@link View}.
    *
@@ -130,7 +148,13 @@ public abstract class View {
     List<TagKey> tagKeys = new ArrayList<TagKey>(columns);
     Collections.sort(tagKeys, TAG_KEY_COMPARATOR);
     return new AutoValue_View(
-        name, description, measure, aggregation, Collections.unmodifiableList(tagKeys), window);
+        name,
+        description,
+        measure,
+        aggregation,
+        Collections.unmodifiableList(tagKeys),
+        window,
+        UNLIMITED_TIME_SERIES);
   }
 
   /**
@@ -157,6 +181,42 @@ public abstract class View {
         name, description, measure, aggregation, columns, AggregationWindow.Cumulative.create());
   }
 
+  /**
+   * Constructs a new {@link View} that aggregates at most {@code maxTimeSeries} time series.
+   *
+   * <p>This bounds the memory used by the view, and the size of its exported data, when one of the
+   * columns has an unexpectedly high cardinality. Once the limit is reached, measurements recorded
+   * with a new combination of tag values are aggregated into a single overflow time series.
+   *
+   * @param name the {@link Name} of view. Must be unique.
+   * @param description the description of view.
+   * @param measure the {@link Measure} to be aggregated by this view.
+   * @param aggregation the basic {@link Aggregation} that this view will support.
+   * @param columns the {@link TagKey}s that this view will aggregate on. Columns should not contain
+   *     duplicates.
+   * @param maxTimeSeries the maximum number of time series of the view. Must be positive.
+   * @return a new {@link View}.
+   * @since 0.21
+   */
+  public static View create(
+      Name name,
+      String description,
+      Measure measure,
+      Aggregation aggregation,
+      List<TagKey> columns,
+      int maxTimeSeries) {
+    Utils.checkArgument(maxTimeSeries > 0, "maxTimeSeries should be positive.");
+    View view = create(name, description, measure, aggregation, columns);
+    return new AutoValue_View(
+        view.getName(),
+        view.getDescription(),
+        view.getMeasure(),
+        view.getAggregation(),
+        view.getColumns(),
+        view.getWindow(),
+        maxTimeSeries);
+  }
+
   /**
    * The name of a {@code View}.
    *
@@ -269,6 +329,13 @@ public abstract class View {
 
       private static final Duration ZERO = Duration.create(0, 0);
 
+      /**
+       * The number of buckets of an {@code Interval} that is created without one.
+       *
+       * @since 0.21
+       */
+      public static final int DEFAULT_NUM_BUCKETS = 4;
+
       Interval() {}
 
       /**
@@ -279,6 +346,16 @@ public abstract class View {
        */
       public abstract Duration getDuration();
 
+      /**
+       * Returns the number of buckets that the {@code Duration} of this {@code Interval} is divided
+       * into. The interval slides forward by one bucket at a time, and the stats of the oldest
+       * bucket expire proportionally to the time that has passed in the current bucket.
+       *
+       * @return the number of buckets.
+       * @since 0.21
+       */
+      public abstract int getNumBuckets();
+
       /**
        * Constructs an interval {@code AggregationWindow} that has a finite explicit {@code
        * Duration}.
@@ -291,7 +368,27 @@ public abstract class View {
        */
       public static Interval create(Duration duration) {
         Utils.checkArgument(duration.compareTo(ZERO) > 0, "Duration must be positive");
-        return new AutoValue_View_AggregationWindow_Interval(duration);
+        return new AutoValue_View_AggregationWindow_Interval(duration, DEFAULT_NUM_BUCKETS);
+      }
+
+      /**
+       * Constructs an interval {@code AggregationWindow} that has a finite explicit {@code
+       * Duration}, divided into the given number of buckets. More buckets make the interval slide
+       * in smaller steps, at the cost of more memory per time series.
+       *
+       * <p>Each bucket should last at least one millisecond.
+       *
+       * @param duration the {@code Duration} of the interval.
+       * @param numBuckets the number of buckets.
+       * @return an interval {@code AggregationWindow}.
+       * @since 0.21
+       */
+      public static Interval create(Duration duration, int numBuckets) {
+        Utils.checkArgument(duration.compareTo(ZERO) > 0, "Duration must be positive");
+        Utils.checkArgument(numBuckets > 0, "Number of buckets must be positive");
+        Utils.checkArgument(
+            duration.toMillis() >= numBuckets, "Each bucket should last at least 1 millisecond");
+        return new AutoValue_View_AggregationWindow_Interval(duration, numBuckets);
       }
 
       @Override
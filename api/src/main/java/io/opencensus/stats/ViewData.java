@@ -323,6 +323,13 @@ public abstract class ViewData {
                   aggregationData);
               return null;
             }
+            if (arg instanceof Aggregation.Percentiles) {
+              throwIfAggregationMismatch(
+                  aggregationData instanceof AggregationData.PercentilesData,
+                  aggregation,
+                  aggregationData);
+              return null;
+            }
             throw new AssertionError();
           }
         });
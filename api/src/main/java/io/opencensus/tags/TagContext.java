@@ -91,8 +91,12 @@ public abstract class TagContext {
     return tags.isEmpty();
   }
 
+  /**
+   * Returns the sum of the hash codes of the tags. Implementations are free to override this method
+   * to provide better performance, e.g. by caching the hash code, but must return the same value.
+   */
   @Override
-  public final int hashCode() {
+  public int hashCode() {
     int hashCode = 0;
     Iterator<Tag> i = getIterator();
     if (i == null) {
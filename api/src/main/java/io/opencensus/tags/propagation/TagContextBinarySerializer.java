@@ -16,10 +16,12 @@
 
 package io.opencensus.tags.propagation;
 
+import io.opencensus.internal.Utils;
 import io.opencensus.tags.Tag;
 import io.opencensus.tags.TagContext;
 import io.opencensus.tags.TagMetadata;
 import io.opencensus.tags.TagMetadata.TagTtl;
+import java.nio.ByteBuffer;
 
 /**
  * Object for serializing and deserializing {@link TagContext}s with the binary format.
@@ -60,4 +62,92 @@ public abstract class TagContextBinarySerializer {
    * @since 0.8
    */
   public abstract TagContext fromByteArray(byte[] bytes) throws TagContextDeserializationException;
+
+  /**
+   * Returns the number of bytes of the on-the-wire representation of the {@code TagContext}, i.e.,
+   * the length of the array returned by {@link #toByteArray} or the number of bytes written by
+   * {@link #writeTo}.
+   *
+   * @param tags the {@code TagContext} to serialize.
+   * @return the number of bytes of the on-the-wire representation of a {@code TagContext}.
+   * @throws TagContextSerializationException if the result would be larger than the maximum allowed
+   *     serialized size.
+   * @since 0.21
+   */
+  public int getSerializedSize(TagContext tags) throws TagContextSerializationException {
+    // Provides a default implementation to avoid breaking other existing sub-classes.
+    return toByteArray(tags).length;
+  }
+
+  /**
+   * Serializes the {@code TagContext} into the given buffer, starting at its current position, and
+   * advances the position of the buffer past the written bytes. The bytes are the same as the ones
+   * returned by {@link #toByteArray}.
+   *
+   * <p>This method should be the inverse of {@link #fromByteBuffer}.
+   *
+   * @param tags the {@code TagContext} to serialize.
+   * @param buffer the buffer to write the on-the-wire representation of the {@code TagContext} to.
+   * @throws TagContextSerializationException if the result would be larger than the maximum allowed
+   *     serialized size, or than the remaining space of the buffer. The buffer is not modified in
+   *     that case.
+   * @since 0.21
+   */
+  public void writeTo(TagContext tags, ByteBuffer buffer) throws TagContextSerializationException {
+    // Provides a default implementation to avoid breaking other existing sub-classes.
+    Utils.checkNotNull(buffer, "buffer");
+    byte[] bytes = toByteArray(tags);
+    if (bytes.length > buffer.remaining()) {
+      throw new TagContextSerializationException(
+          "Buffer too small: " + bytes.length + " bytes needed, " + buffer.remaining() + " left.");
+    }
+    buffer.put(bytes);
+  }
+
+  /**
+   * Creates a {@code TagContext} from the on-the-wire encoded representation between the given
+   * offset and length of the array.
+   *
+   * @param bytes the array that contains the on-the-wire representation of a {@code TagContext}.
+   * @param offset the index of the first byte of the representation in {@code bytes}.
+   * @param length the number of bytes of the representation.
+   * @return a {@code TagContext} deserialized from {@code bytes}.
+   * @throws IndexOutOfBoundsException if {@code offset} and {@code length} are out of the bounds of
+   *     {@code bytes}.
+   * @throws TagContextDeserializationException if there is a parse error, the input contains
+   *     invalid tags, or the input is larger than the maximum allowed serialized size.
+   * @since 0.21
+   */
+  public TagContext fromByteArray(byte[] bytes, int offset, int length)
+      throws TagContextDeserializationException {
+    // Provides a default implementation to avoid breaking other existing sub-classes.
+    Utils.checkNotNull(bytes, "bytes");
+    if (offset < 0 || length < 0 || offset > bytes.length - length) {
+      throw new IndexOutOfBoundsException(
+          "offset=" + offset + ", length=" + length + ", array length=" + bytes.length);
+    }
+    byte[] copy = new byte[length];
+    System.arraycopy(bytes, offset, copy, 0, length);
+    return fromByteArray(copy);
+  }
+
+  /**
+   * Creates a {@code TagContext} from the on-the-wire encoded representation between the current
+   * position and the limit of the buffer, and advances the position of the buffer to its limit.
+   *
+   * <p>This method should be the inverse of {@link #writeTo}.
+   *
+   * @param buffer the buffer that contains the on-the-wire representation of a {@code TagContext}.
+   * @return a {@code TagContext} deserialized from {@code buffer}.
+   * @throws TagContextDeserializationException if there is a parse error, the input contains
+   *     invalid tags, or the input is larger than the maximum allowed serialized size.
+   * @since 0.21
+   */
+  public TagContext fromByteBuffer(ByteBuffer buffer) throws TagContextDeserializationException {
+    // Provides a default implementation to avoid breaking other existing sub-classes.
+    Utils.checkNotNull(buffer, "buffer");
+    byte[] bytes = new byte[buffer.remaining()];
+    buffer.get(bytes);
+    return fromByteArray(bytes);
+  }
 }
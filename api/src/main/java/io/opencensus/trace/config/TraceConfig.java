@@ -16,6 +16,10 @@
 
 package io.opencensus.trace.config;
 
+import io.opencensus.internal.Utils;
+import java.util.Collections;
+import java.util.Map;
+
 /**
  * Global configuration of the trace service. This allows users to change configs for the default
  * sampler, maximum events to be kept, etc. (see {@link TraceParams} for details).
@@ -41,6 +45,61 @@ public abstract class TraceConfig {
    */
   public abstract void updateActiveTraceParams(TraceParams traceParams);
 
+  /**
+   * Returns the {@code TraceParams} to use for a {@code Span} with the given name. These are the
+   * {@code TraceParams} registered for the longest prefix of the name, or the active {@code
+   * TraceParams} if no registered prefix matches the name.
+   *
+   * @param spanName the name of the {@code Span}.
+   * @return the {@code TraceParams} to use for a {@code Span} with the given name.
+   * @since 0.21
+   */
+  public TraceParams getActiveTraceParams(String spanName) {
+    // Provides a default implementation to avoid breaking other existing sub-classes.
+    Utils.checkNotNull(spanName, "spanName");
+    return getActiveTraceParams();
+  }
+
+  /**
+   * Returns the {@code TraceParams} registered for span name prefixes.
+   *
+   * @return an unmodifiable map from the span name prefixes to their {@code TraceParams}.
+   * @since 0.21
+   */
+  public Map<String, TraceParams> getSpanNamePrefixTraceParams() {
+    // Provides a default implementation to avoid breaking other existing sub-classes.
+    return Collections.<String, TraceParams>emptyMap();
+  }
+
+  /**
+   * Registers the {@code TraceParams}, including the {@code Sampler}, to use for the {@code Span}s
+   * whose name starts with the given prefix, instead of the active {@code TraceParams}. Replaces
+   * the {@code TraceParams} previously registered for the same prefix.
+   *
+   * <p>This allows, for example, to sample the frequent and cheap health check spans less often
+   * than the other spans.
+   *
+   * @param spanNamePrefix the prefix of the span names.
+   * @param traceParams the {@code TraceParams} to use for the matching {@code Span}s.
+   * @since 0.21
+   */
+  public void updateSpanNamePrefixTraceParams(String spanNamePrefix, TraceParams traceParams) {
+    // Provides a default implementation to avoid breaking other existing sub-classes.
+    Utils.checkNotNull(spanNamePrefix, "spanNamePrefix");
+    Utils.checkNotNull(traceParams, "traceParams");
+  }
+
+  /**
+   * Removes the {@code TraceParams} registered for the given span name prefix, if any.
+   *
+   * @param spanNamePrefix the prefix of the span names.
+   * @since 0.21
+   */
+  public void removeSpanNamePrefixTraceParams(String spanNamePrefix) {
+    // Provides a default implementation to avoid breaking other existing sub-classes.
+    Utils.checkNotNull(spanNamePrefix, "spanNamePrefix");
+  }
+
   /**
    * Returns the no-op implementation of the {@code TraceConfig}.
    *
@@ -0,0 +1,305 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.trace.samplers;
+
+import io.opencensus.common.Clock;
+import io.opencensus.common.Timestamp;
+import io.opencensus.common.ToDoubleFunction;
+import io.opencensus.internal.DefaultVisibilityForTesting;
+import io.opencensus.internal.Utils;
+import io.opencensus.metrics.DerivedDoubleGauge;
+import io.opencensus.metrics.LabelKey;
+import io.opencensus.metrics.LabelValue;
+import io.opencensus.metrics.MetricOptions;
+import io.opencensus.metrics.Metrics;
+import io.opencensus.trace.Sampler;
+import io.opencensus.trace.Span;
+import io.opencensus.trace.SpanContext;
+import io.opencensus.trace.SpanId;
+import io.opencensus.trace.TraceId;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * A {@link Sampler} that samples at most a given number of traces per second, for the whole process
+ * or for each span name.
+ *
+ * <p>Root spans are sampled with a probability that is updated every second from the exponentially
+ * smoothed rate of the sampling decisions, so that the sampled traces are spread over time. A token
+ * bucket, that allows a burst of one second of traces, enforces the limit while the probability
+ * adapts to an increase of the traffic. Neither of them takes a lock.
+ *
+ * <p>The smoothed rate of the sampled traces is exported as the {@code
+ * opencensus.io/trace/sampler/effective_rate} gauge, labeled with the description of the sampler.
+ */
+@ThreadSafe
+final class RateLimitingSampler extends Sampler {
+
+  // The sampling decisions are counted over windows of this length.
+  private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+  // The weight of the last window in the smoothed rates.
+  private static final double SMOOTHING_FACTOR = 0.5;
+  // The maximum number of span names with their own limit, to bound the memory of the sampler.
+  // The traces of other span names share a single limit.
+  static final int MAX_SPAN_NAMES = 1000;
+
+  private static final String EFFECTIVE_RATE_NAME = "opencensus.io/trace/sampler/effective_rate";
+  private static final LabelKey SAMPLER = LabelKey.create("sampler", "The sampler description.");
+
+  private static final ToDoubleFunction<RateLimitingSampler> EFFECTIVE_RATE =
+      new ToDoubleFunction<RateLimitingSampler>() {
+        @Override
+        public double applyAsDouble(RateLimitingSampler sampler) {
+          return sampler.getEffectiveRate();
+        }
+      };
+
+  private final double maxTracesPerSecond;
+  private final Clock clock;
+  // The limit of the whole process, or of the span names above MAX_SPAN_NAMES.
+  private final RateLimiter processLimiter;
+  // The limit of each span name, or null if the limit is for the whole process.
+  @Nullable private final ConcurrentMap<String, RateLimiter> spanNameLimiters;
+  private final SmoothedRate sampledTraces;
+
+  private RateLimitingSampler(double maxTracesPerSecond, boolean perSpanName, Clock clock) {
+    this.maxTracesPerSecond = maxTracesPerSecond;
+    this.clock = clock;
+    long nowNanos = clock.nowNanos();
+    processLimiter = new RateLimiter(maxTracesPerSecond, nowNanos);
+    spanNameLimiters = perSpanName ? new ConcurrentHashMap<String, RateLimiter>() : null;
+    sampledTraces = new SmoothedRate(nowNanos);
+  }
+
+  /**
+   * Returns a new {@link RateLimitingSampler}, and exports its effective rate.
+   *
+   * @param maxTracesPerSecond the maximum number of sampled traces per second. Must be positive.
+   * @param perSpanName whether the limit applies to each span name rather than to the process.
+   * @return a new {@link RateLimitingSampler}.
+   * @throws IllegalArgumentException if {@code maxTracesPerSecond} is not positive.
+   */
+  static RateLimitingSampler create(double maxTracesPerSecond, boolean perSpanName) {
+    RateLimitingSampler sampler = create(maxTracesPerSecond, perSpanName, SystemClock.INSTANCE);
+    EffectiveRateGauge.export(sampler);
+    return sampler;
+  }
+
+  @DefaultVisibilityForTesting
+  static RateLimitingSampler create(double maxTracesPerSecond, boolean perSpanName, Clock clock) {
+    Utils.checkArgument(maxTracesPerSecond > 0, "maxTracesPerSecond must be positive");
+    return new RateLimitingSampler(maxTracesPerSecond, perSpanName, clock);
+  }
+
+  @Override
+  public boolean shouldSample(
+      @Nullable SpanContext parentContext,
+      @Nullable Boolean hasRemoteParent,
+      TraceId traceId,
+      SpanId spanId,
+      String name,
+      @Nullable List<Span> parentLinks) {
+    // If the parent is sampled keep the sampling decision, the limit only applies to new traces.
+    if (parentContext != null && parentContext.getTraceOptions().isSampled()) {
+      return true;
+    }
+    if (parentLinks != null) {
+      // If any parent link is sampled keep the sampling decision.
+      for (Span parentLink : parentLinks) {
+        if (parentLink.getContext().getTraceOptions().isSampled()) {
+          return true;
+        }
+      }
+    }
+    long nowNanos = clock.nowNanos();
+    if (!getRateLimiter(name, nowNanos).shouldSample(traceId, nowNanos)) {
+      return false;
+    }
+    sampledTraces.add(nowNanos);
+    return true;
+  }
+
+  private RateLimiter getRateLimiter(String name, long nowNanos) {
+    if (spanNameLimiters == null) {
+      return processLimiter;
+    }
+    RateLimiter limiter = spanNameLimiters.get(name);
+    if (limiter == null) {
+      // The size is only checked before adding a limiter, so it may go slightly above the maximum.
+      if (spanNameLimiters.size() >= MAX_SPAN_NAMES) {
+        return processLimiter;
+      }
+      limiter = new RateLimiter(maxTracesPerSecond, nowNanos);
+      RateLimiter existing = spanNameLimiters.putIfAbsent(name, limiter);
+      if (existing != null) {
+        limiter = existing;
+      }
+    }
+    return limiter;
+  }
+
+  /**
+   * Returns the exponentially smoothed number of traces sampled per second.
+   *
+   * @return the exponentially smoothed number of traces sampled per second.
+   */
+  double getEffectiveRate() {
+    return sampledTraces.get(clock.nowNanos());
+  }
+
+  @Override
+  public String getDescription() {
+    return String.format(
+        "RateLimitingSampler{%.6f%s}",
+        maxTracesPerSecond, spanNameLimiters == null ? "" : ", perSpanName");
+  }
+
+  @Override
+  public String toString() {
+    return getDescription();
+  }
+
+  // Samples at most a given number of traces per second.
+  private static final class RateLimiter {
+    private final double maxTracesPerSecond;
+    // The time needed to get a new token in the bucket.
+    private final long nanosPerToken;
+    // The time needed to fill the bucket.
+    private final long burstNanos;
+    // The time at which the bucket will be full, if no token is taken before. The bucket has
+    // (burstNanos - (theoreticalFullNanos - now)) / nanosPerToken tokens available.
+    private final AtomicLong theoreticalFullNanos;
+    private final SmoothedRate decisions;
+    // The sampling probability, which is updated after every window of decisions.
+    private volatile ProbabilitySampler probabilitySampler = ProbabilitySampler.create(1.0);
+
+    private RateLimiter(double maxTracesPerSecond, long nowNanos) {
+      this.maxTracesPerSecond = maxTracesPerSecond;
+      nanosPerToken = (long) (TimeUnit.SECONDS.toNanos(1) / maxTracesPerSecond);
+      burstNanos = Math.max(nanosPerToken, WINDOW_NANOS);
+      theoreticalFullNanos = new AtomicLong(nowNanos);
+      decisions = new SmoothedRate(nowNanos);
+    }
+
+    private boolean shouldSample(TraceId traceId, long nowNanos) {
+      if (decisions.add(nowNanos)) {
+        double decisionRate = decisions.get(nowNanos);
+        probabilitySampler =
+            ProbabilitySampler.create(
+                decisionRate <= maxTracesPerSecond ? 1.0 : maxTracesPerSecond / decisionRate);
+      }
+      return Math.abs(traceId.getLowerLong()) < probabilitySampler.getIdUpperBound()
+          && tryAcquireToken(nowNanos);
+    }
+
+    private boolean tryAcquireToken(long nowNanos) {
+      while (true) {
+        long fullNanos = theoreticalFullNanos.get();
+        long newFullNanos = Math.max(fullNanos, nowNanos) + nanosPerToken;
+        if (newFullNanos - nowNanos > burstNanos) {
+          // The bucket is empty.
+          return false;
+        }
+        if (theoreticalFullNanos.compareAndSet(fullNanos, newFullNanos)) {
+          return true;
+        }
+      }
+    }
+  }
+
+  // An exponentially smoothed rate of events per second, which is updated after every window.
+  private static final class SmoothedRate {
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong windowStartNanos;
+    // Negative until the end of the first window.
+    private volatile double rate = -1;
+
+    private SmoothedRate(long nowNanos) {
+      windowStartNanos = new AtomicLong(nowNanos);
+    }
+
+    // Adds an event, and returns true if the rate was updated.
+    private boolean add(long nowNanos) {
+      boolean updated = maybeUpdate(nowNanos);
+      count.incrementAndGet();
+      return updated;
+    }
+
+    private double get(long nowNanos) {
+      maybeUpdate(nowNanos);
+      return Math.max(rate, 0);
+    }
+
+    // Only the thread that ends the window updates the rate. The events that are added
+    // concurrently are counted in the next window.
+    private boolean maybeUpdate(long nowNanos) {
+      long startNanos = windowStartNanos.get();
+      long elapsedNanos = nowNanos - startNanos;
+      if (elapsedNanos < WINDOW_NANOS || !windowStartNanos.compareAndSet(startNanos, nowNanos)) {
+        return false;
+      }
+      double windowRate = count.getAndSet(0) * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+      double previousRate = rate;
+      rate =
+          previousRate < 0
+              ? windowRate
+              : SMOOTHING_FACTOR * windowRate + (1 - SMOOTHING_FACTOR) * previousRate;
+      return true;
+    }
+  }
+
+  // Holds the gauge, which is only created when a sampler is exported.
+  private static final class EffectiveRateGauge {
+    private static final DerivedDoubleGauge INSTANCE =
+        Metrics.getMetricRegistry()
+            .addDerivedDoubleGauge(
+                EFFECTIVE_RATE_NAME,
+                MetricOptions.builder()
+                    .setDescription("Smoothed number of traces sampled per second")
+                    .setUnit("1/s")
+                    .setLabelKeys(Collections.singletonList(SAMPLER))
+                    .build());
+
+    // Replaces the time series of any previous sampler with the same description.
+    private static synchronized void export(RateLimitingSampler sampler) {
+      List<LabelValue> labelValues =
+          Collections.singletonList(LabelValue.create(sampler.getDescription()));
+      INSTANCE.removeTimeSeries(labelValues);
+      INSTANCE.createTimeSeries(labelValues, sampler, EFFECTIVE_RATE);
+    }
+  }
+
+  private static final class SystemClock extends Clock {
+    private static final SystemClock INSTANCE = new SystemClock();
+
+    @Override
+    public Timestamp now() {
+      return Timestamp.fromMillis(System.currentTimeMillis());
+    }
+
+    @Override
+    public long nowNanos() {
+      return System.nanoTime();
+    }
+  }
+}
@@ -62,4 +62,39 @@ public final class Samplers {
   public static Sampler probabilitySampler(double probability) {
     return ProbabilitySampler.create(probability);
   }
+
+  /**
+   * Returns a {@link Sampler} that samples at most the given number of new traces per second in the
+   * process. The sampling probability adapts to the traffic, so that the sampled traces are spread
+   * over time. Spans with a sampled parent are always sampled.
+   *
+   * <p>The smoothed number of traces sampled per second is exported as a gauge, see {@link
+   * io.opencensus.metrics.Metrics#getMetricRegistry()}.
+   *
+   * @param maxTracesPerSecond the maximum number of sampled traces per second. Must be positive.
+   * @return a {@code Sampler} that samples at most the given number of traces per second.
+   * @throws IllegalArgumentException if {@code maxTracesPerSecond} is not positive.
+   * @since 0.21
+   */
+  public static Sampler rateLimitingSampler(double maxTracesPerSecond) {
+    return RateLimitingSampler.create(maxTracesPerSecond, /*perSpanName=*/ false);
+  }
+
+  /**
+   * Returns a {@link Sampler} that samples at most the given number of new traces per second for
+   * each span name, like {@link #rateLimitingSampler(double)}.
+   *
+   * <p>The number of span names with their own limit is bounded, the traces of the other span names
+   * share a single limit.
+   *
+   * @param maxTracesPerSecond the maximum number of sampled traces per second for each span name.
+   *     Must be positive.
+   * @return a {@code Sampler} that samples at most the given number of traces per second for each
+   *     span name.
+   * @throws IllegalArgumentException if {@code maxTracesPerSecond} is not positive.
+   * @since 0.21
+   */
+  public static Sampler perSpanNameRateLimitingSampler(double maxTracesPerSecond) {
+    return RateLimitingSampler.create(maxTracesPerSecond, /*perSpanName=*/ true);
+  }
 }
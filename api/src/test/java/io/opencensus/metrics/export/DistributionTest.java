@@ -28,6 +28,7 @@ import io.opencensus.metrics.data.Exemplar;
 import io.opencensus.metrics.export.Distribution.Bucket;
 import io.opencensus.metrics.export.Distribution.BucketOptions;
 import io.opencensus.metrics.export.Distribution.BucketOptions.ExplicitOptions;
+import io.opencensus.metrics.export.Distribution.BucketOptions.ExponentialOptions;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -133,6 +134,44 @@ public class DistributionTest {
     assertThat(actual).isEmpty();
   }
 
+  @Test
+  public void createAndGet_ExponentialBuckets() {
+    BucketOptions bucketOptions = BucketOptions.exponentialOptions(3, 2.0, 0.5);
+    ExponentialOptions exponentialOptions =
+        bucketOptions.match(
+            Functions.<ExponentialOptions>throwAssertionError(),
+            new Function<ExponentialOptions, ExponentialOptions>() {
+              @Override
+              public ExponentialOptions apply(ExponentialOptions arg) {
+                return arg;
+              }
+            },
+            Functions.<ExponentialOptions>throwAssertionError());
+    assertThat(exponentialOptions.getNumFiniteBuckets()).isEqualTo(3);
+    assertThat(exponentialOptions.getGrowthFactor()).isEqualTo(2.0);
+    assertThat(exponentialOptions.getScale()).isEqualTo(0.5);
+    assertThat(exponentialOptions.getBucketBoundaries())
+        .containsExactly(0.5, 1.0, 2.0, 4.0)
+        .inOrder();
+  }
+
+  @Test
+  public void exponentialBuckets_MatchDefaultFunction() {
+    BucketOptions bucketOptions = BucketOptions.exponentialOptions(3, 2.0, 0.5);
+    assertThat(
+            bucketOptions.match(
+                Functions.<String>throwAssertionError(),
+                Functions.<String>returnConstant("default")))
+        .isEqualTo("default");
+  }
+
+  @Test
+  public void createExponentialBuckets_InvalidGrowthFactor() {
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("growthFactor should be greater than 1.");
+    BucketOptions.exponentialOptions(3, 0.5, 1.0);
+  }
+
   @Test
   public void createBucketOptions_UnorderedBucketBounds() {
     List<Double> bucketBounds = Arrays.asList(1.0, 5.0, 2.0);
@@ -176,6 +215,91 @@ public class DistributionTest {
     assertThat(actual).containsExactlyElementsIn(bucketBounds).inOrder();
 
     assertThat(distribution.getBuckets()).containsExactlyElementsIn(buckets).inOrder();
+    assertThat(distribution.getBucketCount(3)).isEqualTo(4);
+    assertThat(distribution.getBucketExemplar(0)).isNull();
+    assertThat(distribution.getBucketExemplar(3)).isEqualTo(exemplar);
+  }
+
+  @Test
+  public void createFromBucketCountsAndGet_Distribution() {
+    Exemplar exemplar = Exemplar.create(15.0, TIMESTAMP, ATTACHMENTS);
+    BucketOptions bucketOptions = BucketOptions.explicitOptions(Arrays.asList(1.0, 2.0, 5.0));
+    long[] bucketCounts = new long[] {3, 1, 2, 4};
+    Exemplar[] exemplars = new Exemplar[] {null, null, null, exemplar};
+    Distribution distribution =
+        Distribution.createFromBucketCounts(
+            10, 6.6, 678.54, bucketOptions, bucketCounts, exemplars);
+    // The arrays are copied.
+    bucketCounts[0] = 5;
+    exemplars[0] = exemplar;
+    assertThat(distribution.getCount()).isEqualTo(10);
+    assertThat(distribution.getSum()).isWithin(TOLERANCE).of(6.6);
+    assertThat(distribution.getSumOfSquaredDeviations()).isWithin(TOLERANCE).of(678.54);
+    assertThat(distribution.getBucketOptions()).isEqualTo(bucketOptions);
+    assertThat(distribution.getBuckets())
+        .containsExactly(
+            Bucket.create(3), Bucket.create(1), Bucket.create(2), Bucket.create(4, exemplar))
+        .inOrder();
+    assertThat(distribution.getBucketCount(0)).isEqualTo(3);
+    assertThat(distribution.getBucketCount(3)).isEqualTo(4);
+    assertThat(distribution.getBucketExemplar(0)).isNull();
+    assertThat(distribution.getBucketExemplar(3)).isEqualTo(exemplar);
+  }
+
+  @Test
+  public void createFromBucketCounts_NoExemplars() {
+    Distribution distribution =
+        Distribution.createFromBucketCounts(
+            3,
+            6.6,
+            678.54,
+            BucketOptions.explicitOptions(Arrays.asList(1.0)),
+            new long[] {1, 2},
+            null);
+    assertThat(distribution.getBuckets())
+        .containsExactly(Bucket.create(1), Bucket.create(2))
+        .inOrder();
+    assertThat(distribution.getBucketExemplar(1)).isNull();
+  }
+
+  @Test
+  public void createFromBucketCounts_NegativeBucketCount() {
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("bucket count should be non-negative.");
+    Distribution.createFromBucketCounts(
+        3,
+        6.6,
+        678.54,
+        BucketOptions.explicitOptions(Arrays.asList(1.0)),
+        new long[] {4, -1},
+        null);
+  }
+
+  @Test
+  public void createFromBucketCounts_ExemplarsLengthMismatch() {
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("exemplars should have the same length as bucketCounts.");
+    Distribution.createFromBucketCounts(
+        3,
+        6.6,
+        678.54,
+        BucketOptions.explicitOptions(Arrays.asList(1.0)),
+        new long[] {1, 2},
+        new Exemplar[1]);
+  }
+
+  @Test
+  public void getBucketCount_IndexOutOfBounds() {
+    Distribution distribution =
+        Distribution.createFromBucketCounts(
+            3,
+            6.6,
+            678.54,
+            BucketOptions.explicitOptions(Arrays.asList(1.0)),
+            new long[] {1, 2},
+            null);
+    thrown.expect(IndexOutOfBoundsException.class);
+    distribution.getBucketCount(2);
   }
 
   @Test
@@ -321,7 +445,14 @@ public class DistributionTest {
                 1,
                 BucketOptions.explicitOptions(bucketBounds),
                 Arrays.asList(
-                    Bucket.create(3), Bucket.create(1), Bucket.create(2), Bucket.create(4))))
+                    Bucket.create(3), Bucket.create(1), Bucket.create(2), Bucket.create(4))),
+            Distribution.createFromBucketCounts(
+                10,
+                10,
+                1,
+                BucketOptions.explicitOptions(bucketBounds),
+                new long[] {3, 1, 2, 4},
+                null))
         .addEqualityGroup(
             Distribution.create(
                 7,
@@ -25,11 +25,13 @@ import io.opencensus.common.Timestamp;
 import io.opencensus.metrics.data.AttachmentValue;
 import io.opencensus.metrics.data.AttachmentValue.AttachmentValueString;
 import io.opencensus.metrics.data.Exemplar;
+import io.opencensus.metrics.export.Summary.Snapshot.ValueAtPercentile;
 import io.opencensus.stats.AggregationData.CountData;
 import io.opencensus.stats.AggregationData.DistributionData;
 import io.opencensus.stats.AggregationData.LastValueDataDouble;
 import io.opencensus.stats.AggregationData.LastValueDataLong;
 import io.opencensus.stats.AggregationData.MeanData;
+import io.opencensus.stats.AggregationData.PercentilesData;
 import io.opencensus.stats.AggregationData.SumDataDouble;
 import io.opencensus.stats.AggregationData.SumDataLong;
 import java.util.ArrayList;
@@ -105,6 +107,30 @@ public class AggregationDataTest {
         1, 1, 0, Arrays.asList(0L, 1L, 1L), Collections.<Exemplar>singletonList(null));
   }
 
+  @Test
+  public void testCreatePercentilesData() {
+    PercentilesData percentilesData =
+        PercentilesData.create(3, 60.0, Arrays.asList(ValueAtPercentile.create(50.0, 20.0)));
+    assertThat(percentilesData.getCount()).isEqualTo(3);
+    assertThat(percentilesData.getSum()).isWithin(TOLERANCE).of(60.0);
+    assertThat(percentilesData.getValueAtPercentiles())
+        .containsExactly(ValueAtPercentile.create(50.0, 20.0));
+  }
+
+  @Test
+  public void preventNegativePercentilesDataCount() {
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("count must be non-negative.");
+    PercentilesData.create(-1, 0, Collections.<ValueAtPercentile>emptyList());
+  }
+
+  @Test
+  public void preventNullValueAtPercentile() {
+    thrown.expect(NullPointerException.class);
+    thrown.expectMessage("valueAtPercentile");
+    PercentilesData.create(1, 1, Collections.<ValueAtPercentile>singletonList(null));
+  }
+
   @Test
   public void testEquals() {
     new EqualsTester()
@@ -125,6 +151,11 @@ public class AggregationDataTest {
         .addEqualityGroup(MeanData.create(-5.0, 1), MeanData.create(-5.0, 1))
         .addEqualityGroup(LastValueDataDouble.create(20.0), LastValueDataDouble.create(20.0))
         .addEqualityGroup(LastValueDataLong.create(20), LastValueDataLong.create(20))
+        .addEqualityGroup(
+            PercentilesData.create(1, 5.0, Arrays.asList(ValueAtPercentile.create(50.0, 5.0))),
+            PercentilesData.create(1, 5.0, Arrays.asList(ValueAtPercentile.create(50.0, 5.0))))
+        .addEqualityGroup(
+            PercentilesData.create(1, 5.0, Arrays.asList(ValueAtPercentile.create(99.0, 5.0))))
         .testEquals();
   }
 
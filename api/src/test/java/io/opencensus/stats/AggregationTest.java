@@ -24,6 +24,7 @@ import io.opencensus.stats.Aggregation.Count;
 import io.opencensus.stats.Aggregation.Distribution;
 import io.opencensus.stats.Aggregation.LastValue;
 import io.opencensus.stats.Aggregation.Mean;
+import io.opencensus.stats.Aggregation.Percentiles;
 import io.opencensus.stats.Aggregation.Sum;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -54,6 +55,50 @@ public class AggregationTest {
     Distribution.create(null);
   }
 
+  @Test
+  public void testCreatePercentiles() {
+    Percentiles percentiles = Percentiles.create(Arrays.asList(50.0, 99.0), 0.05);
+    assertThat(percentiles.getPercentiles()).containsExactly(50.0, 99.0).inOrder();
+    assertThat(percentiles.getRelativeAccuracy()).isEqualTo(0.05);
+    assertThat(Percentiles.create(Arrays.asList(50.0)).getRelativeAccuracy())
+        .isEqualTo(Percentiles.DEFAULT_RELATIVE_ACCURACY);
+  }
+
+  @Test
+  public void testPercentilesAreCopied() {
+    List<Double> list = new ArrayList<Double>(Arrays.asList(50.0));
+    Percentiles percentiles = Percentiles.create(list);
+    list.add(99.0);
+    assertThat(percentiles.getPercentiles()).containsExactly(50.0);
+  }
+
+  @Test
+  public void preventNullPercentiles() {
+    thrown.expect(NullPointerException.class);
+    thrown.expectMessage("percentiles");
+    Percentiles.create(null);
+  }
+
+  @Test
+  public void preventEmptyPercentiles() {
+    thrown.expect(IllegalArgumentException.class);
+    Percentiles.create(new ArrayList<Double>());
+  }
+
+  @Test
+  public void preventPercentileOutOfRange() {
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("percentile must be in the interval (0.0, 100.0]");
+    Percentiles.create(Arrays.asList(50.0, 0.0));
+  }
+
+  @Test
+  public void preventRelativeAccuracyOutOfRange() {
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("relativeAccuracy must be in the interval (0.0, 1.0)");
+    Percentiles.create(Arrays.asList(50.0), 1.0);
+  }
+
   @Test
   public void testEquals() {
     new EqualsTester()
@@ -68,6 +113,11 @@ public class AggregationTest {
             Distribution.create(BucketBoundaries.create(Arrays.asList(1.0, 2.0, 5.0))))
         .addEqualityGroup(Mean.create(), Mean.create())
         .addEqualityGroup(LastValue.create(), LastValue.create())
+        .addEqualityGroup(
+            Percentiles.create(Arrays.asList(50.0, 99.0)),
+            Percentiles.create(Arrays.asList(50.0, 99.0), 0.01))
+        .addEqualityGroup(Percentiles.create(Arrays.asList(50.0, 99.0), 0.02))
+        .addEqualityGroup(Percentiles.create(Arrays.asList(99.0, 50.0)))
         .testEquals();
   }
 
@@ -79,7 +129,8 @@ public class AggregationTest {
             Count.create(),
             Mean.create(),
             Distribution.create(BucketBoundaries.create(Arrays.asList(-10.0, 1.0, 5.0))),
-            LastValue.create());
+            LastValue.create(),
+            Percentiles.create(Arrays.asList(99.0)));
 
     List<String> actual = new ArrayList<String>();
     for (Aggregation aggregation : aggregations) {
@@ -93,6 +144,7 @@ public class AggregationTest {
     }
 
     assertThat(actual)
-        .isEqualTo(Arrays.asList("SUM", "COUNT", "UNKNOWN", "DISTRIBUTION", "LASTVALUE"));
+        .isEqualTo(
+            Arrays.asList("SUM", "COUNT", "UNKNOWN", "DISTRIBUTION", "LASTVALUE", "UNKNOWN"));
   }
 }
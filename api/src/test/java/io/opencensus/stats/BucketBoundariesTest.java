@@ -19,6 +19,8 @@ package io.opencensus.stats;
 import static com.google.common.truth.Truth.assertThat;
 
 import com.google.common.testing.EqualsTester;
+import io.opencensus.common.Functions;
+import io.opencensus.stats.BucketBoundaries.Layout;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -91,6 +93,107 @@ public class BucketBoundariesTest {
     assertThat(bucketBoundaries.getBoundaries()).isEqualTo(buckets);
   }
 
+  @Test
+  public void testExplicitLayout() {
+    BucketBoundaries bucketBoundaries = BucketBoundaries.create(Arrays.asList(1.0, 2.0));
+    assertThat(bucketBoundaries.getLayout()).isInstanceOf(Layout.Explicit.class);
+  }
+
+  @Test
+  public void testExponentialBoundaries() {
+    BucketBoundaries bucketBoundaries = BucketBoundaries.exponential(3, 2.0, 0.5);
+    assertThat(bucketBoundaries.getBoundaries()).containsExactly(0.5, 1.0, 2.0, 4.0).inOrder();
+    Layout.Exponential layout = (Layout.Exponential) bucketBoundaries.getLayout();
+    assertThat(layout.getNumFiniteBuckets()).isEqualTo(3);
+    assertThat(layout.getGrowthFactor()).isEqualTo(2.0);
+    assertThat(layout.getScale()).isEqualTo(0.5);
+  }
+
+  @Test
+  public void testExponentialBoundaries_NonPositiveNumFiniteBuckets() {
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("numFiniteBuckets should be positive.");
+    BucketBoundaries.exponential(0, 2.0, 1.0);
+  }
+
+  @Test
+  public void testExponentialBoundaries_GrowthFactorNotGreaterThanOne() {
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("growthFactor should be greater than 1.");
+    BucketBoundaries.exponential(3, 1.0, 1.0);
+  }
+
+  @Test
+  public void testExponentialBoundaries_NonPositiveScale() {
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("scale should be positive.");
+    BucketBoundaries.exponential(3, 2.0, 0.0);
+  }
+
+  @Test
+  public void testExponentialBoundaries_Overflow() {
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("Bucket boundaries overflow.");
+    BucketBoundaries.exponential(2000, 2.0, 1.0);
+  }
+
+  @Test
+  public void testLogLinearBoundaries() {
+    BucketBoundaries bucketBoundaries = BucketBoundaries.logLinear(0.5, 2, 2);
+    assertThat(bucketBoundaries.getBoundaries())
+        .containsExactly(0.5, 0.75, 1.0, 1.5, 2.0)
+        .inOrder();
+    Layout.LogLinear layout = (Layout.LogLinear) bucketBoundaries.getLayout();
+    assertThat(layout.getLowestBound()).isEqualTo(0.5);
+    assertThat(layout.getNumOctaves()).isEqualTo(2);
+    assertThat(layout.getSubBucketCount()).isEqualTo(2);
+  }
+
+  @Test
+  public void testLogLinearBoundaries_NonPositiveLowestBound() {
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("lowestBound should be positive.");
+    BucketBoundaries.logLinear(-1.0, 2, 2);
+  }
+
+  @Test
+  public void testLogLinearBoundaries_NonPositiveNumOctaves() {
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("numOctaves should be positive.");
+    BucketBoundaries.logLinear(1.0, 0, 2);
+  }
+
+  @Test
+  public void testLogLinearBoundaries_NonPositiveSubBucketCount() {
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("subBucketCount should be positive.");
+    BucketBoundaries.logLinear(1.0, 2, 0);
+  }
+
+  @Test
+  public void testLogLinearBoundaries_Overflow() {
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("Bucket boundaries overflow.");
+    BucketBoundaries.logLinear(1.0, 1100, 1);
+  }
+
+  @Test
+  public void testMatchLayout() {
+    assertThat(matchLayout(BucketBoundaries.create(Arrays.asList(1.0)))).isEqualTo("explicit");
+    assertThat(matchLayout(BucketBoundaries.exponential(2, 2.0, 1.0))).isEqualTo("exponential");
+    assertThat(matchLayout(BucketBoundaries.logLinear(1.0, 2, 2))).isEqualTo("logLinear");
+  }
+
+  private static String matchLayout(BucketBoundaries bucketBoundaries) {
+    return bucketBoundaries
+        .getLayout()
+        .match(
+            Functions.<String>returnConstant("explicit"),
+            Functions.<String>returnConstant("exponential"),
+            Functions.<String>returnConstant("logLinear"),
+            Functions.<String>throwAssertionError());
+  }
+
   @Test
   public void testBucketBoundariesEquals() {
     new EqualsTester()
@@ -98,6 +201,10 @@ public class BucketBoundariesTest {
             BucketBoundaries.create(Arrays.asList(-1.0, 2.0)),
             BucketBoundaries.create(Arrays.asList(-1.0, 2.0)))
         .addEqualityGroup(BucketBoundaries.create(Arrays.asList(-1.0)))
+        .addEqualityGroup(
+            BucketBoundaries.exponential(2, 2.0, 1.0), BucketBoundaries.exponential(2, 2.0, 1.0))
+        .addEqualityGroup(BucketBoundaries.create(Arrays.asList(1.0, 2.0, 4.0)))
+        .addEqualityGroup(BucketBoundaries.logLinear(1.0, 2, 1))
         .testEquals();
   }
 }
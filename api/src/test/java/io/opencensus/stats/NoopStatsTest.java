@@ -131,6 +131,17 @@ public final class NoopStatsTest {
     NoopStats.getNoopStatsRecorder().newMeasureMap().put(MEASURE, 6).record();
   }
 
+  // The NoopStatsRecorder should do nothing, so this test just checks that recording a batch
+  // doesn't
+  // throw an exception.
+  @Test
+  public void noopStatsRecorder_RecordBatch() {
+    MeasureBatch batch = NoopStats.getNoopStatsRecorder().newMeasureBatch();
+    batch.newMeasureMap().put(MEASURE, 5).record(tagContext);
+    batch.newMeasureMap().put(MEASURE, 6).record();
+    batch.record();
+  }
+
   @Test
   public void noopStatsRecorder_Record_DisallowNullTagContext() {
     MeasureMap measureMap = NoopStats.getNoopStatsRecorder().newMeasureMap();
@@ -29,6 +29,7 @@ import io.opencensus.stats.Aggregation.Count;
 import io.opencensus.stats.Aggregation.Distribution;
 import io.opencensus.stats.Aggregation.LastValue;
 import io.opencensus.stats.Aggregation.Mean;
+import io.opencensus.stats.Aggregation.Percentiles;
 import io.opencensus.stats.Aggregation.Sum;
 import io.opencensus.stats.AggregationData.CountData;
 import io.opencensus.stats.AggregationData.DistributionData;
@@ -217,6 +218,12 @@ public final class ViewDataTest {
     aggregationAndAggregationDataMismatch(createView(Mean.create()), ENTRIES);
   }
 
+  @Test
+  public void preventAggregationAndAggregationDataMismatch_Percentiles_Distribution() {
+    aggregationAndAggregationDataMismatch(
+        createView(Percentiles.create(Arrays.asList(50.0, 99.0))), ENTRIES);
+  }
+
   @Test
   public void preventAggregationAndAggregationDataMismatch_Distribution_Count() {
     aggregationAndAggregationDataMismatch(
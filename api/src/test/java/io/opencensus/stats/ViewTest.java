@@ -69,6 +69,26 @@ public final class ViewTest {
     assertThat(view.getAggregation()).isEqualTo(MEAN);
     assertThat(view.getColumns()).containsExactly(BAR, FOO).inOrder();
     assertThat(view.getWindow()).isEqualTo(Cumulative.create());
+    assertThat(view.getMaxTimeSeries()).isEqualTo(View.UNLIMITED_TIME_SERIES);
+  }
+
+  @Test
+  public void testViewWithMaxTimeSeries() {
+    final View view = View.create(NAME, DESCRIPTION, MEASURE, MEAN, KEYS, 100);
+    assertThat(view.getName()).isEqualTo(NAME);
+    assertThat(view.getDescription()).isEqualTo(DESCRIPTION);
+    assertThat(view.getMeasure().getName()).isEqualTo(MEASURE.getName());
+    assertThat(view.getAggregation()).isEqualTo(MEAN);
+    assertThat(view.getColumns()).containsExactly(BAR, FOO).inOrder();
+    assertThat(view.getWindow()).isEqualTo(Cumulative.create());
+    assertThat(view.getMaxTimeSeries()).isEqualTo(100);
+  }
+
+  @Test
+  public void preventNonPositiveMaxTimeSeries() {
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("maxTimeSeries should be positive.");
+    View.create(NAME, DESCRIPTION, MEASURE, MEAN, KEYS, 0);
   }
 
   @Test
@@ -95,6 +115,9 @@ public final class ViewTest {
             View.create(NAME, DESCRIPTION, MEASURE, MEAN, KEYS, Interval.create(MINUTE)))
         .addEqualityGroup(
             View.create(NAME, DESCRIPTION, MEASURE, MEAN, KEYS, Interval.create(TWO_MINUTES)))
+        .addEqualityGroup(
+            View.create(NAME, DESCRIPTION, MEASURE, MEAN, KEYS, 100),
+            View.create(NAME, DESCRIPTION, MEASURE, MEAN, KEYS, 100))
         .testEquals();
   }
 
@@ -137,6 +160,25 @@ public final class ViewTest {
     View.Name.create(null);
   }
 
+  @Test
+  public void testIntervalNumBuckets() {
+    assertThat(Interval.create(MINUTE).getNumBuckets()).isEqualTo(Interval.DEFAULT_NUM_BUCKETS);
+    assertThat(Interval.create(MINUTE, 60).getNumBuckets()).isEqualTo(60);
+    assertThat(Interval.create(MINUTE, Interval.DEFAULT_NUM_BUCKETS))
+        .isEqualTo(Interval.create(MINUTE));
+    assertThat(Interval.create(MINUTE, 60)).isNotEqualTo(Interval.create(MINUTE));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void preventNonPositiveIntervalNumBuckets() {
+    Interval.create(MINUTE, 0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void preventIntervalBucketsShorterThanOneMillisecond() {
+    Interval.create(Duration.create(0, 2000000), 3);
+  }
+
   @Test(expected = IllegalArgumentException.class)
   public void preventNegativeIntervalDuration() {
     Interval.create(NEG_TEN_SECONDS);
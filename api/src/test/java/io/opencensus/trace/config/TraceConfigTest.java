@@ -48,4 +48,19 @@ public class TraceConfigTest {
     traceConfig.updateActiveTraceParams(traceParams);
     assertThat(traceConfig.getActiveTraceParams()).isEqualTo(TraceParams.DEFAULT);
   }
+
+  @Test
+  public void activeTraceParamsForSpanName_NoOpImplementation() {
+    assertThat(traceConfig.getActiveTraceParams("MySpanName")).isEqualTo(TraceParams.DEFAULT);
+  }
+
+  @Test
+  public void updateSpanNamePrefixTraceParams_NoOpImplementation() {
+    traceConfig.updateSpanNamePrefixTraceParams(
+        "MySpan", TraceParams.DEFAULT.toBuilder().setSampler(Samplers.alwaysSample()).build());
+    assertThat(traceConfig.getSpanNamePrefixTraceParams()).isEmpty();
+    assertThat(traceConfig.getActiveTraceParams("MySpanName")).isEqualTo(TraceParams.DEFAULT);
+    traceConfig.removeSpanNamePrefixTraceParams("MySpan");
+    assertThat(traceConfig.getSpanNamePrefixTraceParams()).isEmpty();
+  }
 }
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.trace.samplers;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import io.opencensus.common.Clock;
+import io.opencensus.common.Timestamp;
+import io.opencensus.trace.Sampler;
+import io.opencensus.trace.Span;
+import io.opencensus.trace.SpanContext;
+import io.opencensus.trace.SpanId;
+import io.opencensus.trace.TraceId;
+import io.opencensus.trace.TraceOptions;
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link RateLimitingSampler}. */
+@RunWith(JUnit4.class)
+public class RateLimitingSamplerTest {
+  private static final String SPAN_NAME = "MySpanName";
+  private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+  @Rule public final ExpectedException thrown = ExpectedException.none();
+
+  private final Random random = new Random(1234);
+  private final FakeClock clock = new FakeClock();
+
+  @Test
+  public void disallowNonPositiveRate() {
+    thrown.expect(IllegalArgumentException.class);
+    RateLimitingSampler.create(0, false, clock);
+  }
+
+  @Test
+  public void sampledParent() {
+    Sampler sampler = RateLimitingSampler.create(1, false, clock);
+    SpanContext sampledParent =
+        SpanContext.create(
+            TraceId.generateRandomId(random),
+            SpanId.generateRandomId(random),
+            TraceOptions.builder().setIsSampled(true).build());
+    for (int i = 0; i < 100; i++) {
+      assertThat(
+              sampler.shouldSample(
+                  sampledParent,
+                  false,
+                  sampledParent.getTraceId(),
+                  SpanId.generateRandomId(random),
+                  SPAN_NAME,
+                  Collections.<Span>emptyList()))
+          .isTrue();
+    }
+  }
+
+  @Test
+  public void lowTraffic_AllSampled() {
+    RateLimitingSampler sampler = RateLimitingSampler.create(10, false, clock);
+    // 5 traces per second, for 10 seconds.
+    assertThat(sampleTraces(sampler, SPAN_NAME, 50, NANOS_PER_SECOND / 5)).isEqualTo(50);
+    assertThat(sampler.getEffectiveRate()).isWithin(0.5).of(5);
+  }
+
+  @Test
+  public void burst_LimitedByTokenBucket() {
+    RateLimitingSampler sampler = RateLimitingSampler.create(10, false, clock);
+    // All the traces at the same time only get one second of tokens.
+    assertThat(sampleTraces(sampler, SPAN_NAME, 1000, 0)).isEqualTo(10);
+  }
+
+  @Test
+  public void highTraffic_ProbabilityAdapts() {
+    RateLimitingSampler sampler = RateLimitingSampler.create(10, false, clock);
+    // 1000 traces per second, for 10 seconds.
+    sampleTraces(sampler, SPAN_NAME, 10000, NANOS_PER_SECOND / 1000);
+    // Then 1000 traces per second, for 10 more seconds, with the adapted probability.
+    int sampled = sampleTraces(sampler, SPAN_NAME, 10000, NANOS_PER_SECOND / 1000);
+    // The token bucket allows one second of burst on top of the rate.
+    assertThat(sampled).isAtMost(110);
+    assertThat(sampled).isAtLeast(70);
+    assertThat(sampler.getEffectiveRate()).isWithin(3).of(10);
+  }
+
+  @Test
+  public void perSpanName() {
+    RateLimitingSampler sampler = RateLimitingSampler.create(10, true, clock);
+    assertThat(sampleTraces(sampler, "name1", 1000, 0)).isEqualTo(10);
+    assertThat(sampleTraces(sampler, "name2", 1000, 0)).isEqualTo(10);
+    assertThat(sampleTraces(sampler, "name1", 1000, 0)).isEqualTo(0);
+  }
+
+  @Test
+  public void perSpanName_TooManyNames() {
+    RateLimitingSampler sampler = RateLimitingSampler.create(1, true, clock);
+    for (int i = 0; i < RateLimitingSampler.MAX_SPAN_NAMES; i++) {
+      assertThat(sampleTraces(sampler, "name" + i, 10, 0)).isEqualTo(1);
+    }
+    // The other names share a single limit.
+    assertThat(sampleTraces(sampler, "other name 1", 10, 0)).isEqualTo(1);
+    assertThat(sampleTraces(sampler, "other name 2", 10, 0)).isEqualTo(0);
+  }
+
+  @Test
+  public void getDescription() {
+    assertThat(RateLimitingSampler.create(10, false, clock).getDescription())
+        .isEqualTo("RateLimitingSampler{10.000000}");
+    assertThat(RateLimitingSampler.create(10, true, clock).toString())
+        .isEqualTo("RateLimitingSampler{10.000000, perSpanName}");
+  }
+
+  // Makes sampling decisions for root spans, advancing the clock between them, and returns the
+  // number of sampled spans.
+  private int sampleTraces(Sampler sampler, String name, int count, long intervalNanos) {
+    int sampled = 0;
+    for (int i = 0; i < count; i++) {
+      if (sampler.shouldSample(
+          null,
+          null,
+          TraceId.generateRandomId(random),
+          SpanId.generateRandomId(random),
+          name,
+          Collections.<Span>emptyList())) {
+        sampled++;
+      }
+      clock.nanoTime += intervalNanos;
+    }
+    return sampled;
+  }
+
+  private static final class FakeClock extends Clock {
+    private long nanoTime = 1234;
+
+    @Override
+    public Timestamp now() {
+      return Timestamp.fromMillis(TimeUnit.NANOSECONDS.toMillis(nanoTime));
+    }
+
+    @Override
+    public long nowNanos() {
+      return nanoTime;
+    }
+  }
+}
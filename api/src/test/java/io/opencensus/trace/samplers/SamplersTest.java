@@ -278,4 +278,12 @@ public class SamplersTest {
   public void probabilitySampler_ToString() {
     assertThat(Samplers.probabilitySampler(0.5).toString()).contains("0.5");
   }
+
+  @Test
+  public void rateLimitingSampler_getDescription() {
+    assertThat(Samplers.rateLimitingSampler(10).getDescription())
+        .isEqualTo("RateLimitingSampler{10.000000}");
+    assertThat(Samplers.perSpanNameRateLimitingSampler(10).getDescription())
+        .isEqualTo("RateLimitingSampler{10.000000, perSpanName}");
+  }
 }
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.opencensus.benchmarks.exporter;
+
+import io.opencensus.exporter.stats.prometheus.PrometheusStatsCollector;
+import io.opencensus.exporter.stats.prometheus.PrometheusStatsConfiguration;
+import io.opencensus.implcore.common.MillisClock;
+import io.opencensus.implcore.internal.SimpleEventQueue;
+import io.opencensus.implcore.stats.StatsComponentImplBase;
+import io.opencensus.implcore.stats.StatsComponentImplBase.RecordingMode;
+import io.opencensus.implcore.tags.TagsComponentImplBase;
+import io.opencensus.stats.Aggregation;
+import io.opencensus.stats.BucketBoundaries;
+import io.opencensus.stats.Measure.MeasureLong;
+import io.opencensus.stats.StatsRecorder;
+import io.opencensus.stats.View;
+import io.opencensus.stats.ViewManager;
+import io.opencensus.tags.TagKey;
+import io.opencensus.tags.TagValue;
+import io.opencensus.tags.Tagger;
+import io.prometheus.client.Collector.MetricFamilySamples;
+import io.prometheus.client.CollectorRegistry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks for converting the stats of views to the samples of the Prometheus exporter, which
+ * reads them from the global {@code MetricProducerManager} like the other exporters.
+ */
+public class PrometheusExportBenchmark {
+  private static final TagKey KEY = TagKey.create("key");
+  private static final MeasureLong MEASURE = MeasureLong.create("measure", "description", "1");
+
+  @State(Scope.Benchmark)
+  public static class Data {
+    private final CollectorRegistry registry = new CollectorRegistry();
+
+    // The number of time series of each view.
+    @Param({"10", "1000"})
+    int numTimeSeries;
+
+    @Param({"4", "32"})
+    int bucketCount;
+
+    @Setup
+    public void setup() {
+      // The StatsComponentImplBase adds its MetricProducer to the global MetricProducerManager.
+      StatsComponentImplBase statsComponent =
+          new StatsComponentImplBase(
+              new SimpleEventQueue(), MillisClock.getInstance(), RecordingMode.DIRECT);
+      List<Double> boundaries = new ArrayList<Double>(bucketCount - 1);
+      for (int i = 1; i < bucketCount; i++) {
+        boundaries.add((double) i * i);
+      }
+      ViewManager viewManager = statsComponent.getViewManager();
+      viewManager.registerView(
+          View.create(
+              View.Name.create("count"),
+              "description",
+              MEASURE,
+              Aggregation.Count.create(),
+              Arrays.asList(KEY)));
+      viewManager.registerView(
+          View.create(
+              View.Name.create("distribution"),
+              "description",
+              MEASURE,
+              Aggregation.Distribution.create(BucketBoundaries.create(boundaries)),
+              Arrays.asList(KEY)));
+      StatsRecorder statsRecorder = statsComponent.getStatsRecorder();
+      Tagger tagger = new TagsComponentImplBase().getTagger();
+      for (int i = 0; i < numTimeSeries; i++) {
+        statsRecorder
+            .newMeasureMap()
+            .put(MEASURE, i)
+            .record(tagger.emptyBuilder().put(KEY, TagValue.create("value" + i)).build());
+      }
+      PrometheusStatsCollector.createAndRegister(
+          PrometheusStatsConfiguration.builder().setRegistry(registry).build());
+    }
+  }
+
+  /**
+   * This benchmark attempts to measure the cost of a Prometheus scrape, which converts all the
+   * metrics to Prometheus samples.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public List<MetricFamilySamples> collect(Data data) {
+    return Collections.list(data.registry.metricFamilySamples());
+  }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.opencensus.benchmarks.metrics;
+
+import io.opencensus.common.ToLongFunction;
+import io.opencensus.implcore.common.MillisClock;
+import io.opencensus.implcore.metrics.MetricsComponentImplBase;
+import io.opencensus.metrics.DerivedLongGauge;
+import io.opencensus.metrics.LabelKey;
+import io.opencensus.metrics.LabelValue;
+import io.opencensus.metrics.LongGauge;
+import io.opencensus.metrics.LongGauge.LongPoint;
+import io.opencensus.metrics.MetricOptions;
+import io.opencensus.metrics.MetricRegistry;
+import io.opencensus.metrics.export.Metric;
+import io.opencensus.metrics.export.MetricProducer;
+import io.opencensus.metrics.export.MetricProducerManager;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * Benchmarks for updating the gauges of a {@link MetricRegistry}, and for reading them as {@link
+ * Metric}s.
+ *
+ * <p>Run with the GC profiler, e.g. {@code ./gradlew -PjmhIncludeSingleClass=MetricRegistry
+ * -PjmhProfilers=gc :opencensus-benchmarks:jmh}, to also see how much every operation allocates.
+ */
+public class MetricRegistryBenchmark {
+  private static final List<LabelKey> LABEL_KEYS =
+      Collections.singletonList(LabelKey.create("key", "description"));
+  private static final MetricOptions OPTIONS =
+      MetricOptions.builder()
+          .setDescription("description")
+          .setUnit("1")
+          .setLabelKeys(LABEL_KEYS)
+          .build();
+  private static final ToLongFunction<AtomicLong> GET =
+      new ToLongFunction<AtomicLong>() {
+        @Override
+        public long applyAsLong(AtomicLong value) {
+          return value.get();
+        }
+      };
+
+  @State(Scope.Benchmark)
+  public static class Data {
+    private MetricProducerManager metricProducerManager;
+    private LongGauge gauge;
+    private List<List<LabelValue>> labelValues;
+    private LongPoint[] points;
+    // The derived gauge only keeps weak references to the objects it reads its values from.
+    private AtomicLong[] derivedValues;
+
+    // The number of time series of each gauge.
+    @Param({"1", "100", "1000"})
+    int numTimeSeries;
+
+    @Setup
+    public void setup() {
+      MetricsComponentImplBase metricsComponent =
+          new MetricsComponentImplBase(MillisClock.getInstance()) {};
+      metricProducerManager = metricsComponent.getExportComponent().getMetricProducerManager();
+      MetricRegistry metricRegistry = metricsComponent.getMetricRegistry();
+      gauge = metricRegistry.addLongGauge("gauge", OPTIONS);
+      DerivedLongGauge derivedGauge = metricRegistry.addDerivedLongGauge("derived", OPTIONS);
+      labelValues = new ArrayList<List<LabelValue>>(numTimeSeries);
+      points = new LongPoint[numTimeSeries];
+      derivedValues = new AtomicLong[numTimeSeries];
+      for (int i = 0; i < numTimeSeries; i++) {
+        List<LabelValue> values = Collections.singletonList(LabelValue.create("value" + i));
+        labelValues.add(values);
+        points[i] = gauge.getOrCreateTimeSeries(values);
+        points[i].set(i);
+        derivedValues[i] = new AtomicLong(i);
+        derivedGauge.createTimeSeries(values, derivedValues[i], GET);
+      }
+    }
+  }
+
+  // The index of the next time series that a thread updates, so that the updates are spread over
+  // all the time series.
+  @State(Scope.Thread)
+  public static class ThreadData {
+    private int index;
+
+    int next(int numTimeSeries) {
+      int current = index;
+      index = current + 1 == numTimeSeries ? 0 : current + 1;
+      return current;
+    }
+  }
+
+  /** This benchmark attempts to measure the cost of setting the value of a gauge time series. */
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public void setGauge(Data data, ThreadData threadData) {
+    data.points[threadData.next(data.numTimeSeries)].set(10);
+  }
+
+  /**
+   * This benchmark attempts to measure the cost of setting the value of a gauge time series from
+   * multiple threads.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  @Threads(4)
+  public void setGaugeConcurrent(Data data, ThreadData threadData) {
+    data.points[threadData.next(data.numTimeSeries)].add(1);
+  }
+
+  /**
+   * This benchmark attempts to measure the cost of looking up an existing time series of a gauge by
+   * its label values.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public LongPoint getOrCreateTimeSeries(Data data, ThreadData threadData) {
+    return data.gauge.getOrCreateTimeSeries(
+        data.labelValues.get(threadData.next(data.numTimeSeries)));
+  }
+
+  /**
+   * This benchmark attempts to measure the cost of reading all the gauges (one regular and one
+   * derived) as metrics, as an exporter does.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public List<Metric> getMetrics(Data data) {
+    List<Metric> metrics = new ArrayList<Metric>();
+    for (MetricProducer metricProducer : data.metricProducerManager.getAllMetricProducer()) {
+      metrics.addAll(metricProducer.getMetrics());
+    }
+    return metrics;
+  }
+}
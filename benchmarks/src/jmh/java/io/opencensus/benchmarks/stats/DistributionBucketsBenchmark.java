@@ -0,0 +1,120 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.benchmarks.stats;
+
+import io.opencensus.implcore.common.MillisClock;
+import io.opencensus.implcore.internal.SimpleEventQueue;
+import io.opencensus.implcore.stats.StatsComponentImplBase;
+import io.opencensus.implcore.stats.StatsComponentImplBase.RecordingMode;
+import io.opencensus.implcore.tags.TagsComponentImplBase;
+import io.opencensus.stats.Aggregation;
+import io.opencensus.stats.BucketBoundaries;
+import io.opencensus.stats.Measure.MeasureDouble;
+import io.opencensus.stats.StatsRecorder;
+import io.opencensus.stats.View;
+import io.opencensus.tags.TagContext;
+import io.opencensus.tags.TagKey;
+import io.opencensus.tags.TagValue;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks for recording into a {@code Distribution} view with different numbers of buckets.
+ * Stats are recorded directly on the caller thread, so that the cost of the bucket lookup isn't
+ * hidden by the event queue.
+ */
+public class DistributionBucketsBenchmark {
+  private static final TagKey KEY = TagKey.create("key");
+  private static final MeasureDouble MEASURE = MeasureDouble.create("latency", "description", "ms");
+  // Number of distinct values recorded, all of them spread over the range of the buckets.
+  private static final int NUM_VALUES = 1024;
+
+  @State(Scope.Benchmark)
+  public static class Data {
+    private StatsRecorder statsRecorder;
+    private TagContext tags;
+    private final double[] values = new double[NUM_VALUES];
+    private int index;
+
+    @Param({"4", "16", "64", "256"})
+    int bucketCount;
+
+    // Whether the boundaries are given as an explicit list, or with an exponential layout.
+    @Param({"false", "true"})
+    boolean exponentialLayout;
+
+    @Setup
+    public void setup() {
+      StatsComponentImplBase statsComponent =
+          new StatsComponentImplBase(
+              new SimpleEventQueue(), MillisClock.getInstance(), RecordingMode.DIRECT);
+      statsRecorder = statsComponent.getStatsRecorder();
+      // Exponential boundaries, like the ones usually used for latencies.
+      List<Double> boundaries = new ArrayList<Double>(bucketCount - 1);
+      double boundary = 1.0;
+      for (int i = 0; i < bucketCount - 1; i++) {
+        boundaries.add(boundary);
+        boundary *= 1.1;
+      }
+      BucketBoundaries bucketBoundaries =
+          exponentialLayout
+              ? BucketBoundaries.exponential(bucketCount - 2, 1.1, 1.0)
+              : BucketBoundaries.create(boundaries);
+      statsComponent
+          .getViewManager()
+          .registerView(
+              View.create(
+                  View.Name.create("distribution"),
+                  "description",
+                  MEASURE,
+                  Aggregation.Distribution.create(bucketBoundaries),
+                  Arrays.asList(KEY)));
+      for (int i = 0; i < NUM_VALUES; i++) {
+        values[i] = boundary * i / NUM_VALUES;
+      }
+      tags =
+          new TagsComponentImplBase()
+              .getTagger()
+              .emptyBuilder()
+              .put(KEY, TagValue.create("value"))
+              .build();
+    }
+
+    private double nextValue() {
+      index = (index + 1) % NUM_VALUES;
+      return values[index];
+    }
+  }
+
+  /** This benchmark attempts to measure the cost of recording into a distribution. */
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public void recordDistribution(Data data) {
+    data.statsRecorder.newMeasureMap().put(MEASURE, data.nextValue()).record(data.tags);
+  }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.opencensus.benchmarks.stats;
+
+import io.opencensus.implcore.common.MillisClock;
+import io.opencensus.implcore.internal.SimpleEventQueue;
+import io.opencensus.implcore.stats.StatsComponentImplBase;
+import io.opencensus.implcore.stats.StatsComponentImplBase.RecordingMode;
+import io.opencensus.implcore.tags.TagsComponentImplBase;
+import io.opencensus.stats.Aggregation;
+import io.opencensus.stats.BucketBoundaries;
+import io.opencensus.stats.Measure.MeasureLong;
+import io.opencensus.stats.MeasureBatch;
+import io.opencensus.stats.StatsRecorder;
+import io.opencensus.stats.View;
+import io.opencensus.stats.ViewManager;
+import io.opencensus.tags.TagContext;
+import io.opencensus.tags.TagKey;
+import io.opencensus.tags.TagValue;
+import io.opencensus.tags.Tagger;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * Benchmarks for recording stats with tags that have many distinct values, so that the views have
+ * many time series. Stats are recorded directly on the caller thread, so that the benchmarks
+ * measure the cost of looking up the time series rather than the cost of the event queue.
+ *
+ * <p>Run with the GC profiler, e.g. {@code ./gradlew -PjmhIncludeSingleClass=RecordCardinality
+ * -PjmhProfilers=gc :opencensus-benchmarks:jmh}, to also see how much every recording allocates.
+ */
+public class RecordCardinalityBenchmark {
+  private static final int BATCH_SIZE = 100;
+  private static final TagKey KEY = TagKey.create("key");
+  private static final MeasureLong MEASURE = MeasureLong.create("measure", "description", "1");
+  private static final BucketBoundaries BUCKET_BOUNDARIES =
+      BucketBoundaries.create(Arrays.asList(0.0, 1.0, 5.0, 10.0, 50.0, 100.0, 500.0, 1000.0));
+
+  @State(Scope.Benchmark)
+  public static class Data {
+    private StatsRecorder statsRecorder;
+    private TagContext[] tags;
+
+    // The number of distinct values of the tag, and therefore of time series of each view.
+    @Param({"1", "100", "10000"})
+    int numTagValues;
+
+    @Setup
+    public void setup() {
+      StatsComponentImplBase statsComponent =
+          new StatsComponentImplBase(
+              new SimpleEventQueue(), MillisClock.getInstance(), RecordingMode.DIRECT);
+      statsRecorder = statsComponent.getStatsRecorder();
+      ViewManager viewManager = statsComponent.getViewManager();
+      viewManager.registerView(
+          View.create(
+              View.Name.create("count"),
+              "description",
+              MEASURE,
+              Aggregation.Count.create(),
+              Arrays.asList(KEY)));
+      viewManager.registerView(
+          View.create(
+              View.Name.create("distribution"),
+              "description",
+              MEASURE,
+              Aggregation.Distribution.create(BUCKET_BOUNDARIES),
+              Arrays.asList(KEY)));
+      Tagger tagger = new TagsComponentImplBase().getTagger();
+      tags = new TagContext[numTagValues];
+      for (int i = 0; i < numTagValues; i++) {
+        tags[i] = tagger.emptyBuilder().put(KEY, TagValue.create("value" + i)).build();
+        // Create the time series, so that the benchmarks only record into existing ones.
+        statsRecorder.newMeasureMap().put(MEASURE, 1).record(tags[i]);
+      }
+    }
+  }
+
+  // The index of the next tags that a thread records with, so that the recordings are spread over
+  // all the time series.
+  @State(Scope.Thread)
+  public static class ThreadData {
+    private int index;
+
+    TagContext next(Data data) {
+      int current = index;
+      index = current + 1 == data.tags.length ? 0 : current + 1;
+      return data.tags[current];
+    }
+  }
+
+  /** This benchmark attempts to measure the cost of recording one measurement. */
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public void record(Data data, ThreadData threadData) {
+    data.statsRecorder.newMeasureMap().put(MEASURE, 10).record(threadData.next(data));
+  }
+
+  /**
+   * This benchmark attempts to measure the cost of recording one measurement, while other threads
+   * are recording into the same views.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  @Threads(4)
+  public void recordConcurrent(Data data, ThreadData threadData) {
+    data.statsRecorder.newMeasureMap().put(MEASURE, 10).record(threadData.next(data));
+  }
+
+  /**
+   * This benchmark attempts to measure the cost of recording one measurement as part of a {@link
+   * MeasureBatch}.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  @OperationsPerInvocation(BATCH_SIZE)
+  public void recordBatch(Data data, ThreadData threadData) {
+    MeasureBatch batch = data.statsRecorder.newMeasureBatch();
+    for (int i = 0; i < BATCH_SIZE; i++) {
+      batch.newMeasureMap().put(MEASURE, 10).record(threadData.next(data));
+    }
+    batch.record();
+  }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.benchmarks.stats;
+
+import io.opencensus.implcore.common.MillisClock;
+import io.opencensus.implcore.internal.SimpleEventQueue;
+import io.opencensus.implcore.stats.StatsComponentImplBase;
+import io.opencensus.implcore.tags.TagsComponentImplBase;
+import io.opencensus.stats.Aggregation;
+import io.opencensus.stats.BucketBoundaries;
+import io.opencensus.stats.Measure.MeasureLong;
+import io.opencensus.stats.StatsRecorder;
+import io.opencensus.stats.View;
+import io.opencensus.stats.ViewManager;
+import io.opencensus.tags.TagContext;
+import io.opencensus.tags.TagKey;
+import io.opencensus.tags.TagValue;
+import io.opencensus.tags.Tagger;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * Benchmarks for recording stats from multiple threads. The event queue is bypassed (stats are
+ * recorded on the caller thread), so that the benchmarks measure the contention in the recording
+ * path itself.
+ */
+public class RecordConcurrentBenchmark {
+  // Enough measures so that every thread can record into its own measure.
+  private static final int NUM_MEASURES = 16;
+  private static final TagKey KEY = TagKey.create("key");
+  private static final BucketBoundaries BUCKET_BOUNDARIES =
+      BucketBoundaries.create(Arrays.asList(0.0, 1.0, 5.0, 10.0, 50.0, 100.0, 500.0, 1000.0));
+
+  @State(Scope.Benchmark)
+  public static class Data {
+    private final AtomicInteger threadCounter = new AtomicInteger();
+    private final MeasureLong[] measures = new MeasureLong[NUM_MEASURES];
+    private StatsRecorder statsRecorder;
+    private Tagger tagger;
+
+    // Whether each thread records into its own measure, or all threads share the same one.
+    @Param({"true", "false"})
+    boolean distinctMeasures;
+
+    @Setup
+    public void setup() {
+      StatsComponentImplBase statsComponent =
+          new StatsComponentImplBase(new SimpleEventQueue(), MillisClock.getInstance());
+      statsRecorder = statsComponent.getStatsRecorder();
+      tagger = new TagsComponentImplBase().getTagger();
+      ViewManager viewManager = statsComponent.getViewManager();
+      for (int i = 0; i < NUM_MEASURES; i++) {
+        measures[i] = MeasureLong.create("measure" + i, "description", "1");
+        viewManager.registerView(
+            View.create(
+                View.Name.create("count" + i),
+                "description",
+                measures[i],
+                Aggregation.Count.create(),
+                Arrays.asList(KEY)));
+        viewManager.registerView(
+            View.create(
+                View.Name.create("distribution" + i),
+                "description",
+                measures[i],
+                Aggregation.Distribution.create(BUCKET_BOUNDARIES),
+                Arrays.asList(KEY)));
+      }
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class ThreadData {
+    private MeasureLong measure;
+    private TagContext tags;
+
+    @Setup
+    public void setup(Data data) {
+      int threadIndex = data.threadCounter.getAndIncrement();
+      measure = data.measures[data.distinctMeasures ? threadIndex % NUM_MEASURES : 0];
+      tags = data.tagger.emptyBuilder().put(KEY, TagValue.create("value" + threadIndex)).build();
+    }
+  }
+
+  /** Record a measurement from a single thread. */
+  @Benchmark
+  @Threads(1)
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public void record1Thread(Data data, ThreadData threadData) {
+    record(data, threadData);
+  }
+
+  /** Record a measurement from 4 threads concurrently. */
+  @Benchmark
+  @Threads(4)
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public void record4Threads(Data data, ThreadData threadData) {
+    record(data, threadData);
+  }
+
+  /** Record a measurement from 16 threads concurrently. */
+  @Benchmark
+  @Threads(16)
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public void record16Threads(Data data, ThreadData threadData) {
+    record(data, threadData);
+  }
+
+  private static void record(Data data, ThreadData threadData) {
+    data.statsRecorder.newMeasureMap().put(threadData.measure, 10).record(threadData.tags);
+  }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.benchmarks.stats;
+
+import io.opencensus.impl.internal.DisruptorEventQueue;
+import io.opencensus.implcore.common.MillisClock;
+import io.opencensus.implcore.stats.StatsComponentImplBase;
+import io.opencensus.implcore.stats.StatsComponentImplBase.RecordingMode;
+import io.opencensus.implcore.tags.TagsComponentImplBase;
+import io.opencensus.stats.Aggregation;
+import io.opencensus.stats.Measure.MeasureLong;
+import io.opencensus.stats.StatsRecorder;
+import io.opencensus.stats.View;
+import io.opencensus.stats.ViewManager;
+import io.opencensus.tags.TagContext;
+import io.opencensus.tags.TagContextBuilder;
+import io.opencensus.tags.TagKey;
+import io.opencensus.tags.TagValue;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks for recording a measure that has many views, which all look up the values of their
+ * columns in the tags of the recording.
+ *
+ * <p>The measurements are recorded on the caller thread, so that the benchmarks only measure the
+ * cost of recording into the views.
+ */
+public class RecordMultipleViewsBenchmark {
+  private static final MeasureLong MEASURE = MeasureLong.create("measure", "description", "1");
+
+  @State(Scope.Benchmark)
+  public static class Data {
+    private StatsRecorder statsRecorder;
+    private TagContext tags;
+
+    @Param({"1", "5", "20"})
+    int numViews;
+
+    @Param({"3", "8"})
+    int numTags;
+
+    // Whether all the views have the same columns, or each view has different ones.
+    @Param({"true", "false"})
+    boolean sameColumns;
+
+    @Setup
+    public void setup() {
+      StatsComponentImplBase statsComponent =
+          new StatsComponentImplBase(
+              DisruptorEventQueue.getInstance(), MillisClock.getInstance(), RecordingMode.DIRECT);
+      statsRecorder = statsComponent.getStatsRecorder();
+      List<TagKey> keys = new ArrayList<TagKey>(numTags);
+      TagContextBuilder builder = new TagsComponentImplBase().getTagger().emptyBuilder();
+      for (int i = 0; i < numTags; i++) {
+        TagKey key = TagKey.create("key" + i);
+        keys.add(key);
+        builder.put(key, TagValue.create("value" + i));
+      }
+      tags = builder.build();
+      ViewManager viewManager = statsComponent.getViewManager();
+      for (int i = 0; i < numViews; i++) {
+        List<TagKey> columns = keys;
+        if (!sameColumns) {
+          // Drop a different column from each view.
+          columns = new ArrayList<TagKey>(keys);
+          columns.remove(i % numTags);
+        }
+        viewManager.registerView(
+            View.create(
+                View.Name.create("view" + i),
+                "description",
+                MEASURE,
+                Aggregation.Count.create(),
+                columns));
+      }
+    }
+  }
+
+  /** This benchmark attempts to measure the cost of recording one measurement into all views. */
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public void record(Data data) {
+    data.statsRecorder.newMeasureMap().put(MEASURE, 10).record(data.tags);
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.benchmarks.stats;
+
+import io.opencensus.impl.internal.DisruptorEventQueue;
+import io.opencensus.implcore.common.MillisClock;
+import io.opencensus.implcore.stats.StatsComponentImplBase;
+import io.opencensus.implcore.stats.StatsComponentImplBase.RecordingMode;
+import io.opencensus.implcore.tags.TagsComponentImplBase;
+import io.opencensus.stats.Aggregation;
+import io.opencensus.stats.BucketBoundaries;
+import io.opencensus.stats.Measure.MeasureLong;
+import io.opencensus.stats.StatsRecorder;
+import io.opencensus.stats.View;
+import io.opencensus.stats.ViewManager;
+import io.opencensus.tags.TagContext;
+import io.opencensus.tags.TagKey;
+import io.opencensus.tags.TagValue;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks that compare recording stats through the {@link DisruptorEventQueue} with recording
+ * them directly on the caller thread.
+ */
+public class RecordingModeBenchmark {
+  private static final TagKey KEY = TagKey.create("key");
+  private static final MeasureLong MEASURE = MeasureLong.create("measure", "description", "1");
+  private static final BucketBoundaries BUCKET_BOUNDARIES =
+      BucketBoundaries.create(Arrays.asList(0.0, 1.0, 5.0, 10.0, 50.0, 100.0, 500.0, 1000.0));
+
+  @State(Scope.Benchmark)
+  public static class Data {
+    private StatsRecorder statsRecorder;
+    private TagContext tags;
+
+    @Param({"QUEUED", "DIRECT"})
+    RecordingMode recordingMode;
+
+    @Setup
+    public void setup() {
+      StatsComponentImplBase statsComponent =
+          new StatsComponentImplBase(
+              DisruptorEventQueue.getInstance(), MillisClock.getInstance(), recordingMode);
+      statsRecorder = statsComponent.getStatsRecorder();
+      ViewManager viewManager = statsComponent.getViewManager();
+      viewManager.registerView(
+          View.create(
+              View.Name.create("count"),
+              "description",
+              MEASURE,
+              Aggregation.Count.create(),
+              Arrays.asList(KEY)));
+      viewManager.registerView(
+          View.create(
+              View.Name.create("distribution"),
+              "description",
+              MEASURE,
+              Aggregation.Distribution.create(BUCKET_BOUNDARIES),
+              Arrays.asList(KEY)));
+      tags =
+          new TagsComponentImplBase()
+              .getTagger()
+              .emptyBuilder()
+              .put(KEY, TagValue.create("value"))
+              .build();
+    }
+  }
+
+  /** This benchmark attempts to measure the latency of recording one measurement. */
+  @Benchmark
+  @BenchmarkMode(Mode.SampleTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public void recordLatency(Data data) {
+    data.statsRecorder.newMeasureMap().put(MEASURE, 10).record(data.tags);
+  }
+
+  /** This benchmark attempts to measure the throughput of recording measurements. */
+  @Benchmark
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public void recordThroughput(Data data) {
+    data.statsRecorder.newMeasureMap().put(MEASURE, 10).record(data.tags);
+  }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.opencensus.benchmarks.stats;
+
+import io.opencensus.common.Duration;
+import io.opencensus.implcore.common.MillisClock;
+import io.opencensus.implcore.internal.SimpleEventQueue;
+import io.opencensus.implcore.stats.StatsComponentImplBase;
+import io.opencensus.implcore.stats.StatsComponentImplBase.RecordingMode;
+import io.opencensus.implcore.tags.TagsComponentImplBase;
+import io.opencensus.metrics.Metrics;
+import io.opencensus.metrics.export.Metric;
+import io.opencensus.metrics.export.MetricProducer;
+import io.opencensus.metrics.export.MetricProducerManager;
+import io.opencensus.stats.Aggregation;
+import io.opencensus.stats.BucketBoundaries;
+import io.opencensus.stats.Measure.MeasureLong;
+import io.opencensus.stats.StatsRecorder;
+import io.opencensus.stats.View;
+import io.opencensus.stats.ViewData;
+import io.opencensus.stats.ViewManager;
+import io.opencensus.tags.TagKey;
+import io.opencensus.tags.TagValue;
+import io.opencensus.tags.Tagger;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks for reading the aggregated stats of views, as {@link ViewData} or as {@link Metric}s
+ * for the exporters.
+ */
+public class ViewDataBenchmark {
+  private static final TagKey KEY = TagKey.create("key");
+  private static final MeasureLong MEASURE = MeasureLong.create("measure", "description", "1");
+  private static final View.Name COUNT = View.Name.create("count");
+  private static final View.Name DISTRIBUTION = View.Name.create("distribution");
+  private static final BucketBoundaries BUCKET_BOUNDARIES =
+      BucketBoundaries.create(Arrays.asList(0.0, 1.0, 5.0, 10.0, 50.0, 100.0, 500.0, 1000.0));
+
+  @State(Scope.Benchmark)
+  public static class Data {
+    private ViewManager viewManager;
+    private MetricProducer metricProducer;
+
+    // The number of time series of each view.
+    @Param({"10", "1000"})
+    int numTimeSeries;
+
+    @Param({"CUMULATIVE", "INTERVAL"})
+    String window;
+
+    @Setup
+    public void setup() {
+      // Every StatsComponentImplBase adds its MetricProducer to the global MetricProducerManager.
+      MetricProducerManager metricProducerManager =
+          Metrics.getExportComponent().getMetricProducerManager();
+      Set<MetricProducer> existingProducers =
+          new HashSet<MetricProducer>(metricProducerManager.getAllMetricProducer());
+      StatsComponentImplBase statsComponent =
+          new StatsComponentImplBase(
+              new SimpleEventQueue(), MillisClock.getInstance(), RecordingMode.DIRECT);
+      for (MetricProducer producer : metricProducerManager.getAllMetricProducer()) {
+        if (!existingProducers.contains(producer)) {
+          metricProducer = producer;
+        }
+      }
+      viewManager = statsComponent.getViewManager();
+      View.AggregationWindow aggregationWindow =
+          "INTERVAL".equals(window)
+              ? View.AggregationWindow.Interval.create(Duration.create(60, 0))
+              : View.AggregationWindow.Cumulative.create();
+      viewManager.registerView(
+          View.create(
+              COUNT,
+              "description",
+              MEASURE,
+              Aggregation.Count.create(),
+              Arrays.asList(KEY),
+              aggregationWindow));
+      viewManager.registerView(
+          View.create(
+              DISTRIBUTION,
+              "description",
+              MEASURE,
+              Aggregation.Distribution.create(BUCKET_BOUNDARIES),
+              Arrays.asList(KEY),
+              aggregationWindow));
+      StatsRecorder statsRecorder = statsComponent.getStatsRecorder();
+      Tagger tagger = new TagsComponentImplBase().getTagger();
+      for (int i = 0; i < numTimeSeries; i++) {
+        statsRecorder
+            .newMeasureMap()
+            .put(MEASURE, i)
+            .record(tagger.emptyBuilder().put(KEY, TagValue.create("value" + i)).build());
+      }
+    }
+  }
+
+  /** This benchmark attempts to measure the cost of getting the {@link ViewData} of a view. */
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public ViewData getView(Data data) {
+    return data.viewManager.getView(DISTRIBUTION);
+  }
+
+  /** This benchmark attempts to measure the cost of converting all the views to metrics. */
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public Collection<Metric> getMetrics(Data data) {
+    return data.metricProducer.getMetrics();
+  }
+}
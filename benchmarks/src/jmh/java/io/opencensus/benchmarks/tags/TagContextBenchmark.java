@@ -0,0 +1,152 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.opencensus.benchmarks.tags;
+
+import io.opencensus.common.Scope;
+import io.opencensus.implcore.tags.TagsComponentImplBase;
+import io.opencensus.tags.TagContext;
+import io.opencensus.tags.TagContextBuilder;
+import io.opencensus.tags.TagKey;
+import io.opencensus.tags.TagValue;
+import io.opencensus.tags.Tagger;
+import io.opencensus.tags.propagation.TagContextBinarySerializer;
+import io.opencensus.tags.propagation.TagContextDeserializationException;
+import io.opencensus.tags.propagation.TagContextSerializationException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks for creating, modifying, entering and serializing {@link TagContext}s.
+ *
+ * <p>Run with the GC profiler, e.g. {@code ./gradlew -PjmhIncludeSingleClass=TagContextBenchmark
+ * -PjmhProfilers=gc :opencensus-benchmarks:jmh}, to also see how much every operation allocates.
+ */
+public class TagContextBenchmark {
+  private static final TagKey EXTRA_KEY = TagKey.create("extra key");
+  private static final TagValue EXTRA_VALUE = TagValue.create("extra value");
+
+  @State(org.openjdk.jmh.annotations.Scope.Benchmark)
+  public static class Data {
+    private final TagsComponentImplBase tagsComponent = new TagsComponentImplBase();
+    private Tagger tagger;
+    private TagContextBinarySerializer serializer;
+    private TagKey[] keys;
+    private TagValue[] values;
+    private TagContext tagContext;
+    private byte[] serializedTagContext;
+    private ByteBuffer buffer;
+
+    @Param({"1", "4", "16"})
+    int numTags;
+
+    @Setup
+    public void setup() throws TagContextSerializationException {
+      tagger = tagsComponent.getTagger();
+      serializer = tagsComponent.getTagPropagationComponent().getBinarySerializer();
+      keys = new TagKey[numTags];
+      values = new TagValue[numTags];
+      for (int i = 0; i < numTags; i++) {
+        keys[i] = TagKey.create("key" + i);
+        values[i] = TagValue.create("value" + i);
+      }
+      tagContext = createTagContext(tagger, keys, values);
+      serializedTagContext = serializer.toByteArray(tagContext);
+      buffer = ByteBuffer.wrap(serializedTagContext.clone());
+    }
+  }
+
+  /** This benchmark attempts to measure the cost of creating a tag context with all the tags. */
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public TagContext createTagContext(Data data) {
+    return createTagContext(data.tagger, data.keys, data.values);
+  }
+
+  /** This benchmark attempts to measure the cost of adding one tag to an existing tag context. */
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public TagContext addTag(Data data) {
+    return data.tagger.toBuilder(data.tagContext).put(EXTRA_KEY, EXTRA_VALUE).build();
+  }
+
+  /**
+   * This benchmark attempts to measure the cost of making a tag context current and restoring the
+   * previous one.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public TagContext withTagContext(Data data) {
+    Scope scope = data.tagger.withTagContext(data.tagContext);
+    try {
+      return data.tagger.getCurrentTagContext();
+    } finally {
+      scope.close();
+    }
+  }
+
+  /** This benchmark attempts to measure the cost of serializing a tag context. */
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public byte[] toByteArray(Data data) throws TagContextSerializationException {
+    return data.serializer.toByteArray(data.tagContext);
+  }
+
+  /** This benchmark attempts to measure the cost of deserializing a tag context. */
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public TagContext fromByteArray(Data data) throws TagContextDeserializationException {
+    return data.serializer.fromByteArray(data.serializedTagContext);
+  }
+
+  /** This benchmark attempts to measure the cost of serializing a tag context into a buffer. */
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public ByteBuffer writeTo(Data data) throws TagContextSerializationException {
+    data.buffer.clear();
+    data.serializer.writeTo(data.tagContext, data.buffer);
+    return data.buffer;
+  }
+
+  /** This benchmark attempts to measure the cost of deserializing a tag context from a buffer. */
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public TagContext fromByteBuffer(Data data) throws TagContextDeserializationException {
+    data.buffer.clear();
+    return data.serializer.fromByteBuffer(data.buffer);
+  }
+
+  private static TagContext createTagContext(Tagger tagger, TagKey[] keys, TagValue[] values) {
+    TagContextBuilder builder = tagger.emptyBuilder();
+    for (int i = 0; i < keys.length; i++) {
+      builder.put(keys[i], values[i]);
+    }
+    return builder.build();
+  }
+}
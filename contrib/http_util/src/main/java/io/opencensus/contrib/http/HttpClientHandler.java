@@ -26,10 +26,10 @@ import static io.opencensus.contrib.http.util.HttpMeasureConstants.HTTP_CLIENT_S
 import static java.util.concurrent.TimeUnit.NANOSECONDS;
 
 import io.opencensus.common.ExperimentalApi;
+import io.opencensus.metrics.Metrics;
 import io.opencensus.stats.Stats;
 import io.opencensus.stats.StatsRecorder;
 import io.opencensus.tags.TagContext;
-import io.opencensus.tags.TagValue;
 import io.opencensus.tags.Tagger;
 import io.opencensus.tags.Tags;
 import io.opencensus.trace.Span;
@@ -58,6 +58,19 @@ public class HttpClientHandler<
         Q /*>>> extends @NonNull Object*/, P, C /*>>> extends @NonNull Object*/>
     extends AbstractHttpHandler<Q, P> {
 
+  // Caches the tag values of the recorded stats, which repeat across requests.
+  private static final TagValueCache METHOD_VALUES = new TagValueCache(HTTP_CLIENT_METHOD, 32);
+  private static final TagValueCache STATUS_VALUES = new TagValueCache(HTTP_CLIENT_STATUS, 64);
+
+  static {
+    TagValueCache.exportHitRatio(
+        Metrics.getMetricRegistry(),
+        "opencensus.io/http/client/tag_value_cache_hit_ratio",
+        "Ratio of the tag values of the HTTP client stats that were found in the cache",
+        METHOD_VALUES,
+        STATUS_VALUES);
+  }
+
   private final TextFormat.Setter<C> setter;
   private final TextFormat textFormat;
   private final Tracer tracer;
@@ -161,11 +174,11 @@ public class HttpClientHandler<
             .toBuilder(context.tagContext)
             .put(
                 HTTP_CLIENT_METHOD,
-                TagValue.create(methodStr == null ? "" : methodStr),
+                METHOD_VALUES.get(methodStr == null ? "" : methodStr),
                 METADATA_NO_PROPAGATION)
             .put(
                 HTTP_CLIENT_STATUS,
-                TagValue.create(httpCode == 0 ? "error" : Integer.toString(httpCode)),
+                STATUS_VALUES.get(httpCode == 0 ? "error" : Integer.toString(httpCode)),
                 METADATA_NO_PROPAGATION)
             .build();
 
@@ -27,10 +27,10 @@ import static io.opencensus.contrib.http.util.HttpMeasureConstants.HTTP_SERVER_S
 import static java.util.concurrent.TimeUnit.NANOSECONDS;
 
 import io.opencensus.common.ExperimentalApi;
+import io.opencensus.metrics.Metrics;
 import io.opencensus.stats.Stats;
 import io.opencensus.stats.StatsRecorder;
 import io.opencensus.tags.TagContext;
-import io.opencensus.tags.TagValue;
 import io.opencensus.tags.Tagger;
 import io.opencensus.tags.Tags;
 import io.opencensus.trace.Link;
@@ -62,6 +62,21 @@ public class HttpServerHandler<
         Q /*>>> extends @NonNull Object*/, P, C /*>>> extends @NonNull Object*/>
     extends AbstractHttpHandler<Q, P> {
 
+  // Caches the tag values of the recorded stats, which repeat across requests.
+  private static final TagValueCache METHOD_VALUES = new TagValueCache(HTTP_SERVER_METHOD, 32);
+  private static final TagValueCache ROUTE_VALUES = new TagValueCache(HTTP_SERVER_ROUTE, 1024);
+  private static final TagValueCache STATUS_VALUES = new TagValueCache(HTTP_SERVER_STATUS, 64);
+
+  static {
+    TagValueCache.exportHitRatio(
+        Metrics.getMetricRegistry(),
+        "opencensus.io/http/server/tag_value_cache_hit_ratio",
+        "Ratio of the tag values of the HTTP server stats that were found in the cache",
+        METHOD_VALUES,
+        ROUTE_VALUES,
+        STATUS_VALUES);
+  }
+
   private final TextFormat.Getter<C> getter;
   private final TextFormat textFormat;
   private final Tracer tracer;
@@ -178,15 +193,15 @@ public class HttpServerHandler<
             .toBuilder(context.tagContext)
             .put(
                 HTTP_SERVER_METHOD,
-                TagValue.create(methodStr == null ? "" : methodStr),
+                METHOD_VALUES.get(methodStr == null ? "" : methodStr),
                 METADATA_NO_PROPAGATION)
             .put(
                 HTTP_SERVER_ROUTE,
-                TagValue.create(routeStr == null ? "" : routeStr),
+                ROUTE_VALUES.get(routeStr == null ? "" : routeStr),
                 METADATA_NO_PROPAGATION)
             .put(
                 HTTP_SERVER_STATUS,
-                TagValue.create(httpCode == 0 ? "error" : Integer.toString(httpCode)),
+                STATUS_VALUES.get(httpCode == 0 ? "error" : Integer.toString(httpCode)),
                 METADATA_NO_PROPAGATION)
             .build();
 
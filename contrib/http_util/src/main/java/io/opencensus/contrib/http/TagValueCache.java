@@ -0,0 +1,179 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.contrib.http;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.annotations.VisibleForTesting;
+import io.opencensus.common.ToDoubleFunction;
+import io.opencensus.metrics.DerivedDoubleGauge;
+import io.opencensus.metrics.LabelKey;
+import io.opencensus.metrics.LabelValue;
+import io.opencensus.metrics.MetricOptions;
+import io.opencensus.metrics.MetricRegistry;
+import io.opencensus.tags.TagKey;
+import io.opencensus.tags.TagValue;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * A bounded cache of the {@link TagValue}s of a {@link TagKey}, so that the values that are
+ * recorded on every request are not validated and allocated again.
+ *
+ * <p>Lookups don't take any lock. When the cache is full, the values that were not used since the
+ * previous eviction are evicted first, which approximates a least recently used eviction.
+ */
+@ThreadSafe
+final class TagValueCache {
+
+  private static final LabelKey TAG_KEY = LabelKey.create("tag_key", "The name of the tag key.");
+  private static final List<LabelKey> TAG_KEYS = Collections.singletonList(TAG_KEY);
+
+  private static final ToDoubleFunction<TagValueCache> HIT_RATIO =
+      new ToDoubleFunction<TagValueCache>() {
+        @Override
+        public double applyAsDouble(TagValueCache cache) {
+          return cache.getHitRatio();
+        }
+      };
+
+  private final TagKey key;
+  private final int maximumSize;
+  private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+  // ConcurrentHashMap.size() is not constant time, so the size is tracked separately.
+  private final AtomicInteger size = new AtomicInteger();
+  private final AtomicLong hitCount = new AtomicLong();
+  private final AtomicLong missCount = new AtomicLong();
+
+  TagValueCache(TagKey key, int maximumSize) {
+    checkArgument(maximumSize > 0, "maximumSize must be positive.");
+    this.key = checkNotNull(key, "key");
+    this.maximumSize = maximumSize;
+  }
+
+  /**
+   * Returns a {@code TagValue} for the given string, which is cached if the string was looked up
+   * recently.
+   *
+   * @param value the string of the {@code TagValue}.
+   * @return a {@code TagValue} for the given string.
+   * @throws IllegalArgumentException if the string is not a valid {@code TagValue}.
+   */
+  TagValue get(String value) {
+    Entry entry = entries.get(value);
+    if (entry != null) {
+      // Only write the flag when needed, to avoid contention on the entry.
+      if (!entry.used) {
+        entry.used = true;
+      }
+      hitCount.incrementAndGet();
+      return entry.tagValue;
+    }
+    missCount.incrementAndGet();
+    TagValue tagValue = TagValue.create(value);
+    if (size.get() >= maximumSize) {
+      evict();
+    }
+    if (entries.putIfAbsent(value, new Entry(tagValue)) == null) {
+      size.incrementAndGet();
+    }
+    return tagValue;
+  }
+
+  // Removes the entries that were not used since the previous eviction. If all of them were used,
+  // removes an arbitrary entry, so that there is always room for a new entry.
+  private synchronized void evict() {
+    if (size.get() < maximumSize) {
+      // Another thread already made room.
+      return;
+    }
+    for (Iterator<Entry> i = entries.values().iterator(); i.hasNext(); ) {
+      Entry entry = i.next();
+      if (entry.used) {
+        entry.used = false;
+      } else {
+        i.remove();
+        size.decrementAndGet();
+      }
+    }
+    if (size.get() >= maximumSize) {
+      Iterator<Entry> i = entries.values().iterator();
+      i.next();
+      i.remove();
+      size.decrementAndGet();
+    }
+  }
+
+  @VisibleForTesting
+  int size() {
+    return size.get();
+  }
+
+  /**
+   * Returns the ratio of the lookups that found their value in the cache, or 0 if there was no
+   * lookup.
+   *
+   * @return the ratio of the lookups that found their value in the cache.
+   */
+  double getHitRatio() {
+    long hits = hitCount.get();
+    long lookups = hits + missCount.get();
+    return lookups == 0 ? 0 : (double) hits / lookups;
+  }
+
+  /**
+   * Exports the hit ratio of the given caches as a gauge, with a time series per cache labeled with
+   * the name of its {@code TagKey}.
+   *
+   * @param registry the registry to add the gauge to.
+   * @param name the name of the gauge.
+   * @param description the description of the gauge.
+   * @param caches the caches whose hit ratio is exported.
+   */
+  static void exportHitRatio(
+      MetricRegistry registry, String name, String description, TagValueCache... caches) {
+    DerivedDoubleGauge gauge =
+        registry.addDerivedDoubleGauge(
+            name,
+            MetricOptions.builder()
+                .setDescription(description)
+                .setUnit("1")
+                .setLabelKeys(TAG_KEYS)
+                .build());
+    for (TagValueCache cache : caches) {
+      gauge.createTimeSeries(
+          Collections.singletonList(LabelValue.create(cache.key.getName())), cache, HIT_RATIO);
+    }
+  }
+
+  private static final class Entry {
+    private final TagValue tagValue;
+    // Whether the entry was used since the previous eviction.
+    private volatile boolean used;
+
+    private Entry(TagValue tagValue) {
+      this.tagValue = tagValue;
+    }
+  }
+}
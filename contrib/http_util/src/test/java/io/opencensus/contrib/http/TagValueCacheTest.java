@@ -0,0 +1,103 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.contrib.http;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.same;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.opencensus.common.ToDoubleFunction;
+import io.opencensus.metrics.DerivedDoubleGauge;
+import io.opencensus.metrics.LabelValue;
+import io.opencensus.metrics.MetricOptions;
+import io.opencensus.metrics.MetricRegistry;
+import io.opencensus.tags.TagKey;
+import io.opencensus.tags.TagValue;
+import java.util.Collections;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.mockito.Mockito;
+
+/** Unit tests for {@link TagValueCache}. */
+@RunWith(JUnit4.class)
+public class TagValueCacheTest {
+  @Rule public final ExpectedException thrown = ExpectedException.none();
+
+  private static final TagKey KEY = TagKey.create("key");
+
+  private final TagValueCache cache = new TagValueCache(KEY, 4);
+
+  @Test
+  public void testDisallowNonPositiveSize() {
+    thrown.expect(IllegalArgumentException.class);
+    new TagValueCache(KEY, 0);
+  }
+
+  @Test
+  public void testGet() {
+    TagValue value = cache.get("value");
+    assertThat(value).isEqualTo(TagValue.create("value"));
+    assertThat(cache.get("value")).isSameAs(value);
+    assertThat(cache.size()).isEqualTo(1);
+  }
+
+  @Test
+  public void testGet_InvalidValue() {
+    thrown.expect(IllegalArgumentException.class);
+    cache.get("\2ab\3cd");
+  }
+
+  @Test
+  public void testHitRatio() {
+    assertThat(cache.getHitRatio()).isEqualTo(0.0);
+    cache.get("v1");
+    cache.get("v1");
+    cache.get("v1");
+    cache.get("v2");
+    assertThat(cache.getHitRatio()).isEqualTo(0.5);
+  }
+
+  @Test
+  public void testEviction_KeepsUsedValues() {
+    TagValue used = cache.get("used");
+    for (int i = 0; i < 100; i++) {
+      assertThat(cache.get("used")).isSameAs(used);
+      cache.get("value" + i);
+      assertThat(cache.size()).isAtMost(4);
+    }
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testExportHitRatio() {
+    MetricRegistry registry = Mockito.mock(MetricRegistry.class);
+    DerivedDoubleGauge gauge = Mockito.mock(DerivedDoubleGauge.class);
+    when(registry.addDerivedDoubleGauge(eq("name"), any(MetricOptions.class))).thenReturn(gauge);
+    TagValueCache.exportHitRatio(registry, "name", "description", cache);
+    verify(gauge)
+        .createTimeSeries(
+            eq(Collections.singletonList(LabelValue.create("key"))),
+            same(cache),
+            any(ToDoubleFunction.class));
+  }
+}
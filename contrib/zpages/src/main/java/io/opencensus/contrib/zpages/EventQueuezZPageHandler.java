@@ -0,0 +1,294 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.contrib.zpages;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Charsets;
+import io.opencensus.common.Function;
+import io.opencensus.common.Functions;
+import io.opencensus.metrics.LabelValue;
+import io.opencensus.metrics.export.Metric;
+import io.opencensus.metrics.export.MetricProducer;
+import io.opencensus.metrics.export.Point;
+import io.opencensus.metrics.export.TimeSeries;
+import java.io.BufferedWriter;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.Nullable;
+
+/**
+ * HTML page formatter for the event queue of the OpenCensus library. The page displays the depth of
+ * the queue, the number of dropped entries, how long producers waited for a free slot and how long
+ * it took to process each type of entry.
+ *
+ * <p>The data is read from the {@code MetricProducer} of the event queue of the implementation, and
+ * from no other producer, so that loading the page doesn't compute (or, in delta mode, reset) the
+ * data of the stats views. The page is empty if the implementation doesn't use the {@code
+ * DisruptorEventQueue}. The processing time of the entries is only recorded if the {@code
+ * opencensus.disruptor.exportMetrics} system property is set to {@code true}.
+ */
+final class EventQueuezZPageHandler extends ZPageHandler {
+  private static final Logger logger = Logger.getLogger(EventQueuezZPageHandler.class.getName());
+  private static final String EVENT_QUEUEZ_URL = "/eventqueuez";
+  private static final String EVENT_QUEUE_CLASS_NAME =
+      "io.opencensus.impl.internal.DisruptorEventQueue";
+
+  @VisibleForTesting static final String METRIC_NAME_PREFIX = "opencensus.io/event_queue/";
+  @VisibleForTesting static final String QUEUE_DEPTH = METRIC_NAME_PREFIX + "queue_depth";
+  @VisibleForTesting static final String DROPPED_ENTRIES = METRIC_NAME_PREFIX + "dropped_entries";
+  @VisibleForTesting static final String BLOCKED_ENQUEUES = METRIC_NAME_PREFIX + "blocked_enqueues";
+
+  @VisibleForTesting
+  static final String ENQUEUE_WAIT_TIME = METRIC_NAME_PREFIX + "enqueue_wait_time";
+
+  @VisibleForTesting
+  static final String PROCESSED_ENTRIES = METRIC_NAME_PREFIX + "processed_entries";
+
+  @VisibleForTesting static final String PROCESSING_TIME = METRIC_NAME_PREFIX + "processing_time";
+
+  @Nullable private final MetricProducer eventQueueMetricProducer;
+
+  static EventQueuezZPageHandler create(@Nullable MetricProducer eventQueueMetricProducer) {
+    return new EventQueuezZPageHandler(eventQueueMetricProducer);
+  }
+
+  // Returns the MetricProducer of the DisruptorEventQueue, or null if the implementation in the
+  // classpath doesn't have one. The zPages only depend on the API, so it is loaded by reflection.
+  @Nullable
+  static MetricProducer loadEventQueueMetricProducer(@Nullable ClassLoader classLoader) {
+    try {
+      Class<?> eventQueueClass = Class.forName(EVENT_QUEUE_CLASS_NAME, true, classLoader);
+      Object eventQueue = eventQueueClass.getMethod("getInstance").invoke(null);
+      return (MetricProducer) eventQueueClass.getMethod("getMetricProducer").invoke(eventQueue);
+    } catch (ClassNotFoundException e) {
+      logger.log(Level.FINE, "No event queue metrics available.", e);
+    } catch (ReflectiveOperationException | ClassCastException e) {
+      logger.log(Level.WARNING, "Couldn't load the event queue metrics.", e);
+    }
+    return null;
+  }
+
+  @Override
+  public String getUrlPath() {
+    return EVENT_QUEUEZ_URL;
+  }
+
+  private static void emitStyle(PrintWriter out) {
+    out.write("<style>\n");
+    out.write(Style.style);
+    out.write("</style>\n");
+  }
+
+  @Override
+  public void emitHtml(Map<String, String> queryMap, OutputStream outputStream) {
+    PrintWriter out =
+        new PrintWriter(new BufferedWriter(new OutputStreamWriter(outputStream, Charsets.UTF_8)));
+    out.write("<!DOCTYPE html>\n");
+    out.write("<html lang=\"en\"><head>\n");
+    out.write("<meta charset=\"utf-8\">\n");
+    out.write("<title>EventQueueZ</title>\n");
+    out.write("<link rel=\"shortcut icon\" href=\"https://opencensus.io/images/favicon.ico\"/>\n");
+    out.write(
+        "<link href=\"https://fonts.googleapis.com/css?family=Open+Sans:300\""
+            + "rel=\"stylesheet\">\n");
+    out.write(
+        "<link href=\"https://fonts.googleapis.com/css?family=Roboto\"" + "rel=\"stylesheet\">\n");
+    emitStyle(out);
+    out.write("</head>\n");
+    out.write("<body>\n");
+    out.write(
+        "<p class=\"header\">"
+            + "<img class=\"oc\" src=\"https://opencensus.io/img/logo-sm.svg\" />"
+            + "Open<span>Census</span></p>");
+    out.write("<h1 class=\"left\">Event Queue</h1>");
+    out.write("<p></p>");
+    try {
+      emitHtmlBody(out);
+    } finally {
+      out.write("</body>\n");
+      out.write("</html>\n");
+      out.close();
+    }
+  }
+
+  private void emitHtmlBody(PrintWriter out) {
+    Map<String, Metric> metrics = getEventQueueMetrics();
+    if (metrics.isEmpty()) {
+      out.write("<p class=\"view\">No event queue metrics are available.</p>\n");
+      return;
+    }
+    emitQueueTable(metrics, out);
+    out.write("<br>\n");
+    emitEntryTypeTable(metrics, out);
+  }
+
+  private Map<String, Metric> getEventQueueMetrics() {
+    Map<String, Metric> metrics = new TreeMap<String, Metric>();
+    if (eventQueueMetricProducer == null) {
+      return metrics;
+    }
+    for (Metric metric : eventQueueMetricProducer.getMetrics()) {
+      String name = metric.getMetricDescriptor().getName();
+      if (name.startsWith(METRIC_NAME_PREFIX)) {
+        metrics.put(name, metric);
+      }
+    }
+    return metrics;
+  }
+
+  // Prints the depth of each shard and the backpressure counters of the whole queue.
+  private static void emitQueueTable(Map<String, Metric> metrics, PrintWriter out) {
+    out.write(
+        "<b class=\"title\">Queue:</b><br>\n"
+            + "<table class=\"small\" rules=\"all\">\n"
+            + "  <tr>\n"
+            + "    <td class=\"col_headR\">Name</td>\n"
+            + "    <td class=\"col_head\">Value</td>\n"
+            + "  </tr>\n");
+    Metric queueDepth = metrics.get(QUEUE_DEPTH);
+    if (queueDepth != null) {
+      for (TimeSeries timeSeries : queueDepth.getTimeSeriesList()) {
+        emitRow(
+            out, "Depth of shard " + getLabel(timeSeries), formatValue(getLastPoint(timeSeries)));
+      }
+    }
+    emitRow(out, "Dropped entries", formatValue(getOnlyPoint(metrics.get(DROPPED_ENTRIES))));
+    emitRow(out, "Blocked enqueues", formatValue(getOnlyPoint(metrics.get(BLOCKED_ENQUEUES))));
+    emitRow(
+        out,
+        "Total enqueue wait time (ms)",
+        formatValue(getOnlyPoint(metrics.get(ENQUEUE_WAIT_TIME))));
+    out.write("</table>\n");
+  }
+
+  // Prints the number of processed entries and the processing latency per entry type.
+  private static void emitEntryTypeTable(Map<String, Metric> metrics, PrintWriter out) {
+    out.write(
+        "<b class=\"title\">Entry types:</b><br>\n"
+            + "<table class=\"small\" rules=\"all\">\n"
+            + "  <tr>\n"
+            + "    <td class=\"col_headR\">Entry type</td>\n"
+            + "    <td class=\"col_head\">Processed</td>\n"
+            + "    <td class=\"col_head\">Total time (ms)</td>\n"
+            + "    <td class=\"col_head\">Mean time (ms)</td>\n"
+            + "  </tr>\n");
+    Map<String, Double> processingTimes = getValuesByLabel(metrics.get(PROCESSING_TIME));
+    for (Map.Entry<String, Double> entry :
+        getValuesByLabel(metrics.get(PROCESSED_ENTRIES)).entrySet()) {
+      long processed = entry.getValue().longValue();
+      Double processingTime = processingTimes.get(entry.getKey());
+      out.printf(
+          "  <tr>%n    <td>%s</td>%n    <td>%d</td>%n    <td>%s</td>%n    <td>%s</td>%n  </tr>%n",
+          entry.getKey(),
+          processed,
+          processingTime == null ? "" : String.format("%.3f", processingTime),
+          processingTime == null || processed == 0
+              ? ""
+              : String.format("%.6f", processingTime / processed));
+    }
+    out.write("</table>\n");
+  }
+
+  private static void emitRow(PrintWriter out, String name, String value) {
+    out.printf("  <tr>%n    <td>%s</td>%n    <td>%s</td>%n  </tr>%n", name, value);
+  }
+
+  private static Map<String, Double> getValuesByLabel(@Nullable Metric metric) {
+    Map<String, Double> values = new TreeMap<String, Double>();
+    if (metric == null) {
+      return values;
+    }
+    for (TimeSeries timeSeries : metric.getTimeSeriesList()) {
+      Point point = getLastPoint(timeSeries);
+      if (point != null) {
+        values.put(getLabel(timeSeries), toDouble(point));
+      }
+    }
+    return values;
+  }
+
+  // All the event queue metrics have at most one label.
+  private static String getLabel(TimeSeries timeSeries) {
+    List<LabelValue> labelValues = timeSeries.getLabelValues();
+    String value = labelValues.isEmpty() ? null : labelValues.get(0).getValue();
+    return value == null ? "" : value;
+  }
+
+  @Nullable
+  private static Point getOnlyPoint(@Nullable Metric metric) {
+    if (metric == null || metric.getTimeSeriesList().isEmpty()) {
+      return null;
+    }
+    return getLastPoint(metric.getTimeSeriesList().get(0));
+  }
+
+  @Nullable
+  private static Point getLastPoint(TimeSeries timeSeries) {
+    List<Point> points = timeSeries.getPoints();
+    return points.isEmpty() ? null : points.get(points.size() - 1);
+  }
+
+  private static String formatValue(@Nullable Point point) {
+    if (point == null) {
+      return "";
+    }
+    return point
+        .getValue()
+        .match(
+            new Function<Double, String>() {
+              @Override
+              public String apply(Double arg) {
+                return String.format("%.3f", arg);
+              }
+            },
+            Functions.returnToString(),
+            Functions.returnToString(),
+            Functions.returnToString(),
+            Functions.returnToString());
+  }
+
+  private static double toDouble(Point point) {
+    return point
+        .getValue()
+        .match(
+            new Function<Double, Double>() {
+              @Override
+              public Double apply(Double arg) {
+                return arg;
+              }
+            },
+            new Function<Long, Double>() {
+              @Override
+              public Double apply(Long arg) {
+                return arg.doubleValue();
+              }
+            },
+            Functions.returnConstant(0.0),
+            Functions.returnConstant(0.0),
+            Functions.returnConstant(0.0));
+  }
+
+  private EventQueuezZPageHandler(@Nullable MetricProducer eventQueueMetricProducer) {
+    this.eventQueueMetricProducer = eventQueueMetricProducer;
+  }
+}
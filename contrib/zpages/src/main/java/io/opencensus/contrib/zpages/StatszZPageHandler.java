@@ -28,6 +28,7 @@ import com.google.common.collect.Sets;
 import io.opencensus.common.Function;
 import io.opencensus.common.Functions;
 import io.opencensus.common.Timestamp;
+import io.opencensus.metrics.export.Summary.Snapshot.ValueAtPercentile;
 import io.opencensus.stats.Aggregation;
 import io.opencensus.stats.Aggregation.Count;
 import io.opencensus.stats.Aggregation.Distribution;
@@ -114,6 +115,9 @@ final class StatszZPageHandler extends ZPageHandler {
   private static final String TABLE_HEADER_RANGE = "Range";
   private static final String TABLE_HEADER_BUCKET_SIZE = "Bucket Size";
   private static final String TABLE_HEADER_LAST_VALUE = "Last Value";
+  private static final String TABLE_HEADER_PERCENTILES = "Percentiles";
+  private static final String TABLE_HEADER_PERCENTILE = "Percentile";
+  private static final String TABLE_HEADER_VALUE = "Value";
   private static final long MILLIS_PER_SECOND = 1000;
   private static final long NANOS_PER_MILLISECOND = 1000 * 1000;
   private static final Splitter PATH_SPLITTER = Splitter.on('/');
@@ -345,6 +349,9 @@ final class StatszZPageHandler extends ZPageHandler {
                     if (arg instanceof Aggregation.Mean) {
                       return "Mean";
                     }
+                    if (arg instanceof Aggregation.Percentiles) {
+                      return "Percentiles";
+                    }
                     throw new AssertionError();
                   }
                 });
@@ -442,6 +449,12 @@ final class StatszZPageHandler extends ZPageHandler {
                   formatter.format("<th class=\"borderL\">%s</th>", TABLE_HEADER_COUNT);
                   return null;
                 }
+                if (arg instanceof Aggregation.Percentiles) {
+                  formatter.format("<th>%s</th>", TABLE_HEADER_COUNT);
+                  formatter.format("<th class=\"borderL\">%s, %s</th>", TABLE_HEADER_SUM, unit);
+                  formatter.format("<th class=\"borderL\">%s</th>", TABLE_HEADER_PERCENTILES);
+                  return null;
+                }
                 throw new IllegalArgumentException("Unknown Aggregation.");
               }
             });
@@ -525,12 +538,39 @@ final class StatszZPageHandler extends ZPageHandler {
                   formatter.format("<td class=\"borderLL\">%d</td>", meanData.getCount());
                   return null;
                 }
+                if (arg instanceof AggregationData.PercentilesData) {
+                  AggregationData.PercentilesData percentilesData =
+                      (AggregationData.PercentilesData) arg;
+                  formatter.format("<td>%d</td>", percentilesData.getCount());
+                  formatter.format("<td class=\"borderLL\">%.3f</td>", percentilesData.getSum());
+                  emitValueAtPercentiles(percentilesData.getValueAtPercentiles(), out, formatter);
+                  return null;
+                }
                 throw new IllegalArgumentException("Unknown Aggregation.");
               }
             });
     out.write("</tr>");
   }
 
+  private static void emitValueAtPercentiles(
+      List<ValueAtPercentile> valueAtPercentiles, PrintWriter out, Formatter formatter) {
+    out.write("<td class=\"borderLL\">");
+    out.write("<table>");
+    formatter.format(
+        "<thead><tr><th>%s</th><th>%s</th></tr></thead>",
+        TABLE_HEADER_PERCENTILE, TABLE_HEADER_VALUE);
+    out.write("<tbody>");
+    for (ValueAtPercentile valueAtPercentile : valueAtPercentiles) {
+      out.write("<tr>");
+      formatter.format("<td>%.3f</td>", valueAtPercentile.getPercentile());
+      formatter.format("<td>%.3f</td>", valueAtPercentile.getValue());
+      out.write("</tr>");
+    }
+    out.write("</tbody>");
+    out.write("</table>");
+    out.write("</td>");
+  }
+
   private static void emitHistogramBuckets(
       List<Double> bucketBoundaries,
       List<Long> bucketCounts,
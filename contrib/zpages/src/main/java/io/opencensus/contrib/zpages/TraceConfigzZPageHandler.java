@@ -17,6 +17,7 @@
 package io.opencensus.contrib.zpages;
 
 import static com.google.common.base.Strings.isNullOrEmpty;
+import static com.google.common.html.HtmlEscapers.htmlEscaper;
 
 import com.google.common.base.Charsets;
 import io.opencensus.trace.config.TraceConfig;
@@ -26,9 +27,9 @@ import java.io.BufferedWriter;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.util.ArrayList;
 import java.util.Map;
 
-// TODO(bdrutu): Add tests.
 // TODO(hailongwen): Remove the usage of `NetworkEvent` in the future.
 /**
  * HTML page formatter for tracing config. The page displays information about the current active
@@ -41,6 +42,8 @@ final class TraceConfigzZPageHandler extends ZPageHandler {
   private static final String CHANGE = "change";
   private static final String PERMANENT_CHANGE = "permanently";
   private static final String RESTORE_DEFAULT_CHANGE = "restore_default";
+  private static final String REMOVE_SPAN_NAME_PREFIX_CHANGE = "remove_span_name_prefix";
+  private static final String QUERY_COMPONENT_SPAN_NAME_PREFIX = "spannameprefix";
   private static final String QUERY_COMPONENT_SAMPLING_PROBABILITY = "samplingprobability";
   private static final String QUERY_COMPONENT_MAX_NUMBER_OF_ATTRIBUTES = "maxnumberofattributes";
   private static final String QUERY_COMPONENT_MAX_NUMBER_OF_ANNOTATIONS = "maxnumberofannotations";
@@ -56,6 +59,8 @@ final class TraceConfigzZPageHandler extends ZPageHandler {
           + "<table class=\"small\" rules=\"all\">%n"
           + "<td colspan=\"3\" class=\"col_head\">Permanently change "
           + "<input type=\"hidden\" name=\"%s\" value=\"%s\"></td>%n"
+          + "<tr><td>For span names starting with</td> "
+          + "<td><input type=text size=15 name=%s value=\"\"></td> <td>(all span names)</td>%n"
           + "<tr><td>SamplingProbability to</td> "
           + "<td><input type=text size=15 name=%s value=\"\"></td> <td>(%s)</td>%n"
           + "<tr><td>MaxNumberOfAttributes to</td> "
@@ -81,6 +86,17 @@ final class TraceConfigzZPageHandler extends ZPageHandler {
           + "<input class=\"button\" type=submit value=Reset>%n"
           + "</form>";
 
+  private static final String REMOVE_SPAN_NAME_PREFIX_FORM_BODY =
+      "<form action=/traceconfigz method=get>%n"
+          // Remove the parameters of a span name prefix.
+          + "<b class=\"title\">Remove span name prefix</b> %n"
+          + "<input type=\"hidden\" name=\"%s\" value=\"%s\"></td>%n"
+          + "<input type=text size=15 name=%s value=\"\">%n"
+          + "</br>%n"
+          // Remove button.
+          + "<input class=\"button\" type=submit value=Remove>%n"
+          + "</form>";
+
   static TraceConfigzZPageHandler create(TraceConfig traceConfig) {
     return new TraceConfigzZPageHandler(traceConfig);
   }
@@ -130,6 +146,7 @@ final class TraceConfigzZPageHandler extends ZPageHandler {
           TRACECONFIGZ_FORM_BODY,
           CHANGE,
           PERMANENT_CHANGE,
+          QUERY_COMPONENT_SPAN_NAME_PREFIX,
           QUERY_COMPONENT_SAMPLING_PROBABILITY,
           "0.0001", // TODO(bdrutu): Get this from the default sampler (if possible).
           QUERY_COMPONENT_MAX_NUMBER_OF_ATTRIBUTES,
@@ -141,21 +158,39 @@ final class TraceConfigzZPageHandler extends ZPageHandler {
           QUERY_COMPONENT_MAX_NUMBER_OF_LINKS,
           TraceParams.DEFAULT.getMaxNumberOfLinks());
       out.write("<br>\n");
+      out.printf(
+          REMOVE_SPAN_NAME_PREFIX_FORM_BODY,
+          CHANGE,
+          REMOVE_SPAN_NAME_PREFIX_CHANGE,
+          QUERY_COMPONENT_SPAN_NAME_PREFIX);
+      out.write("<br>\n");
       out.printf(RESTORE_DEFAULT_FORM_BODY, CHANGE, RESTORE_DEFAULT_CHANGE);
       out.write("<br>\n");
       emitTraceParamsTable(traceConfig.getActiveTraceParams(), out);
+      emitSpanNamePrefixTraceParamsTable(traceConfig.getSpanNamePrefixTraceParams(), out);
       out.write("</body>\n");
       out.write("</html>\n");
       out.close();
     }
   }
 
-  // If this is a supported change (currently only permanent changes are supported) apply it.
+  // If this is a supported change (currently only permanent changes are supported) apply it. The
+  // change applies to the span names starting with the given prefix, if any, otherwise to the
+  // active parameters.
   @SuppressWarnings("deprecation")
   private void maybeApplyChanges(Map<String, String> queryMap) {
     String changeStr = queryMap.get(CHANGE);
+    String spanNamePrefix = queryMap.get(QUERY_COMPONENT_SPAN_NAME_PREFIX);
     if (PERMANENT_CHANGE.equals(changeStr)) {
-      TraceParams.Builder traceParamsBuilder = traceConfig.getActiveTraceParams().toBuilder();
+      TraceParams traceParams = traceConfig.getActiveTraceParams();
+      if (!isNullOrEmpty(spanNamePrefix)) {
+        TraceParams spanNamePrefixTraceParams =
+            traceConfig.getSpanNamePrefixTraceParams().get(spanNamePrefix);
+        if (spanNamePrefixTraceParams != null) {
+          traceParams = spanNamePrefixTraceParams;
+        }
+      }
+      TraceParams.Builder traceParamsBuilder = traceParams.toBuilder();
       String samplingProbabilityStr = queryMap.get(QUERY_COMPONENT_SAMPLING_PROBABILITY);
       if (!isNullOrEmpty(samplingProbabilityStr)) {
         double samplingProbability = Double.parseDouble(samplingProbabilityStr);
@@ -182,9 +217,21 @@ final class TraceConfigzZPageHandler extends ZPageHandler {
         int maxNumberOfLinks = Integer.parseInt(maxNumverOfLinksStr);
         traceParamsBuilder.setMaxNumberOfLinks(maxNumberOfLinks);
       }
-      traceConfig.updateActiveTraceParams(traceParamsBuilder.build());
+      if (isNullOrEmpty(spanNamePrefix)) {
+        traceConfig.updateActiveTraceParams(traceParamsBuilder.build());
+      } else {
+        traceConfig.updateSpanNamePrefixTraceParams(spanNamePrefix, traceParamsBuilder.build());
+      }
+    } else if (REMOVE_SPAN_NAME_PREFIX_CHANGE.equals(changeStr)) {
+      if (!isNullOrEmpty(spanNamePrefix)) {
+        traceConfig.removeSpanNamePrefixTraceParams(spanNamePrefix);
+      }
     } else if (RESTORE_DEFAULT_CHANGE.equals(changeStr)) {
       traceConfig.updateActiveTraceParams(TraceParams.DEFAULT);
+      for (String prefix :
+          new ArrayList<String>(traceConfig.getSpanNamePrefixTraceParams().keySet())) {
+        traceConfig.removeSpanNamePrefixTraceParams(prefix);
+      }
     }
   }
 
@@ -217,6 +264,39 @@ final class TraceConfigzZPageHandler extends ZPageHandler {
     out.write("</table>\n");
   }
 
+  // Prints a table to a PrintWriter that shows the trace parameters of the span name prefixes.
+  @SuppressWarnings("deprecation")
+  private static void emitSpanNamePrefixTraceParamsTable(
+      Map<String, TraceParams> spanNamePrefixTraceParams, PrintWriter out) {
+    if (spanNamePrefixTraceParams.isEmpty()) {
+      return;
+    }
+    out.write(
+        "<br>\n<b class=\"title\">Span name prefix tracing parameters:</b><br>\n"
+            + "<table class=\"small\" rules=\"all\">\n"
+            + "  <tr>\n"
+            + "    <td class=\"col_headR\">SpanNamePrefix</td>\n"
+            + "    <td class=\"col_head\">Sampler</td>\n"
+            + "    <td class=\"col_head\">MaxNumberOfAttributes</td>\n"
+            + "    <td class=\"col_head\">MaxNumberOfAnnotations</td>\n"
+            + "    <td class=\"col_head\">MaxNumberOfNetworkEvents</td>\n"
+            + "    <td class=\"col_head\">MaxNumberOfLinks</td>\n"
+            + "  </tr>\n");
+    for (Map.Entry<String, TraceParams> entry : spanNamePrefixTraceParams.entrySet()) {
+      TraceParams params = entry.getValue();
+      out.printf(
+          "  <tr>%n    <td>%s</td>%n    <td>%s</td>%n    <td>%d</td>%n    <td>%d</td>%n"
+              + "    <td>%d</td>%n    <td>%d</td>%n  </tr>%n",
+          htmlEscaper().escape(entry.getKey()),
+          params.getSampler().getDescription(),
+          params.getMaxNumberOfAttributes(),
+          params.getMaxNumberOfAnnotations(),
+          params.getMaxNumberOfNetworkEvents(),
+          params.getMaxNumberOfLinks());
+    }
+    out.write("</table>\n");
+  }
+
   private TraceConfigzZPageHandler(TraceConfig traceConfig) {
     this.traceConfig = traceConfig;
   }
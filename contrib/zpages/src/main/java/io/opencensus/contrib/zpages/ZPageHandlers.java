@@ -77,6 +77,10 @@ public final class ZPageHandlers {
       RpczZPageHandler.create(Stats.getViewManager());
   private static final ZPageHandler statszZPageHandler =
       StatszZPageHandler.create(Stats.getViewManager());
+  private static final ZPageHandler eventQueuezZPageHandler =
+      EventQueuezZPageHandler.create(
+          EventQueuezZPageHandler.loadEventQueueMetricProducer(
+              ZPageHandlers.class.getClassLoader()));
 
   private static final Object monitor = new Object();
 
@@ -136,6 +140,19 @@ public final class ZPageHandlers {
     return statszZPageHandler;
   }
 
+  /**
+   * Returns a {@code ZPageHandler} for the event queue of the library.
+   *
+   * <p>It prints the depth of the queue, the number of dropped entries, the time producers waited
+   * for a free slot and the processing time for each type of entry.
+   *
+   * @return a {@code ZPageHandler} for the event queue.
+   * @since 0.21
+   */
+  public static ZPageHandler getEventQueuezZPageHandler() {
+    return eventQueuezZPageHandler;
+  }
+
   /**
    * Registers all pages to the given {@code HttpServer}.
    *
@@ -148,6 +165,8 @@ public final class ZPageHandlers {
         traceConfigzZPageHandler.getUrlPath(), new ZPageHttpHandler(traceConfigzZPageHandler));
     server.createContext(rpczZpageHandler.getUrlPath(), new ZPageHttpHandler(rpczZpageHandler));
     server.createContext(statszZPageHandler.getUrlPath(), new ZPageHttpHandler(statszZPageHandler));
+    server.createContext(
+        eventQueuezZPageHandler.getUrlPath(), new ZPageHttpHandler(eventQueuezZPageHandler));
   }
 
   /**
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.contrib.zpages;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Mockito.doReturn;
+
+import com.google.common.collect.Maps;
+import io.opencensus.common.Timestamp;
+import io.opencensus.metrics.LabelKey;
+import io.opencensus.metrics.LabelValue;
+import io.opencensus.metrics.export.Metric;
+import io.opencensus.metrics.export.MetricDescriptor;
+import io.opencensus.metrics.export.MetricDescriptor.Type;
+import io.opencensus.metrics.export.MetricProducer;
+import io.opencensus.metrics.export.Point;
+import io.opencensus.metrics.export.TimeSeries;
+import io.opencensus.metrics.export.Value;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.mockito.Mockito;
+
+/** Unit tests for {@link EventQueuezZPageHandler}. */
+@RunWith(JUnit4.class)
+public class EventQueuezZPageHandlerTest {
+  private static final Timestamp TIMESTAMP = Timestamp.fromMillis(1000);
+  private static final String ENTRY_TYPE = "io.opencensus.implcore.stats.StatsManager$StatsEvent";
+
+  private final MetricProducer mockMetricProducer = Mockito.mock(MetricProducer.class);
+
+  @Test
+  public void getUrl() {
+    EventQueuezZPageHandler handler = EventQueuezZPageHandler.create(mockMetricProducer);
+    assertThat(handler.getUrlPath()).isEqualTo("/eventqueuez");
+  }
+
+  @Test
+  public void emitNoMetrics() {
+    OutputStream output = new ByteArrayOutputStream();
+    EventQueuezZPageHandler handler = EventQueuezZPageHandler.create(null);
+    handler.emitHtml(Maps.newHashMap(), output);
+    assertThat(output.toString()).contains("No event queue metrics are available.");
+  }
+
+  @Test
+  public void loadEventQueueMetricProducer_NoImplementation() {
+    // A class loader that only sees the classes of the JDK.
+    ClassLoader classLoader = new URLClassLoader(new URL[0], null);
+    assertThat(EventQueuezZPageHandler.loadEventQueueMetricProducer(classLoader)).isNull();
+  }
+
+  @Test
+  public void emitQueueAndEntryTypeTables() {
+    doReturn(
+            Arrays.asList(
+                createMetric(
+                    EventQueuezZPageHandler.QUEUE_DEPTH,
+                    Type.GAUGE_INT64,
+                    Collections.singletonList(LabelValue.create("0")),
+                    Value.longValue(17)),
+                createMetric(
+                    EventQueuezZPageHandler.DROPPED_ENTRIES,
+                    Type.GAUGE_INT64,
+                    Collections.<LabelValue>emptyList(),
+                    Value.longValue(42)),
+                createMetric(
+                    EventQueuezZPageHandler.PROCESSED_ENTRIES,
+                    Type.GAUGE_INT64,
+                    Collections.singletonList(LabelValue.create(ENTRY_TYPE)),
+                    Value.longValue(4)),
+                createMetric(
+                    EventQueuezZPageHandler.PROCESSING_TIME,
+                    Type.GAUGE_DOUBLE,
+                    Collections.singletonList(LabelValue.create(ENTRY_TYPE)),
+                    Value.doubleValue(2.0)),
+                createMetric(
+                    "other_metric",
+                    Type.GAUGE_INT64,
+                    Collections.<LabelValue>emptyList(),
+                    Value.longValue(12345))))
+        .when(mockMetricProducer)
+        .getMetrics();
+    OutputStream output = new ByteArrayOutputStream();
+    EventQueuezZPageHandler handler = EventQueuezZPageHandler.create(mockMetricProducer);
+    handler.emitHtml(Maps.newHashMap(), output);
+    String html = output.toString();
+    assertThat(html).contains("Depth of shard 0");
+    assertThat(html).contains("<td>17</td>");
+    assertThat(html).contains("<td>42</td>");
+    assertThat(html).contains(ENTRY_TYPE);
+    assertThat(html).contains("<td>2.000</td>");
+    assertThat(html).contains("<td>0.500000</td>");
+    assertThat(html).doesNotContain("12345");
+  }
+
+  private static Metric createMetric(
+      String name, Type type, List<LabelValue> labelValues, Value value) {
+    List<LabelKey> labelKeys =
+        labelValues.isEmpty()
+            ? Collections.<LabelKey>emptyList()
+            : Collections.singletonList(LabelKey.create("key", "description"));
+    return Metric.createWithOneTimeSeries(
+        MetricDescriptor.create(name, "description", "1", type, labelKeys),
+        TimeSeries.createWithOnePoint(labelValues, Point.create(value, TIMESTAMP), null));
+  }
+}
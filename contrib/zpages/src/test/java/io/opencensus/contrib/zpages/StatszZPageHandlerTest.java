@@ -34,6 +34,7 @@ import com.google.common.collect.Maps;
 import io.opencensus.common.Function;
 import io.opencensus.common.Functions;
 import io.opencensus.common.Timestamp;
+import io.opencensus.metrics.export.Summary.Snapshot.ValueAtPercentile;
 import io.opencensus.stats.Aggregation;
 import io.opencensus.stats.Aggregation.Sum;
 import io.opencensus.stats.AggregationData;
@@ -180,6 +181,41 @@ public class StatszZPageHandlerTest {
     assertContainsViewData(output2, VIEW_DATA_2);
   }
 
+  @Test
+  public void emitPercentilesViewData() {
+    View view =
+        View.create(
+            View.Name.create("my_percentiles_view"),
+            "My percentiles view",
+            RPC_CLIENT_ROUNDTRIP_LATENCY,
+            Aggregation.Percentiles.create(Arrays.asList(50.0, 99.0)),
+            Arrays.asList(TagKey.create("my_key")),
+            Cumulative.create());
+    ViewData viewData =
+        ViewData.create(
+            view,
+            ImmutableMap.of(
+                Arrays.asList(METHOD_1),
+                AggregationData.PercentilesData.create(
+                    7,
+                    70.0,
+                    Arrays.asList(
+                        ValueAtPercentile.create(50.0, 8.25),
+                        ValueAtPercentile.create(99.0, 31.5)))),
+            CUMULATIVE_DATA);
+    doReturn(ImmutableSet.of(view)).when(mockViewManager).getAllExportedViews();
+    doReturn(viewData).when(mockViewManager).getView(view.getName());
+
+    StatszZPageHandler handler = StatszZPageHandler.create(mockViewManager);
+    OutputStream output = new ByteArrayOutputStream();
+    handler.emitHtml(ImmutableMap.of(QUERY_PATH, "/my_percentiles_view"), output);
+    assertThat(output.toString()).contains("Percentiles");
+    assertThat(output.toString()).contains(METHOD_1.asString());
+    assertThat(output.toString()).contains("<td>7</td>");
+    assertThat(output.toString()).contains("70.000");
+    assertThat(output.toString()).contains("<td>99.000</td><td>31.500</td>");
+  }
+
   @Test
   public void nonExistingPath() {
     StatszZPageHandler handler = StatszZPageHandler.create(mockViewManager);
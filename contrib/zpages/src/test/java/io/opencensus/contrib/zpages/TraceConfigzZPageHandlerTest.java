@@ -0,0 +1,116 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.contrib.zpages;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import com.google.common.collect.ImmutableMap;
+import io.opencensus.trace.config.TraceConfig;
+import io.opencensus.trace.config.TraceParams;
+import io.opencensus.trace.samplers.Samplers;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.util.Collections;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.mockito.Matchers;
+import org.mockito.Mockito;
+
+/** Unit tests for {@link TraceConfigzZPageHandler}. */
+@RunWith(JUnit4.class)
+public class TraceConfigzZPageHandlerTest {
+  private static final TraceParams HEALTH_TRACE_PARAMS =
+      TraceParams.DEFAULT.toBuilder().setMaxNumberOfLinks(1).build();
+
+  private final TraceConfig mockTraceConfig = Mockito.mock(TraceConfig.class);
+  private final TraceConfigzZPageHandler handler = TraceConfigzZPageHandler.create(mockTraceConfig);
+
+  @Before
+  public void setUp() {
+    doReturn(TraceParams.DEFAULT).when(mockTraceConfig).getActiveTraceParams();
+    doReturn(ImmutableMap.of("Health<", HEALTH_TRACE_PARAMS))
+        .when(mockTraceConfig)
+        .getSpanNamePrefixTraceParams();
+  }
+
+  @Test
+  public void getUrl() {
+    assertThat(handler.getUrlPath()).isEqualTo("/traceconfigz");
+  }
+
+  @Test
+  public void emitSpanNamePrefixTraceParams() {
+    OutputStream output = new ByteArrayOutputStream();
+    handler.emitHtml(Collections.<String, String>emptyMap(), output);
+    assertThat(output.toString()).contains("<td>Health&lt;</td>");
+  }
+
+  @Test
+  public void changeActiveTraceParams() {
+    handler.emitHtml(
+        ImmutableMap.of("change", "permanently", "samplingprobability", "1.0"),
+        new ByteArrayOutputStream());
+    verify(mockTraceConfig)
+        .updateActiveTraceParams(
+            TraceParams.DEFAULT.toBuilder().setSampler(Samplers.probabilitySampler(1.0)).build());
+    verify(mockTraceConfig, never())
+        .updateSpanNamePrefixTraceParams(Matchers.anyString(), Matchers.any(TraceParams.class));
+  }
+
+  @Test
+  public void changeSpanNamePrefixTraceParams() {
+    handler.emitHtml(
+        ImmutableMap.of(
+            "change", "permanently", "spannameprefix", "Checkout", "maxnumberoflinks", "2"),
+        new ByteArrayOutputStream());
+    verify(mockTraceConfig)
+        .updateSpanNamePrefixTraceParams(
+            "Checkout", TraceParams.DEFAULT.toBuilder().setMaxNumberOfLinks(2).build());
+    verify(mockTraceConfig, never()).updateActiveTraceParams(Matchers.any(TraceParams.class));
+  }
+
+  @Test
+  public void changeExistingSpanNamePrefixTraceParams() {
+    handler.emitHtml(
+        ImmutableMap.of(
+            "change", "permanently", "spannameprefix", "Health<", "maxnumberofattributes", "2"),
+        new ByteArrayOutputStream());
+    verify(mockTraceConfig)
+        .updateSpanNamePrefixTraceParams(
+            "Health<", HEALTH_TRACE_PARAMS.toBuilder().setMaxNumberOfAttributes(2).build());
+  }
+
+  @Test
+  public void removeSpanNamePrefixTraceParams() {
+    handler.emitHtml(
+        ImmutableMap.of("change", "remove_span_name_prefix", "spannameprefix", "Health<"),
+        new ByteArrayOutputStream());
+    verify(mockTraceConfig).removeSpanNamePrefixTraceParams("Health<");
+  }
+
+  @Test
+  public void restoreDefault() {
+    handler.emitHtml(ImmutableMap.of("change", "restore_default"), new ByteArrayOutputStream());
+    verify(mockTraceConfig).updateActiveTraceParams(TraceParams.DEFAULT);
+    verify(mockTraceConfig).removeSpanNamePrefixTraceParams("Health<");
+  }
+}
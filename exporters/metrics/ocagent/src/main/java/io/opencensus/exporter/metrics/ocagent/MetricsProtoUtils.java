@@ -181,8 +181,10 @@ final class MetricsProtoUtils {
     if (distribution.getBucketOptions() != null) {
       builder.setBucketOptions(toBucketOptionsProto(distribution.getBucketOptions()));
     }
-    for (io.opencensus.metrics.export.Distribution.Bucket bucket : distribution.getBuckets()) {
-      builder.addBuckets(toBucketProto(bucket));
+    int numBuckets = distribution.getBuckets().size();
+    for (int i = 0; i < numBuckets; i++) {
+      builder.addBuckets(
+          toBucketProto(distribution.getBucketCount(i), distribution.getBucketExemplar(i)));
     }
     return builder.build();
   }
@@ -204,15 +206,24 @@ final class MetricsProtoUtils {
             return null;
           }
         },
+        new Function<Distribution.BucketOptions.ExponentialOptions, Void>() {
+          @Override
+          public Void apply(Distribution.BucketOptions.ExponentialOptions arg) {
+            // The OC-Agent protocol only supports explicit bucket bounds.
+            builder.setExplicit(
+                DistributionValue.BucketOptions.Explicit.newBuilder()
+                    .addAllBounds(arg.getBucketBoundaries())
+                    .build());
+            return null;
+          }
+        },
         Functions.<Void>throwAssertionError());
     return builder.build();
   }
 
-  private static DistributionValue.Bucket toBucketProto(
-      io.opencensus.metrics.export.Distribution.Bucket bucket) {
+  private static DistributionValue.Bucket toBucketProto(long count, @Nullable Exemplar exemplar) {
     DistributionValue.Bucket.Builder builder =
-        DistributionValue.Bucket.newBuilder().setCount(bucket.getCount());
-    Exemplar exemplar = bucket.getExemplar();
+        DistributionValue.Bucket.newBuilder().setCount(count);
     if (exemplar != null) {
       builder.setExemplar(toExemplarProto(exemplar));
     }
@@ -185,6 +185,30 @@ public class MetricsProtoUtilsTests {
     assertThat(actual).isEqualTo(expected);
   }
 
+  @Test
+  public void toMetricProto_ExponentialDistribution() {
+    Distribution distribution =
+        Distribution.create(
+            3,
+            4.5,
+            4.5,
+            BucketOptions.exponentialOptions(1, 2.0, 1.0),
+            Arrays.<Bucket>asList(Bucket.create(1), Bucket.create(1), Bucket.create(1)));
+    TimeSeries timeSeries =
+        TimeSeries.createWithOnePoint(
+            Collections.<LabelValue>singletonList(VALUE_1),
+            Point.create(Value.distributionValue(distribution), TIMESTAMP_2),
+            TIMESTAMP_4);
+    Metric metric = Metric.create(DESCRIPTOR_1, Collections.singletonList(timeSeries));
+    io.opencensus.proto.metrics.v1.Metric actual =
+        MetricsProtoUtils.toMetricProto(metric, RESOURCE);
+    assertThat(actual.getTimeseries(0).getPoints(0).getDistributionValue().getBucketOptions())
+        .isEqualTo(
+            DistributionValue.BucketOptions.newBuilder()
+                .setExplicit(Explicit.newBuilder().addAllBounds(Arrays.<Double>asList(1.0, 2.0)))
+                .build());
+  }
+
   @Test
   public void toMetricProto_Summary() {
     Metric metric = Metric.create(DESCRIPTOR_2, Collections.singletonList(TIME_SERIES_2));
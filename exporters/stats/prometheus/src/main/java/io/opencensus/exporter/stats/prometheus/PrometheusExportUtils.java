@@ -28,6 +28,7 @@ import io.opencensus.metrics.LabelValue;
 import io.opencensus.metrics.export.Distribution;
 import io.opencensus.metrics.export.Distribution.BucketOptions;
 import io.opencensus.metrics.export.Distribution.BucketOptions.ExplicitOptions;
+import io.opencensus.metrics.export.Distribution.BucketOptions.ExponentialOptions;
 import io.opencensus.metrics.export.Metric;
 import io.opencensus.metrics.export.MetricDescriptor;
 import io.opencensus.metrics.export.Summary;
@@ -180,6 +181,13 @@ final class PrometheusExportUtils {
                           return arg.getBucketBoundaries();
                         }
                       },
+                      new Function<ExponentialOptions, List<Double>>() {
+                        @Override
+                        public List<Double> apply(ExponentialOptions arg) {
+                          // Prometheus histograms only support explicit bucket bounds.
+                          return arg.getBucketBoundaries();
+                        }
+                      },
                       Functions.<List<Double>>throwIllegalArgumentException());
             }
 
@@ -187,7 +195,8 @@ final class PrometheusExportUtils {
             labelNamesWithLe.add(LABEL_NAME_BUCKET_BOUND);
             long cumulativeCount = 0;
 
-            for (int i = 0; i < arg.getBuckets().size(); i++) {
+            int numBuckets = arg.getBuckets().size();
+            for (int i = 0; i < numBuckets; i++) {
               List<String> labelValuesWithLe = new ArrayList<String>(labelValues);
               // The label value of "le" is the upper inclusive bound.
               // For the last bucket, it should be "+Inf".
@@ -195,7 +204,7 @@ final class PrometheusExportUtils {
                   doubleToGoString(
                       i < boundaries.size() ? boundaries.get(i) : Double.POSITIVE_INFINITY);
               labelValuesWithLe.add(bucketBoundary);
-              cumulativeCount += arg.getBuckets().get(i).getCount();
+              cumulativeCount += arg.getBucketCount(i);
               samples.add(
                   new MetricFamilySamples.Sample(
                       name + SAMPLE_SUFFIX_BUCKET,
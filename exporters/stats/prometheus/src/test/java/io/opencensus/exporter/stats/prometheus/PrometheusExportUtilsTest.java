@@ -288,6 +288,41 @@ public class PrometheusExportUtilsTest {
         .inOrder();
   }
 
+  @Test
+  public void getSamples_ExponentialBuckets() {
+    io.opencensus.metrics.export.Distribution distribution =
+        io.opencensus.metrics.export.Distribution.create(
+            3,
+            4.5,
+            4.5,
+            BucketOptions.exponentialOptions(1, 2.0, 1.0),
+            Arrays.asList(Bucket.create(1), Bucket.create(1), Bucket.create(1)));
+    assertThat(
+            PrometheusExportUtils.getSamples(
+                METRIC_NAME,
+                convertToLabelNames(Collections.singletonList(K1_LABEL_KEY)),
+                Collections.singletonList(V1_LABEL_VALUE),
+                Value.distributionValue(distribution)))
+        .containsExactly(
+            new Sample(
+                METRIC_NAME + "_bucket", Arrays.asList("k1", "le"), Arrays.asList("v1", "1.0"), 1),
+            new Sample(
+                METRIC_NAME + "_bucket", Arrays.asList("k1", "le"), Arrays.asList("v1", "2.0"), 2),
+            new Sample(
+                METRIC_NAME + "_bucket", Arrays.asList("k1", "le"), Arrays.asList("v1", "+Inf"), 3),
+            new Sample(
+                METRIC_NAME + "_count",
+                Collections.singletonList("k1"),
+                Collections.singletonList("v1"),
+                3),
+            new Sample(
+                METRIC_NAME + "_sum",
+                Collections.singletonList("k1"),
+                Collections.singletonList("v1"),
+                4.5))
+        .inOrder();
+  }
+
   @Test
   public void getSamples_KeysAndValuesHaveDifferentSizes() {
     thrown.expect(IllegalArgumentException.class);
@@ -19,6 +19,7 @@ package io.opencensus.exporter.stats.stackdriver;
 import com.google.api.Distribution;
 import com.google.api.Distribution.BucketOptions;
 import com.google.api.Distribution.BucketOptions.Explicit;
+import com.google.api.Distribution.BucketOptions.Exponential;
 import com.google.api.Distribution.Exemplar;
 import com.google.api.LabelDescriptor;
 import com.google.api.LabelDescriptor.ValueType;
@@ -51,8 +52,8 @@ import io.opencensus.contrib.resource.util.ResourceUtils;
 import io.opencensus.metrics.LabelKey;
 import io.opencensus.metrics.LabelValue;
 import io.opencensus.metrics.data.AttachmentValue;
-import io.opencensus.metrics.export.Distribution.Bucket;
 import io.opencensus.metrics.export.Distribution.BucketOptions.ExplicitOptions;
+import io.opencensus.metrics.export.Distribution.BucketOptions.ExponentialOptions;
 import io.opencensus.metrics.export.MetricDescriptor.Type;
 import io.opencensus.metrics.export.Summary;
 import io.opencensus.metrics.export.Summary.Snapshot;
@@ -184,6 +185,24 @@ final class StackdriverExportUtils {
         }
       };
 
+  private static final Function<ExponentialOptions, BucketOptions>
+      bucketOptionsExponentialFunction =
+          new Function<ExponentialOptions, BucketOptions>() {
+            @Override
+            public BucketOptions apply(ExponentialOptions arg) {
+              // Both the Metrics and the Stackdriver exponential buckets begin with an underflow
+              // bucket, so the options map one to one.
+              return BucketOptions.newBuilder()
+                  .setExponentialBuckets(
+                      Exponential.newBuilder()
+                          .setNumFiniteBuckets(arg.getNumFiniteBuckets())
+                          .setGrowthFactor(arg.getGrowthFactor())
+                          .setScale(arg.getScale())
+                          .build())
+                  .build();
+            }
+          };
+
   private static String generateDefaultTaskValue() {
     // Something like '<pid>@<hostname>', at least in Oracle and OpenJdk JVMs
     final String jvmName = ManagementFactory.getRuntimeMXBean().getName();
@@ -366,14 +385,15 @@ final class StackdriverExportUtils {
   // Convert a OpenCensus Distribution to a StackDriver Distribution
   @VisibleForTesting
   static Distribution createDistribution(io.opencensus.metrics.export.Distribution distribution) {
+    BucketOptions bucketOptions = createBucketOptions(distribution.getBucketOptions());
     Distribution.Builder builder =
         Distribution.newBuilder()
-            .setBucketOptions(createBucketOptions(distribution.getBucketOptions()))
+            .setBucketOptions(bucketOptions)
             .setCount(distribution.getCount())
             .setMean(
                 distribution.getCount() == 0 ? 0 : distribution.getSum() / distribution.getCount())
             .setSumOfSquaredDeviation(distribution.getSumOfSquaredDeviations());
-    setBucketCountsAndExemplars(distribution.getBuckets(), builder);
+    setBucketCountsAndExemplars(distribution, !bucketOptions.hasExponentialBuckets(), builder);
     return builder.build();
   }
 
@@ -388,20 +408,28 @@ final class StackdriverExportUtils {
     }
 
     return bucketOptions.match(
-        bucketOptionsExplicitFunction, Functions.<BucketOptions>throwIllegalArgumentException());
+        bucketOptionsExplicitFunction,
+        bucketOptionsExponentialFunction,
+        Functions.<BucketOptions>throwIllegalArgumentException());
   }
 
   // Convert OpenCensus Buckets to a list of bucket counts and a list of proto Exemplars, then set
   // them to the builder.
   private static void setBucketCountsAndExemplars(
-      List<Bucket> buckets, Distribution.Builder builder) {
-    // The first bucket (underflow bucket) should always be 0 count because the Metrics first bucket
-    // is [0, first_bound) but StackDriver distribution consists of an underflow bucket (number 0).
-    builder.addBucketCounts(0L);
-    for (Bucket bucket : buckets) {
-      builder.addBucketCounts(bucket.getCount());
+      io.opencensus.metrics.export.Distribution distribution,
+      boolean addUnderflowBucket,
+      Distribution.Builder builder) {
+    if (addUnderflowBucket) {
+      // The first bucket (underflow bucket) should always be 0 count because the Metrics first
+      // bucket is [0, first_bound) but StackDriver distribution consists of an underflow bucket
+      // (number 0).
+      builder.addBucketCounts(0L);
+    }
+    int numBuckets = distribution.getBuckets().size();
+    for (int i = 0; i < numBuckets; i++) {
+      builder.addBucketCounts(distribution.getBucketCount(i));
       @javax.annotation.Nullable
-      io.opencensus.metrics.data.Exemplar exemplar = bucket.getExemplar();
+      io.opencensus.metrics.data.Exemplar exemplar = distribution.getBucketExemplar(i);
       if (exemplar != null) {
         builder.addExemplars(toProtoExemplar(exemplar));
       }
@@ -28,6 +28,7 @@ import static io.opencensus.exporter.stats.stackdriver.StackdriverExportUtils.SU
 import com.google.api.Distribution;
 import com.google.api.Distribution.BucketOptions;
 import com.google.api.Distribution.BucketOptions.Explicit;
+import com.google.api.Distribution.BucketOptions.Exponential;
 import com.google.api.LabelDescriptor;
 import com.google.api.LabelDescriptor.ValueType;
 import com.google.api.Metric;
@@ -336,6 +337,45 @@ public class StackdriverExportUtilsTest {
         .isEqualTo(BucketOptions.newBuilder().build());
   }
 
+  @Test
+  public void createBucketOptions_Exponential() {
+    assertThat(
+            StackdriverExportUtils.createBucketOptions(
+                io.opencensus.metrics.export.Distribution.BucketOptions.exponentialOptions(
+                    3, 2.0, 0.5)))
+        .isEqualTo(
+            BucketOptions.newBuilder()
+                .setExponentialBuckets(
+                    Exponential.newBuilder()
+                        .setNumFiniteBuckets(3)
+                        .setGrowthFactor(2.0)
+                        .setScale(0.5))
+                .build());
+  }
+
+  @Test
+  public void createDistribution_Exponential() {
+    io.opencensus.metrics.export.Distribution.BucketOptions bucketOptions =
+        io.opencensus.metrics.export.Distribution.BucketOptions.exponentialOptions(1, 2.0, 1.0);
+    io.opencensus.metrics.export.Distribution distribution =
+        io.opencensus.metrics.export.Distribution.create(
+            3,
+            4.5,
+            4.5,
+            bucketOptions,
+            Arrays.asList(Bucket.create(1), Bucket.create(1), Bucket.create(1)));
+    // No underflow bucket is added, the exponential buckets already have one.
+    assertThat(StackdriverExportUtils.createDistribution(distribution))
+        .isEqualTo(
+            Distribution.newBuilder()
+                .setCount(3)
+                .setMean(1.5)
+                .setBucketOptions(StackdriverExportUtils.createBucketOptions(bucketOptions))
+                .addAllBucketCounts(Arrays.asList(1L, 1L, 1L))
+                .setSumOfSquaredDeviation(4.5)
+                .build());
+  }
+
   @Test
   public void createDistribution() {
     StackdriverExportUtils.setCachedProjectIdForExemplar(null);
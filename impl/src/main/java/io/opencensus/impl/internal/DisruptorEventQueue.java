@@ -16,14 +16,28 @@
 
 package io.opencensus.impl.internal;
 
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.lmax.disruptor.BlockingWaitStrategy;
+import com.lmax.disruptor.BusySpinWaitStrategy;
 import com.lmax.disruptor.EventFactory;
 import com.lmax.disruptor.EventHandler;
+import com.lmax.disruptor.ExceptionHandler;
+import com.lmax.disruptor.InsufficientCapacityException;
 import com.lmax.disruptor.RingBuffer;
 import com.lmax.disruptor.SleepingWaitStrategy;
+import com.lmax.disruptor.WaitStrategy;
+import com.lmax.disruptor.YieldingWaitStrategy;
 import com.lmax.disruptor.dsl.Disruptor;
 import com.lmax.disruptor.dsl.ProducerType;
+import io.opencensus.implcore.common.MillisClock;
 import io.opencensus.implcore.internal.DaemonThreadFactory;
 import io.opencensus.implcore.internal.EventQueue;
+import io.opencensus.metrics.Metrics;
+import io.opencensus.metrics.export.MetricProducer;
+import java.util.Locale;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -85,62 +99,111 @@ import javax.annotation.concurrent.ThreadSafe;
  *   }
  * }
  * </pre>
+ *
+ * <p>The queue can be tuned with the following system properties, which are read once when the
+ * singleton instance is created:
+ *
+ * <ul>
+ *   <li>{@code opencensus.disruptor.bufferSize}: the number of entries each ring buffer can hold
+ *       (rounded up to a power of two, default 8192).
+ *   <li>{@code opencensus.disruptor.waitStrategy}: how consumer threads wait for new entries, one
+ *       of {@code sleeping} (default), {@code blocking}, {@code yielding} or {@code busy_spin}.
+ *   <li>{@code opencensus.disruptor.dropOnFull}: if {@code true}, {@link
+ *       EventQueue.DroppableEntry}s are dropped instead of blocking the producer when the ring
+ *       buffer is full. Other entries, e.g. the start and end of spans, still block.
+ *   <li>{@code opencensus.disruptor.shards}: the number of ring buffers, each with its own consumer
+ *       thread (default 1). {@link EventQueue.PartitionedEntry}s are distributed among the shards
+ *       by their partition key, all other entries go to the first shard.
+ *   <li>{@code opencensus.disruptor.exportMetrics}: if {@code true}, the backpressure on the queue
+ *       and the time it takes to process each type of entry are exported as metrics (see {@link
+ *       #getMetricProducer()}). The processing time is only recorded in that case, so that the
+ *       consumer threads don't read the clock twice per entry otherwise.
+ * </ul>
+ *
+ * <p>With more than one shard, entries are processed on several threads concurrently, so their
+ * {@link Entry#process()} methods must be thread-safe. Entries with the same partition key are
+ * always processed by the same thread, in the order in which they were enqueued.
+ *
+ * <p>An exception thrown by {@link Entry#process()} is logged, and the consumer thread goes on with
+ * the next entry.
  */
 @ThreadSafe
 public final class DisruptorEventQueue implements EventQueue {
 
   private static final Logger logger = Logger.getLogger(DisruptorEventQueue.class.getName());
 
-  // Number of events that can be enqueued at any one time. If more than this are enqueued,
-  // then subsequent attempts to enqueue new entries will block.
-  // TODO(aveitch): consider making this a parameter to the constructor, so the queue can be
-  // configured to a size appropriate to the system (smaller/less busy systems will not need as
-  // large a queue.
-  private static final int DISRUPTOR_BUFFER_SIZE = 8192;
+  @VisibleForTesting static final String BUFFER_SIZE_PROPERTY = "opencensus.disruptor.bufferSize";
+
+  @VisibleForTesting
+  static final String WAIT_STRATEGY_PROPERTY = "opencensus.disruptor.waitStrategy";
+
+  @VisibleForTesting static final String DROP_ON_FULL_PROPERTY = "opencensus.disruptor.dropOnFull";
+  @VisibleForTesting static final String SHARDS_PROPERTY = "opencensus.disruptor.shards";
+
+  @VisibleForTesting
+  static final String EXPORT_METRICS_PROPERTY = "opencensus.disruptor.exportMetrics";
+
+  // Number of events that can be enqueued at any one time in each shard. If more than this are
+  // enqueued, then subsequent attempts to enqueue new entries will block (or be dropped, if
+  // dropOnFull is set).
+  private static final int DEFAULT_BUFFER_SIZE = 8192;
   // The single instance of the class.
-  private static final DisruptorEventQueue eventQueue = create();
+  private static final DisruptorEventQueue eventQueue = createInstance();
+
+  // The event queue is built on these {@link Disruptor}s, one per shard.
+  private final Disruptor<DisruptorEvent>[] disruptors;
+  private final RingBuffer<DisruptorEvent>[] ringBuffers;
 
-  // The event queue is built on this {@link Disruptor}.
-  private final Disruptor<DisruptorEvent> disruptor;
+  private final EventQueueStats stats = new EventQueueStats();
+  private final MetricProducer metricProducer;
 
   private volatile DisruptorEnqueuer enqueuer;
 
-  // Creates a new EventQueue. Private to prevent creation of non-singleton instance.
-  private DisruptorEventQueue(Disruptor<DisruptorEvent> disruptor, DisruptorEnqueuer enqueuer) {
-    this.disruptor = disruptor;
-    this.enqueuer = enqueuer;
-  }
-
-  // Creates a new EventQueue. Private to prevent creation of non-singleton instance.
-  private static DisruptorEventQueue create() {
-    // Create new Disruptor for processing. Note that Disruptor creates a single thread per
-    // consumer (see https://github.com/LMAX-Exchange/disruptor/issues/121 for details);
-    // this ensures that the event handler can take unsynchronized actions whenever possible.
-    Disruptor<DisruptorEvent> disruptor =
-        new Disruptor<>(
-            DisruptorEventFactory.INSTANCE,
-            DISRUPTOR_BUFFER_SIZE,
-            new DaemonThreadFactory("OpenCensus.Disruptor"),
-            ProducerType.MULTI,
-            new SleepingWaitStrategy(0, 1000 * 1000));
-    disruptor.handleEventsWith(new DisruptorEventHandler[] {DisruptorEventHandler.INSTANCE});
-    disruptor.start();
-    final RingBuffer<DisruptorEvent> ringBuffer = disruptor.getRingBuffer();
-
-    DisruptorEnqueuer enqueuer =
-        new DisruptorEnqueuer() {
-          @Override
-          public void enqueue(Entry entry) {
-            long sequence = ringBuffer.next();
-            try {
-              DisruptorEvent event = ringBuffer.get(sequence);
-              event.setEntry(entry);
-            } finally {
-              ringBuffer.publish(sequence);
-            }
-          }
-        };
-    return new DisruptorEventQueue(disruptor, enqueuer);
+  // Creates a new EventQueue. Private to prevent creation of instances outside of the Builder.
+  private DisruptorEventQueue(Builder builder) {
+    WaitStrategyType waitStrategyType = builder.waitStrategyType;
+    int shards = builder.shards;
+    // Note that a single DaemonThreadFactory is shared so that the thread names of the shards are
+    // numbered consecutively.
+    DaemonThreadFactory threadFactory = new DaemonThreadFactory("OpenCensus.Disruptor");
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    Disruptor<DisruptorEvent>[] disruptors = new Disruptor[shards];
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    RingBuffer<DisruptorEvent>[] ringBuffers = new RingBuffer[shards];
+    DisruptorEventHandler eventHandler =
+        new DisruptorEventHandler(stats, builder.recordProcessingTime);
+    for (int i = 0; i < shards; i++) {
+      // Create new Disruptor for processing. Note that Disruptor creates a single thread per
+      // consumer (see https://github.com/LMAX-Exchange/disruptor/issues/121 for details);
+      // this ensures that the event handler can take unsynchronized actions whenever possible.
+      Disruptor<DisruptorEvent> disruptor =
+          new Disruptor<>(
+              DisruptorEventFactory.INSTANCE,
+              builder.bufferSize,
+              threadFactory,
+              ProducerType.MULTI,
+              waitStrategyType.newWaitStrategy());
+      disruptor.setDefaultExceptionHandler(LoggingExceptionHandler.INSTANCE);
+      disruptor.handleEventsWith(new DisruptorEventHandler[] {eventHandler});
+      disruptor.start();
+      disruptors[i] = disruptor;
+      ringBuffers[i] = disruptor.getRingBuffer();
+    }
+    this.disruptors = disruptors;
+    this.ringBuffers = ringBuffers;
+    this.metricProducer = stats.createMetricProducer(ringBuffers, MillisClock.getInstance());
+    this.enqueuer =
+        builder.dropOnFull
+            ? new DroppingDisruptorEnqueuer(ringBuffers, stats)
+            : new BlockingDisruptorEnqueuer(ringBuffers, stats);
+  }
+
+  private static DisruptorEventQueue createInstance() {
+    DisruptorEventQueue queue = fromSystemProperties().build();
+    if (shouldExportMetrics()) {
+      Metrics.getExportComponent().getMetricProducerManager().add(queue.getMetricProducer());
+    }
+    return queue;
   }
 
   /**
@@ -152,6 +215,15 @@ public final class DisruptorEventQueue implements EventQueue {
     return eventQueue;
   }
 
+  /**
+   * Returns a new {@link Builder} with the default configuration.
+   *
+   * @return a new {@code Builder}.
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
   /**
    * Enqueues an event on the {@link DisruptorEventQueue}.
    *
@@ -162,7 +234,7 @@ public final class DisruptorEventQueue implements EventQueue {
     enqueuer.enqueue(entry);
   }
 
-  /** Shuts down the underlying disruptor. */
+  /** Shuts down the underlying disruptors. */
   @Override
   public void shutdown() {
     enqueuer =
@@ -177,7 +249,237 @@ public final class DisruptorEventQueue implements EventQueue {
           }
         };
 
-    disruptor.shutdown();
+    for (Disruptor<DisruptorEvent> disruptor : disruptors) {
+      disruptor.shutdown();
+    }
+  }
+
+  /**
+   * Returns the number of entries that were dropped because the ring buffer was full. Always {@code
+   * 0} unless the queue was configured to drop entries when full.
+   *
+   * @return the number of dropped entries.
+   */
+  public long getDroppedEntryCount() {
+    return stats.getDroppedEntries();
+  }
+
+  /**
+   * Returns a {@link MetricProducer} of the depth of each shard, the number of dropped entries, how
+   * long producers waited for a free slot and, if it is recorded, how long it took to process each
+   * type of entry. The producer only reads counters, so it can be read at any time without
+   * affecting other metric producers.
+   *
+   * @return a {@code MetricProducer} of the metrics of this queue.
+   */
+  public MetricProducer getMetricProducer() {
+    return metricProducer;
+  }
+
+  // Builds the configuration of the singleton instance from the system properties.
+  @VisibleForTesting
+  static Builder fromSystemProperties() {
+    Builder builder = builder();
+    String bufferSize = System.getProperty(BUFFER_SIZE_PROPERTY);
+    if (bufferSize != null) {
+      try {
+        builder.setBufferSize(Integer.parseInt(bufferSize.trim()));
+      } catch (IllegalArgumentException e) {
+        logInvalidProperty(BUFFER_SIZE_PROPERTY, bufferSize);
+      }
+    }
+    String waitStrategy = System.getProperty(WAIT_STRATEGY_PROPERTY);
+    if (waitStrategy != null) {
+      try {
+        builder.setWaitStrategy(
+            WaitStrategyType.valueOf(waitStrategy.trim().toUpperCase(Locale.ROOT)));
+      } catch (IllegalArgumentException e) {
+        logInvalidProperty(WAIT_STRATEGY_PROPERTY, waitStrategy);
+      }
+    }
+    String dropOnFull = System.getProperty(DROP_ON_FULL_PROPERTY);
+    if (dropOnFull != null) {
+      builder.setDropOnFull(Boolean.parseBoolean(dropOnFull.trim()));
+    }
+    String shards = System.getProperty(SHARDS_PROPERTY);
+    if (shards != null) {
+      try {
+        builder.setShards(Integer.parseInt(shards.trim()));
+      } catch (IllegalArgumentException e) {
+        logInvalidProperty(SHARDS_PROPERTY, shards);
+      }
+    }
+    builder.setRecordProcessingTime(shouldExportMetrics());
+    return builder;
+  }
+
+  // Returns whether the singleton instance exports its stats as metrics. Off by default, so that
+  // exporters don't start sending metrics that the application didn't ask for.
+  @VisibleForTesting
+  static boolean shouldExportMetrics() {
+    String exportMetrics = System.getProperty(EXPORT_METRICS_PROPERTY);
+    return exportMetrics != null && Boolean.parseBoolean(exportMetrics.trim());
+  }
+
+  private static void logInvalidProperty(String name, String value) {
+    logger.log(Level.WARNING, "Ignoring invalid value for " + name + ": " + value);
+  }
+
+  // Returns the shard that processes the given entry.
+  private static int getShard(Entry entry, int shards) {
+    if (shards == 1 || !(entry instanceof PartitionedEntry)) {
+      return 0;
+    }
+    int hash = ((PartitionedEntry) entry).getPartitionKey().hashCode();
+    // Spread the higher bits, similar to HashMap, before taking the modulo.
+    hash ^= hash >>> 16;
+    return (hash & Integer.MAX_VALUE) % shards;
+  }
+
+  /** The strategies that consumer threads can use to wait for new entries. */
+  public enum WaitStrategyType {
+    /**
+     * Spins, then yields, then sleeps for up to a millisecond. Uses little CPU when idle at the
+     * cost of some latency. This is the default.
+     */
+    SLEEPING {
+      @Override
+      WaitStrategy newWaitStrategy() {
+        return new SleepingWaitStrategy(0, 1000 * 1000);
+      }
+    },
+
+    /** Blocks on a lock and condition variable. Uses the least CPU, but has the highest latency. */
+    BLOCKING {
+      @Override
+      WaitStrategy newWaitStrategy() {
+        return new BlockingWaitStrategy();
+      }
+    },
+
+    /** Spins and then yields. Low latency, but keeps a core busy while idle. */
+    YIELDING {
+      @Override
+      WaitStrategy newWaitStrategy() {
+        return new YieldingWaitStrategy();
+      }
+    },
+
+    /** Busy spins. Lowest latency, but permanently occupies a core per shard. */
+    BUSY_SPIN {
+      @Override
+      WaitStrategy newWaitStrategy() {
+        return new BusySpinWaitStrategy();
+      }
+    };
+
+    abstract WaitStrategy newWaitStrategy();
+  }
+
+  /** Builder for {@link DisruptorEventQueue}. */
+  public static final class Builder {
+    private int bufferSize = DEFAULT_BUFFER_SIZE;
+    private WaitStrategyType waitStrategyType = WaitStrategyType.SLEEPING;
+    private boolean dropOnFull = false;
+    private int shards = 1;
+    private boolean recordProcessingTime = false;
+
+    private Builder() {}
+
+    /**
+     * Sets the number of entries each ring buffer can hold. It is rounded up to the next power of
+     * two.
+     *
+     * @param bufferSize the buffer size, must be positive.
+     * @return this.
+     */
+    public Builder setBufferSize(int bufferSize) {
+      checkArgument(bufferSize > 0 && bufferSize <= 1 << 30, "Invalid bufferSize: %s", bufferSize);
+      this.bufferSize = bufferSize == 1 ? 1 : Integer.highestOneBit(bufferSize - 1) << 1;
+      return this;
+    }
+
+    /**
+     * Sets how the consumer threads wait for new entries.
+     *
+     * @param waitStrategyType the wait strategy.
+     * @return this.
+     */
+    public Builder setWaitStrategy(WaitStrategyType waitStrategyType) {
+      this.waitStrategyType = checkNotNull(waitStrategyType, "waitStrategyType");
+      return this;
+    }
+
+    /**
+     * Sets whether {@link EventQueue.DroppableEntry}s are dropped instead of blocking the producer
+     * when the ring buffer is full. Other entries always block.
+     *
+     * @param dropOnFull whether to drop droppable entries when the ring buffer is full.
+     * @return this.
+     */
+    public Builder setDropOnFull(boolean dropOnFull) {
+      this.dropOnFull = dropOnFull;
+      return this;
+    }
+
+    /**
+     * Sets the number of ring buffers, each processed by its own consumer thread.
+     *
+     * @param shards the number of shards, must be positive.
+     * @return this.
+     */
+    public Builder setShards(int shards) {
+      checkArgument(shards > 0, "Invalid number of shards: %s", shards);
+      this.shards = shards;
+      return this;
+    }
+
+    /**
+     * Sets whether the time it takes to process each type of entry is recorded. Off by default,
+     * since it reads the clock twice per entry on the consumer threads.
+     *
+     * @param recordProcessingTime whether to record the processing time of the entries.
+     * @return this.
+     */
+    public Builder setRecordProcessingTime(boolean recordProcessingTime) {
+      this.recordProcessingTime = recordProcessingTime;
+      return this;
+    }
+
+    @VisibleForTesting
+    int getBufferSize() {
+      return bufferSize;
+    }
+
+    @VisibleForTesting
+    WaitStrategyType getWaitStrategy() {
+      return waitStrategyType;
+    }
+
+    @VisibleForTesting
+    boolean getDropOnFull() {
+      return dropOnFull;
+    }
+
+    @VisibleForTesting
+    int getShards() {
+      return shards;
+    }
+
+    @VisibleForTesting
+    boolean getRecordProcessingTime() {
+      return recordProcessingTime;
+    }
+
+    /**
+     * Creates and starts a new {@link DisruptorEventQueue}. Most callers should use the shared
+     * instance returned by {@link DisruptorEventQueue#getInstance()} instead.
+     *
+     * @return a new {@code DisruptorEventQueue}.
+     */
+    public DisruptorEventQueue build() {
+      return new DisruptorEventQueue(this);
+    }
   }
 
   // Allows this event queue to safely shutdown by not enqueuing events on the ring buffer
@@ -186,6 +488,74 @@ public final class DisruptorEventQueue implements EventQueue {
     public abstract void enqueue(Entry entry);
   }
 
+  // Blocks the producer until there is space in the ring buffer.
+  private static final class BlockingDisruptorEnqueuer extends DisruptorEnqueuer {
+    private final RingBuffer<DisruptorEvent>[] ringBuffers;
+    private final EventQueueStats stats;
+
+    private BlockingDisruptorEnqueuer(
+        RingBuffer<DisruptorEvent>[] ringBuffers, EventQueueStats stats) {
+      this.ringBuffers = ringBuffers;
+      this.stats = stats;
+    }
+
+    @Override
+    public void enqueue(Entry entry) {
+      RingBuffer<DisruptorEvent> ringBuffer = ringBuffers[getShard(entry, ringBuffers.length)];
+      long sequence;
+      if (ringBuffer.hasAvailableCapacity(1)) {
+        sequence = ringBuffer.next();
+      } else {
+        // Only time the slow path, so that the common case doesn't pay for reading the clock.
+        long startNanos = System.nanoTime();
+        sequence = ringBuffer.next();
+        stats.recordEnqueueWait(System.nanoTime() - startNanos);
+      }
+      try {
+        DisruptorEvent event = ringBuffer.get(sequence);
+        event.setEntry(entry);
+      } finally {
+        ringBuffer.publish(sequence);
+      }
+    }
+  }
+
+  // Drops the entry if the ring buffer is full and the entry is droppable, blocks otherwise. Losing
+  // other entries, e.g. the start or end of a span, would leave the state they update inconsistent.
+  private static final class DroppingDisruptorEnqueuer extends DisruptorEnqueuer {
+    private final RingBuffer<DisruptorEvent>[] ringBuffers;
+    private final EventQueueStats stats;
+    private final BlockingDisruptorEnqueuer blockingEnqueuer;
+
+    private DroppingDisruptorEnqueuer(
+        RingBuffer<DisruptorEvent>[] ringBuffers, EventQueueStats stats) {
+      this.ringBuffers = ringBuffers;
+      this.stats = stats;
+      this.blockingEnqueuer = new BlockingDisruptorEnqueuer(ringBuffers, stats);
+    }
+
+    @Override
+    public void enqueue(Entry entry) {
+      if (!(entry instanceof DroppableEntry)) {
+        blockingEnqueuer.enqueue(entry);
+        return;
+      }
+      RingBuffer<DisruptorEvent> ringBuffer = ringBuffers[getShard(entry, ringBuffers.length)];
+      long sequence;
+      try {
+        sequence = ringBuffer.tryNext();
+      } catch (InsufficientCapacityException e) {
+        stats.recordDroppedEntry();
+        return;
+      }
+      try {
+        DisruptorEvent event = ringBuffer.get(sequence);
+        event.setEntry(entry);
+      } finally {
+        ringBuffer.publish(sequence);
+      }
+    }
+  }
   // An event in the {@link EventQueue}. Just holds a reference to an EventQueue.Entry.
   private static final class DisruptorEvent {
 
@@ -216,20 +586,57 @@ public final class DisruptorEventQueue implements EventQueue {
   }
 
   /**
-   * Every event that gets added to {@link EventQueue} will get processed here. Just calls the
-   * underlying process() method.
+   * Every event that gets added to {@link EventQueue} will get processed here. Calls the underlying
+   * process() method and, if enabled, records how long it took.
    */
-  private enum DisruptorEventHandler implements EventHandler<DisruptorEvent> {
-    INSTANCE;
+  private static final class DisruptorEventHandler implements EventHandler<DisruptorEvent> {
+    private final EventQueueStats stats;
+    private final boolean recordProcessingTime;
+
+    private DisruptorEventHandler(EventQueueStats stats, boolean recordProcessingTime) {
+      this.stats = stats;
+      this.recordProcessingTime = recordProcessingTime;
+    }
 
     @Override
     public void onEvent(DisruptorEvent event, long sequence, boolean endOfBatch) {
       Entry entry = event.getEntry();
-      if (entry != null) {
-        entry.process();
+      try {
+        if (entry != null) {
+          if (recordProcessingTime) {
+            long startNanos = System.nanoTime();
+            entry.process();
+            stats.recordProcessed(entry.getClass(), System.nanoTime() - startNanos);
+          } else {
+            entry.process();
+          }
+        }
+      } finally {
+        // Remove the reference to the previous entry to allow the memory to be gc'ed.
+        event.setEntry(null);
       }
-      // Remove the reference to the previous entry to allow the memory to be gc'ed.
-      event.setEntry(null);
+    }
+  }
+
+  // Logs the exceptions thrown while processing the entries. The default handler of the Disruptor
+  // rethrows them instead, which stops the consumer thread of the shard for good, so that none of
+  // the entries enqueued afterwards would be processed.
+  private enum LoggingExceptionHandler implements ExceptionHandler<DisruptorEvent> {
+    INSTANCE;
+
+    @Override
+    public void handleEventException(Throwable ex, long sequence, DisruptorEvent event) {
+      logger.log(Level.WARNING, "Exception thrown while processing an event queue entry.", ex);
+    }
+
+    @Override
+    public void handleOnStartException(Throwable ex) {
+      logger.log(Level.WARNING, "Exception thrown while starting the event queue.", ex);
+    }
+
+    @Override
+    public void handleOnShutdownException(Throwable ex) {
+      logger.log(Level.WARNING, "Exception thrown while shutting down the event queue.", ex);
     }
   }
 }
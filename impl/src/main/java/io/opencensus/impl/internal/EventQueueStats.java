@@ -0,0 +1,243 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.impl.internal;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.lmax.disruptor.RingBuffer;
+import io.opencensus.common.Clock;
+import io.opencensus.common.Timestamp;
+import io.opencensus.metrics.LabelKey;
+import io.opencensus.metrics.LabelValue;
+import io.opencensus.metrics.export.Metric;
+import io.opencensus.metrics.export.MetricDescriptor;
+import io.opencensus.metrics.export.MetricDescriptor.Type;
+import io.opencensus.metrics.export.MetricProducer;
+import io.opencensus.metrics.export.Point;
+import io.opencensus.metrics.export.TimeSeries;
+import io.opencensus.metrics.export.Value;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Counters that describe the backpressure on a {@link DisruptorEventQueue} and the cost of
+ * processing its entries, and their export as metrics.
+ *
+ * <p>Counters only ever increase; rates and averages are left to the metrics backend (or the
+ * EventQueueZ page).
+ */
+@ThreadSafe
+final class EventQueueStats {
+  @VisibleForTesting static final String METRIC_NAME_PREFIX = "opencensus.io/event_queue/";
+
+  @VisibleForTesting static final String QUEUE_DEPTH = METRIC_NAME_PREFIX + "queue_depth";
+
+  @VisibleForTesting static final String DROPPED_ENTRIES = METRIC_NAME_PREFIX + "dropped_entries";
+
+  @VisibleForTesting static final String BLOCKED_ENQUEUES = METRIC_NAME_PREFIX + "blocked_enqueues";
+
+  @VisibleForTesting
+  static final String ENQUEUE_WAIT_TIME = METRIC_NAME_PREFIX + "enqueue_wait_time";
+
+  @VisibleForTesting
+  static final String PROCESSED_ENTRIES = METRIC_NAME_PREFIX + "processed_entries";
+
+  @VisibleForTesting static final String PROCESSING_TIME = METRIC_NAME_PREFIX + "processing_time";
+
+  private static final List<LabelKey> SHARD_LABEL_KEYS =
+      Collections.singletonList(LabelKey.create("shard", "Event queue shard"));
+  private static final List<LabelKey> ENTRY_TYPE_LABEL_KEYS =
+      Collections.singletonList(LabelKey.create("entry_type", "Event queue entry"));
+  private static final double NANOS_PER_MILLI = 1000 * 1000;
+
+  private static final MetricDescriptor QUEUE_DEPTH_DESCRIPTOR =
+      MetricDescriptor.create(
+          QUEUE_DEPTH,
+          "Number of entries waiting to be processed",
+          "1",
+          Type.GAUGE_INT64,
+          SHARD_LABEL_KEYS);
+  private static final MetricDescriptor DROPPED_ENTRIES_DESCRIPTOR =
+      MetricDescriptor.create(
+          DROPPED_ENTRIES,
+          "Number of entries dropped because the queue was full",
+          "1",
+          Type.GAUGE_INT64,
+          Collections.<LabelKey>emptyList());
+  private static final MetricDescriptor BLOCKED_ENQUEUES_DESCRIPTOR =
+      MetricDescriptor.create(
+          BLOCKED_ENQUEUES,
+          "Number of enqueues that waited for a free slot in the queue",
+          "1",
+          Type.GAUGE_INT64,
+          Collections.<LabelKey>emptyList());
+  private static final MetricDescriptor ENQUEUE_WAIT_TIME_DESCRIPTOR =
+      MetricDescriptor.create(
+          ENQUEUE_WAIT_TIME,
+          "Total time producers waited for a free slot in the queue",
+          "ms",
+          Type.GAUGE_DOUBLE,
+          Collections.<LabelKey>emptyList());
+  private static final MetricDescriptor PROCESSED_ENTRIES_DESCRIPTOR =
+      MetricDescriptor.create(
+          PROCESSED_ENTRIES,
+          "Number of processed entries",
+          "1",
+          Type.GAUGE_INT64,
+          ENTRY_TYPE_LABEL_KEYS);
+  private static final MetricDescriptor PROCESSING_TIME_DESCRIPTOR =
+      MetricDescriptor.create(
+          PROCESSING_TIME,
+          "Total time spent processing entries",
+          "ms",
+          Type.GAUGE_DOUBLE,
+          ENTRY_TYPE_LABEL_KEYS);
+
+  private final AtomicLong droppedEntries = new AtomicLong();
+  private final AtomicLong blockedEnqueues = new AtomicLong();
+  private final AtomicLong enqueueWaitNanos = new AtomicLong();
+  private final ConcurrentMap<Class<?>, EntryTypeStats> entryTypeStats =
+      new ConcurrentHashMap<Class<?>, EntryTypeStats>();
+
+  // Records that an entry was dropped because the ring buffer was full.
+  void recordDroppedEntry() {
+    droppedEntries.incrementAndGet();
+  }
+
+  // Records that a producer had to wait for a free slot in the ring buffer.
+  void recordEnqueueWait(long waitNanos) {
+    blockedEnqueues.incrementAndGet();
+    enqueueWaitNanos.addAndGet(waitNanos);
+  }
+
+  // Records the time it took to process one entry of the given type.
+  void recordProcessed(Class<?> entryType, long processingNanos) {
+    EntryTypeStats stats = entryTypeStats.get(entryType);
+    if (stats == null) {
+      EntryTypeStats newStats = new EntryTypeStats();
+      stats = entryTypeStats.putIfAbsent(entryType, newStats);
+      if (stats == null) {
+        stats = newStats;
+      }
+    }
+    stats.processedEntries.incrementAndGet();
+    stats.processingNanos.addAndGet(processingNanos);
+  }
+
+  long getDroppedEntries() {
+    return droppedEntries.get();
+  }
+
+  long getBlockedEnqueues() {
+    return blockedEnqueues.get();
+  }
+
+  // Returns a MetricProducer that reads the counters, and the depth of the given ring buffers (one
+  // per shard), every time its metrics are requested. It produces nothing but the event queue
+  // metrics, so reading it never affects other producers.
+  MetricProducer createMetricProducer(RingBuffer<?>[] ringBuffers, Clock clock) {
+    return new MetricProducerForStats(this, ringBuffers, clock);
+  }
+
+  private static final class MetricProducerForStats extends MetricProducer {
+    private final EventQueueStats stats;
+    private final RingBuffer<?>[] ringBuffers;
+    private final Clock clock;
+
+    private MetricProducerForStats(
+        EventQueueStats stats, RingBuffer<?>[] ringBuffers, Clock clock) {
+      this.stats = stats;
+      this.ringBuffers = ringBuffers;
+      this.clock = clock;
+    }
+
+    @Override
+    public Collection<Metric> getMetrics() {
+      Timestamp timestamp = clock.now();
+      List<Metric> metrics = new ArrayList<Metric>(6);
+      if (ringBuffers.length > 0) {
+        List<TimeSeries> queueDepth = new ArrayList<TimeSeries>(ringBuffers.length);
+        for (int i = 0; i < ringBuffers.length; i++) {
+          RingBuffer<?> ringBuffer = ringBuffers[i];
+          queueDepth.add(
+              createTimeSeries(
+                  String.valueOf(i),
+                  Value.longValue(ringBuffer.getBufferSize() - ringBuffer.remainingCapacity()),
+                  timestamp));
+        }
+        metrics.add(Metric.create(QUEUE_DEPTH_DESCRIPTOR, queueDepth));
+      }
+      metrics.add(
+          createMetric(
+              DROPPED_ENTRIES_DESCRIPTOR, Value.longValue(stats.droppedEntries.get()), timestamp));
+      metrics.add(
+          createMetric(
+              BLOCKED_ENQUEUES_DESCRIPTOR,
+              Value.longValue(stats.blockedEnqueues.get()),
+              timestamp));
+      metrics.add(
+          createMetric(
+              ENQUEUE_WAIT_TIME_DESCRIPTOR,
+              Value.doubleValue(stats.enqueueWaitNanos.get() / NANOS_PER_MILLI),
+              timestamp));
+      if (!stats.entryTypeStats.isEmpty()) {
+        List<TimeSeries> processedEntries = new ArrayList<TimeSeries>();
+        List<TimeSeries> processingTime = new ArrayList<TimeSeries>();
+        for (Map.Entry<Class<?>, EntryTypeStats> entry : stats.entryTypeStats.entrySet()) {
+          String entryType = entry.getKey().getName();
+          processedEntries.add(
+              createTimeSeries(
+                  entryType, Value.longValue(entry.getValue().processedEntries.get()), timestamp));
+          processingTime.add(
+              createTimeSeries(
+                  entryType,
+                  Value.doubleValue(entry.getValue().processingNanos.get() / NANOS_PER_MILLI),
+                  timestamp));
+        }
+        metrics.add(Metric.create(PROCESSED_ENTRIES_DESCRIPTOR, processedEntries));
+        metrics.add(Metric.create(PROCESSING_TIME_DESCRIPTOR, processingTime));
+      }
+      return Collections.unmodifiableList(metrics);
+    }
+
+    private static Metric createMetric(
+        MetricDescriptor metricDescriptor, Value value, Timestamp timestamp) {
+      return Metric.createWithOneTimeSeries(
+          metricDescriptor,
+          TimeSeries.createWithOnePoint(
+              Collections.<LabelValue>emptyList(), Point.create(value, timestamp), null));
+    }
+
+    private static TimeSeries createTimeSeries(String label, Value value, Timestamp timestamp) {
+      return TimeSeries.createWithOnePoint(
+          Collections.singletonList(LabelValue.create(label)),
+          Point.create(value, timestamp),
+          null);
+    }
+  }
+
+  private static final class EntryTypeStats {
+    private final AtomicLong processedEntries = new AtomicLong();
+    private final AtomicLong processingNanos = new AtomicLong();
+  }
+}
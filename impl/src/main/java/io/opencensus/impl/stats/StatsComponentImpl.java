@@ -16,16 +16,77 @@
 
 package io.opencensus.impl.stats;
 
+import com.google.common.annotations.VisibleForTesting;
 import io.opencensus.impl.internal.DisruptorEventQueue;
 import io.opencensus.implcore.common.MillisClock;
 import io.opencensus.implcore.stats.StatsComponentImplBase;
 import io.opencensus.stats.StatsComponent;
+import java.util.Locale;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.Nullable;
 
-/** Java 7 and 8 implementation of {@link StatsComponent}. */
+/**
+ * Java 7 and 8 implementation of {@link StatsComponent}.
+ *
+ * <p>By default, recorded stats are aggregated on the {@link DisruptorEventQueue} thread. Setting
+ * the system property {@code opencensus.stats.recordingMode} to {@code direct} aggregates them on
+ * the recording thread instead (see {@link RecordingMode#DIRECT}).
+ *
+ * <p>By default, cumulative views are exported with their cumulative values. Setting the system
+ * property {@code opencensus.stats.exportTemporality} to {@code delta} only exports the values
+ * recorded since the previous export instead (see {@link ExportTemporality#DELTA}). Every export
+ * then resets the views, so only a single exporter may read the metrics in that mode.
+ */
 public final class StatsComponentImpl extends StatsComponentImplBase {
+  private static final Logger logger = Logger.getLogger(StatsComponentImpl.class.getName());
+
+  @VisibleForTesting
+  static final String RECORDING_MODE_PROPERTY_NAME = "opencensus.stats.recordingMode";
+
+  @VisibleForTesting
+  static final String EXPORT_TEMPORALITY_PROPERTY_NAME = "opencensus.stats.exportTemporality";
 
   /** Public constructor to be used with reflection loading. */
   public StatsComponentImpl() {
-    super(DisruptorEventQueue.getInstance(), MillisClock.getInstance());
+    super(
+        DisruptorEventQueue.getInstance(),
+        MillisClock.getInstance(),
+        parseRecordingMode(System.getProperty(RECORDING_MODE_PROPERTY_NAME)),
+        parseExportTemporality(System.getProperty(EXPORT_TEMPORALITY_PROPERTY_NAME)));
+  }
+
+  @VisibleForTesting
+  static RecordingMode parseRecordingMode(@Nullable String value) {
+    if (value == null) {
+      return RecordingMode.QUEUED;
+    }
+    try {
+      return RecordingMode.valueOf(value.trim().toUpperCase(Locale.ROOT));
+    } catch (IllegalArgumentException e) {
+      logger.log(
+          Level.WARNING,
+          "Invalid value for " + RECORDING_MODE_PROPERTY_NAME + ": " + value + ", using QUEUED.");
+      return RecordingMode.QUEUED;
+    }
+  }
+
+  @VisibleForTesting
+  static ExportTemporality parseExportTemporality(@Nullable String value) {
+    if (value == null) {
+      return ExportTemporality.CUMULATIVE;
+    }
+    try {
+      return ExportTemporality.valueOf(value.trim().toUpperCase(Locale.ROOT));
+    } catch (IllegalArgumentException e) {
+      logger.log(
+          Level.WARNING,
+          "Invalid value for "
+              + EXPORT_TEMPORALITY_PROPERTY_NAME
+              + ": "
+              + value
+              + ", using CUMULATIVE.");
+      return ExportTemporality.CUMULATIVE;
+    }
   }
 }
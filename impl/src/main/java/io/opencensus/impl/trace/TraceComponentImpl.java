@@ -16,19 +16,101 @@
 
 package io.opencensus.impl.trace;
 
+import com.google.common.annotations.VisibleForTesting;
 import io.opencensus.common.Clock;
+import io.opencensus.common.Duration;
 import io.opencensus.impl.internal.DisruptorEventQueue;
 import io.opencensus.impl.trace.internal.ThreadLocalRandomHandler;
 import io.opencensus.implcore.common.MillisClock;
 import io.opencensus.implcore.trace.TraceComponentImplBase;
+import io.opencensus.implcore.trace.export.SpanExporterConfig;
+import io.opencensus.implcore.trace.export.SpanExporterConfig.DropPolicy;
+import io.opencensus.implcore.trace.export.TailSamplingConfig;
 import io.opencensus.trace.TraceComponent;
 import io.opencensus.trace.Tracer;
 import io.opencensus.trace.config.TraceConfig;
 import io.opencensus.trace.export.ExportComponent;
 import io.opencensus.trace.propagation.PropagationComponent;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.Nullable;
 
-/** Java 7 and 8 implementation of the {@link TraceComponent}. */
+/**
+ * Java 7 and 8 implementation of the {@link TraceComponent}.
+ *
+ * <p>At most 2048 sampled spans wait to be exported, the spans that are added to a full queue are
+ * dropped. The system properties {@code opencensus.trace.exporter.maxQueueSize} and {@code
+ * opencensus.trace.exporter.dropPolicy} ({@code drop_newest} or {@code drop_oldest}) change the
+ * size of the queue and which spans are dropped. Setting {@code
+ * opencensus.trace.exporter.exportMetrics} to {@code true} exports the size of the queue and the
+ * number of exported and dropped spans as metrics (see {@link SpanExporterConfig}).
+ *
+ * <p>Every registered handler exports the spans in a thread of its own, from a queue of at most 32
+ * batches. By default exports have no timeout and are not retried, since a retry may duplicate the
+ * spans that a failed export already delivered. Retries start after 100 ms, and their delay doubles
+ * every time. The system properties {@code opencensus.trace.exporter.handlerQueueSize}, {@code
+ * opencensus.trace.exporter.handlerTimeoutMillis} (0 for no timeout), {@code
+ * opencensus.trace.exporter.handlerMaxRetries} and {@code
+ * opencensus.trace.exporter.handlerRetryDelayMillis} change these values.
+ *
+ * <p>Setting the system property {@code opencensus.trace.tailSampling.enabled} to {@code true}
+ * buffers the ended spans that are not sampled but record events, and exports the whole traces that
+ * contain an error or a slow span. The buffer is configured with the system properties {@code
+ * opencensus.trace.tailSampling.decisionWaitMillis}, {@code
+ * opencensus.trace.tailSampling.latencyThresholdMillis} and {@code
+ * opencensus.trace.tailSampling.maxBufferedSpans} (see {@link TailSamplingConfig}). Setting {@code
+ * opencensus.trace.tailSampling.exportMetrics} to {@code true} exports the numbers of buffered,
+ * kept and dropped spans as metrics.
+ */
 public final class TraceComponentImpl extends TraceComponent {
+  private static final Logger logger = Logger.getLogger(TraceComponentImpl.class.getName());
+
+  @VisibleForTesting
+  static final String EXPORTER_MAX_QUEUE_SIZE_PROPERTY = "opencensus.trace.exporter.maxQueueSize";
+
+  @VisibleForTesting
+  static final String EXPORTER_DROP_POLICY_PROPERTY = "opencensus.trace.exporter.dropPolicy";
+
+  @VisibleForTesting
+  static final String EXPORTER_EXPORT_METRICS_PROPERTY = "opencensus.trace.exporter.exportMetrics";
+
+  @VisibleForTesting
+  static final String EXPORTER_HANDLER_QUEUE_SIZE_PROPERTY =
+      "opencensus.trace.exporter.handlerQueueSize";
+
+  @VisibleForTesting
+  static final String EXPORTER_HANDLER_TIMEOUT_PROPERTY =
+      "opencensus.trace.exporter.handlerTimeoutMillis";
+
+  @VisibleForTesting
+  static final String EXPORTER_HANDLER_MAX_RETRIES_PROPERTY =
+      "opencensus.trace.exporter.handlerMaxRetries";
+
+  @VisibleForTesting
+  static final String EXPORTER_HANDLER_RETRY_DELAY_PROPERTY =
+      "opencensus.trace.exporter.handlerRetryDelayMillis";
+
+  @VisibleForTesting
+  static final String TAIL_SAMPLING_ENABLED_PROPERTY = "opencensus.trace.tailSampling.enabled";
+
+  @VisibleForTesting
+  static final String TAIL_SAMPLING_DECISION_WAIT_PROPERTY =
+      "opencensus.trace.tailSampling.decisionWaitMillis";
+
+  @VisibleForTesting
+  static final String TAIL_SAMPLING_LATENCY_THRESHOLD_PROPERTY =
+      "opencensus.trace.tailSampling.latencyThresholdMillis";
+
+  @VisibleForTesting
+  static final String TAIL_SAMPLING_MAX_BUFFERED_SPANS_PROPERTY =
+      "opencensus.trace.tailSampling.maxBufferedSpans";
+
+  @VisibleForTesting
+  static final String TAIL_SAMPLING_EXPORT_METRICS_PROPERTY =
+      "opencensus.trace.tailSampling.exportMetrics";
+
   private final TraceComponentImplBase traceComponentImplBase;
 
   /** Public constructor to be used with reflection loading. */
@@ -37,7 +119,127 @@ public final class TraceComponentImpl extends TraceComponent {
         new TraceComponentImplBase(
             MillisClock.getInstance(),
             new ThreadLocalRandomHandler(),
-            DisruptorEventQueue.getInstance());
+            DisruptorEventQueue.getInstance(),
+            parseSpanExporterConfig(System.getProperties()),
+            parseTailSamplingConfig(System.getProperties()));
+  }
+
+  // Builds the configuration of the span exporter from the given system properties. Invalid values
+  // are ignored.
+  @VisibleForTesting
+  static SpanExporterConfig parseSpanExporterConfig(Properties properties) {
+    SpanExporterConfig.Builder builder = SpanExporterConfig.DEFAULT.toBuilder();
+    Integer maxQueueSize = parseIntProperty(properties, EXPORTER_MAX_QUEUE_SIZE_PROPERTY, 1);
+    if (maxQueueSize != null) {
+      builder.setMaxQueueSize(maxQueueSize);
+    }
+    String dropPolicy = properties.getProperty(EXPORTER_DROP_POLICY_PROPERTY);
+    if (dropPolicy != null) {
+      try {
+        builder.setDropPolicy(DropPolicy.valueOf(dropPolicy.trim().toUpperCase(Locale.ROOT)));
+      } catch (IllegalArgumentException e) {
+        logInvalidProperty(EXPORTER_DROP_POLICY_PROPERTY, dropPolicy);
+      }
+    }
+    String exportMetrics = properties.getProperty(EXPORTER_EXPORT_METRICS_PROPERTY);
+    if (exportMetrics != null) {
+      builder.setExportMetrics(Boolean.parseBoolean(exportMetrics.trim()));
+    }
+    Integer handlerQueueSize =
+        parseIntProperty(properties, EXPORTER_HANDLER_QUEUE_SIZE_PROPERTY, 1);
+    if (handlerQueueSize != null) {
+      builder.setHandlerQueueSize(handlerQueueSize);
+    }
+    Integer handlerTimeout = parseIntProperty(properties, EXPORTER_HANDLER_TIMEOUT_PROPERTY, 0);
+    if (handlerTimeout != null) {
+      builder.setHandlerTimeout(Duration.fromMillis(handlerTimeout));
+    }
+    Integer handlerMaxRetries =
+        parseIntProperty(properties, EXPORTER_HANDLER_MAX_RETRIES_PROPERTY, 0);
+    if (handlerMaxRetries != null) {
+      builder.setHandlerMaxRetries(handlerMaxRetries);
+    }
+    Integer handlerRetryDelay =
+        parseIntProperty(properties, EXPORTER_HANDLER_RETRY_DELAY_PROPERTY, 0);
+    if (handlerRetryDelay != null) {
+      builder.setHandlerRetryDelay(Duration.fromMillis(handlerRetryDelay));
+    }
+    return builder.build();
+  }
+
+  // Builds the configuration of the tail sampling from the given system properties, or returns
+  // null if tail sampling is disabled. Invalid values are ignored.
+  @VisibleForTesting
+  @Nullable
+  static TailSamplingConfig parseTailSamplingConfig(Properties properties) {
+    String enabled = properties.getProperty(TAIL_SAMPLING_ENABLED_PROPERTY);
+    if (enabled == null || !Boolean.parseBoolean(enabled.trim())) {
+      return null;
+    }
+    TailSamplingConfig.Builder builder = TailSamplingConfig.DEFAULT.toBuilder();
+    Duration decisionWait = parseMillisProperty(properties, TAIL_SAMPLING_DECISION_WAIT_PROPERTY);
+    if (decisionWait != null) {
+      builder.setDecisionWait(decisionWait);
+    }
+    Duration latencyThreshold =
+        parseMillisProperty(properties, TAIL_SAMPLING_LATENCY_THRESHOLD_PROPERTY);
+    if (latencyThreshold != null) {
+      builder.setLatencyThreshold(latencyThreshold);
+    }
+    Integer maxBufferedSpans =
+        parseIntProperty(properties, TAIL_SAMPLING_MAX_BUFFERED_SPANS_PROPERTY, 1);
+    if (maxBufferedSpans != null) {
+      builder.setMaxBufferedSpans(maxBufferedSpans);
+    }
+    String exportMetrics = properties.getProperty(TAIL_SAMPLING_EXPORT_METRICS_PROPERTY);
+    if (exportMetrics != null) {
+      builder.setExportMetrics(Boolean.parseBoolean(exportMetrics.trim()));
+    }
+    return builder.build();
+  }
+
+  // Returns the value of the given int property, or null if it is not set or it is not an int that
+  // is at least minValue.
+  @Nullable
+  private static Integer parseIntProperty(Properties properties, String name, int minValue) {
+    String value = properties.getProperty(name);
+    if (value == null) {
+      return null;
+    }
+    try {
+      int parsedValue = Integer.parseInt(value.trim());
+      if (parsedValue >= minValue) {
+        return parsedValue;
+      }
+    } catch (IllegalArgumentException e) {
+      // Logged below.
+    }
+    logInvalidProperty(name, value);
+    return null;
+  }
+
+  // Returns the value of the given property as a Duration in milliseconds, or null if it is not set
+  // or it is not a non-negative number of milliseconds.
+  @Nullable
+  private static Duration parseMillisProperty(Properties properties, String name) {
+    String value = properties.getProperty(name);
+    if (value == null) {
+      return null;
+    }
+    try {
+      long millis = Long.parseLong(value.trim());
+      if (millis >= 0) {
+        return Duration.fromMillis(millis);
+      }
+    } catch (IllegalArgumentException e) {
+      // Logged below. Duration also throws it if the value is too large.
+    }
+    logInvalidProperty(name, value);
+    return null;
+  }
+
+  private static void logInvalidProperty(String name, String value) {
+    logger.log(Level.WARNING, "Ignoring invalid value for " + name + ": " + value);
   }
 
   @Override
@@ -18,7 +18,22 @@ package io.opencensus.impl.internal;
 
 import static com.google.common.truth.Truth.assertThat;
 
+import io.opencensus.impl.internal.DisruptorEventQueue.WaitStrategyType;
+import io.opencensus.implcore.common.MillisClock;
 import io.opencensus.implcore.internal.EventQueue;
+import io.opencensus.implcore.trace.RecordEventsSpanImpl;
+import io.opencensus.implcore.trace.StartEndHandlerImpl;
+import io.opencensus.implcore.trace.export.ExportComponentImpl;
+import io.opencensus.implcore.trace.export.RunningSpanStoreImpl;
+import io.opencensus.trace.SpanContext;
+import io.opencensus.trace.SpanId;
+import io.opencensus.trace.TraceId;
+import io.opencensus.trace.TraceOptions;
+import io.opencensus.trace.config.TraceParams;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
@@ -71,6 +86,71 @@ public class DisruptorEventQueueTest {
     }
   }
 
+  // EventQueueEntry for incrementing a Counter, partitioned by a key.
+  private static final class PartitionedIncrementEvent extends IncrementEvent
+      implements EventQueue.PartitionedEntry {
+    private final String key;
+
+    PartitionedIncrementEvent(Counter counter, String key) {
+      super(counter);
+      this.key = key;
+    }
+
+    @Override
+    public String getPartitionKey() {
+      return key;
+    }
+  }
+
+  // EventQueueEntry for incrementing a Counter, that may be dropped when the queue is full.
+  private static final class DroppableIncrementEvent extends IncrementEvent
+      implements EventQueue.DroppableEntry {
+    DroppableIncrementEvent(Counter counter) {
+      super(counter);
+    }
+  }
+
+  // EventQueueEntry that counts down a latch, to wait for the entries enqueued before it.
+  private static final class CountDownEvent implements EventQueue.Entry {
+    private final CountDownLatch latch;
+
+    CountDownEvent(CountDownLatch latch) {
+      this.latch = latch;
+    }
+
+    @Override
+    public void process() {
+      latch.countDown();
+    }
+  }
+
+  // EventQueueEntry that blocks the consumer thread until the latch is released.
+  private static final class BlockingEvent implements EventQueue.Entry {
+    private final CountDownLatch latch;
+
+    BlockingEvent(CountDownLatch latch) {
+      this.latch = latch;
+    }
+
+    @Override
+    public void process() {
+      try {
+        latch.await();
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  @After
+  public void tearDown() {
+    System.clearProperty(DisruptorEventQueue.BUFFER_SIZE_PROPERTY);
+    System.clearProperty(DisruptorEventQueue.WAIT_STRATEGY_PROPERTY);
+    System.clearProperty(DisruptorEventQueue.DROP_ON_FULL_PROPERTY);
+    System.clearProperty(DisruptorEventQueue.SHARDS_PROPERTY);
+    System.clearProperty(DisruptorEventQueue.EXPORT_METRICS_PROPERTY);
+  }
+
   @Test
   public void incrementOnce() {
     Counter counter = new Counter();
@@ -101,4 +181,191 @@ public class DisruptorEventQueueTest {
     }
     counter.check(tenK);
   }
+
+  @Test
+  public void builder_DefaultValues() {
+    DisruptorEventQueue.Builder builder = DisruptorEventQueue.builder();
+    assertThat(builder.getBufferSize()).isEqualTo(8192);
+    assertThat(builder.getWaitStrategy()).isEqualTo(WaitStrategyType.SLEEPING);
+    assertThat(builder.getDropOnFull()).isFalse();
+    assertThat(builder.getShards()).isEqualTo(1);
+  }
+
+  @Test
+  public void builder_RoundsBufferSizeToPowerOfTwo() {
+    assertThat(DisruptorEventQueue.builder().setBufferSize(1).getBufferSize()).isEqualTo(1);
+    assertThat(DisruptorEventQueue.builder().setBufferSize(1000).getBufferSize()).isEqualTo(1024);
+    assertThat(DisruptorEventQueue.builder().setBufferSize(1024).getBufferSize()).isEqualTo(1024);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void builder_NonPositiveBufferSize() {
+    DisruptorEventQueue.builder().setBufferSize(0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void builder_NonPositiveShards() {
+    DisruptorEventQueue.builder().setShards(0);
+  }
+
+  @Test
+  public void fromSystemProperties() {
+    System.setProperty(DisruptorEventQueue.BUFFER_SIZE_PROPERTY, "100");
+    System.setProperty(DisruptorEventQueue.WAIT_STRATEGY_PROPERTY, "busy_spin");
+    System.setProperty(DisruptorEventQueue.DROP_ON_FULL_PROPERTY, "true");
+    System.setProperty(DisruptorEventQueue.SHARDS_PROPERTY, "4");
+    DisruptorEventQueue.Builder builder = DisruptorEventQueue.fromSystemProperties();
+    assertThat(builder.getBufferSize()).isEqualTo(128);
+    assertThat(builder.getWaitStrategy()).isEqualTo(WaitStrategyType.BUSY_SPIN);
+    assertThat(builder.getDropOnFull()).isTrue();
+    assertThat(builder.getShards()).isEqualTo(4);
+  }
+
+  @Test
+  public void fromSystemProperties_InvalidValuesIgnored() {
+    System.setProperty(DisruptorEventQueue.BUFFER_SIZE_PROPERTY, "big");
+    System.setProperty(DisruptorEventQueue.WAIT_STRATEGY_PROPERTY, "unknown");
+    System.setProperty(DisruptorEventQueue.SHARDS_PROPERTY, "-1");
+    DisruptorEventQueue.Builder builder = DisruptorEventQueue.fromSystemProperties();
+    assertThat(builder.getBufferSize()).isEqualTo(8192);
+    assertThat(builder.getWaitStrategy()).isEqualTo(WaitStrategyType.SLEEPING);
+    assertThat(builder.getShards()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldExportMetrics() {
+    assertThat(DisruptorEventQueue.shouldExportMetrics()).isFalse();
+    assertThat(DisruptorEventQueue.fromSystemProperties().getRecordProcessingTime()).isFalse();
+    System.setProperty(DisruptorEventQueue.EXPORT_METRICS_PROPERTY, "true");
+    assertThat(DisruptorEventQueue.shouldExportMetrics()).isTrue();
+    assertThat(DisruptorEventQueue.fromSystemProperties().getRecordProcessingTime()).isTrue();
+    System.setProperty(DisruptorEventQueue.EXPORT_METRICS_PROPERTY, "no");
+    assertThat(DisruptorEventQueue.shouldExportMetrics()).isFalse();
+  }
+
+  @Test
+  public void dropOnFull() {
+    DisruptorEventQueue queue =
+        DisruptorEventQueue.builder().setBufferSize(4).setDropOnFull(true).build();
+    CountDownLatch latch = new CountDownLatch(1);
+    Counter counter = new Counter();
+    try {
+      // Block the consumer thread, then fill the ring buffer.
+      queue.enqueue(new BlockingEvent(latch));
+      for (int i = 0; i < 10; i++) {
+        queue.enqueue(new DroppableIncrementEvent(counter));
+      }
+      // The blocking event might still be in the ring buffer, so between 6 and 7 entries are
+      // dropped.
+      assertThat(queue.getDroppedEntryCount()).isAtLeast(6L);
+      assertThat(queue.getDroppedEntryCount()).isAtMost(7L);
+    } finally {
+      latch.countDown();
+      queue.shutdown();
+    }
+  }
+
+  @Test
+  public void dropOnFull_KeepsSpanEventsAndConsumer() throws InterruptedException {
+    final DisruptorEventQueue queue =
+        DisruptorEventQueue.builder().setBufferSize(4).setDropOnFull(true).build();
+    ExportComponentImpl exportComponent = ExportComponentImpl.createWithInProcessStores(queue);
+    RunningSpanStoreImpl runningSpanStore = exportComponent.getRunningSpanStore();
+    final StartEndHandlerImpl startEndHandler =
+        new StartEndHandlerImpl(exportComponent.getSpanExporter(), runningSpanStore, null, queue);
+    CountDownLatch latch = new CountDownLatch(1);
+    Counter counter = new Counter();
+    try {
+      // Block the consumer thread, then fill the ring buffer.
+      queue.enqueue(new BlockingEvent(latch));
+      for (int i = 0; i < 10; i++) {
+        queue.enqueue(new DroppableIncrementEvent(counter));
+      }
+      // Start and end spans while the ring buffer is full. Their events block until there is room.
+      Thread spanThread =
+          new Thread(
+              new Runnable() {
+                @Override
+                public void run() {
+                  Random random = new Random(1234);
+                  for (int i = 0; i < 10; i++) {
+                    RecordEventsSpanImpl span =
+                        RecordEventsSpanImpl.startSpan(
+                            SpanContext.create(
+                                TraceId.generateRandomId(random),
+                                SpanId.generateRandomId(random),
+                                TraceOptions.DEFAULT),
+                            "MySpanName",
+                            null,
+                            null,
+                            null,
+                            TraceParams.DEFAULT,
+                            startEndHandler,
+                            null,
+                            MillisClock.getInstance());
+                    span.end();
+                  }
+                }
+              });
+      spanThread.start();
+      latch.countDown();
+      spanThread.join();
+      CountDownLatch processed = new CountDownLatch(1);
+      queue.enqueue(new CountDownEvent(processed));
+      assertThat(processed.await(10, TimeUnit.SECONDS)).isTrue();
+      assertThat(runningSpanStore.getSummary().getPerSpanNameSummary()).isEmpty();
+    } finally {
+      latch.countDown();
+      queue.shutdown();
+    }
+  }
+
+  @Test
+  public void exceptionDoesNotStopConsumer() throws InterruptedException {
+    DisruptorEventQueue queue = DisruptorEventQueue.builder().build();
+    Counter counter = new Counter();
+    try {
+      queue.enqueue(
+          new EventQueue.Entry() {
+            @Override
+            public void process() {
+              throw new IllegalArgumentException("Element not in the list.");
+            }
+          });
+      queue.enqueue(new IncrementEvent(counter));
+      CountDownLatch processed = new CountDownLatch(1);
+      queue.enqueue(new CountDownEvent(processed));
+      assertThat(processed.await(10, TimeUnit.SECONDS)).isTrue();
+      counter.check(1);
+    } finally {
+      queue.shutdown();
+    }
+  }
+
+  @Test
+  public void shardsProcessSamePartitionKeyInOrderOnOneThread() {
+    final int tenK = 10000;
+    DisruptorEventQueue queue = DisruptorEventQueue.builder().setShards(4).build();
+    Counter[] counters = new Counter[8];
+    for (int i = 0; i < counters.length; i++) {
+      counters[i] = new Counter();
+    }
+    try {
+      for (int i = 0; i < tenK; i++) {
+        int index = i % counters.length;
+        queue.enqueue(new PartitionedIncrementEvent(counters[index], "key" + index));
+      }
+      // Sleep briefly, to allow background operations to complete.
+      try {
+        Thread.sleep(500);
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      }
+      for (Counter counter : counters) {
+        counter.check(tenK / counters.length);
+      }
+    } finally {
+      queue.shutdown();
+    }
+  }
 }
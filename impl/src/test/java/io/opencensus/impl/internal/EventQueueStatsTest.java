@@ -0,0 +1,191 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.impl.internal;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.lmax.disruptor.RingBuffer;
+import io.opencensus.common.Clock;
+import io.opencensus.implcore.common.MillisClock;
+import io.opencensus.implcore.internal.EventQueue;
+import io.opencensus.metrics.LabelValue;
+import io.opencensus.metrics.export.Metric;
+import io.opencensus.metrics.export.MetricProducer;
+import io.opencensus.metrics.export.TimeSeries;
+import io.opencensus.metrics.export.Value;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link EventQueueStats}. */
+@RunWith(JUnit4.class)
+public class EventQueueStatsTest {
+  private static final LabelValue SHARD_0 = LabelValue.create("0");
+  private static final LabelValue SHARD_1 = LabelValue.create("1");
+
+  private final Clock clock = MillisClock.getInstance();
+
+  private static final class NoopEntry implements EventQueue.DroppableEntry {
+    @Override
+    public void process() {}
+  }
+
+  // EventQueueEntry that blocks the consumer thread until the latch is released.
+  private static final class BlockingEntry implements EventQueue.Entry {
+    private final CountDownLatch latch;
+
+    BlockingEntry(CountDownLatch latch) {
+      this.latch = latch;
+    }
+
+    @Override
+    public void process() {
+      try {
+        latch.await();
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  @Test
+  public void recordCounters() {
+    EventQueueStats stats = new EventQueueStats();
+    stats.recordDroppedEntry();
+    stats.recordDroppedEntry();
+    stats.recordEnqueueWait(3 * 1000 * 1000);
+    stats.recordProcessed(NoopEntry.class, 1000 * 1000);
+    stats.recordProcessed(NoopEntry.class, 2 * 1000 * 1000);
+    assertThat(stats.getDroppedEntries()).isEqualTo(2);
+    assertThat(stats.getBlockedEnqueues()).isEqualTo(1);
+
+    Map<String, Metric> metrics =
+        getMetrics(stats.createMetricProducer(new RingBuffer<?>[0], clock));
+    assertThat(metrics.keySet())
+        .containsExactly(
+            EventQueueStats.DROPPED_ENTRIES,
+            EventQueueStats.BLOCKED_ENQUEUES,
+            EventQueueStats.ENQUEUE_WAIT_TIME,
+            EventQueueStats.PROCESSED_ENTRIES,
+            EventQueueStats.PROCESSING_TIME);
+    assertThat(getOnlyValue(metrics.get(EventQueueStats.DROPPED_ENTRIES)))
+        .isEqualTo(Value.longValue(2));
+    assertThat(getOnlyValue(metrics.get(EventQueueStats.BLOCKED_ENQUEUES)))
+        .isEqualTo(Value.longValue(1));
+    assertThat(getOnlyValue(metrics.get(EventQueueStats.ENQUEUE_WAIT_TIME)))
+        .isEqualTo(Value.doubleValue(3.0));
+    TimeSeries processedEntries = getOnlyTimeSeries(metrics.get(EventQueueStats.PROCESSED_ENTRIES));
+    assertThat(processedEntries.getLabelValues())
+        .containsExactly(LabelValue.create(NoopEntry.class.getName()));
+    assertThat(processedEntries.getPoints().get(0).getValue()).isEqualTo(Value.longValue(2));
+    assertThat(getOnlyValue(metrics.get(EventQueueStats.PROCESSING_TIME)))
+        .isEqualTo(Value.doubleValue(3.0));
+  }
+
+  @Test
+  public void newEntryTypeAfterCreatingMetricProducer() {
+    EventQueueStats stats = new EventQueueStats();
+    MetricProducer metricProducer = stats.createMetricProducer(new RingBuffer<?>[0], clock);
+    assertThat(getMetrics(metricProducer).get(EventQueueStats.PROCESSED_ENTRIES)).isNull();
+
+    stats.recordProcessed(NoopEntry.class, 1000 * 1000);
+    stats.recordProcessed(BlockingEntry.class, 1000 * 1000);
+    assertThat(
+            getMetrics(metricProducer).get(EventQueueStats.PROCESSED_ENTRIES).getTimeSeriesList())
+        .hasSize(2);
+  }
+
+  @Test(timeout = 10000L)
+  public void disruptorEventQueue_RecordsProcessingTimeOnlyWhenEnabled()
+      throws InterruptedException {
+    DisruptorEventQueue queue = DisruptorEventQueue.builder().build();
+    DisruptorEventQueue recordingQueue =
+        DisruptorEventQueue.builder().setRecordProcessingTime(true).build();
+    try {
+      final CountDownLatch processed = new CountDownLatch(2);
+      EventQueue.Entry entry =
+          new EventQueue.Entry() {
+            @Override
+            public void process() {
+              processed.countDown();
+            }
+          };
+      queue.enqueue(entry);
+      recordingQueue.enqueue(entry);
+      processed.await();
+      // The processing time is recorded right after the entry is processed.
+      while (getMetrics(recordingQueue.getMetricProducer()).get(EventQueueStats.PROCESSED_ENTRIES)
+          == null) {
+        Thread.yield();
+      }
+      assertThat(getMetrics(queue.getMetricProducer()).get(EventQueueStats.PROCESSED_ENTRIES))
+          .isNull();
+    } finally {
+      queue.shutdown();
+      recordingQueue.shutdown();
+    }
+  }
+
+  @Test
+  public void disruptorEventQueue_ExportsQueueDepthAndDrops() {
+    DisruptorEventQueue queue =
+        DisruptorEventQueue.builder().setBufferSize(4).setDropOnFull(true).setShards(2).build();
+    CountDownLatch latch = new CountDownLatch(1);
+    try {
+      // Block the consumer thread of the first shard, then fill its ring buffer.
+      queue.enqueue(new BlockingEntry(latch));
+      for (int i = 0; i < 10; i++) {
+        queue.enqueue(new NoopEntry());
+      }
+      Map<String, Metric> metrics = getMetrics(queue.getMetricProducer());
+      Map<LabelValue, Value> queueDepth = new HashMap<LabelValue, Value>();
+      for (TimeSeries timeSeries : metrics.get(EventQueueStats.QUEUE_DEPTH).getTimeSeriesList()) {
+        queueDepth.put(
+            timeSeries.getLabelValues().get(0), timeSeries.getPoints().get(0).getValue());
+      }
+      assertThat(queueDepth).containsEntry(SHARD_0, Value.longValue(4));
+      assertThat(queueDepth).containsEntry(SHARD_1, Value.longValue(0));
+      assertThat(getOnlyValue(metrics.get(EventQueueStats.DROPPED_ENTRIES)))
+          .isEqualTo(Value.longValue(queue.getDroppedEntryCount()));
+    } finally {
+      latch.countDown();
+      queue.shutdown();
+    }
+  }
+
+  private static Map<String, Metric> getMetrics(MetricProducer metricProducer) {
+    Map<String, Metric> metrics = new HashMap<String, Metric>();
+    for (Metric metric : metricProducer.getMetrics()) {
+      metrics.put(metric.getMetricDescriptor().getName(), metric);
+    }
+    return metrics;
+  }
+
+  private static TimeSeries getOnlyTimeSeries(Metric metric) {
+    List<TimeSeries> timeSeriesList = metric.getTimeSeriesList();
+    assertThat(timeSeriesList).hasSize(1);
+    return timeSeriesList.get(0);
+  }
+
+  private static Value getOnlyValue(Metric metric) {
+    return getOnlyTimeSeries(metric).getPoints().get(0).getValue();
+  }
+}
@@ -18,6 +18,8 @@ package io.opencensus.impl.stats;
 
 import static com.google.common.truth.Truth.assertThat;
 
+import io.opencensus.implcore.stats.StatsComponentImplBase.ExportTemporality;
+import io.opencensus.implcore.stats.StatsComponentImplBase.RecordingMode;
 import io.opencensus.implcore.stats.StatsRecorderImpl;
 import io.opencensus.implcore.stats.ViewManagerImpl;
 import io.opencensus.stats.Stats;
@@ -38,4 +40,25 @@ public final class StatsTest {
   public void getViewManager() {
     assertThat(Stats.getViewManager()).isInstanceOf(ViewManagerImpl.class);
   }
+
+  @Test
+  public void parseRecordingMode() {
+    assertThat(StatsComponentImpl.parseRecordingMode(null)).isEqualTo(RecordingMode.QUEUED);
+    assertThat(StatsComponentImpl.parseRecordingMode("queued")).isEqualTo(RecordingMode.QUEUED);
+    assertThat(StatsComponentImpl.parseRecordingMode("direct")).isEqualTo(RecordingMode.DIRECT);
+    assertThat(StatsComponentImpl.parseRecordingMode(" DIRECT ")).isEqualTo(RecordingMode.DIRECT);
+    assertThat(StatsComponentImpl.parseRecordingMode("invalid")).isEqualTo(RecordingMode.QUEUED);
+  }
+
+  @Test
+  public void parseExportTemporality() {
+    assertThat(StatsComponentImpl.parseExportTemporality(null))
+        .isEqualTo(ExportTemporality.CUMULATIVE);
+    assertThat(StatsComponentImpl.parseExportTemporality("delta"))
+        .isEqualTo(ExportTemporality.DELTA);
+    assertThat(StatsComponentImpl.parseExportTemporality(" Cumulative "))
+        .isEqualTo(ExportTemporality.CUMULATIVE);
+    assertThat(StatsComponentImpl.parseExportTemporality("invalid"))
+        .isEqualTo(ExportTemporality.CUMULATIVE);
+  }
 }
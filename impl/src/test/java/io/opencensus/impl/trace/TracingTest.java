@@ -18,12 +18,17 @@ package io.opencensus.impl.trace;
 
 import static com.google.common.truth.Truth.assertThat;
 
+import io.opencensus.common.Duration;
 import io.opencensus.implcore.common.MillisClock;
 import io.opencensus.implcore.trace.TracerImpl;
 import io.opencensus.implcore.trace.export.ExportComponentImpl;
+import io.opencensus.implcore.trace.export.SpanExporterConfig;
+import io.opencensus.implcore.trace.export.SpanExporterConfig.DropPolicy;
+import io.opencensus.implcore.trace.export.TailSamplingConfig;
 import io.opencensus.trace.TraceComponent;
 import io.opencensus.trace.Tracing;
 import io.opencensus.trace.propagation.PropagationComponent;
+import java.util.Properties;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
@@ -50,4 +55,94 @@ public class TracingTest {
   public void implementationOfTraceExporter() {
     assertThat(Tracing.getExportComponent()).isInstanceOf(ExportComponentImpl.class);
   }
+
+  @Test
+  public void parseSpanExporterConfig() {
+    Properties properties = new Properties();
+    assertThat(TraceComponentImpl.parseSpanExporterConfig(properties))
+        .isEqualTo(SpanExporterConfig.DEFAULT);
+    properties.setProperty(TraceComponentImpl.EXPORTER_MAX_QUEUE_SIZE_PROPERTY, " 100 ");
+    properties.setProperty(TraceComponentImpl.EXPORTER_DROP_POLICY_PROPERTY, "drop_oldest");
+    properties.setProperty(TraceComponentImpl.EXPORTER_EXPORT_METRICS_PROPERTY, "true");
+    properties.setProperty(TraceComponentImpl.EXPORTER_HANDLER_QUEUE_SIZE_PROPERTY, "8");
+    properties.setProperty(TraceComponentImpl.EXPORTER_HANDLER_TIMEOUT_PROPERTY, "5000");
+    properties.setProperty(TraceComponentImpl.EXPORTER_HANDLER_MAX_RETRIES_PROPERTY, "5");
+    properties.setProperty(TraceComponentImpl.EXPORTER_HANDLER_RETRY_DELAY_PROPERTY, "2000");
+    assertThat(TraceComponentImpl.parseSpanExporterConfig(properties))
+        .isEqualTo(
+            SpanExporterConfig.DEFAULT
+                .toBuilder()
+                .setMaxQueueSize(100)
+                .setDropPolicy(DropPolicy.DROP_OLDEST)
+                .setExportMetrics(true)
+                .setHandlerQueueSize(8)
+                .setHandlerTimeout(Duration.create(5, 0))
+                .setHandlerMaxRetries(5)
+                .setHandlerRetryDelay(Duration.create(2, 0))
+                .build());
+  }
+
+  @Test
+  public void parseSpanExporterConfig_InvalidValues() {
+    Properties properties = new Properties();
+    properties.setProperty(TraceComponentImpl.EXPORTER_MAX_QUEUE_SIZE_PROPERTY, "-1");
+    properties.setProperty(TraceComponentImpl.EXPORTER_DROP_POLICY_PROPERTY, "invalid");
+    properties.setProperty(TraceComponentImpl.EXPORTER_HANDLER_QUEUE_SIZE_PROPERTY, "0");
+    properties.setProperty(TraceComponentImpl.EXPORTER_HANDLER_TIMEOUT_PROPERTY, "-1");
+    properties.setProperty(TraceComponentImpl.EXPORTER_HANDLER_MAX_RETRIES_PROPERTY, "many");
+    properties.setProperty(TraceComponentImpl.EXPORTER_HANDLER_RETRY_DELAY_PROPERTY, "");
+    assertThat(TraceComponentImpl.parseSpanExporterConfig(properties))
+        .isEqualTo(SpanExporterConfig.DEFAULT);
+  }
+
+  @Test
+  public void tailSamplingDisabledByDefault() {
+    assertThat(TraceComponentImpl.parseTailSamplingConfig(new Properties())).isNull();
+    assertThat(((ExportComponentImpl) Tracing.getExportComponent()).getTailSamplingBuffer())
+        .isNull();
+  }
+
+  @Test
+  public void parseTailSamplingConfig() {
+    Properties properties = new Properties();
+    properties.setProperty(TraceComponentImpl.TAIL_SAMPLING_ENABLED_PROPERTY, " true ");
+    assertThat(TraceComponentImpl.parseTailSamplingConfig(properties))
+        .isEqualTo(TailSamplingConfig.DEFAULT);
+    properties.setProperty(TraceComponentImpl.TAIL_SAMPLING_DECISION_WAIT_PROPERTY, "2000");
+    properties.setProperty(TraceComponentImpl.TAIL_SAMPLING_LATENCY_THRESHOLD_PROPERTY, "300");
+    properties.setProperty(TraceComponentImpl.TAIL_SAMPLING_MAX_BUFFERED_SPANS_PROPERTY, "100");
+    properties.setProperty(TraceComponentImpl.TAIL_SAMPLING_EXPORT_METRICS_PROPERTY, "true");
+    assertThat(TraceComponentImpl.parseTailSamplingConfig(properties))
+        .isEqualTo(
+            TailSamplingConfig.DEFAULT
+                .toBuilder()
+                .setDecisionWait(Duration.create(2, 0))
+                .setLatencyThreshold(Duration.fromMillis(300))
+                .setMaxBufferedSpans(100)
+                .setExportMetrics(true)
+                .build());
+  }
+
+  @Test
+  public void parseTailSamplingConfig_InvalidValues() {
+    Properties properties = new Properties();
+    properties.setProperty(TraceComponentImpl.TAIL_SAMPLING_ENABLED_PROPERTY, "true");
+    properties.setProperty(TraceComponentImpl.TAIL_SAMPLING_DECISION_WAIT_PROPERTY, "abc");
+    properties.setProperty(TraceComponentImpl.TAIL_SAMPLING_MAX_BUFFERED_SPANS_PROPERTY, "0");
+    assertThat(TraceComponentImpl.parseTailSamplingConfig(properties))
+        .isEqualTo(TailSamplingConfig.DEFAULT);
+    // An invalid value only discards its own property.
+    properties.setProperty(TraceComponentImpl.TAIL_SAMPLING_DECISION_WAIT_PROPERTY, "-1");
+    properties.setProperty(TraceComponentImpl.TAIL_SAMPLING_LATENCY_THRESHOLD_PROPERTY, "300");
+    properties.setProperty(TraceComponentImpl.TAIL_SAMPLING_MAX_BUFFERED_SPANS_PROPERTY, "100");
+    assertThat(TraceComponentImpl.parseTailSamplingConfig(properties))
+        .isEqualTo(
+            TailSamplingConfig.DEFAULT
+                .toBuilder()
+                .setLatencyThreshold(Duration.fromMillis(300))
+                .setMaxBufferedSpans(100)
+                .build());
+    properties.setProperty(TraceComponentImpl.TAIL_SAMPLING_ENABLED_PROPERTY, "false");
+    assertThat(TraceComponentImpl.parseTailSamplingConfig(properties)).isNull();
+  }
 }
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.implcore.stats;
+
+import io.opencensus.common.Duration;
+import io.opencensus.common.Timestamp;
+import io.opencensus.implcore.tags.TagsComponentImplBase;
+import io.opencensus.metrics.data.AttachmentValue;
+import io.opencensus.stats.Aggregation;
+import io.opencensus.stats.BucketBoundaries;
+import io.opencensus.stats.Measure.MeasureDouble;
+import io.opencensus.stats.View;
+import io.opencensus.tags.TagContext;
+import io.opencensus.tags.TagContextBuilder;
+import io.opencensus.tags.TagKey;
+import io.opencensus.tags.TagValue;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks for recording into an existing time series of a {@link MutableViewData}.
+ *
+ * <p>Run with the GC profiler, e.g. {@code ./gradlew -PjmhIncludeSingleClass=MutableViewData
+ * -PjmhProfilers=gc :opencensus-impl-core:jmh}, to check that the cumulative views don't allocate:
+ * {@code gc.alloc.rate.norm} should be close to 0 B/op.
+ */
+public class MutableViewDataBenchmark {
+  private static final MeasureDouble MEASURE = MeasureDouble.create("measure", "description", "1");
+  private static final Timestamp TIMESTAMP = Timestamp.fromMillis(1000);
+  private static final Map<String, AttachmentValue> ATTACHMENTS =
+      Collections.<String, AttachmentValue>emptyMap();
+
+  @State(Scope.Thread)
+  public static class Data {
+    private MutableViewData count;
+    private MutableViewData distribution;
+    private MutableViewData intervalCount;
+    private TagContext tags;
+
+    @Param({"1", "3", "8"})
+    int numTags;
+
+    @Setup
+    public void setup() {
+      List<TagKey> columns = new ArrayList<TagKey>(numTags);
+      TagContextBuilder builder = new TagsComponentImplBase().getTagger().emptyBuilder();
+      for (int i = 0; i < numTags; i++) {
+        TagKey key = TagKey.create("key" + i);
+        columns.add(key);
+        builder.put(key, TagValue.create("value" + i));
+      }
+      tags = builder.build();
+      count =
+          createMutableViewData(
+              Aggregation.Count.create(), View.AggregationWindow.Cumulative.create(), columns);
+      distribution =
+          createMutableViewData(
+              Aggregation.Distribution.create(
+                  BucketBoundaries.create(Arrays.asList(1.0, 10.0, 100.0, 1000.0))),
+              View.AggregationWindow.Cumulative.create(),
+              columns);
+      intervalCount =
+          createMutableViewData(
+              Aggregation.Count.create(),
+              View.AggregationWindow.Interval.create(Duration.create(60, 0)),
+              columns);
+      // Create the time series, so that the benchmarks only record into existing ones.
+      count.record(tags, 1, TIMESTAMP, ATTACHMENTS);
+      distribution.record(tags, 1, TIMESTAMP, ATTACHMENTS);
+      intervalCount.record(tags, 1, TIMESTAMP, ATTACHMENTS);
+    }
+
+    private static MutableViewData createMutableViewData(
+        Aggregation aggregation, View.AggregationWindow window, List<TagKey> columns) {
+      return MutableViewData.create(
+          View.create(
+              View.Name.create("view"), "description", MEASURE, aggregation, columns, window),
+          TIMESTAMP);
+    }
+  }
+
+  /** This benchmark attempts to measure the cost of recording into a cumulative count view. */
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public MutableViewData recordCount(Data data) {
+    data.count.record(data.tags, 1, TIMESTAMP, ATTACHMENTS);
+    return data.count;
+  }
+
+  /**
+   * This benchmark attempts to measure the cost of recording into a cumulative distribution view.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public MutableViewData recordDistribution(Data data) {
+    data.distribution.record(data.tags, 10, TIMESTAMP, ATTACHMENTS);
+    return data.distribution;
+  }
+
+  /** This benchmark attempts to measure the cost of recording into an interval count view. */
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public MutableViewData recordIntervalCount(Data data) {
+    data.intervalCount.record(data.tags, 1, TIMESTAMP, ATTACHMENTS);
+    return data.intervalCount;
+  }
+}
@@ -33,4 +33,26 @@ public interface EventQueue {
      */
     void process();
   }
+
+  /**
+   * An {@link Entry} that can be processed concurrently with entries that have a different
+   * partition key. Implementations that process entries on multiple threads must process entries
+   * with equal partition keys in the order in which they were enqueued.
+   */
+  interface PartitionedEntry extends Entry {
+    /**
+     * Returns the key used to choose the thread that processes this entry, e.g. a measure or span
+     * name.
+     *
+     * @return the partition key of this entry.
+     */
+    String getPartitionKey();
+  }
+
+  /**
+   * An {@link Entry} that can be dropped without affecting the processing of the other entries,
+   * e.g. because it only records stats. Implementations that drop entries when they are full must
+   * only drop these, and must still enqueue the other entries.
+   */
+  interface DroppableEntry extends Entry {}
 }
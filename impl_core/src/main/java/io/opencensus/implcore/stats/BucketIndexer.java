@@ -0,0 +1,188 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.implcore.stats;
+
+import com.google.common.annotations.VisibleForTesting;
+import io.opencensus.common.Function;
+import io.opencensus.common.Functions;
+import io.opencensus.stats.BucketBoundaries;
+import io.opencensus.stats.BucketBoundaries.Layout;
+import java.util.List;
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * Finds the histogram bucket of a value for a {@link BucketBoundaries}.
+ *
+ * <p>The bucket of a value is the index of the first boundary that is greater than the value, or
+ * the number of boundaries if there is none. Values equal to a boundary therefore fall into the
+ * bucket above it, and NaN falls into the last bucket.
+ *
+ * <p>Explicit boundaries are binary searched. Exponential and log-linear boundaries compute the
+ * bucket arithmetically, then compare with the neighbouring boundaries to correct for rounding, so
+ * they always agree with a search.
+ */
+@Immutable
+abstract class BucketIndexer {
+
+  // Primitive copy of the bucket boundaries, so that lookups don't unbox them.
+  final double[] boundaries;
+
+  private BucketIndexer(double[] boundaries) {
+    this.boundaries = boundaries;
+  }
+
+  static BucketIndexer create(BucketBoundaries bucketBoundaries) {
+    final double[] boundaries = toArray(bucketBoundaries.getBoundaries());
+    return bucketBoundaries
+        .getLayout()
+        .match(
+            new Function<Layout.Explicit, BucketIndexer>() {
+              @Override
+              public BucketIndexer apply(Layout.Explicit arg) {
+                return new ExplicitBucketIndexer(boundaries);
+              }
+            },
+            new Function<Layout.Exponential, BucketIndexer>() {
+              @Override
+              public BucketIndexer apply(Layout.Exponential arg) {
+                return new ExponentialBucketIndexer(boundaries, arg);
+              }
+            },
+            new Function<Layout.LogLinear, BucketIndexer>() {
+              @Override
+              public BucketIndexer apply(Layout.LogLinear arg) {
+                return new LogLinearBucketIndexer(boundaries, arg);
+              }
+            },
+            Functions.<BucketIndexer>throwAssertionError());
+  }
+
+  /**
+   * Returns the index of the bucket the value falls into, in {@code [0, boundaries.length]}.
+   *
+   * @param value the value.
+   * @return the index of the bucket.
+   */
+  abstract int getBucketIndex(double value);
+
+  /**
+   * Binary search for the first boundary that is greater than the value. Unlike {@link
+   * java.util.Arrays#binarySearch(double[], double)} it compares with {@code <}, so -0.0 and NaN
+   * end up in the same buckets as with a linear scan.
+   */
+  @VisibleForTesting
+  static int binarySearch(double[] boundaries, double value) {
+    int low = 0;
+    int high = boundaries.length;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (value < boundaries[mid]) {
+        high = mid;
+      } else {
+        low = mid + 1;
+      }
+    }
+    return low;
+  }
+
+  // Moves the estimated bucket index to the exact one. The estimate is at most off by one, unless
+  // rounding errors accumulate over a huge number of buckets.
+  final int correct(int estimate, double value) {
+    int index = Math.max(0, Math.min(estimate, boundaries.length));
+    while (index > 0 && value < boundaries[index - 1]) {
+      index--;
+    }
+    while (index < boundaries.length && !(value < boundaries[index])) {
+      index++;
+    }
+    return index;
+  }
+
+  private static double[] toArray(List<Double> list) {
+    double[] array = new double[list.size()];
+    for (int i = 0; i < array.length; i++) {
+      array[i] = list.get(i);
+    }
+    return array;
+  }
+
+  private static final class ExplicitBucketIndexer extends BucketIndexer {
+
+    private ExplicitBucketIndexer(double[] boundaries) {
+      super(boundaries);
+    }
+
+    @Override
+    int getBucketIndex(double value) {
+      return binarySearch(boundaries, value);
+    }
+  }
+
+  // Boundaries are scale * growthFactor^i, so the bucket is 1 + floor(log(value / scale) / log(g)).
+  private static final class ExponentialBucketIndexer extends BucketIndexer {
+    private final double scale;
+    private final double inverseLogGrowthFactor;
+
+    private ExponentialBucketIndexer(double[] boundaries, Layout.Exponential layout) {
+      super(boundaries);
+      this.scale = layout.getScale();
+      this.inverseLogGrowthFactor = 1 / Math.log(layout.getGrowthFactor());
+    }
+
+    @Override
+    int getBucketIndex(double value) {
+      if (!(value >= scale)) {
+        // Below the first boundary, or NaN.
+        return value < scale ? 0 : boundaries.length;
+      }
+      double exponent = Math.log(value / scale) * inverseLogGrowthFactor;
+      // Saturating cast, handles values that are way above the last boundary.
+      return correct(1 + (int) Math.min(exponent, boundaries.length), value);
+    }
+  }
+
+  // Boundaries are lowestBound * 2^k * (1 + j / subBucketCount). The octave k is the binary
+  // exponent of value / lowestBound, and j is the linear position within the octave.
+  private static final class LogLinearBucketIndexer extends BucketIndexer {
+    private final double lowestBound;
+    private final int numOctaves;
+    private final int subBucketCount;
+
+    private LogLinearBucketIndexer(double[] boundaries, Layout.LogLinear layout) {
+      super(boundaries);
+      this.lowestBound = layout.getLowestBound();
+      this.numOctaves = layout.getNumOctaves();
+      this.subBucketCount = layout.getSubBucketCount();
+    }
+
+    @Override
+    int getBucketIndex(double value) {
+      if (!(value >= lowestBound)) {
+        // Below the first boundary, or NaN.
+        return value < lowestBound ? 0 : boundaries.length;
+      }
+      double ratio = value / lowestBound;
+      int octave = Math.getExponent(ratio);
+      if (octave >= numOctaves) {
+        // Also covers infinity, whose exponent is Double.MAX_EXPONENT + 1.
+        return correct(boundaries.length, value);
+      }
+      int subBucket = (int) ((Math.scalb(ratio, -octave) - 1) * subBucketCount);
+      return correct(1 + octave * subBucketCount + subBucket, value);
+    }
+  }
+}
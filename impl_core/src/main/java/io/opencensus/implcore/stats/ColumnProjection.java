@@ -0,0 +1,88 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.implcore.stats;
+
+import io.opencensus.tags.TagKey;
+import java.util.Arrays;
+import java.util.List;
+
+/*>>>
+import org.checkerframework.checker.nullness.qual.Nullable;
+*/
+
+/**
+ * The columns of a view, precompiled into an array that {@link TagValuesProbe#fill} projects the
+ * tags of a recording onto.
+ *
+ * <p>Two projections are equal if they have the same columns in the same order, in which case they
+ * project the same tags onto the same tag values. The views of a measure often have the same
+ * columns, so the tag values of a recording only need to be looked up again for the views whose
+ * projection differs from the previous one.
+ */
+final class ColumnProjection {
+
+  private final TagKey[] columns;
+
+  private ColumnProjection(TagKey[] columns) {
+    this.columns = columns;
+  }
+
+  /**
+   * Creates a projection onto the given columns.
+   *
+   * @param columns the columns of the view.
+   * @return a projection onto the given columns.
+   */
+  static ColumnProjection create(List<? extends TagKey> columns) {
+    return new ColumnProjection(columns.toArray(new TagKey[0]));
+  }
+
+  int size() {
+    return columns.length;
+  }
+
+  TagKey get(int index) {
+    return columns[index];
+  }
+
+  @Override
+  public boolean equals(/*@Nullable*/ Object obj) {
+    if (obj == this) {
+      return true;
+    }
+    if (!(obj instanceof ColumnProjection)) {
+      return false;
+    }
+    TagKey[] otherColumns = ((ColumnProjection) obj).columns;
+    if (otherColumns.length != columns.length) {
+      return false;
+    }
+    // The columns of different views are usually the same TagKey instances, so check for identity
+    // before calling equals.
+    for (int i = 0; i < columns.length; i++) {
+      if (columns[i] != otherColumns[i] && !columns[i].equals(otherColumns[i])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public int hashCode() {
+    return Arrays.hashCode(columns);
+  }
+}
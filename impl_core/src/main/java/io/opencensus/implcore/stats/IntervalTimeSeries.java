@@ -0,0 +1,244 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.implcore.stats;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import io.opencensus.common.Timestamp;
+import io.opencensus.implcore.stats.MutableAggregation.SubtractableAggregation;
+import io.opencensus.metrics.data.AttachmentValue;
+import io.opencensus.stats.Aggregation;
+import io.opencensus.stats.Measure;
+import java.util.Map;
+
+/*>>>
+import org.checkerframework.checker.nullness.qual.Nullable;
+*/
+
+/**
+ * The aggregated {@code MeasureValue}s of one time series of an {@code IntervalView}, kept in a
+ * ring of one {@link MutableAggregation} per bucket.
+ *
+ * <p>Buckets are identified by their sequence number since the view was created. Bucket {@code b}
+ * is stored in slot {@code b % size}, together with its sequence number, so a slot that holds an
+ * expired bucket is recognized and reused when the slot's bucket becomes current again. Moving to
+ * the next bucket therefore only increments the sequence number of the current bucket, and never
+ * touches the time series.
+ *
+ * <p>Except for last values, the buckets between the oldest and the current one are also kept
+ * combined into one {@link MutableAggregation}, which is updated incrementally when the interval
+ * moves forward: the bucket that stops being current is added, and the bucket that becomes the
+ * oldest one is subtracted. Combining the interval therefore takes three buckets, whatever the
+ * number of buckets is. Adding and subtracting doubles accumulates rounding errors, so the combined
+ * buckets are rebuilt from the slots once the interval has moved by as many buckets as there are
+ * slots, which keeps the amortized cost of moving forward constant.
+ *
+ * <p>This class is not thread-safe.
+ */
+final class IntervalTimeSeries {
+
+  private final Aggregation aggregation;
+  private final Measure measure;
+  // The aggregation of the bucket with the sequence number in the same slot of bucketNumbers, or
+  // null if nothing was recorded into the slot yet.
+  private final /*@Nullable*/ MutableAggregation[] slots;
+  private final long[] bucketNumbers;
+  // Whether the buckets between the oldest and the current one are kept in completed. Only
+  // aggregations that are SubtractableAggregations can be.
+  private final boolean incremental;
+  // The sequence number of the current bucket the last time the interval moved forward.
+  private long currentBucketNumber;
+  // The combined buckets between the oldest and the current one, or null if none of them is in a
+  // slot.
+  @javax.annotation.Nullable private SubtractableAggregation completed;
+  // The number of buckets combined into completed.
+  private int completedBuckets;
+  // The number of buckets that the interval moved by since completed was last rebuilt.
+  private long movesSinceRebuild;
+
+  IntervalTimeSeries(int size, Aggregation aggregation, Measure measure) {
+    checkArgument(size > 0, "size must be positive");
+    this.aggregation = checkNotNull(aggregation, "Aggregation");
+    this.measure = checkNotNull(measure, "measure");
+    this.slots = new MutableAggregation[size];
+    this.bucketNumbers = new long[size];
+    this.incremental = !(aggregation instanceof Aggregation.LastValue);
+  }
+
+  // Puts a new value into the MutableAggregation of the given bucket, which must be the current
+  // one.
+  void record(
+      long bucketNumber,
+      double value,
+      Map<String, AttachmentValue> attachments,
+      Timestamp timestamp) {
+    moveTo(bucketNumber);
+    int slot = getSlot(bucketNumber);
+    MutableAggregation mutableAggregation = slots[slot];
+    if (mutableAggregation == null || bucketNumbers[slot] != bucketNumber) {
+      // The slot is empty, or still holds an expired bucket.
+      mutableAggregation = RecordUtils.createMutableAggregation(aggregation, measure);
+      slots[slot] = mutableAggregation;
+      bucketNumbers[slot] = bucketNumber;
+    }
+    mutableAggregation.add(value, attachments, timestamp);
+  }
+
+  /**
+   * Combines the buckets of the interval that ends with the given bucket, from the oldest to the
+   * newest one. Only the given fraction of the oldest bucket is included, since it has partially
+   * expired.
+   *
+   * @param lastBucketNumber the sequence number of the current bucket.
+   * @param fractionFirst the fraction of the oldest bucket that is still in the interval.
+   * @return the combined {@code MutableAggregation}, or {@code null} if nothing was recorded in the
+   *     interval.
+   */
+  @javax.annotation.Nullable
+  MutableAggregation combine(long lastBucketNumber, double fractionFirst) {
+    moveTo(lastBucketNumber);
+    if (!incremental) {
+      return combineAll(lastBucketNumber, fractionFirst);
+    }
+    MutableAggregation first = getBucket(lastBucketNumber - slots.length + 1);
+    MutableAggregation last = getBucket(lastBucketNumber);
+    if (first == null && completed == null && last == null) {
+      return null;
+    }
+    MutableAggregation combined = RecordUtils.createMutableAggregation(aggregation, measure);
+    if (first != null) {
+      combined.combine(first, fractionFirst);
+    }
+    if (completed != null) {
+      combined.combine(completed, 1.0);
+    }
+    if (last != null) {
+      combined.combine(last, 1.0);
+    }
+    return combined;
+  }
+
+  // Combines the interval by scanning all its buckets.
+  @javax.annotation.Nullable
+  private MutableAggregation combineAll(long lastBucketNumber, double fractionFirst) {
+    @javax.annotation.Nullable MutableAggregation combined = null;
+    long firstBucketNumber = lastBucketNumber - slots.length + 1;
+    for (long bucketNumber = Math.max(firstBucketNumber, 0);
+        bucketNumber <= lastBucketNumber;
+        bucketNumber++) {
+      int slot = getSlot(bucketNumber);
+      MutableAggregation mutableAggregation = slots[slot];
+      if (mutableAggregation == null || bucketNumbers[slot] != bucketNumber) {
+        continue;
+      }
+      if (combined == null) {
+        // Initially empty MutableAggregation.
+        combined = RecordUtils.createMutableAggregation(aggregation, measure);
+      }
+      if (bucketNumber == firstBucketNumber) {
+        // Take the fraction of the oldest bucket first, then combine it like the other buckets.
+        // The fractional last value doesn't count as recorded, so it doesn't override anything.
+        MutableAggregation fractional = RecordUtils.createMutableAggregation(aggregation, measure);
+        fractional.combine(mutableAggregation, fractionFirst);
+        mutableAggregation = fractional;
+      }
+      combined.combine(mutableAggregation, 1.0);
+    }
+    return combined;
+  }
+
+  // Moves the interval forward, so that it ends with the given bucket.
+  private void moveTo(long bucketNumber) {
+    if (bucketNumber <= currentBucketNumber) {
+      return;
+    }
+    if (incremental) {
+      if (bucketNumber - currentBucketNumber >= slots.length - 1) {
+        // Nothing was recorded into the buckets between the new oldest and current ones.
+        clearCompleted();
+      } else {
+        for (long b = currentBucketNumber; b < bucketNumber; b++) {
+          addToCompleted(getBucket(b));
+          subtractFromCompleted(getBucket(b - slots.length + 2));
+        }
+        movesSinceRebuild += bucketNumber - currentBucketNumber;
+      }
+    }
+    currentBucketNumber = bucketNumber;
+    if (incremental && movesSinceRebuild >= slots.length) {
+      rebuildCompleted();
+    }
+  }
+
+  // Combines the buckets between the oldest and the current one again, which discards the rounding
+  // errors that the additions and subtractions accumulated in completed.
+  private void rebuildCompleted() {
+    clearCompleted();
+    for (long b = currentBucketNumber - slots.length + 2; b < currentBucketNumber; b++) {
+      addToCompleted(getBucket(b));
+    }
+  }
+
+  private void addToCompleted(@javax.annotation.Nullable MutableAggregation bucket) {
+    if (bucket == null) {
+      return;
+    }
+    if (completed == null) {
+      // Only incremental time series get here, and their aggregations are subtractable.
+      completed =
+          (SubtractableAggregation) RecordUtils.createMutableAggregation(aggregation, measure);
+    }
+    completed.combine(bucket, 1.0);
+    completedBuckets++;
+  }
+
+  private void subtractFromCompleted(@javax.annotation.Nullable MutableAggregation bucket) {
+    if (bucket == null || completed == null) {
+      return;
+    }
+    if (--completedBuckets == 0) {
+      // Start over from an empty aggregation, rather than keeping the rounding errors.
+      clearCompleted();
+    } else {
+      completed.subtract(bucket);
+    }
+  }
+
+  private void clearCompleted() {
+    completed = null;
+    completedBuckets = 0;
+    movesSinceRebuild = 0;
+  }
+
+  // Returns the aggregation of the given bucket, or null if it isn't in its slot.
+  @javax.annotation.Nullable
+  private MutableAggregation getBucket(long bucketNumber) {
+    if (bucketNumber < 0) {
+      return null;
+    }
+    int slot = getSlot(bucketNumber);
+    MutableAggregation mutableAggregation = slots[slot];
+    return mutableAggregation != null && bucketNumbers[slot] == bucketNumber
+        ? mutableAggregation
+        : null;
+  }
+
+  private int getSlot(long bucketNumber) {
+    return (int) (bucketNumber % slots.length);
+  }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2016-17, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.implcore.stats;
+
+import io.opencensus.stats.MeasureBatch;
+import io.opencensus.tags.TagContext;
+import java.util.ArrayList;
+import java.util.List;
+
+/** Implementation of {@link MeasureBatch}. */
+final class MeasureBatchImpl extends MeasureBatch {
+  private final StatsManager statsManager;
+  // The tags and the measurements of the MeasureMaps added to this batch, in the same order.
+  private List<TagContext> tags = new ArrayList<TagContext>();
+  private List<MeasureMapInternal> measurements = new ArrayList<MeasureMapInternal>();
+
+  static MeasureBatchImpl create(StatsManager statsManager) {
+    return new MeasureBatchImpl(statsManager);
+  }
+
+  private MeasureBatchImpl(StatsManager statsManager) {
+    this.statsManager = statsManager;
+  }
+
+  @Override
+  public MeasureMapImpl newMeasureMap() {
+    return MeasureMapImpl.createForBatch(statsManager, this);
+  }
+
+  // Called by the MeasureMaps of this batch when they are recorded.
+  void add(TagContext tags, MeasureMapInternal measurements) {
+    this.tags.add(tags);
+    this.measurements.add(measurements);
+  }
+
+  @Override
+  public void record() {
+    if (tags.isEmpty()) {
+      return;
+    }
+    // The lists are handed over to the StatsManager, which may record them asynchronously.
+    statsManager.record(tags, measurements);
+    tags = new ArrayList<TagContext>();
+    measurements = new ArrayList<MeasureMapInternal>();
+  }
+}
@@ -30,15 +30,23 @@ final class MeasureMapImpl extends MeasureMap {
   private static final Logger logger = Logger.getLogger(MeasureMapImpl.class.getName());
 
   private final StatsManager statsManager;
+  // The batch that this MeasureMap adds its measurements to when recorded, if any.
+  @javax.annotation.Nullable private final MeasureBatchImpl batch;
   private final MeasureMapInternal.Builder builder = MeasureMapInternal.builder();
   private volatile boolean hasUnsupportedValues;
 
   static MeasureMapImpl create(StatsManager statsManager) {
-    return new MeasureMapImpl(statsManager);
+    return new MeasureMapImpl(statsManager, null);
   }
 
-  private MeasureMapImpl(StatsManager statsManager) {
+  static MeasureMapImpl createForBatch(StatsManager statsManager, MeasureBatchImpl batch) {
+    return new MeasureMapImpl(statsManager, batch);
+  }
+
+  private MeasureMapImpl(
+      StatsManager statsManager, @javax.annotation.Nullable MeasureBatchImpl batch) {
     this.statsManager = statsManager;
+    this.batch = batch;
   }
 
   @Override
@@ -78,6 +86,10 @@ final class MeasureMapImpl extends MeasureMap {
       logger.log(Level.WARNING, "Dropping values, value to record must be non-negative.");
       return;
     }
-    statsManager.record(tags, builder.build());
+    if (batch != null) {
+      batch.add(tags, builder.build());
+    } else {
+      statsManager.record(tags, builder.build());
+    }
   }
 }
@@ -16,20 +16,24 @@
 
 package io.opencensus.implcore.stats;
 
-import com.google.common.collect.HashMultimap;
-import com.google.common.collect.Maps;
-import com.google.common.collect.Multimap;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Sets;
 import io.opencensus.common.Clock;
 import io.opencensus.common.Timestamp;
 import io.opencensus.implcore.internal.CurrentState.State;
+import io.opencensus.implcore.tags.TagValueWithMetadata;
+import io.opencensus.metrics.LabelKey;
 import io.opencensus.metrics.data.AttachmentValue;
 import io.opencensus.metrics.export.Metric;
+import io.opencensus.metrics.export.MetricDescriptor;
+import io.opencensus.metrics.export.TimeSeries;
 import io.opencensus.stats.Measure;
 import io.opencensus.stats.Measurement;
 import io.opencensus.stats.View;
 import io.opencensus.stats.ViewData;
 import io.opencensus.tags.TagContext;
+import io.opencensus.tags.TagKey;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -37,8 +41,9 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import javax.annotation.concurrent.GuardedBy;
 
 /*>>>
@@ -49,20 +54,36 @@ import org.checkerframework.checker.nullness.qual.Nullable;
 @SuppressWarnings("deprecation")
 final class MeasureToViewMap {
 
+  @VisibleForTesting
+  static final MetricDescriptor DROPPED_MEASUREMENTS =
+      MetricDescriptor.create(
+          "opencensus.io/stats/view/dropped_measurements",
+          "The number of measurements whose tag values were dropped, because they were recorded "
+              + "with a new combination of tag values after the view reached its maximum number of "
+              + "time series. They are aggregated into the overflow time series of the view.",
+          "1",
+          MetricDescriptor.Type.CUMULATIVE_INT64,
+          Collections.singletonList(LabelKey.create("view", "The name of the view.")));
+
   /*
-   * A synchronized singleton map that stores the one-to-many mapping from Measures
-   * to MutableViewDatas.
+   * A singleton map that stores the one-to-many mapping from Measures to MutableViewDatas.
+   *
+   * Each value is an immutable list that is only replaced while holding the monitor of this class
+   * (copy-on-write), so the recording path can read it without any locking. Recordings for
+   * different measures, and for different time series of the same measure, therefore do not
+   * contend with each other.
    */
-  @GuardedBy("this")
-  private final Multimap<String, MutableViewData> mutableMap =
-      HashMultimap.<String, MutableViewData>create();
+  private final ConcurrentMap<String, List<MutableViewData>> mutableMap =
+      new ConcurrentHashMap<String, List<MutableViewData>>();
 
   @GuardedBy("this")
   private final Map<View.Name, View> registeredViews = new HashMap<View.Name, View>();
 
   // TODO(songya): consider adding a Measure.Name class
-  @GuardedBy("this")
-  private final Map<String, Measure> registeredMeasures = Maps.newHashMap();
+  // Only modified while holding the monitor of this class, but read without locking while
+  // recording.
+  private final ConcurrentMap<String, Measure> registeredMeasures =
+      new ConcurrentHashMap<String, Measure>();
 
   // Cached set of exported views. It must be set to null whenever a view is registered or
   // unregistered.
@@ -120,7 +141,13 @@ final class MeasureToViewMap {
       registeredMeasures.put(measure.getName(), measure);
     }
     Timestamp now = clock.now();
-    mutableMap.put(view.getMeasure().getName(), MutableViewData.create(view, now));
+    String measureName = view.getMeasure().getName();
+    List<MutableViewData> views = mutableMap.get(measureName);
+    ImmutableList.Builder<MutableViewData> builder = ImmutableList.builder();
+    if (views != null) {
+      builder.addAll(views);
+    }
+    mutableMap.put(measureName, builder.add(MutableViewData.create(view, now)).build());
   }
 
   @javax.annotation.Nullable
@@ -129,10 +156,12 @@ final class MeasureToViewMap {
     if (view == null) {
       return null;
     }
-    Collection<MutableViewData> views = mutableMap.get(view.getMeasure().getName());
-    for (MutableViewData viewData : views) {
-      if (viewData.getView().getName().equals(viewName)) {
-        return viewData;
+    List<MutableViewData> views = mutableMap.get(view.getMeasure().getName());
+    if (views != null) {
+      for (MutableViewData viewData : views) {
+        if (viewData.getView().getName().equals(viewName)) {
+          return viewData;
+        }
       }
     }
     throw new AssertionError(
@@ -144,10 +173,35 @@ final class MeasureToViewMap {
             + mutableMap);
   }
 
-  // Records stats with a set of tags.
-  synchronized void record(TagContext tags, MeasureMapInternal stats, Timestamp timestamp) {
+  // Records stats with a set of tags. This method doesn't hold the monitor of this class, so it can
+  // be called concurrently from multiple threads.
+  void record(TagContext tags, MeasureMapInternal stats, Timestamp timestamp) {
+    record(RecordUtils.getTagMap(tags), stats, timestamp);
+  }
+
+  // Records the stats of a batch, each with the tags at the same index, and with the same
+  // timestamp. The tags are only resolved once for consecutive entries with the same TagContext.
+  void record(List<TagContext> tags, List<MeasureMapInternal> stats, Timestamp timestamp) {
+    @javax.annotation.Nullable TagContext previousTags = null;
+    @javax.annotation.Nullable Map<TagKey, TagValueWithMetadata> tagMap = null;
+    for (int i = 0; i < tags.size(); i++) {
+      TagContext entryTags = tags.get(i);
+      if (tagMap == null || entryTags != previousTags) {
+        tagMap = RecordUtils.getTagMap(entryTags);
+        previousTags = entryTags;
+      }
+      record(tagMap, stats.get(i), timestamp);
+    }
+  }
+
+  private void record(
+      Map<TagKey, TagValueWithMetadata> tags, MeasureMapInternal stats, Timestamp timestamp) {
     Iterator<Measurement> iterator = stats.iterator();
     Map<String, AttachmentValue> attachments = stats.getAttachments();
+    // The projection that the tag values were last looked up for. Views with equal projections
+    // share the tag values, which the views don't modify.
+    @javax.annotation.Nullable ColumnProjection projected = null;
+    @javax.annotation.Nullable TagValuesProbe tagValues = null;
     while (iterator.hasNext()) {
       Measurement measurement = iterator.next();
       Measure measure = measurement.getMeasure();
@@ -155,30 +209,61 @@ final class MeasureToViewMap {
         // unregistered measures will be ignored.
         continue;
       }
-      Collection<MutableViewData> viewDataCollection = mutableMap.get(measure.getName());
-      for (MutableViewData viewData : viewDataCollection) {
-        viewData.record(
-            tags, RecordUtils.getDoubleValueFromMeasurement(measurement), timestamp, attachments);
+      List<MutableViewData> views = mutableMap.get(measure.getName());
+      if (views == null) {
+        continue;
+      }
+      double value = RecordUtils.getDoubleValueFromMeasurement(measurement);
+      for (int i = 0; i < views.size(); i++) {
+        MutableViewData view = views.get(i);
+        ColumnProjection projection = view.getProjection();
+        if (tagValues == null || !projection.equals(projected)) {
+          tagValues = TagValuesProbe.fill(tags, projection);
+          projected = projection;
+        }
+        view.record(tagValues, value, timestamp, attachments);
       }
     }
   }
 
   synchronized List<Metric> getMetrics(Clock clock, State state) {
+    return getMetrics(clock, state, /* delta= */ false);
+  }
+
+  // Returns the time series that were updated since the previous call, with the values recorded
+  // since then, and resets them (see ExportTemporality.DELTA).
+  synchronized List<Metric> getDeltaMetrics(Clock clock, State state) {
+    return getMetrics(clock, state, /* delta= */ true);
+  }
+
+  @GuardedBy("this")
+  private List<Metric> getMetrics(Clock clock, State state, boolean delta) {
     List<Metric> metrics = new ArrayList<Metric>();
+    List<TimeSeries> droppedMeasurements = new ArrayList<TimeSeries>();
     Timestamp now = clock.now();
-    for (Entry<String, MutableViewData> entry : mutableMap.entries()) {
-      Metric metric = entry.getValue().toMetric(now, state);
-      if (metric != null) {
-        metrics.add(metric);
+    for (List<MutableViewData> views : mutableMap.values()) {
+      for (MutableViewData view : views) {
+        Metric metric = delta ? view.toDeltaMetric(now, state) : view.toMetric(now, state);
+        if (metric != null) {
+          metrics.add(metric);
+        }
+        TimeSeries timeSeries = view.getDroppedMeasurements(now);
+        if (timeSeries != null) {
+          droppedMeasurements.add(timeSeries);
+        }
       }
     }
+    // Only export the number of dropped measurements for the views that have any.
+    if (state == State.ENABLED && !droppedMeasurements.isEmpty()) {
+      metrics.add(Metric.create(DROPPED_MEASUREMENTS, droppedMeasurements));
+    }
     return metrics;
   }
 
   // Clear stats for all the current MutableViewData
   synchronized void clearStats() {
-    for (Entry<String, Collection<MutableViewData>> entry : mutableMap.asMap().entrySet()) {
-      for (MutableViewData mutableViewData : entry.getValue()) {
+    for (List<MutableViewData> views : mutableMap.values()) {
+      for (MutableViewData mutableViewData : views) {
         mutableViewData.clearStats();
       }
     }
@@ -186,8 +271,8 @@ final class MeasureToViewMap {
 
   // Resume stats collection for all MutableViewData.
   synchronized void resumeStatsCollection(Timestamp now) {
-    for (Entry<String, Collection<MutableViewData>> entry : mutableMap.asMap().entrySet()) {
-      for (MutableViewData mutableViewData : entry.getValue()) {
+    for (List<MutableViewData> views : mutableMap.values()) {
+      for (MutableViewData mutableViewData : views) {
         mutableViewData.resumeStatsCollection(now);
       }
     }
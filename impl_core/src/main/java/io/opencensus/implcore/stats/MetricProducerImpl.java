@@ -21,7 +21,12 @@ import io.opencensus.metrics.export.MetricProducer;
 import java.util.Collection;
 import javax.annotation.concurrent.ThreadSafe;
 
-/** Implementation of {@link MetricProducer}. */
+/**
+ * Implementation of {@link MetricProducer}.
+ *
+ * <p>With {@link StatsComponentImplBase.ExportTemporality#DELTA}, {@link #getMetrics()} resets the
+ * views, so it must only be called by a single reader.
+ */
 @ThreadSafe
 final class MetricProducerImpl extends MetricProducer {
 
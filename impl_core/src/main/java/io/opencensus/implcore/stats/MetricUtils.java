@@ -48,6 +48,15 @@ final class MetricUtils {
       // Only creates Metric for cumulative stats.
       return null;
     }
+    return createMetricDescriptor(view, getType(view.getMeasure(), view.getAggregation()));
+  }
+
+  // The values of interval views go down when stats expire, so they are converted to gauges.
+  static MetricDescriptor intervalViewToMetricDescriptor(View view) {
+    return createMetricDescriptor(view, getIntervalType(view.getMeasure(), view.getAggregation()));
+  }
+
+  private static MetricDescriptor createMetricDescriptor(View view, Type type) {
     List<LabelKey> labelKeys = new ArrayList<LabelKey>();
     for (TagKey tagKey : view.getColumns()) {
       // TODO: add description
@@ -55,11 +64,7 @@ final class MetricUtils {
     }
     Measure measure = view.getMeasure();
     return MetricDescriptor.create(
-        view.getName().asString(),
-        view.getDescription(),
-        measure.getUnit(),
-        getType(measure, view.getAggregation()),
-        labelKeys);
+        view.getName().asString(), view.getDescription(), measure.getUnit(), type, labelKeys);
   }
 
   @VisibleForTesting
@@ -80,6 +85,21 @@ final class MetricUtils {
         AGGREGATION_TYPE_DEFAULT_FUNCTION);
   }
 
+  @VisibleForTesting
+  static Type getIntervalType(Measure measure, Aggregation aggregation) {
+    Type type = getType(measure, aggregation);
+    switch (type) {
+      case CUMULATIVE_DOUBLE:
+        return Type.GAUGE_DOUBLE;
+      case CUMULATIVE_INT64:
+        return Type.GAUGE_INT64;
+      case CUMULATIVE_DISTRIBUTION:
+        return Type.GAUGE_DISTRIBUTION;
+      default:
+        return type;
+    }
+  }
+
   static List<LabelValue> tagValuesToLabelValues(List</*@Nullable*/ TagValue> tagValues) {
     List<LabelValue> labelValues = new ArrayList<LabelValue>();
     for (/*@Nullable*/ TagValue tagValue : tagValues) {
@@ -121,6 +141,9 @@ final class MetricUtils {
           if (arg instanceof Aggregation.Mean) {
             return Type.CUMULATIVE_DOUBLE; // Mean
           }
+          if (arg instanceof Aggregation.Percentiles) {
+            return Type.SUMMARY; // Percentiles
+          }
           throw new AssertionError();
         }
       };
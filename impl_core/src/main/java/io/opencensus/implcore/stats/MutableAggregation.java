@@ -20,22 +20,37 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import com.google.common.annotations.VisibleForTesting;
+import io.opencensus.common.Function;
 import io.opencensus.common.Timestamp;
 import io.opencensus.metrics.data.AttachmentValue;
 import io.opencensus.metrics.data.Exemplar;
 import io.opencensus.metrics.export.Distribution;
 import io.opencensus.metrics.export.Distribution.BucketOptions;
 import io.opencensus.metrics.export.Point;
+import io.opencensus.metrics.export.Summary;
+import io.opencensus.metrics.export.Summary.Snapshot;
+import io.opencensus.metrics.export.Summary.Snapshot.ValueAtPercentile;
 import io.opencensus.metrics.export.Value;
 import io.opencensus.stats.Aggregation;
 import io.opencensus.stats.AggregationData;
 import io.opencensus.stats.AggregationData.DistributionData;
+import io.opencensus.stats.AggregationData.PercentilesData;
 import io.opencensus.stats.BucketBoundaries;
+import io.opencensus.stats.BucketBoundaries.Layout;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.concurrent.GuardedBy;
 
-/** Mutable version of {@link Aggregation} that supports adding values. */
+/**
+ * Mutable version of {@link Aggregation} that supports adding values.
+ *
+ * <p>All implementations are thread-safe: single-valued aggregations are updated lock-free with
+ * atomic operations, while aggregations that have to keep several fields consistent synchronize on
+ * the aggregation itself, so that only recordings into the same time series contend.
+ */
 abstract class MutableAggregation {
 
   private MutableAggregation() {}
@@ -43,6 +58,10 @@ abstract class MutableAggregation {
   // Tolerance for double comparison.
   private static final double TOLERANCE = 1e-6;
 
+  // Set after a value has been added, and cleared when the aggregation is exported as a delta. Only
+  // written when it changes, so that recordings into a busy time series don't keep writing it.
+  private volatile boolean dirty = false;
+
   /**
    * Put a new value into the MutableAggregation.
    *
@@ -69,10 +88,74 @@ abstract class MutableAggregation {
 
   abstract Point toPoint(Timestamp timestamp);
 
+  /**
+   * Returns the aggregated value as a {@link Point}, and resets this {@code MutableAggregation} to
+   * its initial state in the same atomic step, so that values added concurrently are either
+   * included in the returned {@code Point} or kept for the next one. Last values are not reset.
+   *
+   * @param timestamp the timestamp of the returned {@code Point}.
+   * @return the {@code Point} with the values added since the last reset.
+   */
+  abstract Point toPointAndReset(Timestamp timestamp);
+
+  /** Marks this aggregation as updated since the last delta export. Call it after {@link #add}. */
+  final void markDirty() {
+    if (!dirty) {
+      dirty = true;
+    }
+  }
+
+  /**
+   * Clears the dirty flag, and returns whether this aggregation was updated since the last delta
+   * export. Call it before {@link #toPointAndReset}, so that a value that is added concurrently
+   * marks the aggregation dirty again if it isn't included in the exported {@code Point}.
+   *
+   * <p>Must not be called concurrently with itself.
+   *
+   * @return whether this aggregation was updated since the last call.
+   */
+  final boolean clearDirty() {
+    if (!dirty) {
+      return false;
+    }
+    dirty = false;
+    return true;
+  }
+
+  // Atomically adds the given delta to a double that is stored as raw long bits.
+  private static void addDouble(AtomicLong bits, double delta) {
+    while (true) {
+      long current = bits.get();
+      long next = Double.doubleToRawLongBits(Double.longBitsToDouble(current) + delta);
+      if (bits.compareAndSet(current, next)) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * A {@link MutableAggregation} whose values can be removed again after they were combined into
+   * it. All aggregations are, except last values, since combining them only keeps the newest one.
+   */
+  abstract static class SubtractableAggregation extends MutableAggregation {
+
+    private SubtractableAggregation() {}
+
+    /**
+     * Removes the values of the given MutableAggregation from this MutableAggregation. This is the
+     * inverse of {@code combine(other, 1.0)}.
+     *
+     * @param other the other {@code MutableAggregation}, which must have been combined into this
+     *     {@code MutableAggregation} with a fraction of 1.0, and must not have changed since then.
+     */
+    abstract void subtract(MutableAggregation other);
+  }
+
   /** Calculate sum of doubles on aggregated {@code MeasureValue}s. */
-  static class MutableSumDouble extends MutableAggregation {
+  static class MutableSumDouble extends SubtractableAggregation {
 
-    private double sum = 0.0;
+    // The sum is stored as the raw long bits of a double so that it can be updated lock-free.
+    private final AtomicLong sumBits = new AtomicLong(Double.doubleToRawLongBits(0.0));
 
     private MutableSumDouble() {}
 
@@ -87,28 +170,43 @@ abstract class MutableAggregation {
 
     @Override
     void add(double value, Map<String, AttachmentValue> attachments, Timestamp timestamp) {
-      sum += value;
+      addDouble(sumBits, value);
     }
 
     @Override
     void combine(MutableAggregation other, double fraction) {
       checkArgument(other instanceof MutableSumDouble, "MutableSumDouble expected.");
-      this.sum += fraction * ((MutableSumDouble) other).sum;
+      addDouble(sumBits, fraction * ((MutableSumDouble) other).getSum());
+    }
+
+    @Override
+    void subtract(MutableAggregation other) {
+      checkArgument(other instanceof MutableSumDouble, "MutableSumDouble expected.");
+      addDouble(sumBits, -((MutableSumDouble) other).getSum());
     }
 
     @Override
     AggregationData toAggregationData() {
-      return AggregationData.SumDataDouble.create(sum);
+      return AggregationData.SumDataDouble.create(getSum());
     }
 
     @Override
     Point toPoint(Timestamp timestamp) {
-      return Point.create(Value.doubleValue(sum), timestamp);
+      return Point.create(Value.doubleValue(getSum()), timestamp);
+    }
+
+    @Override
+    Point toPointAndReset(Timestamp timestamp) {
+      return Point.create(Value.doubleValue(getSumAndReset()), timestamp);
     }
 
     @VisibleForTesting
     double getSum() {
-      return sum;
+      return Double.longBitsToDouble(sumBits.get());
+    }
+
+    double getSumAndReset() {
+      return Double.longBitsToDouble(sumBits.getAndSet(Double.doubleToRawLongBits(0.0)));
     }
   }
 
@@ -136,12 +234,17 @@ abstract class MutableAggregation {
     Point toPoint(Timestamp timestamp) {
       return Point.create(Value.longValue(Math.round(getSum())), timestamp);
     }
+
+    @Override
+    Point toPointAndReset(Timestamp timestamp) {
+      return Point.create(Value.longValue(Math.round(getSumAndReset())), timestamp);
+    }
   }
 
   /** Calculate count on aggregated {@code MeasureValue}s. */
-  static final class MutableCount extends MutableAggregation {
+  static final class MutableCount extends SubtractableAggregation {
 
-    private long count = 0;
+    private final AtomicLong count = new AtomicLong();
 
     private MutableCount() {}
 
@@ -156,23 +259,34 @@ abstract class MutableAggregation {
 
     @Override
     void add(double value, Map<String, AttachmentValue> attachments, Timestamp timestamp) {
-      count++;
+      count.incrementAndGet();
     }
 
     @Override
     void combine(MutableAggregation other, double fraction) {
       checkArgument(other instanceof MutableCount, "MutableCount expected.");
-      this.count += Math.round(fraction * ((MutableCount) other).getCount());
+      count.addAndGet(Math.round(fraction * ((MutableCount) other).getCount()));
+    }
+
+    @Override
+    void subtract(MutableAggregation other) {
+      checkArgument(other instanceof MutableCount, "MutableCount expected.");
+      count.addAndGet(-((MutableCount) other).getCount());
     }
 
     @Override
     AggregationData toAggregationData() {
-      return AggregationData.CountData.create(count);
+      return AggregationData.CountData.create(getCount());
     }
 
     @Override
     Point toPoint(Timestamp timestamp) {
-      return Point.create(Value.longValue(count), timestamp);
+      return Point.create(Value.longValue(getCount()), timestamp);
+    }
+
+    @Override
+    Point toPointAndReset(Timestamp timestamp) {
+      return Point.create(Value.longValue(count.getAndSet(0)), timestamp);
     }
 
     /**
@@ -181,14 +295,17 @@ abstract class MutableAggregation {
      * @return the aggregated count.
      */
     long getCount() {
-      return count;
+      return count.get();
     }
   }
 
   /** Calculate mean on aggregated {@code MeasureValue}s. */
-  static final class MutableMean extends MutableAggregation {
+  static final class MutableMean extends SubtractableAggregation {
 
+    @GuardedBy("this")
     private double sum = 0.0;
+
+    @GuardedBy("this")
     private long count = 0;
 
     private MutableMean() {}
@@ -203,36 +320,57 @@ abstract class MutableAggregation {
     }
 
     @Override
-    void add(double value, Map<String, AttachmentValue> attachments, Timestamp timestamp) {
+    synchronized void add(
+        double value, Map<String, AttachmentValue> attachments, Timestamp timestamp) {
       count++;
       sum += value;
     }
 
     @Override
-    void combine(MutableAggregation other, double fraction) {
+    synchronized void combine(MutableAggregation other, double fraction) {
       checkArgument(other instanceof MutableMean, "MutableMean expected.");
       MutableMean mutableMean = (MutableMean) other;
-      this.count += Math.round(mutableMean.count * fraction);
-      this.sum += mutableMean.sum * fraction;
+      synchronized (mutableMean) {
+        this.count += Math.round(mutableMean.count * fraction);
+        this.sum += mutableMean.sum * fraction;
+      }
+    }
+
+    @Override
+    synchronized void subtract(MutableAggregation other) {
+      checkArgument(other instanceof MutableMean, "MutableMean expected.");
+      MutableMean mutableMean = (MutableMean) other;
+      synchronized (mutableMean) {
+        this.count -= mutableMean.count;
+        this.sum -= mutableMean.sum;
+      }
     }
 
     @SuppressWarnings("deprecation")
     @Override
-    AggregationData toAggregationData() {
+    synchronized AggregationData toAggregationData() {
       return AggregationData.MeanData.create(getMean(), count);
     }
 
     @Override
-    Point toPoint(Timestamp timestamp) {
+    synchronized Point toPoint(Timestamp timestamp) {
       return Point.create(Value.doubleValue(getMean()), timestamp);
     }
 
+    @Override
+    synchronized Point toPointAndReset(Timestamp timestamp) {
+      Point point = toPoint(timestamp);
+      count = 0;
+      sum = 0.0;
+      return point;
+    }
+
     /**
      * Returns the aggregated mean.
      *
      * @return the aggregated mean.
      */
-    double getMean() {
+    synchronized double getMean() {
       return count == 0 ? 0 : sum / count;
     }
 
@@ -241,40 +379,58 @@ abstract class MutableAggregation {
      *
      * @return the aggregated count.
      */
-    long getCount() {
+    synchronized long getCount() {
       return count;
     }
 
     @VisibleForTesting
-    double getSum() {
+    synchronized double getSum() {
       return sum;
     }
   }
 
   /** Calculate distribution stats on aggregated {@code MeasureValue}s. */
-  static final class MutableDistribution extends MutableAggregation {
+  static final class MutableDistribution extends SubtractableAggregation {
 
+    @GuardedBy("this")
     private double sum = 0.0;
+
+    @GuardedBy("this")
     private double mean = 0.0;
+
+    @GuardedBy("this")
     private long count = 0;
+
+    @GuardedBy("this")
     private double sumOfSquaredDeviations = 0.0;
 
     private final BucketBoundaries bucketBoundaries;
+
+    private final BucketIndexer bucketIndexer;
+
+    // Immutable, so it is created once and shared by all the exported Points.
+    private final BucketOptions bucketOptions;
+
+    @GuardedBy("this")
     private final long[] bucketCounts;
 
     // If there's a histogram (i.e bucket boundaries are not empty) in this MutableDistribution,
     // exemplars will have the same size to bucketCounts; otherwise exemplars are null.
     // Only the newest exemplar will be kept at each index.
-    @javax.annotation.Nullable private final Exemplar[] exemplars;
+    @GuardedBy("this")
+    @javax.annotation.Nullable
+    private final Exemplar[] exemplars;
 
     private MutableDistribution(BucketBoundaries bucketBoundaries) {
       this.bucketBoundaries = bucketBoundaries;
-      int buckets = bucketBoundaries.getBoundaries().size() + 1;
+      this.bucketIndexer = BucketIndexer.create(bucketBoundaries);
+      this.bucketOptions = toBucketOptions(bucketBoundaries);
+      int buckets = bucketIndexer.boundaries.length + 1;
       this.bucketCounts = new long[buckets];
       // In the implementation, each histogram bucket can have up to one exemplar, and the exemplar
       // array is guaranteed to be in ascending order.
       // If there's no histogram, don't record exemplars.
-      this.exemplars = bucketBoundaries.getBoundaries().isEmpty() ? null : new Exemplar[buckets];
+      this.exemplars = buckets == 1 ? null : new Exemplar[buckets];
     }
 
     /**
@@ -288,7 +444,8 @@ abstract class MutableAggregation {
     }
 
     @Override
-    void add(double value, Map<String, AttachmentValue> attachments, Timestamp timestamp) {
+    synchronized void add(
+        double value, Map<String, AttachmentValue> attachments, Timestamp timestamp) {
       sum += value;
       count++;
 
@@ -305,12 +462,7 @@ abstract class MutableAggregation {
       double deltaFromMean2 = value - mean;
       sumOfSquaredDeviations += deltaFromMean * deltaFromMean2;
 
-      int bucket = 0;
-      for (; bucket < bucketBoundaries.getBoundaries().size(); bucket++) {
-        if (value < bucketBoundaries.getBoundaries().get(bucket)) {
-          break;
-        }
-      }
+      int bucket = bucketIndexer.getBucketIndex(value);
       bucketCounts[bucket]++;
 
       // No implicit recording for exemplars - if there are no attachments (contextual information),
@@ -320,19 +472,113 @@ abstract class MutableAggregation {
       }
     }
 
-    // We don't compute fractional MutableDistribution, it's either whole or none.
+    // A fraction of a MutableDistribution is combined by scaling its bucket counts.
     @Override
-    void combine(MutableAggregation other, double fraction) {
+    synchronized void combine(MutableAggregation other, double fraction) {
       checkArgument(other instanceof MutableDistribution, "MutableDistribution expected.");
-      if (Math.abs(1.0 - fraction) > TOLERANCE) {
-        return;
+      MutableDistribution mutableDistribution = (MutableDistribution) other;
+      checkArgument(
+          this.bucketBoundaries.equals(mutableDistribution.bucketBoundaries),
+          "Bucket boundaries should match.");
+      synchronized (mutableDistribution) {
+        if (Math.abs(1.0 - fraction) > TOLERANCE) {
+          combineLocked(mutableDistribution.scaleLocked(fraction));
+        } else {
+          combineLocked(mutableDistribution);
+        }
       }
+    }
+
+    // Returns a new MutableDistribution with the given fraction of the values of this one, assuming
+    // that the values in each bucket are spread evenly in time. The caller must hold the lock of
+    // this MutableDistribution.
+    @SuppressWarnings("GuardedBy")
+    private MutableDistribution scaleLocked(double fraction) {
+      MutableDistribution scaled = new MutableDistribution(bucketBoundaries);
+      // Round the cumulative bucket counts, so that the scaled bucket counts add up to the scaled
+      // count.
+      long cumulativeCount = 0;
+      long previousScaledCumulativeCount = 0;
+      for (int i = 0; i < bucketCounts.length; i++) {
+        cumulativeCount += bucketCounts[i];
+        long scaledCumulativeCount = Math.round(cumulativeCount * fraction);
+        scaled.bucketCounts[i] = scaledCumulativeCount - previousScaledCumulativeCount;
+        previousScaledCumulativeCount = scaledCumulativeCount;
+        if (exemplars != null && scaled.exemplars != null && scaled.bucketCounts[i] > 0) {
+          scaled.exemplars[i] = exemplars[i];
+        }
+      }
+      scaled.count = previousScaledCumulativeCount;
+      if (scaled.count > 0) {
+        scaled.mean = mean;
+        scaled.sum = mean * scaled.count;
+        scaled.sumOfSquaredDeviations = sumOfSquaredDeviations * scaled.count / count;
+      }
+      return scaled;
+    }
 
+    @Override
+    synchronized void subtract(MutableAggregation other) {
+      checkArgument(other instanceof MutableDistribution, "MutableDistribution expected.");
       MutableDistribution mutableDistribution = (MutableDistribution) other;
       checkArgument(
           this.bucketBoundaries.equals(mutableDistribution.bucketBoundaries),
           "Bucket boundaries should match.");
+      synchronized (mutableDistribution) {
+        subtractLocked(mutableDistribution);
+      }
+    }
+
+    // Removes the other MutableDistribution from this one, by inverting the algorithm of
+    // combineLocked. The caller must hold the locks of both MutableDistributions.
+    @SuppressWarnings("GuardedBy")
+    private void subtractLocked(MutableDistribution mutableDistribution) {
+      long newCount = this.count - mutableDistribution.count;
+      if (newCount <= 0) {
+        // Start over from exact zeros, rather than keeping the rounding errors.
+        this.count = 0;
+        this.sum = 0.0;
+        this.mean = 0.0;
+        this.sumOfSquaredDeviations = 0.0;
+        Arrays.fill(this.bucketCounts, 0);
+        if (this.exemplars != null) {
+          Arrays.fill(this.exemplars, null);
+        }
+        return;
+      }
+      double newSum = this.sum - mutableDistribution.sum;
+      double newMean = newSum / newCount;
+      double delta = mutableDistribution.mean - newMean;
+      this.sumOfSquaredDeviations =
+          Math.max(
+              0.0,
+              this.sumOfSquaredDeviations
+                  - mutableDistribution.sumOfSquaredDeviations
+                  - Math.pow(delta, 2) * newCount * mutableDistribution.count / this.count);
+      this.count = newCount;
+      this.sum = newSum;
+      this.mean = newMean;
+
+      for (int i = 0; i < bucketCounts.length; i++) {
+        this.bucketCounts[i] -= mutableDistribution.bucketCounts[i];
+      }
 
+      // The exemplar of a bucket is the newest one, so it can only have come from the other
+      // MutableDistribution if none of the remaining values is newer.
+      Exemplar[] otherExemplars = mutableDistribution.exemplars;
+      if (exemplars != null && otherExemplars != null) {
+        for (int i = 0; i < otherExemplars.length; i++) {
+          if (this.exemplars[i] == otherExemplars[i]) {
+            this.exemplars[i] = null;
+          }
+        }
+      }
+    }
+
+    // Combines the other MutableDistribution into this one. The caller must hold the locks of both
+    // MutableDistributions.
+    @SuppressWarnings("GuardedBy")
+    private void combineLocked(MutableDistribution mutableDistribution) {
       // Algorithm for calculating the combination of sum of squared deviations:
       // https://en.wikipedia.org/wiki/Algorithms_for_calculating_variance#Parallel_algorithm.
       if (this.count + mutableDistribution.count > 0) {
@@ -348,7 +594,7 @@ abstract class MutableAggregation {
 
       this.count += mutableDistribution.count;
       this.sum += mutableDistribution.sum;
-      this.mean = this.sum / this.count;
+      this.mean = this.count == 0 ? 0.0 : this.sum / this.count;
 
       long[] bucketCounts = mutableDistribution.getBucketCounts();
       for (int i = 0; i < bucketCounts.length; i++) {
@@ -370,7 +616,7 @@ abstract class MutableAggregation {
     }
 
     @Override
-    AggregationData toAggregationData() {
+    synchronized AggregationData toAggregationData() {
       List<Long> boxedBucketCounts = new ArrayList<Long>();
       for (long bucketCount : bucketCounts) {
         boxedBucketCounts.add(bucketCount);
@@ -387,51 +633,75 @@ abstract class MutableAggregation {
           mean, count, sumOfSquaredDeviations, boxedBucketCounts, exemplarList);
     }
 
-    @SuppressWarnings("deprecation")
+    // The bucket counts and exemplars are copied into the Distribution as arrays, without creating
+    // a Bucket for every bucket.
     @Override
-    Point toPoint(Timestamp timestamp) {
-      List<Distribution.Bucket> buckets = new ArrayList<Distribution.Bucket>();
-      for (int bucket = 0; bucket < bucketCounts.length; bucket++) {
-        long bucketCount = bucketCounts[bucket];
-        @javax.annotation.Nullable Exemplar exemplar = null;
-        if (exemplars != null) {
-          exemplar = exemplars[bucket];
-        }
-
-        Distribution.Bucket metricBucket;
-        if (exemplar != null) {
-          // Bucket with an Exemplar.
-          metricBucket = Distribution.Bucket.create(bucketCount, exemplar);
-        } else {
-          // Bucket with no Exemplar.
-          metricBucket = Distribution.Bucket.create(bucketCount);
-        }
-        buckets.add(metricBucket);
-      }
-
-      BucketOptions bucketOptions = BucketOptions.explicitOptions(bucketBoundaries.getBoundaries());
-
+    synchronized Point toPoint(Timestamp timestamp) {
       return Point.create(
           Value.distributionValue(
-              Distribution.create(
-                  count, mean * count, sumOfSquaredDeviations, bucketOptions, buckets)),
+              Distribution.createFromBucketCounts(
+                  count,
+                  mean * count,
+                  sumOfSquaredDeviations,
+                  bucketOptions,
+                  bucketCounts,
+                  exemplars)),
           timestamp);
     }
 
-    double getMean() {
+    @Override
+    synchronized Point toPointAndReset(Timestamp timestamp) {
+      Point point = toPoint(timestamp);
+      sum = 0.0;
+      mean = 0.0;
+      count = 0;
+      sumOfSquaredDeviations = 0.0;
+      Arrays.fill(bucketCounts, 0);
+      if (exemplars != null) {
+        Arrays.fill(exemplars, null);
+      }
+      return point;
+    }
+
+    // Exponential boundaries are exported as such, so that backends which support them natively get
+    // the compact representation. All other layouts are exported as explicit boundaries.
+    private static BucketOptions toBucketOptions(final BucketBoundaries bucketBoundaries) {
+      Function<Object, BucketOptions> explicitFunction =
+          new Function<Object, BucketOptions>() {
+            @Override
+            public BucketOptions apply(Object arg) {
+              return BucketOptions.explicitOptions(bucketBoundaries.getBoundaries());
+            }
+          };
+      return bucketBoundaries
+          .getLayout()
+          .match(
+              explicitFunction,
+              new Function<Layout.Exponential, BucketOptions>() {
+                @Override
+                public BucketOptions apply(Layout.Exponential arg) {
+                  return BucketOptions.exponentialOptions(
+                      arg.getNumFiniteBuckets(), arg.getGrowthFactor(), arg.getScale());
+                }
+              },
+              explicitFunction,
+              explicitFunction);
+    }
+
+    synchronized double getMean() {
       return mean;
     }
 
-    long getCount() {
+    synchronized long getCount() {
       return count;
     }
 
     // Returns the aggregated sum of squared deviations.
-    double getSumOfSquaredDeviations() {
+    synchronized double getSumOfSquaredDeviations() {
       return sumOfSquaredDeviations;
     }
 
-    long[] getBucketCounts() {
+    synchronized long[] getBucketCounts() {
       return bucketCounts;
     }
 
@@ -440,7 +710,7 @@ abstract class MutableAggregation {
     }
 
     @javax.annotation.Nullable
-    Exemplar[] getExemplars() {
+    synchronized Exemplar[] getExemplars() {
       return exemplars;
     }
   }
@@ -449,9 +719,9 @@ abstract class MutableAggregation {
   static class MutableLastValueDouble extends MutableAggregation {
 
     // Initial value that will get reset as soon as first value is added.
-    private double lastValue = Double.NaN;
+    private volatile double lastValue = Double.NaN;
     // TODO(songya): remove this once interval stats is completely removed.
-    private boolean initialized = false;
+    private volatile boolean initialized = false;
 
     private MutableLastValueDouble() {}
 
@@ -492,6 +762,12 @@ abstract class MutableAggregation {
       return Point.create(Value.doubleValue(lastValue), timestamp);
     }
 
+    // A last value is a gauge, so it is exported as is.
+    @Override
+    Point toPointAndReset(Timestamp timestamp) {
+      return toPoint(timestamp);
+    }
+
     @VisibleForTesting
     double getLastValue() {
       return lastValue;
@@ -523,4 +799,100 @@ abstract class MutableAggregation {
       return Point.create(Value.longValue(Math.round(getLastValue())), timestamp);
     }
   }
+
+  /** Calculate the percentiles of aggregated {@code MeasureValue}s. */
+  static final class MutablePercentiles extends SubtractableAggregation {
+
+    private final Aggregation.Percentiles percentiles;
+
+    @GuardedBy("this")
+    private final QuantileSketch sketch;
+
+    private MutablePercentiles(Aggregation.Percentiles percentiles) {
+      this.percentiles = percentiles;
+      this.sketch = new QuantileSketch(percentiles.getRelativeAccuracy());
+    }
+
+    /**
+     * Construct a {@code MutablePercentiles}.
+     *
+     * @return an empty {@code MutablePercentiles}.
+     */
+    static MutablePercentiles create(Aggregation.Percentiles percentiles) {
+      checkNotNull(percentiles, "percentiles should not be null.");
+      return new MutablePercentiles(percentiles);
+    }
+
+    @Override
+    synchronized void add(
+        double value, Map<String, AttachmentValue> attachments, Timestamp timestamp) {
+      sketch.add(value);
+    }
+
+    @Override
+    synchronized void combine(MutableAggregation other, double fraction) {
+      checkArgument(other instanceof MutablePercentiles, "MutablePercentiles expected.");
+      MutablePercentiles mutablePercentiles = (MutablePercentiles) other;
+      synchronized (mutablePercentiles) {
+        sketch.add(mutablePercentiles.sketch, fraction);
+      }
+    }
+
+    @Override
+    synchronized void subtract(MutableAggregation other) {
+      checkArgument(other instanceof MutablePercentiles, "MutablePercentiles expected.");
+      MutablePercentiles mutablePercentiles = (MutablePercentiles) other;
+      synchronized (mutablePercentiles) {
+        sketch.subtract(mutablePercentiles.sketch);
+      }
+    }
+
+    @Override
+    synchronized AggregationData toAggregationData() {
+      return PercentilesData.create(
+          sketch.getCount(), sketch.getSum(), getValueAtPercentilesLocked());
+    }
+
+    @Override
+    synchronized Point toPoint(Timestamp timestamp) {
+      long count = sketch.getCount();
+      double sum = sketch.getSum();
+      // All the values are in the snapshot.
+      return Point.create(
+          Value.summaryValue(
+              Summary.create(
+                  count, sum, Snapshot.create(count, sum, getValueAtPercentilesLocked()))),
+          timestamp);
+    }
+
+    @Override
+    synchronized Point toPointAndReset(Timestamp timestamp) {
+      Point point = toPoint(timestamp);
+      sketch.reset();
+      return point;
+    }
+
+    @GuardedBy("this")
+    private List<ValueAtPercentile> getValueAtPercentilesLocked() {
+      List<ValueAtPercentile> valueAtPercentiles =
+          new ArrayList<ValueAtPercentile>(percentiles.getPercentiles().size());
+      for (double percentile : percentiles.getPercentiles()) {
+        valueAtPercentiles.add(
+            ValueAtPercentile.create(percentile, sketch.getValueAtQuantile(percentile / 100)));
+      }
+      return valueAtPercentiles;
+    }
+
+    synchronized long getCount() {
+      return sketch.getCount();
+    }
+
+    synchronized double getSum() {
+      return sketch.getSum();
+    }
+
+    synchronized double getValueAtPercentile(double percentile) {
+      return sketch.getValueAtQuantile(percentile / 100);
+    }
+  }
 }
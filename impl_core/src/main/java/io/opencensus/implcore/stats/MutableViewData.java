@@ -20,17 +20,13 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static io.opencensus.implcore.stats.RecordUtils.createAggregationMap;
 import static io.opencensus.implcore.stats.RecordUtils.createMutableAggregation;
 import static io.opencensus.implcore.stats.RecordUtils.getTagMap;
-import static io.opencensus.implcore.stats.RecordUtils.getTagValues;
 
 import com.google.common.annotations.VisibleForTesting;
-import com.google.common.collect.LinkedHashMultimap;
 import com.google.common.collect.Maps;
-import com.google.common.collect.Multimap;
 import io.opencensus.common.Duration;
 import io.opencensus.common.Function;
 import io.opencensus.common.Functions;
 import io.opencensus.common.Timestamp;
-import io.opencensus.implcore.internal.CheckerFrameworkUtils;
 import io.opencensus.implcore.internal.CurrentState.State;
 import io.opencensus.metrics.LabelValue;
 import io.opencensus.metrics.data.AttachmentValue;
@@ -39,19 +35,21 @@ import io.opencensus.metrics.export.MetricDescriptor;
 import io.opencensus.metrics.export.MetricDescriptor.Type;
 import io.opencensus.metrics.export.Point;
 import io.opencensus.metrics.export.TimeSeries;
-import io.opencensus.stats.Aggregation;
+import io.opencensus.metrics.export.Value;
 import io.opencensus.stats.AggregationData;
-import io.opencensus.stats.Measure;
 import io.opencensus.stats.View;
 import io.opencensus.stats.ViewData;
 import io.opencensus.tags.TagContext;
 import io.opencensus.tags.TagValue;
-import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /*>>>
 import org.checkerframework.checker.nullness.qual.Nullable;
@@ -63,10 +61,18 @@ abstract class MutableViewData {
 
   @VisibleForTesting static final Timestamp ZERO_TIMESTAMP = Timestamp.create(0, 0);
 
+  // The value of every column of the overflow time series, which aggregates the measurements
+  // recorded with new combinations of tag values once a view has reached its maximum number of
+  // time series.
+  @VisibleForTesting
+  static final TagValue OVERFLOW_TAG_VALUE = TagValue.create("opencensus_overflow");
+
   private final View view;
+  private final ColumnProjection projection;
 
   private MutableViewData(View view) {
     this.view = view;
+    this.projection = ColumnProjection.create(view.getColumns());
   }
 
   /**
@@ -89,14 +95,37 @@ abstract class MutableViewData {
     return view;
   }
 
+  /** The projection of the tags of a recording onto the columns of the {@link View}. */
+  ColumnProjection getProjection() {
+    return projection;
+  }
+
   @javax.annotation.Nullable
   abstract Metric toMetric(Timestamp now, State state);
 
-  /** Record stats with the given tags. */
-  abstract void record(
+  // Returns the time series that were updated since the previous call, with the values recorded
+  // since then, and resets them. Returns null if no time series was updated.
+  @javax.annotation.Nullable
+  abstract Metric toDeltaMetric(Timestamp now, State state);
+
+  /** Record stats with the given tags. Implementations must be safe to call concurrently. */
+  final void record(
       TagContext context,
       double value,
       Timestamp timestamp,
+      Map<String, AttachmentValue> attachments) {
+    record(TagValuesProbe.fill(getTagMap(context), projection), value, timestamp, attachments);
+  }
+
+  /**
+   * Record stats with the given tag values, projected onto the columns of the view with {@link
+   * #getProjection()}. Implementations must be safe to call concurrently, and must not modify the
+   * tag values.
+   */
+  abstract void record(
+      TagValuesProbe tagValues,
+      double value,
+      Timestamp timestamp,
       Map<String, AttachmentValue> attachments);
 
   /** Convert this {@link MutableViewData} to {@link ViewData}. */
@@ -109,17 +138,37 @@ abstract class MutableViewData {
   // bucket list (for InternalMutableViewData).
   abstract void resumeStatsCollection(Timestamp now);
 
+  // Returns the number of measurements whose tag values were dropped, because they were aggregated
+  // into the overflow time series, as a TimeSeries labeled with the view name, or null if there was
+  // none since the stats were last cleared.
+  @javax.annotation.Nullable
+  abstract TimeSeries getDroppedMeasurements(Timestamp now);
+
   private static final class CumulativeMutableViewData extends MutableViewData {
 
-    private Timestamp start;
-    private final Map<List</*@Nullable*/ TagValue>, MutableAggregation> tagValueAggregationMap =
-        Maps.newHashMap();
+    private volatile Timestamp start;
+    // The end of the previous delta collection, and start of the next one.
+    private volatile Timestamp lastDeltaCollection;
+    // Series are added with putIfAbsent and each MutableAggregation is thread-safe, so concurrent
+    // recordings only contend when they update the same time series.
+    private final ConcurrentMap<List</*@Nullable*/ TagValue>, MutableAggregation>
+        tagValueAggregationMap =
+            new ConcurrentHashMap<List</*@Nullable*/ TagValue>, MutableAggregation>();
     // Cache a MetricDescriptor to avoid converting View to MetricDescriptor in the future.
     private final MetricDescriptor metricDescriptor;
+    private final List</*@Nullable*/ TagValue> overflowTagValues;
+    // Number of measurements that were aggregated into the overflow time series since the stats
+    // were last cleared.
+    private final AtomicLong droppedMeasurements = new AtomicLong();
 
     private CumulativeMutableViewData(View view, Timestamp start) {
       super(view);
       this.start = start;
+      this.lastDeltaCollection = start;
+      this.overflowTagValues =
+          Collections.</*@Nullable*/ TagValue>unmodifiableList(
+              new ArrayList</*@Nullable*/ TagValue>(
+                  Collections.nCopies(view.getColumns().size(), OVERFLOW_TAG_VALUE)));
       MetricDescriptor metricDescriptor = MetricUtils.viewToMetricDescriptor(view);
       if (metricDescriptor == null) {
         throw new AssertionError(
@@ -148,20 +197,47 @@ abstract class MutableViewData {
       return Metric.create(metricDescriptor, timeSeriesList);
     }
 
+    // Unchanged time series are skipped without creating any objects, and the others are reset in
+    // place, so that the cost of a collection depends on the number of recently updated time
+    // series.
+    @javax.annotation.Nullable
+    @Override
+    Metric toDeltaMetric(Timestamp now, State state) {
+      if (state == State.DISABLED) {
+        return null;
+      }
+      Type type = metricDescriptor.getType();
+      @javax.annotation.Nullable
+      Timestamp startTime =
+          type == Type.GAUGE_INT64 || type == Type.GAUGE_DOUBLE ? null : lastDeltaCollection;
+      List<TimeSeries> timeSeriesList = new ArrayList<TimeSeries>();
+      for (Entry<List</*@Nullable*/ TagValue>, MutableAggregation> entry :
+          tagValueAggregationMap.entrySet()) {
+        MutableAggregation aggregation = entry.getValue();
+        if (aggregation.clearDirty()) {
+          List<LabelValue> labelValues = MetricUtils.tagValuesToLabelValues(entry.getKey());
+          Point point = aggregation.toPointAndReset(now);
+          timeSeriesList.add(TimeSeries.createWithOnePoint(labelValues, point, startTime));
+        }
+      }
+      lastDeltaCollection = now;
+      return timeSeriesList.isEmpty() ? null : Metric.create(metricDescriptor, timeSeriesList);
+    }
+
     @Override
     void record(
-        TagContext context,
+        TagValuesProbe tagValues,
         double value,
         Timestamp timestamp,
         Map<String, AttachmentValue> attachments) {
-      List</*@Nullable*/ TagValue> tagValues =
-          getTagValues(getTagMap(context), super.view.getColumns());
-      if (!tagValueAggregationMap.containsKey(tagValues)) {
-        tagValueAggregationMap.put(
-            tagValues,
-            createMutableAggregation(super.view.getAggregation(), super.getView().getMeasure()));
+      // The probe is only used for the lookup, so recording into an existing time series doesn't
+      // allocate. A new time series gets a copy of it as its key.
+      MutableAggregation aggregation = tagValueAggregationMap.get(tagValues);
+      if (aggregation == null) {
+        aggregation = getOrCreateTimeSeries(tagValues);
       }
-      tagValueAggregationMap.get(tagValues).add(value, attachments, timestamp);
+      aggregation.add(value, attachments, timestamp);
+      aggregation.markDirty();
     }
 
     @Override
@@ -183,16 +259,56 @@ abstract class MutableViewData {
     @Override
     void clearStats() {
       tagValueAggregationMap.clear();
+      droppedMeasurements.set(0);
     }
 
     @Override
     void resumeStatsCollection(Timestamp now) {
       start = now;
+      lastDeltaCollection = now;
+    }
+
+    @javax.annotation.Nullable
+    @Override
+    TimeSeries getDroppedMeasurements(Timestamp now) {
+      long dropped = droppedMeasurements.get();
+      if (dropped == 0) {
+        return null;
+      }
+      return TimeSeries.createWithOnePoint(
+          Collections.singletonList(LabelValue.create(super.view.getName().asString())),
+          Point.create(Value.longValue(dropped), now),
+          start);
+    }
+
+    // Returns the aggregation of the time series for the given tag values, which are not in the map
+    // yet. Once the view has reached its maximum number of time series, this is the aggregation of
+    // the overflow time series instead, and the measurement is counted as dropped. The overflow
+    // time series is only created once, so that recordings into it don't allocate. Concurrent
+    // recordings may overshoot the limit by a few time series, which still keeps the memory
+    // bounded.
+    private MutableAggregation getOrCreateTimeSeries(TagValuesProbe tagValues) {
+      List</*@Nullable*/ TagValue> key;
+      if (tagValueAggregationMap.size() < super.view.getMaxTimeSeries()) {
+        key = tagValues.copy();
+      } else {
+        droppedMeasurements.incrementAndGet();
+        MutableAggregation overflowAggregation = tagValueAggregationMap.get(overflowTagValues);
+        if (overflowAggregation != null) {
+          return overflowAggregation;
+        }
+        key = overflowTagValues;
+      }
+      MutableAggregation newAggregation =
+          createMutableAggregation(super.view.getAggregation(), super.getView().getMeasure());
+      MutableAggregation aggregation = tagValueAggregationMap.putIfAbsent(key, newAggregation);
+      return aggregation == null ? newAggregation : aggregation;
     }
   }
 
   /*
-   * For each IntervalView, we always keep a queue of N + 1 buckets (by default N is 4).
+   * For each IntervalView, we always keep N + 1 buckets, where N is the number of buckets of its
+   * interval (by default N is 4).
    * Each bucket has a duration which is interval duration / N.
    * Ideally:
    * 1. the buckets should always be up-to-date,
@@ -204,74 +320,113 @@ abstract class MutableViewData {
    * When getView() is called, we will extract and combine the stats from the current and past
    * buckets (part of the stats from the oldest bucket could have expired).
    *
-   * However, in reality, we couldn't track the status of buckets all the time (keep monitoring and
-   * updating the bucket queue will be expensive). When we call record() or getView(), some or all
-   * of the buckets might be outdated, and we will need to "pad" new buckets to the queue and remove
-   * outdated ones. After refreshing buckets, the bucket queue will able to maintain the three
-   * invariants in the ideal situation.
+   * The buckets are numbered in time order, and every time series keeps the stats of the last N + 1
+   * buckets in a ring of slots (see IntervalTimeSeries). A slot that holds an expired bucket is
+   * recognized by its bucket number, and is reused when the time series is recorded into again. So
+   * we only need to track the number and the start time of the current bucket: when record() or
+   * getView() is called, we move the current bucket forward if it is outdated, which is O(1) and
+   * doesn't touch the time series.
    *
    * For example:
    * 1. We have an IntervalView which has a duration of 8 seconds, we register this view at 10s.
-   * 2. Initially there will be 5 buckets: [2.0, 4.0), [4.0, 6.0), ..., [10.0, 12.0).
-   * 3. If users don't call record() or getView(), bucket queue will remain as it is, and some
-   *    buckets could expire.
-   * 4. Suppose record() is called at 15s, now we need to refresh the bucket queue. We need to add
-   *    two new buckets [12.0, 14.0) and [14.0, 16.0), and remove two expired buckets [2.0, 4.0)
-   *    and [4.0, 6.0)
-   * 5. Suppose record() is called again at 30s, all the current buckets should have expired. We add
-   *    5 new buckets [22.0, 24.0) ... [30.0, 32.0) and remove all the previous buckets.
-   * 6. Suppose users call getView() at 35s, again we need to add two new buckets and remove two
-   *    expired one, so that bucket queue is up-to-date. Now we combine stats from all buckets and
-   *    return the combined IntervalViewData.
+   * 2. Initially the buckets are [2.0, 4.0), [4.0, 6.0), ..., [10.0, 12.0), and the current bucket
+   *    is [10.0, 12.0).
+   * 3. If users don't call record() or getView(), the current bucket will remain as it is, and
+   *    some buckets could expire.
+   * 4. Suppose record() is called at 15s, now we need to move the current bucket forward by two
+   *    buckets to [14.0, 16.0). The buckets [2.0, 4.0) and [4.0, 6.0) have expired, and their slots
+   *    are reused for [12.0, 14.0) and [14.0, 16.0).
+   * 5. Suppose record() is called again at 30s, all the previous buckets should have expired. The
+   *    current bucket becomes [30.0, 32.0), and the previous buckets [22.0, 24.0) ... [28.0, 30.0)
+   *    are empty.
+   * 6. Suppose users call getView() at 35s, again we need to move the current bucket forward by two
+   *    buckets. Now we combine stats from all buckets of every time series and return the combined
+   *    IntervalViewData. Time series that have no stats in the last N + 1 buckets are removed.
+   *
+   * The buckets are shared by all recordings for the view, so all operations on an
+   * IntervalMutableViewData are synchronized on the view itself.
    */
   private static final class IntervalMutableViewData extends MutableViewData {
 
-    // TODO(songya): allow customizable bucket size in the future.
-    private static final int N = 4; // IntervalView has N + 1 buckets
-
-    private final ArrayDeque<IntervalBucket> buckets = new ArrayDeque<IntervalBucket>();
+    private final Map<List</*@Nullable*/ TagValue>, IntervalTimeSeries> tagValueTimeSeriesMap =
+        Maps.newHashMap();
 
     private final Duration totalDuration; // Duration of the whole interval.
     private final Duration bucketDuration; // Duration of a single bucket (totalDuration / N)
+    private final int numBuckets; // N, the IntervalView has N + 1 buckets
+
+    // Cache a MetricDescriptor to avoid converting View to MetricDescriptor in the future.
+    private final MetricDescriptor metricDescriptor;
+
+    // The number and the start time of the current bucket.
+    private long currentBucketNumber = 0;
+    private Timestamp currentBucketStart;
 
     private IntervalMutableViewData(View view, Timestamp start) {
       super(view);
-      Duration totalDuration = ((View.AggregationWindow.Interval) view.getWindow()).getDuration();
+      View.AggregationWindow.Interval interval = (View.AggregationWindow.Interval) view.getWindow();
+      Duration totalDuration = interval.getDuration();
       this.totalDuration = totalDuration;
-      this.bucketDuration = Duration.fromMillis(totalDuration.toMillis() / N);
+      this.numBuckets = interval.getNumBuckets();
+      this.bucketDuration = Duration.fromMillis(totalDuration.toMillis() / numBuckets);
+      this.metricDescriptor = MetricUtils.intervalViewToMetricDescriptor(view);
+
+      // When initializing, the N buckets prior to the start timestamp of this
+      // IntervalMutableViewData are empty, so that the last bucket will be the current one in
+      // effect.
+      this.currentBucketStart = getStartOfCurrentBucket(start);
+    }
 
-      // When initializing. add N empty buckets prior to the start timestamp of this
-      // IntervalMutableViewData, so that the last bucket will be the current one in effect.
-      shiftBucketList(N + 1, start);
+    // Interval views are exported as gauges of the values in the current interval.
+    @javax.annotation.Nullable
+    @Override
+    synchronized Metric toMetric(Timestamp now, State state) {
+      if (state == State.DISABLED) {
+        return null;
+      }
+      refreshBucketList(now);
+      List<TimeSeries> timeSeriesList = new ArrayList<TimeSeries>();
+      for (Entry<List</*@Nullable*/ TagValue>, MutableAggregation> entry :
+          combineTimeSeries(now).entrySet()) {
+        List<LabelValue> labelValues = MetricUtils.tagValuesToLabelValues(entry.getKey());
+        Point point = entry.getValue().toPoint(now);
+        timeSeriesList.add(TimeSeries.createWithOnePoint(labelValues, point, null));
+      }
+      return Metric.create(metricDescriptor, timeSeriesList);
     }
 
+    // The values of interval views don't accumulate, so they are exported as is.
     @javax.annotation.Nullable
     @Override
-    Metric toMetric(Timestamp now, State state) {
-      return null;
+    Metric toDeltaMetric(Timestamp now, State state) {
+      return toMetric(now, state);
     }
 
     @Override
-    void record(
-        TagContext context,
+    synchronized void record(
+        TagValuesProbe tagValues,
         double value,
         Timestamp timestamp,
         Map<String, AttachmentValue> attachments) {
-      List</*@Nullable*/ TagValue> tagValues =
-          getTagValues(getTagMap(context), super.view.getColumns());
       refreshBucketList(timestamp);
-      // It is always the last bucket that does the recording.
-      CheckerFrameworkUtils.castNonNull(buckets.peekLast())
-          .record(tagValues, value, attachments, timestamp);
+      IntervalTimeSeries timeSeries = tagValueTimeSeriesMap.get(tagValues);
+      if (timeSeries == null) {
+        timeSeries =
+            new IntervalTimeSeries(
+                numBuckets + 1, super.view.getAggregation(), super.view.getMeasure());
+        tagValueTimeSeriesMap.put(tagValues.copy(), timeSeries);
+      }
+      // It is always the current bucket that does the recording.
+      timeSeries.record(currentBucketNumber, value, attachments, timestamp);
     }
 
     @Override
-    ViewData toViewData(Timestamp now, State state) {
+    synchronized ViewData toViewData(Timestamp now, State state) {
       refreshBucketList(now);
       if (state == State.ENABLED) {
         return ViewData.create(
             super.view,
-            combineBucketsAndGetAggregationMap(now),
+            createAggregationMap(combineTimeSeries(now), super.view.getMeasure()),
             ViewData.AggregationWindowData.IntervalData.create(now));
       } else {
         // If Stats state is DISABLED, return an empty ViewData.
@@ -283,153 +438,79 @@ abstract class MutableViewData {
     }
 
     @Override
-    void clearStats() {
-      for (IntervalBucket bucket : buckets) {
-        bucket.clearStats();
-      }
+    synchronized void clearStats() {
+      tagValueTimeSeriesMap.clear();
     }
 
     @Override
-    void resumeStatsCollection(Timestamp now) {
+    synchronized void resumeStatsCollection(Timestamp now) {
       // Refresh bucket list to be ready for stats recording, so that if record() is called right
       // after stats state is turned back on, record() will be faster.
       refreshBucketList(now);
     }
 
-    // Add new buckets and remove expired buckets by comparing the current timestamp with
-    // timestamp of the last bucket.
+    // Interval views can't limit their number of time series.
+    @javax.annotation.Nullable
+    @Override
+    TimeSeries getDroppedMeasurements(Timestamp now) {
+      return null;
+    }
+
+    // Move the current bucket forward by comparing the current timestamp with the start of the
+    // current bucket. The buckets in between are empty.
     private void refreshBucketList(Timestamp now) {
-      if (buckets.size() != N + 1) {
-        throw new AssertionError("Bucket list must have exactly " + (N + 1) + " buckets.");
-      }
-      Timestamp startOfLastBucket =
-          CheckerFrameworkUtils.castNonNull(buckets.peekLast()).getStart();
       // TODO(songya): decide what to do when time goes backwards
       checkArgument(
-          now.compareTo(startOfLastBucket) >= 0,
+          now.compareTo(currentBucketStart) >= 0,
           "Current time must be within or after the last bucket.");
-      long elapsedTimeMillis = now.subtractTimestamp(startOfLastBucket).toMillis();
+      long elapsedTimeMillis = now.subtractTimestamp(currentBucketStart).toMillis();
       long numOfPadBuckets = elapsedTimeMillis / bucketDuration.toMillis();
 
-      shiftBucketList(numOfPadBuckets, now);
-    }
-
-    // Add specified number of new buckets, and remove expired buckets
-    private void shiftBucketList(long numOfPadBuckets, Timestamp now) {
-      Timestamp startOfNewBucket;
-
-      if (!buckets.isEmpty()) {
-        startOfNewBucket =
-            CheckerFrameworkUtils.castNonNull(buckets.peekLast())
-                .getStart()
-                .addDuration(bucketDuration);
+      if (numOfPadBuckets > numBuckets + 1) {
+        // All current buckets expired. The start time of the new current bucket will be current
+        // time.
+        currentBucketNumber += numBuckets + 1;
+        currentBucketStart = getStartOfCurrentBucket(now);
       } else {
-        // Initialize bucket list. Should only enter this block once.
-        startOfNewBucket = subtractDuration(now, totalDuration);
-      }
-
-      if (numOfPadBuckets > N + 1) {
-        // All current buckets expired, need to add N + 1 new buckets. The start time of the latest
-        // bucket will be current time.
-        startOfNewBucket = subtractDuration(now, totalDuration);
-        numOfPadBuckets = N + 1;
-      }
-
-      for (int i = 0; i < numOfPadBuckets; i++) {
-        buckets.add(
-            new IntervalBucket(
-                startOfNewBucket,
-                bucketDuration,
-                super.view.getAggregation(),
-                super.view.getMeasure()));
-        startOfNewBucket = startOfNewBucket.addDuration(bucketDuration);
-      }
-
-      // removed expired buckets
-      while (buckets.size() > N + 1) {
-        buckets.pollFirst();
+        currentBucketNumber += numOfPadBuckets;
+        currentBucketStart =
+            currentBucketStart.addDuration(
+                Duration.fromMillis(numOfPadBuckets * bucketDuration.toMillis()));
       }
     }
 
-    // Combine stats within each bucket, aggregate stats by tag values, and return the mapping from
-    // tag values to aggregation data.
-    private Map<List</*@Nullable*/ TagValue>, AggregationData> combineBucketsAndGetAggregationMap(
-        Timestamp now) {
-      // Need to maintain the order of inserted MutableAggregations (inserted based on time order).
-      Multimap<List</*@Nullable*/ TagValue>, MutableAggregation> multimap =
-          LinkedHashMultimap.create();
-
-      ArrayDeque<IntervalBucket> shallowCopy = new ArrayDeque<IntervalBucket>(buckets);
-
-      Aggregation aggregation = super.view.getAggregation();
-      Measure measure = super.view.getMeasure();
-      putBucketsIntoMultiMap(shallowCopy, multimap, aggregation, measure, now);
-      Map<List</*@Nullable*/ TagValue>, MutableAggregation> singleMap =
-          aggregateOnEachTagValueList(multimap, aggregation, measure);
-      return createAggregationMap(singleMap, super.getView().getMeasure());
+    // Returns the start time of the last of N + 1 buckets that start one interval before now.
+    private Timestamp getStartOfCurrentBucket(Timestamp now) {
+      return subtractDuration(now, totalDuration)
+          .addDuration(Duration.fromMillis(numBuckets * bucketDuration.toMillis()));
     }
 
-    // Put stats within each bucket to a multimap. Each tag value list (map key) could have multiple
-    // mutable aggregations (map value) from different buckets.
-    private static void putBucketsIntoMultiMap(
-        ArrayDeque<IntervalBucket> buckets,
-        Multimap<List</*@Nullable*/ TagValue>, MutableAggregation> multimap,
-        Aggregation aggregation,
-        Measure measure,
-        Timestamp now) {
-      // Put fractional stats of the head (oldest) bucket.
-      IntervalBucket head = CheckerFrameworkUtils.castNonNull(buckets.peekFirst());
-      IntervalBucket tail = CheckerFrameworkUtils.castNonNull(buckets.peekLast());
-      double fractionTail = tail.getFraction(now);
+    // Combine the stats of the buckets of each time series, and return the mapping from tag values
+    // to the combined MutableAggregations. The time series that have no stats in the current
+    // interval are removed.
+    private Map<List</*@Nullable*/ TagValue>, MutableAggregation> combineTimeSeries(Timestamp now) {
+      // The oldest bucket has partially expired: only the part that hasn't passed in the current
+      // bucket is still in the interval.
+      double fractionTail =
+          ((double) now.subtractTimestamp(currentBucketStart).toMillis())
+              / bucketDuration.toMillis();
       // TODO(songya): decide what to do when time goes backwards
       checkArgument(
           0.0 <= fractionTail && fractionTail <= 1.0,
           "Fraction " + fractionTail + " should be within [0.0, 1.0].");
       double fractionHead = 1.0 - fractionTail;
-      putFractionalMutableAggregationsToMultiMap(
-          head.getTagValueAggregationMap(), multimap, aggregation, measure, fractionHead);
-
-      // Put whole data of other buckets.
-      boolean shouldSkipFirst = true;
-      for (IntervalBucket bucket : buckets) {
-        if (shouldSkipFirst) {
-          shouldSkipFirst = false;
-          continue; // skip the first bucket
-        }
-        for (Entry<List</*@Nullable*/ TagValue>, MutableAggregation> entry :
-            bucket.getTagValueAggregationMap().entrySet()) {
-          multimap.put(entry.getKey(), entry.getValue());
-        }
-      }
-    }
-
-    // Put stats within one bucket into multimap, multiplied by a given fraction.
-    private static <T> void putFractionalMutableAggregationsToMultiMap(
-        Map<T, MutableAggregation> mutableAggrMap,
-        Multimap<T, MutableAggregation> multimap,
-        Aggregation aggregation,
-        Measure measure,
-        double fraction) {
-      for (Entry<T, MutableAggregation> entry : mutableAggrMap.entrySet()) {
-        // Initially empty MutableAggregations.
-        MutableAggregation fractionalMutableAgg = createMutableAggregation(aggregation, measure);
-        fractionalMutableAgg.combine(entry.getValue(), fraction);
-        multimap.put(entry.getKey(), fractionalMutableAgg);
-      }
-    }
 
-    // For each tag value list (key of AggregationMap), combine mutable aggregations into one
-    // mutable aggregation, thus convert the multimap into a single map.
-    private static <T> Map<T, MutableAggregation> aggregateOnEachTagValueList(
-        Multimap<T, MutableAggregation> multimap, Aggregation aggregation, Measure measure) {
-      Map<T, MutableAggregation> map = Maps.newHashMap();
-      for (T tagValues : multimap.keySet()) {
-        // Initially empty MutableAggregations.
-        MutableAggregation combinedAggregation = createMutableAggregation(aggregation, measure);
-        for (MutableAggregation mutableAggregation : multimap.get(tagValues)) {
-          combinedAggregation.combine(mutableAggregation, 1.0);
+      Map<List</*@Nullable*/ TagValue>, MutableAggregation> map = Maps.newHashMap();
+      Iterator<Entry<List</*@Nullable*/ TagValue>, IntervalTimeSeries>> iterator =
+          tagValueTimeSeriesMap.entrySet().iterator();
+      while (iterator.hasNext()) {
+        Entry<List</*@Nullable*/ TagValue>, IntervalTimeSeries> entry = iterator.next();
+        MutableAggregation combined = entry.getValue().combine(currentBucketNumber, fractionHead);
+        if (combined == null) {
+          iterator.remove();
+        } else {
+          map.put(entry.getKey(), combined);
         }
-        map.put(tagValues, combinedAggregation);
       }
       return map;
     }
@@ -0,0 +1,284 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.implcore.stats;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.annotations.VisibleForTesting;
+
+/**
+ * A mergeable quantile sketch of non-negative values, with a bounded relative error.
+ *
+ * <p>Positive values are counted in buckets whose bounds grow exponentially: bucket {@code i} holds
+ * the values in {@code (gamma^(i-1), gamma^i]}, where {@code gamma = (1 + a) / (1 - a)} for the
+ * relative accuracy {@code a}. Every value of a bucket is then within a relative error of {@code a}
+ * of the bucket's estimate {@code 2 * gamma^i / (gamma + 1)}. Zero (and any value that is not
+ * positive) is counted separately.
+ *
+ * <p>The counts of the buckets are kept in an array that covers the range of non-empty buckets, and
+ * grows with it up to {@link #MAX_NUM_BUCKETS}. Beyond that, the buckets with the lowest values are
+ * merged into the lowest remaining one, which only affects the accuracy of the lowest quantiles.
+ *
+ * <p>This class is not thread-safe.
+ */
+final class QuantileSketch {
+
+  @VisibleForTesting static final int MAX_NUM_BUCKETS = 2048;
+
+  private static final long[] EMPTY_COUNTS = new long[0];
+
+  private final double relativeAccuracy;
+  private final double gamma;
+  private final double logGamma;
+
+  // counts[i] is the count of bucket offset + i. The non-empty buckets are in [minIndex, maxIndex].
+  private long[] counts = EMPTY_COUNTS;
+  private int offset;
+  private int minIndex = Integer.MAX_VALUE;
+  private int maxIndex = Integer.MIN_VALUE;
+
+  private long zeroCount;
+  private long count;
+  private double sum;
+  private double min = Double.POSITIVE_INFINITY;
+  private double max = Double.NEGATIVE_INFINITY;
+
+  QuantileSketch(double relativeAccuracy) {
+    checkArgument(
+        0 < relativeAccuracy && relativeAccuracy < 1, "relativeAccuracy must be in (0.0, 1.0)");
+    this.relativeAccuracy = relativeAccuracy;
+    this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+    this.logGamma = Math.log(gamma);
+  }
+
+  double getRelativeAccuracy() {
+    return relativeAccuracy;
+  }
+
+  long getCount() {
+    return count;
+  }
+
+  double getSum() {
+    return sum;
+  }
+
+  // Returns the number of buckets the sketch has allocated memory for.
+  @VisibleForTesting
+  int getCapacity() {
+    return counts.length;
+  }
+
+  /**
+   * Adds a value to this sketch. Values that are not positive are counted as 0.
+   *
+   * @param value the value to add.
+   */
+  void add(double value) {
+    if (value > 0) {
+      value = Math.min(value, Double.MAX_VALUE);
+      addToBucket(getIndex(value), 1);
+      sum += value;
+    } else {
+      value = 0;
+      zeroCount++;
+    }
+    count++;
+    min = Math.min(min, value);
+    max = Math.max(max, value);
+  }
+
+  /**
+   * Adds the given fraction of the values of the other sketch to this sketch, assuming that the
+   * values in each bucket are spread evenly. The counts are rounded cumulatively, so that the
+   * scaled counts of the buckets add up to the scaled count.
+   *
+   * @param other the other sketch, which must have the same relative accuracy.
+   * @param fraction the fraction of the values of the other sketch to add.
+   */
+  void add(QuantileSketch other, double fraction) {
+    checkArgument(relativeAccuracy == other.relativeAccuracy, "Relative accuracies should match.");
+    if (other.count == 0) {
+      return;
+    }
+    long cumulativeCount = other.zeroCount;
+    long scaledCumulativeCount = Math.round(cumulativeCount * fraction);
+    zeroCount += scaledCumulativeCount;
+    for (int index = other.minIndex; index <= other.maxIndex; index++) {
+      long bucketCount = other.counts[index - other.offset];
+      if (bucketCount == 0) {
+        continue;
+      }
+      cumulativeCount += bucketCount;
+      long previousScaledCumulativeCount = scaledCumulativeCount;
+      scaledCumulativeCount = Math.round(cumulativeCount * fraction);
+      addToBucket(index, scaledCumulativeCount - previousScaledCumulativeCount);
+    }
+    if (scaledCumulativeCount == 0) {
+      return;
+    }
+    count += scaledCumulativeCount;
+    sum += other.sum * scaledCumulativeCount / other.count;
+    min = Math.min(min, other.min);
+    max = Math.max(max, other.max);
+  }
+
+  /**
+   * Removes the values of the other sketch from this sketch. This is the inverse of {@code
+   * add(other, 1.0)}, except that the minimum and the maximum values are only narrowed down to the
+   * bounds of the remaining buckets.
+   *
+   * @param other the other sketch, which must have been added to this sketch as a whole, and must
+   *     not have changed since then.
+   */
+  void subtract(QuantileSketch other) {
+    checkArgument(relativeAccuracy == other.relativeAccuracy, "Relative accuracies should match.");
+    if (count - other.count <= 0) {
+      // Start over from exact zeros, rather than keeping the rounding errors.
+      reset();
+      return;
+    }
+    zeroCount -= other.zeroCount;
+    for (int index = other.minIndex; index <= other.maxIndex; index++) {
+      // The buckets of other may have been merged into the lowest bucket of this sketch.
+      int thisIndex = Math.max(index, minIndex);
+      if (thisIndex <= maxIndex) {
+        counts[thisIndex - offset] -= other.counts[index - other.offset];
+      }
+    }
+    while (minIndex <= maxIndex && counts[minIndex - offset] <= 0) {
+      counts[minIndex++ - offset] = 0;
+    }
+    while (maxIndex >= minIndex && counts[maxIndex - offset] <= 0) {
+      counts[maxIndex-- - offset] = 0;
+    }
+    if (minIndex > maxIndex) {
+      minIndex = Integer.MAX_VALUE;
+      maxIndex = Integer.MIN_VALUE;
+      max = 0.0;
+    } else {
+      max = Math.min(max, Math.exp(maxIndex * logGamma));
+      if (zeroCount == 0) {
+        min = Math.max(min, Math.exp((minIndex - 1) * logGamma));
+      }
+    }
+    count -= other.count;
+    sum = Math.max(0.0, sum - other.sum);
+  }
+
+  /** Removes all the values from this sketch, and releases its buckets. */
+  void reset() {
+    counts = EMPTY_COUNTS;
+    offset = 0;
+    minIndex = Integer.MAX_VALUE;
+    maxIndex = Integer.MIN_VALUE;
+    zeroCount = 0;
+    count = 0;
+    sum = 0.0;
+    min = Double.POSITIVE_INFINITY;
+    max = Double.NEGATIVE_INFINITY;
+  }
+
+  /**
+   * Returns the estimated value at the given quantile, or 0 if this sketch is empty.
+   *
+   * @param quantile the quantile, in [0.0, 1.0].
+   * @return the estimated value at the given quantile.
+   */
+  double getValueAtQuantile(double quantile) {
+    if (count == 0) {
+      return 0.0;
+    }
+    // The 0-based rank of the value, as in a sorted list of all the values.
+    double rank = quantile * (count - 1);
+    long cumulativeCount = zeroCount;
+    if (cumulativeCount > rank) {
+      return 0.0;
+    }
+    double value = max;
+    for (int index = minIndex; index <= maxIndex; index++) {
+      cumulativeCount += counts[index - offset];
+      if (cumulativeCount > rank) {
+        value = 2 * Math.exp(index * logGamma) / (gamma + 1);
+        break;
+      }
+    }
+    // The exact extreme values are better estimates than their buckets.
+    return Math.max(min, Math.min(max, value));
+  }
+
+  private int getIndex(double value) {
+    return (int) Math.ceil(Math.log(value) / logGamma);
+  }
+
+  private void addToBucket(int index, long bucketCount) {
+    if (bucketCount == 0) {
+      return;
+    }
+    if (index < minIndex || index > maxIndex) {
+      index = extendRange(index);
+    }
+    counts[index - offset] += bucketCount;
+  }
+
+  // Extends the range of non-empty buckets to the given index, and returns the index of the bucket
+  // to add the values of the given index to, which differs from it if it had to be merged.
+  private int extendRange(int index) {
+    if (minIndex > maxIndex) {
+      // No non-empty buckets yet.
+      if (counts.length == 0) {
+        counts = new long[1];
+      }
+      offset = index;
+      minIndex = index;
+      maxIndex = index;
+      return index;
+    }
+    int newMinIndex = Math.min(minIndex, index);
+    int newMaxIndex = Math.max(maxIndex, index);
+    long mergedCount = 0;
+    if ((long) newMaxIndex - newMinIndex + 1 > MAX_NUM_BUCKETS) {
+      newMinIndex = newMaxIndex - MAX_NUM_BUCKETS + 1;
+      if (index < newMinIndex) {
+        // Merge the new value into the lowest bucket.
+        index = newMinIndex;
+      }
+      // Merge the buckets below the new lowest bucket into it.
+      for (int i = minIndex; i < newMinIndex && i <= maxIndex; i++) {
+        mergedCount += counts[i - offset];
+        counts[i - offset] = 0;
+      }
+    }
+    if (newMinIndex < offset || newMaxIndex >= offset + counts.length) {
+      int length =
+          Math.max(newMaxIndex - newMinIndex + 1, Math.min(MAX_NUM_BUCKETS, 2 * counts.length));
+      // Leave the free space on the side the range is growing towards.
+      int newOffset = index < minIndex ? newMaxIndex - length + 1 : newMinIndex;
+      long[] newCounts = new long[length];
+      int from = Math.max(minIndex, newMinIndex);
+      if (from <= maxIndex) {
+        System.arraycopy(counts, from - offset, newCounts, from - newOffset, maxIndex - from + 1);
+      }
+      counts = newCounts;
+      offset = newOffset;
+    }
+    minIndex = newMinIndex;
+    maxIndex = newMaxIndex;
+    counts[minIndex - offset] += mergedCount;
+    return index;
+  }
+}
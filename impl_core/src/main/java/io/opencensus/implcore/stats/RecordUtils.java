@@ -25,6 +25,7 @@ import io.opencensus.implcore.stats.MutableAggregation.MutableDistribution;
 import io.opencensus.implcore.stats.MutableAggregation.MutableLastValueDouble;
 import io.opencensus.implcore.stats.MutableAggregation.MutableLastValueLong;
 import io.opencensus.implcore.stats.MutableAggregation.MutableMean;
+import io.opencensus.implcore.stats.MutableAggregation.MutablePercentiles;
 import io.opencensus.implcore.stats.MutableAggregation.MutableSumDouble;
 import io.opencensus.implcore.stats.MutableAggregation.MutableSumLong;
 import io.opencensus.implcore.tags.TagMapImpl;
@@ -46,9 +47,7 @@ import io.opencensus.tags.Tag;
 import io.opencensus.tags.TagContext;
 import io.opencensus.tags.TagKey;
 import io.opencensus.tags.TagValue;
-import java.util.ArrayList;
 import java.util.Iterator;
-import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
@@ -74,24 +73,6 @@ final class RecordUtils {
     return tags;
   }
 
-  @VisibleForTesting
-  static List</*@Nullable*/ TagValue> getTagValues(
-      Map<? extends TagKey, TagValueWithMetadata> tags, List<? extends TagKey> columns) {
-    List</*@Nullable*/ TagValue> tagValues = new ArrayList</*@Nullable*/ TagValue>(columns.size());
-    // Record all the measures in a "Greedy" way.
-    // Every view aggregates every measure. This is similar to doing a GROUPBY view’s keys.
-    for (int i = 0; i < columns.size(); ++i) {
-      TagKey tagKey = columns.get(i);
-      if (!tags.containsKey(tagKey)) {
-        // replace not found key values by null.
-        tagValues.add(UNKNOWN_TAG_VALUE);
-      } else {
-        tagValues.add(tags.get(tagKey).getTagValue());
-      }
-    }
-    return tagValues;
-  }
-
   /**
    * Create an empty {@link MutableAggregation} based on the given {@link Aggregation}.
    *
@@ -191,7 +172,8 @@ final class RecordUtils {
     private static final CreateMutableCount INSTANCE = new CreateMutableCount();
   }
 
-  // TODO(songya): remove this once Mean aggregation is completely removed. Before that
+  // Percentiles doesn't have its own match function, so it is created here.
+  // TODO(songya): remove Mean from here once Mean aggregation is completely removed. Before that
   // we need to continue supporting Mean, since it could still be used by users and some
   // deprecated RPC views.
   private static final class AggregationDefaultFunction
@@ -201,6 +183,9 @@ final class RecordUtils {
       if (arg instanceof Aggregation.Mean) {
         return MutableMean.create();
       }
+      if (arg instanceof Aggregation.Percentiles) {
+        return MutablePercentiles.create((Aggregation.Percentiles) arg);
+      }
       throw new IllegalArgumentException("Unknown Aggregation.");
     }
 
@@ -37,13 +37,46 @@ public class StatsComponentImplBase extends StatsComponent {
   private final StatsRecorderImpl statsRecorder;
 
   /**
-   * Creates a new {@code StatsComponentImplBase}.
+   * Creates a new {@code StatsComponentImplBase} that records stats through the given queue.
    *
    * @param queue the queue implementation.
    * @param clock the clock to use when recording stats.
    */
   public StatsComponentImplBase(EventQueue queue, Clock clock) {
-    StatsManager statsManager = new StatsManager(queue, clock, currentState);
+    this(queue, clock, RecordingMode.QUEUED);
+  }
+
+  /**
+   * Creates a new {@code StatsComponentImplBase}.
+   *
+   * @param queue the queue implementation.
+   * @param clock the clock to use when recording stats.
+   * @param recordingMode how recorded measurements are handed over to the views.
+   */
+  public StatsComponentImplBase(EventQueue queue, Clock clock, RecordingMode recordingMode) {
+    this(queue, clock, recordingMode, ExportTemporality.CUMULATIVE);
+  }
+
+  /**
+   * Creates a new {@code StatsComponentImplBase}.
+   *
+   * @param queue the queue implementation.
+   * @param clock the clock to use when recording stats.
+   * @param recordingMode how recorded measurements are handed over to the views.
+   * @param exportTemporality how the cumulative views are exported as metrics.
+   */
+  public StatsComponentImplBase(
+      EventQueue queue,
+      Clock clock,
+      RecordingMode recordingMode,
+      ExportTemporality exportTemporality) {
+    StatsManager statsManager =
+        new StatsManager(
+            queue,
+            clock,
+            currentState,
+            Preconditions.checkNotNull(recordingMode, "recordingMode"),
+            Preconditions.checkNotNull(exportTemporality, "exportTemporality"));
     this.viewManager = new ViewManagerImpl(statsManager);
     this.statsRecorder = new StatsRecorderImpl(statsManager);
 
@@ -82,6 +115,46 @@ public class StatsComponentImplBase extends StatsComponent {
     }
   }
 
+  /** Determines on which thread recorded measurements are aggregated into the views. */
+  public enum RecordingMode {
+    /**
+     * Every call to {@code MeasureMap.record()} is handed over to the {@link EventQueue}, and the
+     * measurements are aggregated on the queue's thread. This keeps the caller's work to a minimum
+     * when many views are registered for the recorded measures.
+     */
+    QUEUED,
+
+    /**
+     * Measurements are aggregated directly on the thread that calls {@code MeasureMap.record()},
+     * without allocating a queue entry or crossing threads. Recorded stats are visible in the views
+     * as soon as {@code record()} returns.
+     */
+    DIRECT
+  }
+
+  /** Determines which values of the cumulative views are exported as metrics. */
+  public enum ExportTemporality {
+    /**
+     * Every export contains all the time series of the views, with the values aggregated since the
+     * views were registered or stats collection was last enabled.
+     */
+    CUMULATIVE,
+
+    /**
+     * Every export only contains the time series that were updated since the previous export, with
+     * the values aggregated since then. Their start time is the time of the previous export.
+     *
+     * <p>The delta state is shared by all the readers of the stats {@code MetricProducer}: every
+     * call to {@code getMetrics()} resets the views, whoever makes it. This mode therefore requires
+     * a single reader, that is a single stats or metrics exporter and nothing else that reads all
+     * the producers of the {@code MetricProducerManager}. With several readers, each one only gets
+     * the values that were recorded since any of them last read, and none of them sees the full
+     * totals. The {@code ViewData} of a cumulative view also only contains the values recorded
+     * since the last export. Last value aggregations are exported as is, and are not reset.
+     */
+    DELTA
+  }
+
   private static State statsStateToState(StatsCollectionState statsCollectionState) {
     return statsCollectionState == StatsCollectionState.ENABLED ? State.ENABLED : State.DISABLED;
   }
@@ -22,11 +22,16 @@ import io.opencensus.common.Clock;
 import io.opencensus.implcore.internal.CurrentState;
 import io.opencensus.implcore.internal.CurrentState.State;
 import io.opencensus.implcore.internal.EventQueue;
+import io.opencensus.implcore.stats.StatsComponentImplBase.ExportTemporality;
+import io.opencensus.implcore.stats.StatsComponentImplBase.RecordingMode;
 import io.opencensus.metrics.export.Metric;
+import io.opencensus.stats.Measurement;
 import io.opencensus.stats.View;
 import io.opencensus.stats.ViewData;
 import io.opencensus.tags.TagContext;
 import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
 import javax.annotation.Nullable;
 
@@ -39,15 +44,26 @@ final class StatsManager {
   private final Clock clock;
 
   private final CurrentState state;
+  private final RecordingMode recordingMode;
+  private final ExportTemporality exportTemporality;
   private final MeasureToViewMap measureToViewMap = new MeasureToViewMap();
 
-  StatsManager(EventQueue queue, Clock clock, CurrentState state) {
+  StatsManager(
+      EventQueue queue,
+      Clock clock,
+      CurrentState state,
+      RecordingMode recordingMode,
+      ExportTemporality exportTemporality) {
     checkNotNull(queue, "EventQueue");
     checkNotNull(clock, "Clock");
     checkNotNull(state, "state");
+    checkNotNull(recordingMode, "recordingMode");
+    checkNotNull(exportTemporality, "exportTemporality");
     this.queue = queue;
     this.clock = clock;
     this.state = state;
+    this.recordingMode = recordingMode;
+    this.exportTemporality = exportTemporality;
   }
 
   void registerView(View view) {
@@ -67,11 +83,31 @@ final class StatsManager {
     // TODO(songya): consider exposing No-op MeasureMap and use it when stats state is DISABLED, so
     // that we don't need to create actual MeasureMapImpl.
     if (state.getInternal() == State.ENABLED) {
-      queue.enqueue(new StatsEvent(this, tags, measurementValues));
+      if (recordingMode == RecordingMode.DIRECT) {
+        // MeasureToViewMap supports concurrent recording, so aggregate on the caller thread.
+        measureToViewMap.record(tags, measurementValues, clock.now());
+      } else {
+        queue.enqueue(new StatsEvent(this, tags, measurementValues));
+      }
+    }
+  }
+
+  // Records the measurements of a batch, each with the tags at the same index.
+  // The lists must not be modified afterwards.
+  void record(List<TagContext> tags, List<MeasureMapInternal> measurementValues) {
+    if (state.getInternal() == State.ENABLED) {
+      if (recordingMode == RecordingMode.DIRECT) {
+        measureToViewMap.record(tags, measurementValues, clock.now());
+      } else {
+        queue.enqueue(new StatsBatchEvent(this, tags, measurementValues));
+      }
     }
   }
 
   Collection<Metric> getMetrics() {
+    if (exportTemporality == ExportTemporality.DELTA) {
+      return measureToViewMap.getDeltaMetrics(clock, state.getInternal());
+    }
     return measureToViewMap.getMetrics(clock, state.getInternal());
   }
 
@@ -83,8 +119,12 @@ final class StatsManager {
     measureToViewMap.resumeStatsCollection(clock.now());
   }
 
-  // An EventQueue entry that records the stats from one call to StatsManager.record(...).
-  private static final class StatsEvent implements EventQueue.Entry {
+  // An EventQueue entry that records the stats from one call to StatsManager.record(...). It is
+  // partitioned by the name of its first measure, so that different measures can be processed in
+  // parallel by queues that support it. Losing it only loses the measurements, so it may be dropped
+  // by a full queue.
+  private static final class StatsEvent
+      implements EventQueue.PartitionedEntry, EventQueue.DroppableEntry {
     private final TagContext tags;
     private final MeasureMapInternal stats;
     private final StatsManager statsManager;
@@ -95,10 +135,43 @@ final class StatsManager {
       this.stats = stats;
     }
 
+    @Override
+    public String getPartitionKey() {
+      Iterator<Measurement> iterator = stats.iterator();
+      return iterator.hasNext() ? iterator.next().getMeasure().getName() : "";
+    }
+
     @Override
     public void process() {
       // Add Timestamp to value after it went through the DisruptorQueue.
       statsManager.measureToViewMap.record(tags, stats, statsManager.clock.now());
     }
   }
+
+  // An EventQueue entry that records all the stats of a batch, with a single timestamp. It is
+  // partitioned like the StatsEvent of its first MeasureMap, and may be dropped like it.
+  private static final class StatsBatchEvent
+      implements EventQueue.PartitionedEntry, EventQueue.DroppableEntry {
+    private final List<TagContext> tags;
+    private final List<MeasureMapInternal> stats;
+    private final StatsManager statsManager;
+
+    StatsBatchEvent(
+        StatsManager statsManager, List<TagContext> tags, List<MeasureMapInternal> stats) {
+      this.statsManager = statsManager;
+      this.tags = tags;
+      this.stats = stats;
+    }
+
+    @Override
+    public String getPartitionKey() {
+      Iterator<Measurement> iterator = stats.get(0).iterator();
+      return iterator.hasNext() ? iterator.next().getMeasure().getName() : "";
+    }
+
+    @Override
+    public void process() {
+      statsManager.measureToViewMap.record(tags, stats, statsManager.clock.now());
+    }
+  }
 }
@@ -33,4 +33,9 @@ public final class StatsRecorderImpl extends StatsRecorder {
   public MeasureMapImpl newMeasureMap() {
     return MeasureMapImpl.create(statsManager);
   }
+
+  @Override
+  public MeasureBatchImpl newMeasureBatch() {
+    return MeasureBatchImpl.create(statsManager);
+  }
 }
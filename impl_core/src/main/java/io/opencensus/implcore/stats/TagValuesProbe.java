@@ -0,0 +1,155 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.implcore.stats;
+
+import com.google.common.base.Objects;
+import io.opencensus.implcore.tags.TagValueWithMetadata;
+import io.opencensus.tags.TagKey;
+import io.opencensus.tags.TagValue;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/*>>>
+import org.checkerframework.checker.nullness.qual.Nullable;
+*/
+
+/**
+ * A reusable list of the {@link TagValue}s of a recording, used to look up the time series of a
+ * view without allocating a new key for every recording.
+ *
+ * <p>There is one probe per thread. A probe is equal to, and has the same hash code as, any other
+ * {@link List} with the same tag values, so it can be passed to {@link Map#get} on the maps keyed
+ * by tag value lists. It is overwritten by the next recording on the same thread, so it must never
+ * be stored: use {@link #copy()} to create the key of a new time series.
+ */
+final class TagValuesProbe extends AbstractList</*@Nullable*/ TagValue> implements RandomAccess {
+
+  private static final int INITIAL_CAPACITY = 8;
+
+  private static final ThreadLocal<TagValuesProbe> probes =
+      new ThreadLocal<TagValuesProbe>() {
+        @Override
+        protected TagValuesProbe initialValue() {
+          return new TagValuesProbe();
+        }
+      };
+
+  private /*@Nullable*/ TagValue[] values = new TagValue[INITIAL_CAPACITY];
+  private int size;
+  // Cached because the probe is hashed once per map lookup, and at least once per recording.
+  private int hashCode = 1;
+
+  private TagValuesProbe() {}
+
+  /**
+   * Returns the probe of the current thread, filled with the values of the given tags for the given
+   * columns. Columns that are not in the tags get {@link RecordUtils#UNKNOWN_TAG_VALUE}.
+   *
+   * @param tags the tags of the recording.
+   * @param columns the columns of the view.
+   * @return the probe of the current thread.
+   */
+  static TagValuesProbe fill(
+      Map<? extends TagKey, TagValueWithMetadata> tags, ColumnProjection columns) {
+    TagValuesProbe probe = probes.get();
+    probe.set(tags, columns);
+    return probe;
+  }
+
+  private void set(Map<? extends TagKey, TagValueWithMetadata> tags, ColumnProjection columns) {
+    int newSize = columns.size();
+    if (newSize > values.length) {
+      values = new TagValue[Math.max(newSize, 2 * values.length)];
+    }
+    int hash = 1;
+    // Record all the measures in a "Greedy" way.
+    // Every view aggregates every measure. This is similar to doing a GROUPBY view’s keys.
+    for (int i = 0; i < newSize; i++) {
+      TagValueWithMetadata valueWithMetadata = tags.get(columns.get(i));
+      // replace not found key values by null.
+      TagValue value =
+          valueWithMetadata == null
+              ? RecordUtils.UNKNOWN_TAG_VALUE
+              : valueWithMetadata.getTagValue();
+      values[i] = value;
+      hash = 31 * hash + (value == null ? 0 : value.hashCode());
+    }
+    // Don't keep the tag values of the previous recording alive.
+    Arrays.fill(values, newSize, size > newSize ? size : newSize, null);
+    size = newSize;
+    hashCode = hash;
+  }
+
+  /**
+   * Returns a copy of this probe that can be stored as the key of a new time series.
+   *
+   * @return a copy of this probe.
+   */
+  List</*@Nullable*/ TagValue> copy() {
+    List</*@Nullable*/ TagValue> copy = new ArrayList</*@Nullable*/ TagValue>(size);
+    for (int i = 0; i < size; i++) {
+      copy.add(values[i]);
+    }
+    return copy;
+  }
+
+  @Override
+  /*@Nullable*/ public TagValue get(int index) {
+    if (index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+    return values[index];
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public int hashCode() {
+    return hashCode;
+  }
+
+  @Override
+  public boolean equals(/*@Nullable*/ Object obj) {
+    if (obj == this) {
+      return true;
+    }
+    if (!(obj instanceof List)) {
+      return false;
+    }
+    List<?> other = (List<?>) obj;
+    if (!(other instanceof RandomAccess)) {
+      return super.equals(other);
+    }
+    // Compare by index, to avoid allocating iterators. The keys of the maps are ArrayLists.
+    if (other.size() != size) {
+      return false;
+    }
+    for (int i = 0; i < size; i++) {
+      if (!Objects.equal(values[i], other.get(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
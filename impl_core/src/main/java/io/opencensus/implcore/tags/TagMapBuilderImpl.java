@@ -24,22 +24,37 @@ import io.opencensus.tags.TagKey;
 import io.opencensus.tags.TagMetadata;
 import io.opencensus.tags.TagMetadata.TagTtl;
 import io.opencensus.tags.TagValue;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
 
-final class TagMapBuilderImpl extends TagContextBuilder {
+/** Builder for {@link TagMapImpl}s. */
+public final class TagMapBuilderImpl extends TagContextBuilder {
 
   private static final TagMetadata METADATA_UNLIMITED_PROPAGATION =
       TagMetadata.create(TagTtl.UNLIMITED_PROPAGATION);
 
-  private final Map<TagKey, TagValueWithMetadata> tags;
+  private static final int INITIAL_CAPACITY = 8;
 
-  TagMapBuilderImpl(Map<TagKey, TagValueWithMetadata> tags) {
-    this.tags = new HashMap<TagKey, TagValueWithMetadata>(tags);
+  // The keys, sorted like in TagMapImpl, and their values at the same indexes.
+  private TagKey[] keys;
+  private TagValueWithMetadata[] values;
+  private int size;
+
+  TagMapBuilderImpl(TagMapImpl tags) {
+    int tagCount = tags.size();
+    // Leave room for a few more tags, which are usually added to a copy of an existing context.
+    keys = new TagKey[tagCount + INITIAL_CAPACITY / 2];
+    values = new TagValueWithMetadata[keys.length];
+    for (int i = 0; i < tagCount; i++) {
+      keys[i] = tags.getKey(i);
+      values[i] = tags.getValue(i);
+    }
+    size = tagCount;
   }
 
-  TagMapBuilderImpl() {
-    this.tags = new HashMap<TagKey, TagValueWithMetadata>();
+  /** Creates a builder without any tags. */
+  public TagMapBuilderImpl() {
+    keys = new TagKey[INITIAL_CAPACITY];
+    values = new TagValueWithMetadata[INITIAL_CAPACITY];
   }
 
   @Override
@@ -51,22 +66,60 @@ final class TagMapBuilderImpl extends TagContextBuilder {
 
   @Override
   public TagContextBuilder put(TagKey key, TagValue value, TagMetadata tagMetadata) {
-    TagValueWithMetadata valueWithMetadata =
+    return put(
+        key,
         TagValueWithMetadata.create(
-            checkNotNull(value, "value"), checkNotNull(tagMetadata, "tagMetadata"));
-    tags.put(checkNotNull(key, "key"), valueWithMetadata);
+            checkNotNull(value, "value"), checkNotNull(tagMetadata, "tagMetadata")));
+  }
+
+  /**
+   * Adds the key/value pair, with its metadata, regardless of whether the key is present.
+   *
+   * @param key the {@code TagKey} which will be set.
+   * @param valueWithMetadata the value and metadata to set for the given key.
+   * @return this
+   */
+  public TagMapBuilderImpl put(TagKey key, TagValueWithMetadata valueWithMetadata) {
+    checkNotNull(valueWithMetadata, "valueWithMetadata");
+    int index = TagMapImpl.indexOf(keys, size, checkNotNull(key, "key"));
+    if (index >= 0) {
+      values[index] = valueWithMetadata;
+      return this;
+    }
+    int insertionPoint = -(index + 1);
+    if (size == keys.length) {
+      keys = Arrays.copyOf(keys, 2 * size);
+      values = Arrays.copyOf(values, 2 * size);
+    }
+    System.arraycopy(keys, insertionPoint, keys, insertionPoint + 1, size - insertionPoint);
+    System.arraycopy(values, insertionPoint, values, insertionPoint + 1, size - insertionPoint);
+    keys[insertionPoint] = key;
+    values[insertionPoint] = valueWithMetadata;
+    size++;
     return this;
   }
 
   @Override
   public TagMapBuilderImpl remove(TagKey key) {
-    tags.remove(checkNotNull(key, "key"));
+    int index = TagMapImpl.indexOf(keys, size, checkNotNull(key, "key"));
+    if (index >= 0) {
+      System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+      System.arraycopy(values, index + 1, values, index, size - index - 1);
+      size--;
+      keys[size] = null;
+      values[size] = null;
+    }
     return this;
   }
 
   @Override
   public TagMapImpl build() {
-    return new TagMapImpl(tags);
+    if (size == 0) {
+      return TagMapImpl.EMPTY;
+    }
+    // Copy the arrays, since the TagMapImpl takes ownership of them and this builder can still be
+    // modified.
+    return new TagMapImpl(Arrays.copyOf(keys, size), Arrays.copyOf(values, size));
   }
 
   @Override
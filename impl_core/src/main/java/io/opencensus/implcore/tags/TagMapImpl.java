@@ -19,24 +19,42 @@ package io.opencensus.implcore.tags;
 import io.opencensus.tags.Tag;
 import io.opencensus.tags.TagContext;
 import io.opencensus.tags.TagKey;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.Comparator;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.Set;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.Immutable;
 
-/** Implementation of {@link TagContext}. */
+/**
+ * Implementation of {@link TagContext}.
+ *
+ * <p>The tags are kept in two arrays of keys and values, sorted by the (hash codes of the) names of
+ * the keys, so a tag is looked up with a binary search, and two {@code TagMapImpl}s with the same
+ * tags have the same arrays. Contexts usually have only a few tags, for which this is smaller and
+ * faster to create than a hash map. The hash code is computed once, so a {@code TagMapImpl} can be
+ * used as the key of a map.
+ */
 @Immutable
 public final class TagMapImpl extends TagContext {
 
+  private static final TagKey[] EMPTY_KEYS = new TagKey[0];
+  private static final TagValueWithMetadata[] EMPTY_VALUES = new TagValueWithMetadata[0];
+
   /** Empty {@link TagMapImpl} with no tags. */
-  public static final TagMapImpl EMPTY =
-      new TagMapImpl(Collections.<TagKey, TagValueWithMetadata>emptyMap());
+  public static final TagMapImpl EMPTY = new TagMapImpl(EMPTY_KEYS, EMPTY_VALUES);
 
-  // The types of the TagKey and value must match for each entry.
-  private final Map<TagKey, TagValueWithMetadata> tags;
+  // The keys, sorted with compareKeys, and their values at the same indexes. Never modified.
+  private final TagKey[] keys;
+  private final TagValueWithMetadata[] values;
+  private final int hashCode;
+  private final Map<TagKey, TagValueWithMetadata> tags = new TagsView();
 
   /**
    * Creates a new {@link TagMapImpl} with the given tags.
@@ -44,11 +62,51 @@ public final class TagMapImpl extends TagContext {
    * @param tags the initial tags for this {@code TagMapImpl}.
    */
   public TagMapImpl(Map<? extends TagKey, ? extends TagValueWithMetadata> tags) {
-    this.tags = Collections.unmodifiableMap(new HashMap<TagKey, TagValueWithMetadata>(tags));
+    List<Map.Entry<? extends TagKey, ? extends TagValueWithMetadata>> entries =
+        new ArrayList<Map.Entry<? extends TagKey, ? extends TagValueWithMetadata>>(tags.entrySet());
+    Collections.sort(
+        entries,
+        new Comparator<Map.Entry<? extends TagKey, ? extends TagValueWithMetadata>>() {
+          @Override
+          public int compare(
+              Map.Entry<? extends TagKey, ? extends TagValueWithMetadata> entry1,
+              Map.Entry<? extends TagKey, ? extends TagValueWithMetadata> entry2) {
+            return compareKeys(entry1.getKey(), entry2.getKey());
+          }
+        });
+    int size = entries.size();
+    this.keys = new TagKey[size];
+    this.values = new TagValueWithMetadata[size];
+    for (int i = 0; i < size; i++) {
+      keys[i] = entries.get(i).getKey();
+      values[i] = entries.get(i).getValue();
+    }
+    this.hashCode = computeHashCode(keys, values);
+  }
+
+  // Creates a TagMapImpl that takes ownership of the given arrays, which must have the same length
+  // and be sorted with compareKeys, without duplicate keys.
+  TagMapImpl(TagKey[] keys, TagValueWithMetadata[] values) {
+    this.keys = keys;
+    this.values = values;
+    this.hashCode = computeHashCode(keys, values);
+  }
+
+  // Must match TagContext.hashCode(), which sums the hash codes of the tags.
+  private static int computeHashCode(TagKey[] keys, TagValueWithMetadata[] values) {
+    int hashCode = 0;
+    for (int i = 0; i < keys.length; i++) {
+      hashCode += toTag(keys[i], values[i]).hashCode();
+    }
+    return hashCode;
+  }
+
+  private static Tag toTag(TagKey key, TagValueWithMetadata valueWithMetadata) {
+    return Tag.create(key, valueWithMetadata.getTagValue(), valueWithMetadata.getTagMetadata());
   }
 
   /**
-   * Returns the tags of this {@link TagMapImpl}.
+   * Returns the tags of this {@link TagMapImpl}, as an unmodifiable view.
    *
    * @return the tags.
    */
@@ -56,38 +114,130 @@ public final class TagMapImpl extends TagContext {
     return tags;
   }
 
+  /**
+   * Returns the value of the given key, or {@code null} if this {@link TagMapImpl} doesn't have a
+   * tag with the key.
+   *
+   * @param key the key of the tag.
+   * @return the value of the given key, or {@code null}.
+   */
+  @Nullable
+  public TagValueWithMetadata get(TagKey key) {
+    int index = indexOf(keys, keys.length, key);
+    return index >= 0 ? values[index] : null;
+  }
+
+  /**
+   * Returns the number of tags in this {@code TagMapImpl}.
+   *
+   * @return the number of tags.
+   */
+  public int size() {
+    return keys.length;
+  }
+
+  /**
+   * Returns the key of the tag at the given index, between 0 and {@link #size()}. Tags are kept in
+   * an order that only depends on their keys, so it can be used to iterate without allocating.
+   *
+   * @param index the index of the tag.
+   * @return the key of the tag at the given index.
+   */
+  public TagKey getKey(int index) {
+    return keys[index];
+  }
+
+  /**
+   * Returns the value of the tag at the given index, between 0 and {@link #size()}.
+   *
+   * @param index the index of the tag.
+   * @return the value of the tag at the given index.
+   */
+  public TagValueWithMetadata getValue(int index) {
+    return values[index];
+  }
+
+  // Returns the index of the given key in the first size keys, which are sorted with compareKeys,
+  // or (-(insertion point) - 1) if none of them has its name, like Arrays.binarySearch.
+  static int indexOf(TagKey[] keys, int size, TagKey key) {
+    int low = 0;
+    int high = size - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      TagKey midKey = keys[mid];
+      int cmp = midKey == key ? 0 : compareKeys(midKey, key);
+      if (cmp < 0) {
+        low = mid + 1;
+      } else if (cmp > 0) {
+        high = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    return -(low + 1);
+  }
+
+  // The order of the keys: by the hash codes of their names, which are cached by the Strings, and
+  // only then by their names. Keys usually share a prefix, which makes comparing the names slower.
+  private static int compareKeys(TagKey key1, TagKey key2) {
+    String name1 = key1.getName();
+    String name2 = key2.getName();
+    int hash1 = name1.hashCode();
+    int hash2 = name2.hashCode();
+    if (hash1 != hash2) {
+      return hash1 < hash2 ? -1 : 1;
+    }
+    return name1.compareTo(name2);
+  }
+
   @Override
   protected Iterator<Tag> getIterator() {
-    return new TagIterator(tags);
+    return new TagIterator();
   }
 
   @Override
   public boolean equals(@Nullable Object other) {
-    // Directly compare the tags when both objects are TagMapImpls, for efficiency.
+    if (other == this) {
+      return true;
+    }
+    // Directly compare the arrays when both objects are TagMapImpls, for efficiency. Equal tags are
+    // sorted in the same order.
     if (other instanceof TagMapImpl) {
-      return getTags().equals(((TagMapImpl) other).getTags());
+      TagMapImpl otherTags = (TagMapImpl) other;
+      if (hashCode != otherTags.hashCode || keys.length != otherTags.keys.length) {
+        return false;
+      }
+      for (int i = 0; i < keys.length; i++) {
+        if (!keys[i].equals(otherTags.keys[i]) || !values[i].equals(otherTags.values[i])) {
+          return false;
+        }
+      }
+      return true;
     }
     return super.equals(other);
   }
 
-  private static final class TagIterator implements Iterator<Tag> {
-    Iterator<Map.Entry<TagKey, TagValueWithMetadata>> iterator;
+  @Override
+  public int hashCode() {
+    return hashCode;
+  }
 
-    TagIterator(Map<TagKey, TagValueWithMetadata> tags) {
-      iterator = tags.entrySet().iterator();
-    }
+  private final class TagIterator implements Iterator<Tag> {
+    private int index;
 
     @Override
     public boolean hasNext() {
-      return iterator.hasNext();
+      return index < keys.length;
     }
 
     @Override
     public Tag next() {
-      final Entry<TagKey, TagValueWithMetadata> next = iterator.next();
-      TagValueWithMetadata valueWithMetadata = next.getValue();
-      return Tag.create(
-          next.getKey(), valueWithMetadata.getTagValue(), valueWithMetadata.getTagMetadata());
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      Tag tag = toTag(keys[index], values[index]);
+      index++;
+      return tag;
     }
 
     @Override
@@ -95,4 +245,62 @@ public final class TagMapImpl extends TagContext {
       throw new UnsupportedOperationException("TagIterator.remove()");
     }
   }
+
+  // An unmodifiable Map view of the arrays, so that looking up a tag doesn't allocate.
+  private final class TagsView extends AbstractMap<TagKey, TagValueWithMetadata> {
+    @Override
+    public int size() {
+      return keys.length;
+    }
+
+    @Override
+    @Nullable
+    public TagValueWithMetadata get(@Nullable Object key) {
+      return key instanceof TagKey ? TagMapImpl.this.get((TagKey) key) : null;
+    }
+
+    @Override
+    public boolean containsKey(@Nullable Object key) {
+      return get(key) != null;
+    }
+
+    @Override
+    public Set<Map.Entry<TagKey, TagValueWithMetadata>> entrySet() {
+      return new AbstractSet<Map.Entry<TagKey, TagValueWithMetadata>>() {
+        @Override
+        public int size() {
+          return keys.length;
+        }
+
+        @Override
+        public Iterator<Map.Entry<TagKey, TagValueWithMetadata>> iterator() {
+          return new Iterator<Map.Entry<TagKey, TagValueWithMetadata>>() {
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+              return index < keys.length;
+            }
+
+            @Override
+            public Map.Entry<TagKey, TagValueWithMetadata> next() {
+              if (!hasNext()) {
+                throw new NoSuchElementException();
+              }
+              Map.Entry<TagKey, TagValueWithMetadata> entry =
+                  new AbstractMap.SimpleImmutableEntry<TagKey, TagValueWithMetadata>(
+                      keys[index], values[index]);
+              index++;
+              return entry;
+            }
+
+            @Override
+            public void remove() {
+              throw new UnsupportedOperationException("remove");
+            }
+          };
+        }
+      };
+    }
+  }
 }
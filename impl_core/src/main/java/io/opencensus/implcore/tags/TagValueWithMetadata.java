@@ -48,5 +48,10 @@ public abstract class TagValueWithMetadata {
    */
   public abstract TagValue getTagValue();
 
-  abstract TagMetadata getTagMetadata();
+  /**
+   * Returns the {@code TagMetadata}.
+   *
+   * @return the {@code TagMetadata}.
+   */
+  public abstract TagMetadata getTagMetadata();
 }
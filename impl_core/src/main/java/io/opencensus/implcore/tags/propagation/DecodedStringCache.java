@@ -0,0 +1,120 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.implcore.tags.propagation;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * A bounded cache of the objects decoded from the on-the-wire representation of strings, used to
+ * avoid allocating and validating the same tag keys and values on every deserialization.
+ *
+ * <p>The cache is direct-mapped: every encoded string maps to a single slot, and a new entry
+ * replaces the previous entry of its slot. This keeps the memory used by the cache constant, no
+ * matter how many distinct strings are received, while the strings that are received often stay in
+ * the cache.
+ *
+ * @param <T> the type of the decoded objects.
+ */
+@ThreadSafe
+final class DecodedStringCache<T> {
+
+  // Strings longer than this are not cached, to bound the memory used by each entry.
+  static final int MAX_CACHED_LENGTH = 64;
+
+  private final AtomicReferenceArray<Entry<T>> entries;
+  private final int mask;
+
+  /**
+   * Creates a cache with the given number of slots.
+   *
+   * @param size the number of slots, which must be a power of two.
+   */
+  DecodedStringCache(int size) {
+    checkArgument(size > 0 && (size & (size - 1)) == 0, "size must be a power of two.");
+    entries = new AtomicReferenceArray<Entry<T>>(size);
+    mask = size - 1;
+  }
+
+  /**
+   * Returns the object that was decoded from the given bytes, or {@code null} if it is not cached.
+   *
+   * @param bytes the array containing the encoded string.
+   * @param offset the index of the first byte of the encoded string.
+   * @param length the number of bytes of the encoded string.
+   * @return the cached object, or {@code null}.
+   */
+  @Nullable
+  T get(byte[] bytes, int offset, int length) {
+    if (length > MAX_CACHED_LENGTH) {
+      return null;
+    }
+    Entry<T> entry = entries.get(hash(bytes, offset, length) & mask);
+    return entry != null && entry.matches(bytes, offset, length) ? entry.value : null;
+  }
+
+  /**
+   * Caches the object that was decoded from the given bytes.
+   *
+   * @param bytes the array containing the encoded string.
+   * @param offset the index of the first byte of the encoded string.
+   * @param length the number of bytes of the encoded string.
+   * @param value the decoded object.
+   */
+  void put(byte[] bytes, int offset, int length, T value) {
+    if (length > MAX_CACHED_LENGTH) {
+      return;
+    }
+    byte[] copy = new byte[length];
+    System.arraycopy(bytes, offset, copy, 0, length);
+    entries.set(hash(bytes, offset, length) & mask, new Entry<T>(copy, value));
+  }
+
+  private static int hash(byte[] bytes, int offset, int length) {
+    int hash = 1;
+    for (int i = offset; i < offset + length; i++) {
+      hash = 31 * hash + bytes[i];
+    }
+    // Spread the high bits, since only the low bits select the slot.
+    return hash ^ (hash >>> 16);
+  }
+
+  private static final class Entry<T> {
+    private final byte[] bytes;
+    private final T value;
+
+    private Entry(byte[] bytes, T value) {
+      this.bytes = bytes;
+      this.value = value;
+    }
+
+    private boolean matches(byte[] other, int offset, int length) {
+      if (bytes.length != length) {
+        return false;
+      }
+      for (int i = 0; i < length; i++) {
+        if (bytes[i] != other[offset + i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+}
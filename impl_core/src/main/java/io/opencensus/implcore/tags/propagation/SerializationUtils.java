@@ -18,9 +18,8 @@ package io.opencensus.implcore.tags.propagation;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Charsets;
-import com.google.common.io.ByteArrayDataOutput;
-import com.google.common.io.ByteStreams;
 import io.opencensus.implcore.internal.VarInt;
+import io.opencensus.implcore.tags.TagMapBuilderImpl;
 import io.opencensus.implcore.tags.TagMapImpl;
 import io.opencensus.implcore.tags.TagValueWithMetadata;
 import io.opencensus.tags.InternalUtils;
@@ -34,9 +33,7 @@ import io.opencensus.tags.propagation.TagContextDeserializationException;
 import io.opencensus.tags.propagation.TagContextSerializationException;
 import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
-import java.util.HashMap;
 import java.util.Iterator;
-import java.util.Map;
 
 /**
  * Methods for serializing and deserializing {@link TagContext}s.
@@ -65,6 +62,9 @@ import java.util.Map;
  *             </ul>
  *       </ul>
  * </ul>
+ *
+ * <p>Deserialization keeps the recently decoded tag keys and values in bounded caches, so that the
+ * tags that are received on every request are not allocated and validated again.
  */
 final class SerializationUtils {
 
@@ -78,64 +78,166 @@ final class SerializationUtils {
   // This size limit only applies to the bytes representing tag keys and values.
   @VisibleForTesting static final int TAGCONTEXT_SERIALIZED_SIZE_LIMIT = 8192;
 
+  // The number of slots of the caches of decoded tag keys and values. Applications usually use a
+  // few tag keys, with more distinct values.
+  private static final int TAG_KEY_CACHE_SIZE = 256;
+  private static final int TAG_VALUE_CACHE_SIZE = 1024;
+
+  private static final DecodedStringCache<TagKey> tagKeyCache =
+      new DecodedStringCache<TagKey>(TAG_KEY_CACHE_SIZE);
+  // Caches the TagValueWithMetadata, since all the deserialized tags have the same metadata.
+  private static final DecodedStringCache<TagValueWithMetadata> tagValueCache =
+      new DecodedStringCache<TagValueWithMetadata>(TAG_VALUE_CACHE_SIZE);
+
   // Serializes a TagContext to the on-the-wire format.
   // Encoded tags are of the form: <version_id><encoded_tags>
   static byte[] serializeBinary(TagContext tags) throws TagContextSerializationException {
-    // Use a ByteArrayDataOutput to avoid needing to handle IOExceptions.
-    final ByteArrayDataOutput byteArrayDataOutput = ByteStreams.newDataOutput();
-    byteArrayDataOutput.write(VERSION_ID);
+    TagMapImpl tagMap = toTagMapImpl(tags);
+    byte[] bytes = new byte[getSerializedSize(tagMap)];
+    encodeTags(tagMap, ByteBuffer.wrap(bytes));
+    return bytes;
+  }
+
+  // Serializes a TagContext to the on-the-wire format, at the position of the buffer.
+  static void serializeBinary(TagContext tags, ByteBuffer buffer)
+      throws TagContextSerializationException {
+    TagMapImpl tagMap = toTagMapImpl(tags);
+    int size = getSerializedSize(tagMap);
+    if (size > buffer.remaining()) {
+      throw new TagContextSerializationException(
+          "Buffer too small: " + size + " bytes needed, " + buffer.remaining() + " left.");
+    }
+    encodeTags(tagMap, buffer);
+  }
+
+  // Returns the number of bytes of the on-the-wire format of a TagContext.
+  static int getSerializedSize(TagContext tags) throws TagContextSerializationException {
+    return getSerializedSize(toTagMapImpl(tags));
+  }
+
+  private static int getSerializedSize(TagMapImpl tags) throws TagContextSerializationException {
+    int size = 1; // The version ID.
     int totalChars = 0; // Here chars are equivalent to bytes, since we're using ascii chars.
-    for (Iterator<Tag> i = InternalUtils.getTags(tags); i.hasNext(); ) {
-      Tag tag = i.next();
-      if (TagTtl.NO_PROPAGATION.equals(tag.getTagMetadata().getTagTtl())) {
-        continue;
+    for (int i = 0; i < tags.size(); i++) {
+      TagValueWithMetadata value = tags.getValue(i);
+      if (isPropagated(value)) {
+        int keyLength = tags.getKey(i).getName().length();
+        int valueLength = value.getTagValue().asString().length();
+        totalChars += keyLength + valueLength;
+        size +=
+            1 // The field ID.
+                + VarInt.varIntSize(keyLength)
+                + keyLength
+                + VarInt.varIntSize(valueLength)
+                + valueLength;
       }
-      totalChars += tag.getKey().getName().length();
-      totalChars += tag.getValue().asString().length();
-      encodeTag(tag, byteArrayDataOutput);
     }
     if (totalChars > TAGCONTEXT_SERIALIZED_SIZE_LIMIT) {
       throw new TagContextSerializationException(
           "Size of TagContext exceeds the maximum serialized size "
               + TAGCONTEXT_SERIALIZED_SIZE_LIMIT);
     }
-    return byteArrayDataOutput.toByteArray();
+    return size;
+  }
+
+  // Iterating on the arrays of a TagMapImpl doesn't allocate any Tag. Other implementations are
+  // copied, which also sorts their tags like in TagMapImpl.
+  private static TagMapImpl toTagMapImpl(TagContext tags) {
+    if (tags instanceof TagMapImpl) {
+      return (TagMapImpl) tags;
+    }
+    TagMapBuilderImpl builder = new TagMapBuilderImpl();
+    for (Iterator<Tag> i = InternalUtils.getTags(tags); i.hasNext(); ) {
+      Tag tag = i.next();
+      builder.put(tag.getKey(), tag.getValue(), tag.getTagMetadata());
+    }
+    return builder.build();
+  }
+
+  private static boolean isPropagated(TagValueWithMetadata value) {
+    return !TagTtl.NO_PROPAGATION.equals(value.getTagMetadata().getTagTtl());
+  }
+
+  private static void encodeTags(TagMapImpl tags, ByteBuffer buffer) {
+    buffer.put((byte) VERSION_ID);
+    for (int i = 0; i < tags.size(); i++) {
+      TagValueWithMetadata value = tags.getValue(i);
+      if (isPropagated(value)) {
+        buffer.put((byte) TAG_FIELD_ID);
+        encodeString(tags.getKey(i).getName(), buffer);
+        encodeString(value.getTagValue().asString(), buffer);
+      }
+    }
+  }
+
+  private static void encodeString(String input, ByteBuffer buffer) {
+    VarInt.putVarInt(input.length(), buffer);
+    // Tag keys and values only contain printable ascii chars, which are encoded in a single byte.
+    for (int i = 0; i < input.length(); i++) {
+      buffer.put((byte) input.charAt(i));
+    }
   }
 
   // Deserializes input to TagContext based on the binary format standard.
   // The encoded tags are of the form: <version_id><encoded_tags>
   static TagMapImpl deserializeBinary(byte[] bytes) throws TagContextDeserializationException {
+    return deserializeBinary(bytes, 0, bytes.length);
+  }
+
+  // Deserializes the given range of the input array.
+  static TagMapImpl deserializeBinary(byte[] bytes, int offset, int length)
+      throws TagContextDeserializationException {
     try {
-      if (bytes.length == 0) {
+      if (length == 0) {
         // Does not allow empty byte array.
         throw new TagContextDeserializationException("Input byte[] can not be empty.");
       }
 
-      ByteBuffer buffer = ByteBuffer.wrap(bytes).asReadOnlyBuffer();
+      // The buffer is only used to keep track of the position, strings are decoded from its array.
+      ByteBuffer buffer = ByteBuffer.wrap(bytes, offset, length);
       int versionId = buffer.get();
       if (versionId > VERSION_ID || versionId < 0) {
         throw new TagContextDeserializationException(
             "Wrong Version ID: " + versionId + ". Currently supports version up to: " + VERSION_ID);
       }
-      return new TagMapImpl(parseTags(buffer));
+      return parseTags(buffer);
     } catch (BufferUnderflowException exn) {
       throw new TagContextDeserializationException(exn.toString()); // byte array format error.
     }
   }
 
-  private static Map<TagKey, TagValueWithMetadata> parseTags(ByteBuffer buffer)
-      throws TagContextDeserializationException {
-    Map<TagKey, TagValueWithMetadata> tags = new HashMap<TagKey, TagValueWithMetadata>();
+  // Deserializes the bytes between the position and the limit of the buffer, and moves its position
+  // to its limit.
+  static TagMapImpl deserializeBinary(ByteBuffer buffer) throws TagContextDeserializationException {
+    TagMapImpl tags;
+    if (buffer.hasArray()) {
+      tags =
+          deserializeBinary(
+              buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+    } else {
+      // Direct and read-only buffers don't give access to their content without a copy.
+      byte[] bytes = new byte[buffer.remaining()];
+      buffer.duplicate().get(bytes);
+      tags = deserializeBinary(bytes);
+    }
+    buffer.position(buffer.limit());
+    return tags;
+  }
+
+  private static TagMapImpl parseTags(ByteBuffer buffer) throws TagContextDeserializationException {
+    TagMapBuilderImpl tags = new TagMapBuilderImpl();
     int limit = buffer.limit();
     int totalChars = 0; // Here chars are equivalent to bytes, since we're using ascii chars.
     while (buffer.position() < limit) {
       int type = buffer.get();
       if (type == TAG_FIELD_ID) {
-        TagKey key = createTagKey(decodeString(buffer));
-        TagValue val = createTagValue(key, decodeString(buffer));
-        totalChars += key.getName().length();
-        totalChars += val.asString().length();
-        tags.put(key, TagValueWithMetadata.create(val, METADATA_UNLIMITED_PROPAGATION));
+        int keyLength = decodeLength(buffer);
+        TagKey key = decodeTagKey(buffer, keyLength);
+        int valueLength = decodeLength(buffer);
+        TagValueWithMetadata val = decodeTagValue(buffer, valueLength, key);
+        totalChars += keyLength;
+        totalChars += valueLength;
+        tags.put(key, val);
       } else {
         // Stop parsing at the first unknown field ID, since there is no way to know its length.
         // TODO(sebright): Consider storing the rest of the byte array in the TagContext.
@@ -147,7 +249,48 @@ final class SerializationUtils {
           "Size of TagContext exceeds the maximum serialized size "
               + TAGCONTEXT_SERIALIZED_SIZE_LIMIT);
     }
-    return tags;
+    return tags.build();
+  }
+
+  // Reads the length of a string, and checks that the string is in the buffer.
+  private static int decodeLength(ByteBuffer buffer) throws TagContextDeserializationException {
+    int length = VarInt.getVarInt(buffer);
+    if (length < 0) {
+      throw new TagContextDeserializationException("Invalid string length: " + length);
+    }
+    if (length > buffer.remaining()) {
+      throw new BufferUnderflowException();
+    }
+    return length;
+  }
+
+  private static TagKey decodeTagKey(ByteBuffer buffer, int length)
+      throws TagContextDeserializationException {
+    byte[] bytes = buffer.array();
+    int offset = buffer.arrayOffset() + buffer.position();
+    buffer.position(buffer.position() + length);
+    TagKey key = tagKeyCache.get(bytes, offset, length);
+    if (key == null) {
+      key = createTagKey(decodeString(bytes, offset, length));
+      tagKeyCache.put(bytes, offset, length, key);
+    }
+    return key;
+  }
+
+  private static TagValueWithMetadata decodeTagValue(ByteBuffer buffer, int length, TagKey key)
+      throws TagContextDeserializationException {
+    byte[] bytes = buffer.array();
+    int offset = buffer.arrayOffset() + buffer.position();
+    buffer.position(buffer.position() + length);
+    TagValueWithMetadata value = tagValueCache.get(bytes, offset, length);
+    if (value == null) {
+      value =
+          TagValueWithMetadata.create(
+              createTagValue(key, decodeString(bytes, offset, length)),
+              METADATA_UNLIMITED_PROPAGATION);
+      tagValueCache.put(bytes, offset, length, value);
+    }
+    return value;
   }
 
   // TODO(sebright): Consider exposing a TagKey name validation method to avoid needing to catch an
@@ -172,29 +315,9 @@ final class SerializationUtils {
     }
   }
 
-  private static final void encodeTag(Tag tag, ByteArrayDataOutput byteArrayDataOutput) {
-    byteArrayDataOutput.write(TAG_FIELD_ID);
-    encodeString(tag.getKey().getName(), byteArrayDataOutput);
-    encodeString(tag.getValue().asString(), byteArrayDataOutput);
-  }
-
-  private static final void encodeString(String input, ByteArrayDataOutput byteArrayDataOutput) {
-    putVarInt(input.length(), byteArrayDataOutput);
-    byteArrayDataOutput.write(input.getBytes(Charsets.UTF_8));
-  }
-
-  private static final void putVarInt(int input, ByteArrayDataOutput byteArrayDataOutput) {
-    byte[] output = new byte[VarInt.varIntSize(input)];
-    VarInt.putVarInt(input, output, 0);
-    byteArrayDataOutput.write(output);
-  }
-
-  private static final String decodeString(ByteBuffer buffer) {
-    int length = VarInt.getVarInt(buffer);
-    StringBuilder builder = new StringBuilder();
-    for (int i = 0; i < length; i++) {
-      builder.append((char) buffer.get());
-    }
-    return builder.toString();
+  // Each byte is decoded as a single char, so that non-ascii bytes are rejected by the validation
+  // of the tag keys and values.
+  private static final String decodeString(byte[] bytes, int offset, int length) {
+    return new String(bytes, offset, length, Charsets.ISO_8859_1);
   }
 }
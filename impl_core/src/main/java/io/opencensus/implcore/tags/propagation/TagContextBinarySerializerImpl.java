@@ -16,6 +16,9 @@
 
 package io.opencensus.implcore.tags.propagation;
 
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkPositionIndexes;
+
 import io.opencensus.implcore.internal.CurrentState;
 import io.opencensus.implcore.internal.CurrentState.State;
 import io.opencensus.implcore.tags.TagMapImpl;
@@ -23,6 +26,7 @@ import io.opencensus.tags.TagContext;
 import io.opencensus.tags.propagation.TagContextBinarySerializer;
 import io.opencensus.tags.propagation.TagContextDeserializationException;
 import io.opencensus.tags.propagation.TagContextSerializationException;
+import java.nio.ByteBuffer;
 
 final class TagContextBinarySerializerImpl extends TagContextBinarySerializer {
   private static final byte[] EMPTY_BYTE_ARRAY = {};
@@ -46,4 +50,38 @@ final class TagContextBinarySerializerImpl extends TagContextBinarySerializer {
         ? TagMapImpl.EMPTY
         : SerializationUtils.deserializeBinary(bytes);
   }
+
+  @Override
+  public int getSerializedSize(TagContext tags) throws TagContextSerializationException {
+    return state.getInternal() == State.DISABLED
+        ? EMPTY_BYTE_ARRAY.length
+        : SerializationUtils.getSerializedSize(tags);
+  }
+
+  @Override
+  public void writeTo(TagContext tags, ByteBuffer buffer) throws TagContextSerializationException {
+    checkNotNull(buffer, "buffer");
+    if (state.getInternal() != State.DISABLED) {
+      SerializationUtils.serializeBinary(tags, buffer);
+    }
+  }
+
+  @Override
+  public TagContext fromByteArray(byte[] bytes, int offset, int length)
+      throws TagContextDeserializationException {
+    checkPositionIndexes(offset, offset + length, checkNotNull(bytes, "bytes").length);
+    return state.getInternal() == State.DISABLED
+        ? TagMapImpl.EMPTY
+        : SerializationUtils.deserializeBinary(bytes, offset, length);
+  }
+
+  @Override
+  public TagContext fromByteBuffer(ByteBuffer buffer) throws TagContextDeserializationException {
+    checkNotNull(buffer, "buffer");
+    if (state.getInternal() == State.DISABLED) {
+      buffer.position(buffer.limit());
+      return TagMapImpl.EMPTY;
+    }
+    return SerializationUtils.deserializeBinary(buffer);
+  }
 }
@@ -21,7 +21,6 @@ import static com.google.common.base.Preconditions.checkState;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
-import com.google.common.collect.EvictingQueue;
 import io.opencensus.common.Clock;
 import io.opencensus.implcore.internal.TimestampConverter;
 import io.opencensus.implcore.trace.internal.ConcurrentIntrusiveList.Element;
@@ -43,14 +42,25 @@ import java.util.EnumSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.Immutable;
 import javax.annotation.concurrent.ThreadSafe;
 
 // TODO(hailongwen): remove the usage of `NetworkEvent` in the future.
-/** Implementation for the {@link Span} class that records trace events. */
+/**
+ * Implementation for the {@link Span} class that records trace events.
+ *
+ * <p>Recording an event doesn't take any lock, so that a span can be shared by many threads without
+ * contention. Events are appended to fixed capacity logs, which keep the most recent events.
+ * Attributes are the exception: they need a map that evicts the least recently put keys, which is
+ * guarded by a lock of its own, so that they don't contend with the other events.
+ */
 @ThreadSafe
 public final class RecordEventsSpanImpl extends Span implements Element<RecordEventsSpanImpl> {
   private static final Logger logger = Logger.getLogger(Tracer.class.getName());
@@ -77,38 +87,29 @@ public final class RecordEventsSpanImpl extends Span implements Element<RecordEv
   private final TimestampConverter timestampConverter;
   // The start time of the span.
   private final long startNanoTime;
+  // Guards the recorded attributes. A key that is put again is updated instead of evicting other
+  // keys, which an append-only log can't do, so they are kept in a map behind a lock of their own.
+  private final Object attributesLock = new Object();
   // Set of recorded attributes. DO NOT CALL any other method that changes the ordering of events.
-  @GuardedBy("this")
+  @GuardedBy("attributesLock")
   @Nullable
   private AttributesWithCapacity attributes;
-  // List of recorded annotations.
-  @GuardedBy("this")
-  @Nullable
-  private TraceEvents<EventWithNanoTime<Annotation>> annotations;
-  // List of recorded network events.
-  @GuardedBy("this")
-  @Nullable
-  private TraceEvents<EventWithNanoTime<io.opencensus.trace.MessageEvent>> messageEvents;
-  // List of recorded links to parent and child spans.
-  @GuardedBy("this")
-  @Nullable
-  private TraceEvents<Link> links;
+  // Log of the recorded annotations.
+  private final AtomicReference<TraceEvents<EventWithNanoTime<Annotation>>> annotations =
+      new AtomicReference<TraceEvents<EventWithNanoTime<Annotation>>>();
+  // Log of the recorded network events.
+  private final AtomicReference<TraceEvents<EventWithNanoTime<io.opencensus.trace.MessageEvent>>>
+      messageEvents =
+          new AtomicReference<TraceEvents<EventWithNanoTime<io.opencensus.trace.MessageEvent>>>();
+  // Log of the recorded links to parent and child spans. Links are not timed, their time is 0.
+  private final AtomicReference<TraceEvents<EventWithNanoTime<Link>>> links =
+      new AtomicReference<TraceEvents<EventWithNanoTime<Link>>>();
   // The number of children.
-  @GuardedBy("this")
-  private int numberOfChildren;
+  private final AtomicInteger numberOfChildren = new AtomicInteger();
   // The status of the span.
-  @GuardedBy("this")
-  @Nullable
-  private Status status;
-  // The end time of the span.
-  @GuardedBy("this")
-  private long endNanoTime;
-  // True if the span is ended.
-  @GuardedBy("this")
-  private boolean hasBeenEnded;
-
-  @GuardedBy("this")
-  private boolean sampleToLocalSpanStore;
+  @Nullable private volatile Status status;
+  // The end time, status and options of the span. Null until the span is ended.
+  private final AtomicReference<EndState> endState = new AtomicReference<EndState>();
 
   // Pointers for the ConcurrentIntrusiveList$Element. Guarded by the ConcurrentIntrusiveList.
   @Nullable private RecordEventsSpanImpl next = null;
@@ -173,9 +174,8 @@ public final class RecordEventsSpanImpl extends Span implements Element<RecordEv
    * @return the status of the {@code Span}.
    */
   public Status getStatus() {
-    synchronized (this) {
-      return getStatusWithDefault();
-    }
+    EndState ended = endState.get();
+    return ended != null ? ended.status : getStatusWithDefault();
   }
 
   /**
@@ -185,9 +185,8 @@ public final class RecordEventsSpanImpl extends Span implements Element<RecordEv
    * @return the end nano time.
    */
   public long getEndNanoTime() {
-    synchronized (this) {
-      return hasBeenEnded ? endNanoTime : clock.nowNanos();
-    }
+    EndState ended = endState.get();
+    return ended != null ? ended.endNanoTime : clock.nowNanos();
   }
 
   /**
@@ -197,9 +196,7 @@ public final class RecordEventsSpanImpl extends Span implements Element<RecordEv
    * @return the latency of the {@code Span} in nanos.
    */
   public long getLatencyNs() {
-    synchronized (this) {
-      return hasBeenEnded ? endNanoTime - startNanoTime : clock.nowNanos() - startNanoTime;
-    }
+    return getEndNanoTime() - startNanoTime;
   }
 
   /**
@@ -208,10 +205,9 @@ public final class RecordEventsSpanImpl extends Span implements Element<RecordEv
    * @return if the name of this {@code Span} must be register to the {@code SampledSpanStore}.
    */
   public boolean getSampleToLocalSpanStore() {
-    synchronized (this) {
-      checkState(hasBeenEnded, "Running span does not have the SampleToLocalSpanStore set.");
-      return sampleToLocalSpanStore;
-    }
+    EndState ended = endState.get();
+    checkState(ended != null, "Running span does not have the SampleToLocalSpanStore set.");
+    return ended.sampleToLocalSpanStore;
   }
 
   /**
@@ -237,50 +233,40 @@ public final class RecordEventsSpanImpl extends Span implements Element<RecordEv
   /**
    * Returns an immutable representation of all the data from this {@code Span}.
    *
+   * <p>The result is a consistent snapshot: it contains the events that were completely recorded
+   * when it was taken, and the dropped counts don't include these events.
+   *
    * @return an immutable representation of all the data from this {@code Span}.
    * @throws IllegalStateException if the Span doesn't have RECORD_EVENTS option.
    */
   public SpanData toSpanData() {
-    synchronized (this) {
-      SpanData.Attributes attributesSpanData =
-          attributes == null
-              ? SpanData.Attributes.create(Collections.<String, AttributeValue>emptyMap(), 0)
-              : SpanData.Attributes.create(attributes, attributes.getNumberOfDroppedAttributes());
-      SpanData.TimedEvents<Annotation> annotationsSpanData =
-          createTimedEvents(getInitializedAnnotations(), timestampConverter);
-      SpanData.TimedEvents<io.opencensus.trace.MessageEvent> messageEventsSpanData =
-          createTimedEvents(getInitializedNetworkEvents(), timestampConverter);
-      SpanData.Links linksSpanData =
-          links == null
-              ? SpanData.Links.create(Collections.<Link>emptyList(), 0)
-              : SpanData.Links.create(
-                  new ArrayList<Link>(links.events), links.getNumberOfDroppedEvents());
-      return SpanData.create(
-          getContext(),
-          parentSpanId,
-          hasRemoteParent,
-          name,
-          kind,
-          timestampConverter.convertNanoTime(startNanoTime),
-          attributesSpanData,
-          annotationsSpanData,
-          messageEventsSpanData,
-          linksSpanData,
-          numberOfChildren,
-          hasBeenEnded ? getStatusWithDefault() : null,
-          hasBeenEnded ? timestampConverter.convertNanoTime(endNanoTime) : null);
-    }
+    // Read the end state first, so that an ended span includes all the events recorded before end.
+    EndState ended = endState.get();
+    return SpanData.create(
+        getContext(),
+        parentSpanId,
+        hasRemoteParent,
+        name,
+        kind,
+        timestampConverter.convertNanoTime(startNanoTime),
+        createAttributes(),
+        createTimedEvents(annotations.get(), timestampConverter),
+        createTimedEvents(messageEvents.get(), timestampConverter),
+        createLinks(links.get()),
+        numberOfChildren.get(),
+        ended != null ? ended.status : null,
+        ended != null ? timestampConverter.convertNanoTime(ended.endNanoTime) : null);
   }
 
   @Override
   public void putAttribute(String key, AttributeValue value) {
     Preconditions.checkNotNull(key, "key");
     Preconditions.checkNotNull(value, "value");
-    synchronized (this) {
-      if (hasBeenEnded) {
-        logger.log(Level.FINE, "Calling putAttributes() on an ended Span.");
-        return;
-      }
+    if (hasBeenEnded()) {
+      logger.log(Level.FINE, "Calling putAttributes() on an ended Span.");
+      return;
+    }
+    synchronized (attributesLock) {
       getInitializedAttributes().putAttribute(key, value);
     }
   }
@@ -288,11 +274,11 @@ public final class RecordEventsSpanImpl extends Span implements Element<RecordEv
   @Override
   public void putAttributes(Map<String, AttributeValue> attributes) {
     Preconditions.checkNotNull(attributes, "attributes");
-    synchronized (this) {
-      if (hasBeenEnded) {
-        logger.log(Level.FINE, "Calling putAttributes() on an ended Span.");
-        return;
-      }
+    if (hasBeenEnded()) {
+      logger.log(Level.FINE, "Calling putAttributes() on an ended Span.");
+      return;
+    }
+    synchronized (attributesLock) {
       getInitializedAttributes().putAttributes(attributes);
     }
   }
@@ -301,100 +287,93 @@ public final class RecordEventsSpanImpl extends Span implements Element<RecordEv
   public void addAnnotation(String description, Map<String, AttributeValue> attributes) {
     Preconditions.checkNotNull(description, "description");
     Preconditions.checkNotNull(attributes, "attribute");
-    synchronized (this) {
-      if (hasBeenEnded) {
-        logger.log(Level.FINE, "Calling addAnnotation() on an ended Span.");
-        return;
-      }
-      getInitializedAnnotations()
-          .addEvent(
-              new EventWithNanoTime<Annotation>(
-                  clock.nowNanos(),
-                  Annotation.fromDescriptionAndAttributes(description, attributes)));
+    if (hasBeenEnded()) {
+      logger.log(Level.FINE, "Calling addAnnotation() on an ended Span.");
+      return;
     }
+    addTimedEvent(
+        getInitializedEvents(annotations, traceParams.getMaxNumberOfAnnotations()),
+        Annotation.fromDescriptionAndAttributes(description, attributes));
   }
 
   @Override
   public void addAnnotation(Annotation annotation) {
     Preconditions.checkNotNull(annotation, "annotation");
-    synchronized (this) {
-      if (hasBeenEnded) {
-        logger.log(Level.FINE, "Calling addAnnotation() on an ended Span.");
-        return;
-      }
-      getInitializedAnnotations()
-          .addEvent(new EventWithNanoTime<Annotation>(clock.nowNanos(), annotation));
+    if (hasBeenEnded()) {
+      logger.log(Level.FINE, "Calling addAnnotation() on an ended Span.");
+      return;
     }
+    addTimedEvent(
+        getInitializedEvents(annotations, traceParams.getMaxNumberOfAnnotations()), annotation);
   }
 
   @Override
   public void addMessageEvent(io.opencensus.trace.MessageEvent messageEvent) {
     Preconditions.checkNotNull(messageEvent, "messageEvent");
-    synchronized (this) {
-      if (hasBeenEnded) {
-        logger.log(Level.FINE, "Calling addNetworkEvent() on an ended Span.");
-        return;
-      }
-      getInitializedNetworkEvents()
-          .addEvent(
-              new EventWithNanoTime<io.opencensus.trace.MessageEvent>(
-                  clock.nowNanos(), checkNotNull(messageEvent, "networkEvent")));
+    if (hasBeenEnded()) {
+      logger.log(Level.FINE, "Calling addNetworkEvent() on an ended Span.");
+      return;
     }
+    addTimedEvent(
+        getInitializedEvents(messageEvents, traceParams.getMaxNumberOfMessageEvents()),
+        checkNotNull(messageEvent, "networkEvent"));
   }
 
   @Override
   public void addLink(Link link) {
     Preconditions.checkNotNull(link, "link");
-    synchronized (this) {
-      if (hasBeenEnded) {
-        logger.log(Level.FINE, "Calling addLink() on an ended Span.");
-        return;
-      }
-      getInitializedLinks().addEvent(link);
+    if (hasBeenEnded()) {
+      logger.log(Level.FINE, "Calling addLink() on an ended Span.");
+      return;
     }
+    TraceEvents<EventWithNanoTime<Link>> initializedLinks =
+        getInitializedEvents(links, traceParams.getMaxNumberOfLinks());
+    initializedLinks.addEvent(
+        new EventWithNanoTime<Link>(initializedLinks.nextSequence(), /*nanoTime=*/ 0, link));
   }
 
   @Override
   public void setStatus(Status status) {
     Preconditions.checkNotNull(status, "status");
-    synchronized (this) {
-      if (hasBeenEnded) {
-        logger.log(Level.FINE, "Calling setStatus() on an ended Span.");
-        return;
-      }
-      this.status = status;
+    if (hasBeenEnded()) {
+      logger.log(Level.FINE, "Calling setStatus() on an ended Span.");
+      return;
     }
+    this.status = status;
   }
 
   @Override
   public void end(EndSpanOptions options) {
     Preconditions.checkNotNull(options, "options");
-    synchronized (this) {
-      if (hasBeenEnded) {
-        logger.log(Level.FINE, "Calling end() on an ended Span.");
-        return;
-      }
-      if (options.getStatus() != null) {
-        status = options.getStatus();
-      }
-      sampleToLocalSpanStore = options.getSampleToLocalSpanStore();
-      endNanoTime = clock.nowNanos();
-      hasBeenEnded = true;
+    if (hasBeenEnded()) {
+      logger.log(Level.FINE, "Calling end() on an ended Span.");
+      return;
+    }
+    EndState ended =
+        new EndState(
+            options.getStatus() != null ? options.getStatus() : getStatusWithDefault(),
+            clock.nowNanos(),
+            options.getSampleToLocalSpanStore());
+    if (!endState.compareAndSet(null, ended)) {
+      logger.log(Level.FINE, "Calling end() on an ended Span.");
+      return;
     }
     startEndHandler.onEnd(this);
   }
 
   void addChild() {
-    synchronized (this) {
-      if (hasBeenEnded) {
-        logger.log(Level.FINE, "Calling end() on an ended Span.");
-        return;
-      }
-      numberOfChildren++;
+    if (hasBeenEnded()) {
+      logger.log(Level.FINE, "Calling end() on an ended Span.");
+      return;
     }
+    numberOfChildren.incrementAndGet();
+  }
+
+  private boolean hasBeenEnded() {
+    return endState.get() != null;
   }
 
-  @GuardedBy("this")
+  @GuardedBy("attributesLock")
   private AttributesWithCapacity getInitializedAttributes() {
     if (attributes == null) {
       attributes = new AttributesWithCapacity(traceParams.getMaxNumberOfAttributes());
@@ -402,49 +381,65 @@ public final class RecordEventsSpanImpl extends Span implements Element<RecordEv
     return attributes;
   }
 
-  @GuardedBy("this")
-  private TraceEvents<EventWithNanoTime<Annotation>> getInitializedAnnotations() {
-    if (annotations == null) {
-      annotations =
-          new TraceEvents<EventWithNanoTime<Annotation>>(traceParams.getMaxNumberOfAnnotations());
+  private SpanData.Attributes createAttributes() {
+    synchronized (attributesLock) {
+      // SpanData.Attributes copies the map, so the result doesn't change after the lock is
+      // released.
+      return attributes == null
+          ? SpanData.Attributes.create(Collections.<String, AttributeValue>emptyMap(), 0)
+          : SpanData.Attributes.create(attributes, attributes.getNumberOfDroppedAttributes());
     }
-    return annotations;
   }
 
-  @GuardedBy("this")
-  private TraceEvents<EventWithNanoTime<io.opencensus.trace.MessageEvent>>
-      getInitializedNetworkEvents() {
-    if (messageEvents == null) {
-      messageEvents =
-          new TraceEvents<EventWithNanoTime<io.opencensus.trace.MessageEvent>>(
-              traceParams.getMaxNumberOfMessageEvents());
-    }
-    return messageEvents;
+  private <T> void addTimedEvent(TraceEvents<EventWithNanoTime<T>> events, T event) {
+    events.addEvent(new EventWithNanoTime<T>(events.nextSequence(), clock.nowNanos(), event));
   }
 
-  @GuardedBy("this")
-  private TraceEvents<Link> getInitializedLinks() {
-    if (links == null) {
-      links = new TraceEvents<Link>(traceParams.getMaxNumberOfLinks());
+  // Creates the log the first time an event is recorded, since most spans don't record all the
+  // kinds of events.
+  private static <T extends SequencedEvent> TraceEvents<T> getInitializedEvents(
+      AtomicReference<TraceEvents<T>> reference, int maxNumEvents) {
+    TraceEvents<T> events = reference.get();
+    if (events == null) {
+      events = new TraceEvents<T>(maxNumEvents);
+      if (!reference.compareAndSet(null, events)) {
+        // Another thread created the log first.
+        events = reference.get();
+      }
     }
-    return links;
+    return events;
   }
 
-  @GuardedBy("this")
   private Status getStatusWithDefault() {
-    return status == null ? Status.OK : status;
+    Status currentStatus = status;
+    return currentStatus == null ? Status.OK : currentStatus;
   }
 
   private static <T> SpanData.TimedEvents<T> createTimedEvents(
-      TraceEvents<EventWithNanoTime<T>> events, TimestampConverter timestampConverter) {
+      @Nullable TraceEvents<EventWithNanoTime<T>> events, TimestampConverter timestampConverter) {
     if (events == null) {
       return SpanData.TimedEvents.create(Collections.<TimedEvent<T>>emptyList(), 0);
     }
-    List<TimedEvent<T>> eventsList = new ArrayList<TimedEvent<T>>(events.events.size());
-    for (EventWithNanoTime<T> networkEvent : events.events) {
+    int totalRecordedEvents = events.getTotalRecordedEvents();
+    List<EventWithNanoTime<T>> recordedEvents = events.getEvents(totalRecordedEvents);
+    List<TimedEvent<T>> eventsList = new ArrayList<TimedEvent<T>>(recordedEvents.size());
+    for (EventWithNanoTime<T> networkEvent : recordedEvents) {
       eventsList.add(networkEvent.toSpanDataTimedEvent(timestampConverter));
     }
-    return SpanData.TimedEvents.create(eventsList, events.getNumberOfDroppedEvents());
+    return SpanData.TimedEvents.create(eventsList, totalRecordedEvents - eventsList.size());
+  }
+
+  private static SpanData.Links createLinks(@Nullable TraceEvents<EventWithNanoTime<Link>> links) {
+    if (links == null) {
+      return SpanData.Links.create(Collections.<Link>emptyList(), 0);
+    }
+    int totalRecordedLinks = links.getTotalRecordedEvents();
+    List<EventWithNanoTime<Link>> recordedLinks = links.getEvents(totalRecordedLinks);
+    List<Link> linksList = new ArrayList<Link>(recordedLinks.size());
+    for (EventWithNanoTime<Link> link : recordedLinks) {
+      linksList.add(link.event);
+    }
+    return SpanData.Links.create(linksList, totalRecordedLinks - linksList.size());
   }
 
   @Override
@@ -485,8 +480,76 @@ public final class RecordEventsSpanImpl extends Span implements Element<RecordEv
     void onEnd(RecordEventsSpanImpl span);
   }
 
-  // A map implementation with a fixed capacity that drops events when the map gets full. Eviction
-  // is based on the access order.
+  // An append-only log with a fixed capacity, that keeps the most recent events when it gets full.
+  // Every event gets a sequence number from an atomic counter, which also selects its slot in a
+  // ring buffer, so adding an event never takes a lock.
+  private static final class TraceEvents<T extends SequencedEvent> {
+    private final AtomicInteger totalRecordedEvents = new AtomicInteger();
+    private final AtomicReferenceArray<T> events;
+
+    TraceEvents(int maxNumEvents) {
+      events = new AtomicReferenceArray<T>(maxNumEvents);
+    }
+
+    // Returns the sequence number of a new event, which must then be added with addEvent.
+    int nextSequence() {
+      return totalRecordedEvents.getAndIncrement();
+    }
+
+    void addEvent(T event) {
+      events.set(slot(event.sequence), event);
+    }
+
+    int getTotalRecordedEvents() {
+      return totalRecordedEvents.get();
+    }
+
+    // Returns the events that were completely recorded among the first totalRecordedEvents, oldest
+    // first. A slot may still hold an older event, or already hold a newer one, when another thread
+    // is adding an event: such a slot is skipped, and its event counts as dropped.
+    List<T> getEvents(int totalRecordedEvents) {
+      int first = Math.max(0, totalRecordedEvents - events.length());
+      List<T> result = new ArrayList<T>(totalRecordedEvents - first);
+      for (int sequence = first; sequence < totalRecordedEvents; sequence++) {
+        T event = events.get(slot(sequence));
+        if (event != null && event.sequence == sequence) {
+          result.add(event);
+        }
+      }
+      return result;
+    }
+
+    private int slot(int sequence) {
+      // Clear the sign bit, so that the slot stays positive if the sequence overflows.
+      return (sequence & Integer.MAX_VALUE) % events.length();
+    }
+  }
+
+  // An event with its sequence number in its TraceEvents.
+  private abstract static class SequencedEvent {
+    final int sequence;
+
+    private SequencedEvent(int sequence) {
+      this.sequence = sequence;
+    }
+  }
+
+  // Timed event that uses nanoTime to represent the Timestamp.
+  private static final class EventWithNanoTime<T> extends SequencedEvent {
+    private final long nanoTime;
+    private final T event;
+
+    private EventWithNanoTime(int sequence, long nanoTime, T event) {
+      super(sequence);
+      this.nanoTime = nanoTime;
+      this.event = event;
+    }
+
+    private TimedEvent<T> toSpanDataTimedEvent(TimestampConverter timestampConverter) {
+      return TimedEvent.create(timestampConverter.convertNanoTime(nanoTime), event);
+    }
+  }
+
   private static final class AttributesWithCapacity extends LinkedHashMap<String, AttributeValue> {
     private final int capacity;
     private int totalRecordedAttributes = 0;
@@ -528,36 +591,17 @@ public final class RecordEventsSpanImpl extends Span implements Element<RecordEv
     }
   }
 
-  private static final class TraceEvents<T> {
-    private int totalRecordedEvents = 0;
-    private final EvictingQueue<T> events;
-
-    private int getNumberOfDroppedEvents() {
-      return totalRecordedEvents - events.size();
-    }
-
-    TraceEvents(int maxNumEvents) {
-      events = EvictingQueue.create(maxNumEvents);
-    }
-
-    void addEvent(T event) {
-      totalRecordedEvents++;
-      events.add(event);
-    }
-  }
+  // The state of an ended span, which is published at once when the span ends.
+  @Immutable
+  private static final class EndState {
+    private final Status status;
+    private final long endNanoTime;
+    private final boolean sampleToLocalSpanStore;
 
-  // Timed event that uses nanoTime to represent the Timestamp.
-  private static final class EventWithNanoTime<T> {
-    private final long nanoTime;
-    private final T event;
-
-    private EventWithNanoTime(long nanoTime, T event) {
-      this.nanoTime = nanoTime;
-      this.event = event;
-    }
-
-    private TimedEvent<T> toSpanDataTimedEvent(TimestampConverter timestampConverter) {
-      return TimedEvent.create(timestampConverter.convertNanoTime(nanoTime), event);
+    private EndState(Status status, long endNanoTime, boolean sampleToLocalSpanStore) {
+      this.status = status;
+      this.endNanoTime = endNanoTime;
+      this.sampleToLocalSpanStore = sampleToLocalSpanStore;
     }
   }
 
@@ -579,9 +623,6 @@ public final class RecordEventsSpanImpl extends Span implements Element<RecordEv
     this.traceParams = traceParams;
     this.startEndHandler = startEndHandler;
     this.clock = clock;
-    this.hasBeenEnded = false;
-    this.sampleToLocalSpanStore = false;
-    this.numberOfChildren = 0;
     this.timestampConverter =
         timestampConverter != null ? timestampConverter : TimestampConverter.now(clock);
     startNanoTime = clock.nowNanos();
@@ -66,7 +66,7 @@ final class SpanBuilderImpl extends SpanBuilder {
       @Nullable Boolean recordEvents,
       @Nullable Kind kind,
       @Nullable Span parentSpan) {
-    TraceParams activeTraceParams = options.traceConfig.getActiveTraceParams();
+    TraceParams activeTraceParams = options.traceConfig.getActiveTraceParams(name);
     Random random = options.randomHandler.current();
     TraceId traceId;
     SpanId spanId = SpanId.generateRandomId(random);
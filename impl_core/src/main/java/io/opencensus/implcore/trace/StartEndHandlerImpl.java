@@ -21,6 +21,7 @@ import io.opencensus.implcore.trace.RecordEventsSpanImpl.StartEndHandler;
 import io.opencensus.implcore.trace.export.RunningSpanStoreImpl;
 import io.opencensus.implcore.trace.export.SampledSpanStoreImpl;
 import io.opencensus.implcore.trace.export.SpanExporterImpl;
+import io.opencensus.implcore.trace.export.TailSamplingBuffer;
 import io.opencensus.trace.Span.Options;
 import io.opencensus.trace.export.SpanData;
 import javax.annotation.Nullable;
@@ -35,9 +36,10 @@ public final class StartEndHandlerImpl implements StartEndHandler {
   private final SpanExporterImpl spanExporter;
   @Nullable private final RunningSpanStoreImpl runningSpanStore;
   @Nullable private final SampledSpanStoreImpl sampledSpanStore;
+  @Nullable private final TailSamplingBuffer tailSamplingBuffer;
   private final EventQueue eventQueue;
-  // true if any of (runningSpanStore OR sampledSpanStore) are different than null, which
-  // means the spans with RECORD_EVENTS should be enqueued in the queue.
+  // true if any of (runningSpanStore OR sampledSpanStore OR tailSamplingBuffer) are different than
+  // null, which means the spans with RECORD_EVENTS should be enqueued in the queue.
   private final boolean enqueueEventForNonSampledSpans;
 
   /**
@@ -53,10 +55,30 @@ public final class StartEndHandlerImpl implements StartEndHandler {
       @Nullable RunningSpanStoreImpl runningSpanStore,
       @Nullable SampledSpanStoreImpl sampledSpanStore,
       EventQueue eventQueue) {
+    this(spanExporter, runningSpanStore, sampledSpanStore, null, eventQueue);
+  }
+
+  /**
+   * Constructs a new {@code StartEndHandlerImpl}.
+   *
+   * @param spanExporter the {@code SpanExporter} implementation.
+   * @param runningSpanStore the {@code RunningSpanStore} implementation.
+   * @param sampledSpanStore the {@code SampledSpanStore} implementation.
+   * @param tailSamplingBuffer the buffer where the ended spans that are not sampled are added.
+   * @param eventQueue the event queue where all the events are enqueued.
+   */
+  public StartEndHandlerImpl(
+      SpanExporterImpl spanExporter,
+      @Nullable RunningSpanStoreImpl runningSpanStore,
+      @Nullable SampledSpanStoreImpl sampledSpanStore,
+      @Nullable TailSamplingBuffer tailSamplingBuffer,
+      EventQueue eventQueue) {
     this.spanExporter = spanExporter;
     this.runningSpanStore = runningSpanStore;
     this.sampledSpanStore = sampledSpanStore;
-    this.enqueueEventForNonSampledSpans = runningSpanStore != null || sampledSpanStore != null;
+    this.tailSamplingBuffer = tailSamplingBuffer;
+    this.enqueueEventForNonSampledSpans =
+        runningSpanStore != null || sampledSpanStore != null || tailSamplingBuffer != null;
     this.eventQueue = eventQueue;
   }
 
@@ -71,12 +93,15 @@ public final class StartEndHandlerImpl implements StartEndHandler {
   public void onEnd(RecordEventsSpanImpl span) {
     if ((span.getOptions().contains(Options.RECORD_EVENTS) && enqueueEventForNonSampledSpans)
         || span.getContext().getTraceOptions().isSampled()) {
-      eventQueue.enqueue(new SpanEndEvent(span, spanExporter, runningSpanStore, sampledSpanStore));
+      eventQueue.enqueue(
+          new SpanEndEvent(
+              span, spanExporter, runningSpanStore, sampledSpanStore, tailSamplingBuffer));
     }
   }
 
-  // An EventQueue entry that records the start of the span event.
-  private static final class SpanStartEvent implements EventQueue.Entry {
+  // An EventQueue entry that records the start of the span event. Start and end events are
+  // partitioned by span name, so that the end of a span is never processed before its start.
+  private static final class SpanStartEvent implements EventQueue.PartitionedEntry {
     private final RecordEventsSpanImpl span;
     @Nullable private final RunningSpanStoreImpl activeSpansExporter;
 
@@ -85,6 +110,11 @@ public final class StartEndHandlerImpl implements StartEndHandler {
       this.activeSpansExporter = activeSpansExporter;
     }
 
+    @Override
+    public String getPartitionKey() {
+      return span.getName();
+    }
+
     @Override
     public void process() {
       if (activeSpansExporter != null) {
@@ -94,27 +124,37 @@ public final class StartEndHandlerImpl implements StartEndHandler {
   }
 
   // An EventQueue entry that records the end of the span event.
-  private static final class SpanEndEvent implements EventQueue.Entry {
+  private static final class SpanEndEvent implements EventQueue.PartitionedEntry {
     private final RecordEventsSpanImpl span;
     @Nullable private final RunningSpanStoreImpl runningSpanStore;
     private final SpanExporterImpl spanExporter;
     @Nullable private final SampledSpanStoreImpl sampledSpanStore;
+    @Nullable private final TailSamplingBuffer tailSamplingBuffer;
 
     SpanEndEvent(
         RecordEventsSpanImpl span,
         SpanExporterImpl spanExporter,
         @Nullable RunningSpanStoreImpl runningSpanStore,
-        @Nullable SampledSpanStoreImpl sampledSpanStore) {
+        @Nullable SampledSpanStoreImpl sampledSpanStore,
+        @Nullable TailSamplingBuffer tailSamplingBuffer) {
       this.span = span;
       this.runningSpanStore = runningSpanStore;
       this.spanExporter = spanExporter;
       this.sampledSpanStore = sampledSpanStore;
+      this.tailSamplingBuffer = tailSamplingBuffer;
+    }
+
+    @Override
+    public String getPartitionKey() {
+      return span.getName();
     }
 
     @Override
     public void process() {
       if (span.getContext().getTraceOptions().isSampled()) {
         spanExporter.addSpan(span);
+      } else if (tailSamplingBuffer != null && span.getOptions().contains(Options.RECORD_EVENTS)) {
+        tailSamplingBuffer.addSpan(span);
       }
       if (runningSpanStore != null) {
         runningSpanStore.onEnd(span);
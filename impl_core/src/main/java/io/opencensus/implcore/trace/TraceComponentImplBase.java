@@ -22,6 +22,8 @@ import io.opencensus.implcore.internal.SimpleEventQueue;
 import io.opencensus.implcore.trace.RecordEventsSpanImpl.StartEndHandler;
 import io.opencensus.implcore.trace.config.TraceConfigImpl;
 import io.opencensus.implcore.trace.export.ExportComponentImpl;
+import io.opencensus.implcore.trace.export.SpanExporterConfig;
+import io.opencensus.implcore.trace.export.TailSamplingConfig;
 import io.opencensus.implcore.trace.internal.RandomHandler;
 import io.opencensus.implcore.trace.propagation.PropagationComponentImpl;
 import io.opencensus.trace.TraceComponent;
@@ -29,6 +31,7 @@ import io.opencensus.trace.Tracer;
 import io.opencensus.trace.config.TraceConfig;
 import io.opencensus.trace.export.ExportComponent;
 import io.opencensus.trace.propagation.PropagationComponent;
+import javax.annotation.Nullable;
 
 /**
  * Helper class to allow sharing the code for all the {@link TraceComponent} implementations. This
@@ -52,18 +55,42 @@ public final class TraceComponentImplBase {
    * @param eventQueue the queue implementation.
    */
   public TraceComponentImplBase(Clock clock, RandomHandler randomHandler, EventQueue eventQueue) {
+    this(clock, randomHandler, eventQueue, SpanExporterConfig.DEFAULT, null);
+  }
+
+  /**
+   * Creates a new {@code TraceComponentImplBase}.
+   *
+   * @param clock the clock to use throughout tracing.
+   * @param randomHandler the random number generator for generating trace and span IDs.
+   * @param eventQueue the queue implementation.
+   * @param spanExporterConfig the configuration of the queue of the spans waiting to be exported.
+   * @param tailSamplingConfig the configuration of the tail sampling of the spans that are not
+   *     sampled but record events, or {@code null} to disable tail sampling.
+   */
+  public TraceComponentImplBase(
+      Clock clock,
+      RandomHandler randomHandler,
+      EventQueue eventQueue,
+      SpanExporterConfig spanExporterConfig,
+      @Nullable TailSamplingConfig tailSamplingConfig) {
     this.clock = clock;
     // TODO(bdrutu): Add a config/argument for supportInProcessStores.
     if (eventQueue instanceof SimpleEventQueue) {
-      exportComponent = ExportComponentImpl.createWithoutInProcessStores(eventQueue);
+      exportComponent =
+          ExportComponentImpl.createWithoutInProcessStores(
+              eventQueue, clock, spanExporterConfig, tailSamplingConfig);
     } else {
-      exportComponent = ExportComponentImpl.createWithInProcessStores(eventQueue);
+      exportComponent =
+          ExportComponentImpl.createWithInProcessStores(
+              eventQueue, clock, spanExporterConfig, tailSamplingConfig);
     }
     StartEndHandler startEndHandler =
         new StartEndHandlerImpl(
             exportComponent.getSpanExporter(),
             exportComponent.getRunningSpanStore(),
             exportComponent.getSampledSpanStore(),
+            exportComponent.getTailSamplingBuffer(),
             eventQueue);
     tracer = new TracerImpl(randomHandler, startEndHandler, clock, traceConfig);
   }
@@ -16,18 +16,41 @@
 
 package io.opencensus.implcore.trace.config;
 
+import static com.google.common.base.Preconditions.checkNotNull;
+
 import io.opencensus.trace.config.TraceConfig;
 import io.opencensus.trace.config.TraceParams;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.Immutable;
 
 /**
  * Global configuration of the trace service. This allows users to change configs for the default
  * sampler, maximum events to be kept, etc.
+ *
+ * <p>The {@code TraceParams} registered for span name prefixes are compiled into a trie every time
+ * they are updated, so that looking up the {@code TraceParams} of a {@code Span} doesn't take a
+ * lock and only depends on the length of the longest registered prefix.
  */
 public final class TraceConfigImpl extends TraceConfig {
   // Reads and writes are atomic for reference variables. Use volatile to ensure that these
   // operations are visible on other CPUs as well.
   private volatile TraceParams activeTraceParams = TraceParams.DEFAULT;
 
+  @GuardedBy("this")
+  private final Map<String, TraceParams> spanNamePrefixTraceParams =
+      new LinkedHashMap<String, TraceParams>();
+
+  // An immutable copy of spanNamePrefixTraceParams, or null if no prefix is registered.
+  @Nullable private volatile Map<String, TraceParams> spanNamePrefixTraceParamsCopy;
+  // The trie compiled from spanNamePrefixTraceParams, or null if no prefix is registered.
+  @Nullable private volatile PrefixTrie spanNamePrefixTrie;
+
   /** Constructs a new {@code TraceConfigImpl}. */
   public TraceConfigImpl() {}
 
@@ -40,4 +63,120 @@ public final class TraceConfigImpl extends TraceConfig {
   public void updateActiveTraceParams(TraceParams traceParams) {
     activeTraceParams = traceParams;
   }
+
+  @Override
+  public TraceParams getActiveTraceParams(String spanName) {
+    PrefixTrie trie = spanNamePrefixTrie;
+    if (trie != null) {
+      TraceParams traceParams = trie.getLongestPrefixValue(spanName);
+      if (traceParams != null) {
+        return traceParams;
+      }
+    }
+    return activeTraceParams;
+  }
+
+  @Override
+  public Map<String, TraceParams> getSpanNamePrefixTraceParams() {
+    Map<String, TraceParams> copy = spanNamePrefixTraceParamsCopy;
+    return copy == null ? Collections.<String, TraceParams>emptyMap() : copy;
+  }
+
+  @Override
+  public synchronized void updateSpanNamePrefixTraceParams(
+      String spanNamePrefix, TraceParams traceParams) {
+    checkNotNull(spanNamePrefix, "spanNamePrefix");
+    checkNotNull(traceParams, "traceParams");
+    spanNamePrefixTraceParams.put(spanNamePrefix, traceParams);
+    compileSpanNamePrefixes();
+  }
+
+  @Override
+  public synchronized void removeSpanNamePrefixTraceParams(String spanNamePrefix) {
+    checkNotNull(spanNamePrefix, "spanNamePrefix");
+    if (spanNamePrefixTraceParams.remove(spanNamePrefix) != null) {
+      compileSpanNamePrefixes();
+    }
+  }
+
+  @GuardedBy("this")
+  private void compileSpanNamePrefixes() {
+    if (spanNamePrefixTraceParams.isEmpty()) {
+      spanNamePrefixTrie = null;
+      spanNamePrefixTraceParamsCopy = null;
+    } else {
+      spanNamePrefixTrie = PrefixTrie.compile(spanNamePrefixTraceParams);
+      spanNamePrefixTraceParamsCopy =
+          Collections.unmodifiableMap(
+              new LinkedHashMap<String, TraceParams>(spanNamePrefixTraceParams));
+    }
+  }
+
+  // An immutable trie of the span name prefixes. Every node keeps the characters of its children
+  // sorted in an array, so that a lookup doesn't allocate.
+  @Immutable
+  private static final class PrefixTrie {
+    private final char[] chars;
+    private final PrefixTrie[] children;
+    @Nullable private final TraceParams value;
+
+    private PrefixTrie(char[] chars, PrefixTrie[] children, @Nullable TraceParams value) {
+      this.chars = chars;
+      this.children = children;
+      this.value = value;
+    }
+
+    private static PrefixTrie compile(Map<String, TraceParams> prefixes) {
+      Builder root = new Builder();
+      for (Map.Entry<String, TraceParams> entry : prefixes.entrySet()) {
+        Builder node = root;
+        String prefix = entry.getKey();
+        for (int i = 0; i < prefix.length(); i++) {
+          Builder child = node.children.get(prefix.charAt(i));
+          if (child == null) {
+            child = new Builder();
+            node.children.put(prefix.charAt(i), child);
+          }
+          node = child;
+        }
+        node.value = entry.getValue();
+      }
+      return root.build();
+    }
+
+    // Returns the value of the longest prefix of the given string, or null if no prefix matches.
+    @Nullable
+    private TraceParams getLongestPrefixValue(String string) {
+      PrefixTrie node = this;
+      TraceParams longestPrefixValue = value;
+      for (int i = 0; i < string.length(); i++) {
+        int index = Arrays.binarySearch(node.chars, string.charAt(i));
+        if (index < 0) {
+          break;
+        }
+        node = node.children[index];
+        if (node.value != null) {
+          longestPrefixValue = node.value;
+        }
+      }
+      return longestPrefixValue;
+    }
+
+    private static final class Builder {
+      private final TreeMap<Character, Builder> children = new TreeMap<Character, Builder>();
+      @Nullable private TraceParams value;
+
+      private PrefixTrie build() {
+        char[] chars = new char[children.size()];
+        PrefixTrie[] builtChildren = new PrefixTrie[children.size()];
+        int i = 0;
+        for (Map.Entry<Character, Builder> child : children.entrySet()) {
+          chars[i] = child.getKey();
+          builtChildren[i] = child.getValue().build();
+          i++;
+        }
+        return new PrefixTrie(chars, builtChildren, value);
+      }
+    }
+  }
 }
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.implcore.trace.export;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * A bounded queue backed by a ring buffer, that neither producers nor consumers lock.
+ *
+ * <p>Every slot of the ring buffer has a sequence number, which tells whether the slot is ready to
+ * be written or read at a given position of the queue. Producers and consumers claim positions with
+ * a compare-and-set, then write or read the slot, then publish it by updating its sequence number.
+ * Producers are usually many, while there is a single regular consumer, but occasional concurrent
+ * consumers (e.g. a flush) are supported as well.
+ *
+ * @param <E> the type of the elements.
+ */
+@ThreadSafe
+final class BoundedArrayQueue<E> {
+  private final int capacity;
+  private final AtomicReferenceArray<E> elements;
+  // The slot at index i can be written at position p if sequences[i] == p, and read at position p
+  // if sequences[i] == p + 1.
+  private final AtomicLongArray sequences;
+  // The position of the next element to add.
+  private final AtomicLong tail = new AtomicLong();
+  // The position of the next element to remove.
+  private final AtomicLong head = new AtomicLong();
+
+  BoundedArrayQueue(int capacity) {
+    checkArgument(capacity > 0, "capacity must be positive.");
+    this.capacity = capacity;
+    elements = new AtomicReferenceArray<E>(capacity);
+    sequences = new AtomicLongArray(capacity);
+    for (int i = 0; i < capacity; i++) {
+      sequences.set(i, i);
+    }
+  }
+
+  /**
+   * Adds the given element at the tail of the queue, unless the queue is full.
+   *
+   * @param element the element to add.
+   * @return {@code true} if the element was added, {@code false} if the queue is full.
+   */
+  boolean offer(E element) {
+    long position = tail.get();
+    while (true) {
+      int index = (int) (position % capacity);
+      long difference = sequences.get(index) - position;
+      if (difference == 0) {
+        if (tail.compareAndSet(position, position + 1)) {
+          elements.set(index, element);
+          sequences.set(index, position + 1);
+          return true;
+        }
+        position = tail.get();
+      } else if (difference < 0) {
+        // The slot was not read since the previous round, the queue is full.
+        return false;
+      } else {
+        // Another producer claimed this position.
+        position = tail.get();
+      }
+    }
+  }
+
+  /**
+   * Removes the element at the head of the queue.
+   *
+   * @return the element at the head of the queue, or {@code null} if the queue is empty.
+   */
+  @Nullable
+  E poll() {
+    long position = head.get();
+    while (true) {
+      int index = (int) (position % capacity);
+      long difference = sequences.get(index) - (position + 1);
+      if (difference == 0) {
+        if (head.compareAndSet(position, position + 1)) {
+          E element = elements.get(index);
+          elements.set(index, null);
+          sequences.set(index, position + capacity);
+          return element;
+        }
+        position = head.get();
+      } else if (difference < 0) {
+        // The slot was not written yet, the queue is empty.
+        return null;
+      } else {
+        // Another consumer claimed this position.
+        position = head.get();
+      }
+    }
+  }
+
+  /**
+   * Returns the number of elements in the queue, which is only an estimate while elements are
+   * concurrently added or removed.
+   *
+   * @return the number of elements in the queue.
+   */
+  int size() {
+    long size = tail.get() - head.get();
+    return (int) Math.max(0, Math.min(size, capacity));
+  }
+
+  int capacity() {
+    return capacity;
+  }
+}
@@ -16,11 +16,15 @@
 
 package io.opencensus.implcore.trace.export;
 
+import io.opencensus.common.Clock;
 import io.opencensus.common.Duration;
+import io.opencensus.implcore.common.MillisClock;
 import io.opencensus.implcore.internal.EventQueue;
+import io.opencensus.metrics.Metrics;
 import io.opencensus.trace.export.ExportComponent;
 import io.opencensus.trace.export.RunningSpanStore;
 import io.opencensus.trace.export.SampledSpanStore;
+import javax.annotation.Nullable;
 
 /** Implementation of the {@link ExportComponent}. */
 public final class ExportComponentImpl extends ExportComponent {
@@ -31,6 +35,7 @@ public final class ExportComponentImpl extends ExportComponent {
   private final SpanExporterImpl spanExporter;
   private final RunningSpanStoreImpl runningSpanStore;
   private final SampledSpanStoreImpl sampledSpanStore;
+  @Nullable private final TailSamplingBuffer tailSamplingBuffer;
 
   @Override
   public SpanExporterImpl getSpanExporter() {
@@ -47,9 +52,23 @@ public final class ExportComponentImpl extends ExportComponent {
     return sampledSpanStore;
   }
 
+  /**
+   * Returns the {@code TailSamplingBuffer}, or {@code null} if tail sampling is disabled.
+   *
+   * @return the {@code TailSamplingBuffer}, or {@code null} if tail sampling is disabled.
+   */
+  @Nullable
+  public TailSamplingBuffer getTailSamplingBuffer() {
+    return tailSamplingBuffer;
+  }
+
   @Override
   public void shutdown() {
     sampledSpanStore.shutdown();
+    // Export the kept traces before the exporter is shut down.
+    if (tailSamplingBuffer != null) {
+      tailSamplingBuffer.shutdown();
+    }
     spanExporter.shutdown();
   }
 
@@ -60,7 +79,32 @@ public final class ExportComponentImpl extends ExportComponent {
    * @return a new {@code ExportComponentImpl}.
    */
   public static ExportComponentImpl createWithInProcessStores(EventQueue eventQueue) {
-    return new ExportComponentImpl(/* supportInProcessStores= */ true, eventQueue);
+    return createWithInProcessStores(
+        eventQueue, MillisClock.getInstance(), SpanExporterConfig.DEFAULT, null);
+  }
+
+  /**
+   * Returns a new {@code ExportComponentImpl} that has valid instances for {@link RunningSpanStore}
+   * and {@link SampledSpanStore}, and a {@link TailSamplingBuffer} if a configuration is given.
+   *
+   * @param eventQueue the event queue of the in-process stores.
+   * @param clock the clock used by the {@code TailSamplingBuffer}.
+   * @param spanExporterConfig the configuration of the {@code SpanExporterImpl}.
+   * @param tailSamplingConfig the configuration of the {@code TailSamplingBuffer}, or {@code null}
+   *     to disable tail sampling.
+   * @return a new {@code ExportComponentImpl}.
+   */
+  public static ExportComponentImpl createWithInProcessStores(
+      EventQueue eventQueue,
+      Clock clock,
+      SpanExporterConfig spanExporterConfig,
+      @Nullable TailSamplingConfig tailSamplingConfig) {
+    return new ExportComponentImpl(
+        /* supportInProcessStores= */ true,
+        eventQueue,
+        clock,
+        spanExporterConfig,
+        tailSamplingConfig);
   }
 
   /**
@@ -70,7 +114,33 @@ public final class ExportComponentImpl extends ExportComponent {
    * @return a new {@code ExportComponentImpl}.
    */
   public static ExportComponentImpl createWithoutInProcessStores(EventQueue eventQueue) {
-    return new ExportComponentImpl(/* supportInProcessStores= */ false, eventQueue);
+    return createWithoutInProcessStores(
+        eventQueue, MillisClock.getInstance(), SpanExporterConfig.DEFAULT, null);
+  }
+
+  /**
+   * Returns a new {@code ExportComponentImpl} that has {@code null} instances for {@link
+   * RunningSpanStore} and {@link SampledSpanStore}, and a {@link TailSamplingBuffer} if a
+   * configuration is given.
+   *
+   * @param eventQueue the event queue.
+   * @param clock the clock used by the {@code TailSamplingBuffer}.
+   * @param spanExporterConfig the configuration of the {@code SpanExporterImpl}.
+   * @param tailSamplingConfig the configuration of the {@code TailSamplingBuffer}, or {@code null}
+   *     to disable tail sampling.
+   * @return a new {@code ExportComponentImpl}.
+   */
+  public static ExportComponentImpl createWithoutInProcessStores(
+      EventQueue eventQueue,
+      Clock clock,
+      SpanExporterConfig spanExporterConfig,
+      @Nullable TailSamplingConfig tailSamplingConfig) {
+    return new ExportComponentImpl(
+        /* supportInProcessStores= */ false,
+        eventQueue,
+        clock,
+        spanExporterConfig,
+        tailSamplingConfig);
   }
 
   /**
@@ -78,9 +148,30 @@ public final class ExportComponentImpl extends ExportComponent {
    *
    * @param supportInProcessStores {@code true} to instantiate {@link RunningSpanStore} and {@link
    *     SampledSpanStore}.
+   * @param clock the clock used by the {@code TailSamplingBuffer}.
+   * @param spanExporterConfig the configuration of the {@code SpanExporterImpl}.
+   * @param tailSamplingConfig the configuration of the {@code TailSamplingBuffer}, or {@code null}
+   *     to disable tail sampling.
    */
-  private ExportComponentImpl(boolean supportInProcessStores, EventQueue eventQueue) {
-    this.spanExporter = SpanExporterImpl.create(EXPORTER_BUFFER_SIZE, EXPORTER_SCHEDULE_DELAY);
+  private ExportComponentImpl(
+      boolean supportInProcessStores,
+      EventQueue eventQueue,
+      Clock clock,
+      SpanExporterConfig spanExporterConfig,
+      @Nullable TailSamplingConfig tailSamplingConfig) {
+    this.spanExporter =
+        SpanExporterImpl.create(EXPORTER_BUFFER_SIZE, EXPORTER_SCHEDULE_DELAY, spanExporterConfig);
+    if (spanExporterConfig.getExportMetrics()) {
+      spanExporter.registerMetrics();
+    }
+    if (tailSamplingConfig != null) {
+      this.tailSamplingBuffer = TailSamplingBuffer.create(spanExporter, clock, tailSamplingConfig);
+      if (tailSamplingConfig.getExportMetrics()) {
+        tailSamplingBuffer.registerMetrics(Metrics.getMetricRegistry());
+      }
+    } else {
+      this.tailSamplingBuffer = null;
+    }
     this.runningSpanStore =
         supportInProcessStores
             ? new InProcessRunningSpanStoreImpl()
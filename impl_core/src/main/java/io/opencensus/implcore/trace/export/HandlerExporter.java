@@ -0,0 +1,235 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.implcore.trace.export;
+
+import com.google.common.annotations.VisibleForTesting;
+import io.opencensus.implcore.internal.DaemonThreadFactory;
+import io.opencensus.implcore.trace.export.SpanExporterConfig.DropPolicy;
+import io.opencensus.trace.export.ExportComponent;
+import io.opencensus.trace.export.SpanData;
+import io.opencensus.trace.export.SpanExporter.Handler;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Exports the batches of span data to a single {@link Handler}, in a thread of its own, so that a
+ * slow or failing handler does not delay the other handlers.
+ *
+ * <p>The batches waiting to be exported are kept in a bounded queue, and are dropped according to
+ * the {@link DropPolicy} when the handler does not keep up. If the configuration says so, every
+ * export is bounded by a timeout, and a failed export is retried after a delay that doubles with
+ * every attempt.
+ */
+@ThreadSafe
+final class HandlerExporter implements Runnable {
+  private static final Logger logger = Logger.getLogger(ExportComponent.class.getName());
+
+  private final String name;
+  private final Handler handler;
+  private final BoundedArrayQueue<List<SpanData>> batches;
+  private final DropPolicy dropPolicy;
+  private final long timeoutNanos;
+  private final int maxRetries;
+  private final long retryDelayNanos;
+  // Calls the handler when the exports have a timeout, null otherwise.
+  @Nullable private final ThreadPoolExecutor exportExecutor;
+  final AtomicLong exportedSpans = new AtomicLong();
+  final AtomicLong failedSpans = new AtomicLong();
+  final AtomicLong droppedSpans = new AtomicLong();
+  // The latency of the last export, including the retries.
+  volatile long lastExportLatencyNanos;
+  @Nullable private volatile Thread thread;
+
+  @VisibleForTesting
+  HandlerExporter(String name, Handler handler, SpanExporterConfig config) {
+    this.name = name;
+    this.handler = handler;
+    batches = new BoundedArrayQueue<List<SpanData>>(config.getHandlerQueueSize());
+    dropPolicy = config.getDropPolicy();
+    timeoutNanos = TimeUnit.MILLISECONDS.toNanos(config.getHandlerTimeout().toMillis());
+    maxRetries = config.getHandlerMaxRetries();
+    retryDelayNanos = TimeUnit.MILLISECONDS.toNanos(config.getHandlerRetryDelay().toMillis());
+    exportExecutor =
+        timeoutNanos > 0
+            ? new ThreadPoolExecutor(
+                1,
+                1,
+                0,
+                TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<Runnable>(),
+                new DaemonThreadFactory("ExportComponent.HandlerExportCallThread." + name))
+            : null;
+  }
+
+  /**
+   * Constructs a {@code HandlerExporter} and starts the thread that exports the batches of span
+   * data to the given handler.
+   *
+   * @param name the name of the handler.
+   * @param handler the handler.
+   * @param config the configuration of the queue, timeout and retries of the handler.
+   * @return a new {@code HandlerExporter}.
+   */
+  static HandlerExporter create(String name, Handler handler, SpanExporterConfig config) {
+    HandlerExporter handlerExporter = new HandlerExporter(name, handler, config);
+    Thread thread =
+        new DaemonThreadFactory("ExportComponent.HandlerExporterThread." + name)
+            .newThread(handlerExporter);
+    handlerExporter.thread = thread;
+    thread.start();
+    return handlerExporter;
+  }
+
+  /**
+   * Adds a batch of span data to be exported to the handler. The batch is shared with the other
+   * handlers, so it must not be modified.
+   *
+   * @param batch the span data to export.
+   */
+  void addBatch(List<SpanData> batch) {
+    if (!batches.offer(batch)) {
+      if (dropPolicy == DropPolicy.DROP_NEWEST) {
+        droppedSpans.addAndGet(batch.size());
+        return;
+      }
+      do {
+        List<SpanData> oldestBatch = batches.poll();
+        if (oldestBatch != null) {
+          droppedSpans.addAndGet(oldestBatch.size());
+        }
+      } while (!batches.offer(batch));
+    }
+    Thread exporterThread = thread;
+    if (exporterThread != null) {
+      LockSupport.unpark(exporterThread);
+    }
+  }
+
+  /** Exports the queued batches in the calling thread. */
+  void flush() {
+    List<SpanData> batch;
+    while ((batch = batches.poll()) != null) {
+      export(batch);
+    }
+  }
+
+  /** Stops exporting, the batches that are still queued are discarded. */
+  void stop() {
+    Thread exporterThread = thread;
+    if (exporterThread != null) {
+      exporterThread.interrupt();
+    }
+    if (exportExecutor != null) {
+      exportExecutor.shutdown();
+    }
+  }
+
+  @VisibleForTesting
+  @Nullable
+  Thread getExporterThread() {
+    return thread;
+  }
+
+  @Override
+  public void run() {
+    while (!Thread.currentThread().isInterrupted()) {
+      List<SpanData> batch = batches.poll();
+      if (batch != null) {
+        export(batch);
+      } else {
+        // A batch added before parking unparks the thread as well, so no batch is left behind.
+        LockSupport.park(this);
+      }
+    }
+    // Preserve the interruption status as per guidance and stop doing any work.
+  }
+
+  // Exports the batch, retrying up to maxRetries times. Gives up if the thread is interrupted.
+  private void export(List<SpanData> batch) {
+    long startNanos = System.nanoTime();
+    long delayNanos = retryDelayNanos;
+    for (int attempt = 0; ; attempt++) {
+      try {
+        callHandler(batch);
+        lastExportLatencyNanos = System.nanoTime() - startNanos;
+        exportedSpans.addAndGet(batch.size());
+        return;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        failedSpans.addAndGet(batch.size());
+        return;
+      } catch (Throwable e) {
+        // In case of any exception thrown by the service handler continue to run.
+        if (attempt >= maxRetries) {
+          lastExportLatencyNanos = System.nanoTime() - startNanos;
+          failedSpans.addAndGet(batch.size());
+          logger.log(Level.WARNING, "Exception thrown by the service export " + name, e);
+          return;
+        }
+      }
+      try {
+        TimeUnit.NANOSECONDS.sleep(delayNanos);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        failedSpans.addAndGet(batch.size());
+        return;
+      }
+      if (delayNanos < Long.MAX_VALUE / 2) {
+        delayNanos *= 2;
+      }
+    }
+  }
+
+  private void callHandler(final List<SpanData> batch) throws Throwable {
+    if (exportExecutor == null) {
+      handler.export(batch);
+      return;
+    }
+    Future<?> future =
+        exportExecutor.submit(
+            new Callable<Void>() {
+              @Override
+              public Void call() {
+                handler.export(batch);
+                return null;
+              }
+            });
+    try {
+      future.get(timeoutNanos, TimeUnit.NANOSECONDS);
+    } catch (ExecutionException e) {
+      throw e.getCause();
+    } catch (TimeoutException e) {
+      // Interrupt the handler, and don't let a stuck handler accumulate cancelled exports.
+      future.cancel(true);
+      exportExecutor.purge();
+      throw new TimeoutException(
+          "Export did not complete in " + TimeUnit.NANOSECONDS.toMillis(timeoutNanos) + " ms.");
+    }
+  }
+}
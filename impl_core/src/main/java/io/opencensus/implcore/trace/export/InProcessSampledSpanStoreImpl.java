@@ -281,15 +281,9 @@ public final class InProcessSampledSpanStoreImpl extends SampledSpanStoreImpl {
   @Override
   @SuppressWarnings("deprecation")
   public void registerSpanNamesForCollection(Collection<String> spanNames) {
-    eventQueue.enqueue(new RegisterSpanNameEvent(this, spanNames));
-  }
-
-  @Override
-  protected void shutdown() {
-    eventQueue.shutdown();
-  }
-
-  private void internaltRegisterSpanNamesForCollection(Collection<String> spanNames) {
+    // Registered in the calling thread rather than through the event queue: with several shards,
+    // the queue would process the registration and the span end events on different threads, and a
+    // span that ends right after the registration could be processed before it.
     synchronized (samples) {
       for (String spanName : spanNames) {
         if (!samples.containsKey(spanName)) {
@@ -299,50 +293,19 @@ public final class InProcessSampledSpanStoreImpl extends SampledSpanStoreImpl {
     }
   }
 
-  private static final class RegisterSpanNameEvent implements EventQueue.Entry {
-    private final InProcessSampledSpanStoreImpl sampledSpanStore;
-    private final Collection<String> spanNames;
-
-    private RegisterSpanNameEvent(
-        InProcessSampledSpanStoreImpl sampledSpanStore, Collection<String> spanNames) {
-      this.sampledSpanStore = sampledSpanStore;
-      this.spanNames = new ArrayList<String>(spanNames);
-    }
-
-    @Override
-    public void process() {
-      sampledSpanStore.internaltRegisterSpanNamesForCollection(spanNames);
-    }
+  @Override
+  protected void shutdown() {
+    eventQueue.shutdown();
   }
 
   @Override
   @SuppressWarnings("deprecation")
   public void unregisterSpanNamesForCollection(Collection<String> spanNames) {
-    eventQueue.enqueue(new UnregisterSpanNameEvent(this, spanNames));
-  }
-
-  private void internalUnregisterSpanNamesForCollection(Collection<String> spanNames) {
     synchronized (samples) {
       samples.keySet().removeAll(spanNames);
     }
   }
 
-  private static final class UnregisterSpanNameEvent implements EventQueue.Entry {
-    private final InProcessSampledSpanStoreImpl sampledSpanStore;
-    private final Collection<String> spanNames;
-
-    private UnregisterSpanNameEvent(
-        InProcessSampledSpanStoreImpl sampledSpanStore, Collection<String> spanNames) {
-      this.sampledSpanStore = sampledSpanStore;
-      this.spanNames = new ArrayList<String>(spanNames);
-    }
-
-    @Override
-    public void process() {
-      sampledSpanStore.internalUnregisterSpanNamesForCollection(spanNames);
-    }
-  }
-
   @Override
   public Set<String> getRegisteredSpanNamesForCollection() {
     synchronized (samples) {
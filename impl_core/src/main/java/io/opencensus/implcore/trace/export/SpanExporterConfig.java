@@ -0,0 +1,214 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.implcore.trace.export;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.auto.value.AutoValue;
+import io.opencensus.common.Duration;
+import javax.annotation.concurrent.Immutable;
+
+/** Configuration of the {@link SpanExporterImpl}. */
+@Immutable
+@AutoValue
+public abstract class SpanExporterConfig {
+  private static final int DEFAULT_MAX_QUEUE_SIZE = 2048;
+  private static final DropPolicy DEFAULT_DROP_POLICY = DropPolicy.DROP_NEWEST;
+  private static final int DEFAULT_HANDLER_QUEUE_SIZE = 32;
+  private static final Duration DEFAULT_HANDLER_TIMEOUT = Duration.create(0, 0);
+  private static final int DEFAULT_HANDLER_MAX_RETRIES = 0;
+  private static final Duration DEFAULT_HANDLER_RETRY_DELAY = Duration.create(0, 100000000);
+  private static final Duration ZERO = Duration.create(0, 0);
+
+  /** Default {@code SpanExporterConfig}. */
+  public static final SpanExporterConfig DEFAULT =
+      SpanExporterConfig.builder()
+          .setMaxQueueSize(DEFAULT_MAX_QUEUE_SIZE)
+          .setDropPolicy(DEFAULT_DROP_POLICY)
+          .setExportMetrics(false)
+          .setHandlerQueueSize(DEFAULT_HANDLER_QUEUE_SIZE)
+          .setHandlerTimeout(DEFAULT_HANDLER_TIMEOUT)
+          .setHandlerMaxRetries(DEFAULT_HANDLER_MAX_RETRIES)
+          .setHandlerRetryDelay(DEFAULT_HANDLER_RETRY_DELAY)
+          .build();
+
+  SpanExporterConfig() {}
+
+  /**
+   * Returns the maximum number of spans waiting to be exported.
+   *
+   * @return the maximum number of spans waiting to be exported.
+   */
+  public abstract int getMaxQueueSize();
+
+  /**
+   * Returns which span is dropped when a span is added to a full queue.
+   *
+   * @return which span is dropped when a span is added to a full queue.
+   */
+  public abstract DropPolicy getDropPolicy();
+
+  /**
+   * Returns whether the size of the queue and the number of exported and dropped spans are exported
+   * as metrics. Off by default, so that exporters don't start sending metrics that the application
+   * didn't ask for.
+   *
+   * @return whether the metrics of the span exporter are exported.
+   */
+  public abstract boolean getExportMetrics();
+
+  /**
+   * Returns the maximum number of batches of spans waiting to be exported by each handler. Every
+   * handler exports in a thread of its own, so a slow handler only fills its own queue.
+   *
+   * @return the maximum number of batches of spans waiting to be exported by each handler.
+   */
+  public abstract int getHandlerQueueSize();
+
+  /**
+   * Returns how long a handler may take to export a batch of spans before the export is considered
+   * failed. Zero, the default, means no timeout.
+   *
+   * <p>A timeout makes every handler call its export in a second thread, so that the call can be
+   * abandoned. Without it, a stuck handler only blocks its own thread and fills its own queue.
+   *
+   * @return how long a handler may take to export a batch of spans.
+   */
+  public abstract Duration getHandlerTimeout();
+
+  /**
+   * Returns how many times the export of a batch of spans is retried after it failed. The default
+   * is zero.
+   *
+   * <p>Retries are only safe with handlers that don't send the spans again, because an export that
+   * failed or timed out may still have delivered some of them: a retry then duplicates these spans
+   * in the backend.
+   *
+   * @return how many times the export of a batch of spans is retried.
+   */
+  public abstract int getHandlerMaxRetries();
+
+  /**
+   * Returns the delay before the first retry of a failed export, which doubles with every retry.
+   *
+   * @return the delay before the first retry of a failed export.
+   */
+  public abstract Duration getHandlerRetryDelay();
+
+  private static Builder builder() {
+    return new AutoValue_SpanExporterConfig.Builder();
+  }
+
+  /**
+   * Returns a {@link Builder} initialized to the same property values as the current instance.
+   *
+   * @return a {@link Builder} initialized to the same property values as the current instance.
+   */
+  public abstract Builder toBuilder();
+
+  /** Which span is dropped when a span is added to a full queue. */
+  public enum DropPolicy {
+    /** Drops the span that is added. This is the default. */
+    DROP_NEWEST,
+
+    /** Drops the span that waited the longest, to make room for the span that is added. */
+    DROP_OLDEST
+  }
+
+  /** A {@code Builder} class for {@link SpanExporterConfig}. */
+  @AutoValue.Builder
+  public abstract static class Builder {
+
+    /**
+     * Sets the maximum number of spans waiting to be exported.
+     *
+     * @param maxQueueSize the maximum number of spans waiting to be exported.
+     * @return this.
+     */
+    public abstract Builder setMaxQueueSize(int maxQueueSize);
+
+    /**
+     * Sets which span is dropped when a span is added to a full queue.
+     *
+     * @param dropPolicy which span is dropped when a span is added to a full queue.
+     * @return this.
+     */
+    public abstract Builder setDropPolicy(DropPolicy dropPolicy);
+
+    /**
+     * Sets whether the metrics of the span exporter are exported.
+     *
+     * @param exportMetrics whether the metrics of the span exporter are exported.
+     * @return this.
+     */
+    public abstract Builder setExportMetrics(boolean exportMetrics);
+
+    /**
+     * Sets the maximum number of batches of spans waiting to be exported by each handler.
+     *
+     * @param handlerQueueSize the maximum number of batches of spans waiting to be exported by each
+     *     handler.
+     * @return this.
+     */
+    public abstract Builder setHandlerQueueSize(int handlerQueueSize);
+
+    /**
+     * Sets how long a handler may take to export a batch of spans, zero for no timeout.
+     *
+     * @param handlerTimeout how long a handler may take to export a batch of spans.
+     * @return this.
+     */
+    public abstract Builder setHandlerTimeout(Duration handlerTimeout);
+
+    /**
+     * Sets how many times the export of a batch of spans is retried after it failed.
+     *
+     * @param handlerMaxRetries how many times the export of a batch of spans is retried.
+     * @return this.
+     */
+    public abstract Builder setHandlerMaxRetries(int handlerMaxRetries);
+
+    /**
+     * Sets the delay before the first retry of a failed export.
+     *
+     * @param handlerRetryDelay the delay before the first retry of a failed export.
+     * @return this.
+     */
+    public abstract Builder setHandlerRetryDelay(Duration handlerRetryDelay);
+
+    abstract SpanExporterConfig autoBuild();
+
+    /**
+     * Builds and returns a {@code SpanExporterConfig} with the desired values.
+     *
+     * @return a {@code SpanExporterConfig} with the desired values.
+     * @throws NullPointerException if the drop policy or a duration is {@code null}.
+     * @throws IllegalArgumentException if a queue size is not positive, or a duration or the
+     *     maximum number of retries is negative.
+     */
+    public SpanExporterConfig build() {
+      SpanExporterConfig config = autoBuild();
+      checkArgument(config.getMaxQueueSize() > 0, "maxQueueSize must be positive.");
+      checkArgument(config.getHandlerQueueSize() > 0, "handlerQueueSize must be positive.");
+      checkArgument(config.getHandlerTimeout().compareTo(ZERO) >= 0, "Negative handlerTimeout.");
+      checkArgument(config.getHandlerMaxRetries() >= 0, "Negative handlerMaxRetries.");
+      checkArgument(
+          config.getHandlerRetryDelay().compareTo(ZERO) >= 0, "Negative handlerRetryDelay.");
+      return config;
+    }
+  }
+}
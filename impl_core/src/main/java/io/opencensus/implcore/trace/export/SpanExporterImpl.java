@@ -18,9 +18,17 @@ package io.opencensus.implcore.trace.export;
 
 import com.google.common.annotations.VisibleForTesting;
 import io.opencensus.common.Duration;
+import io.opencensus.common.ToDoubleFunction;
+import io.opencensus.common.ToLongFunction;
 import io.opencensus.implcore.internal.DaemonThreadFactory;
 import io.opencensus.implcore.trace.RecordEventsSpanImpl;
-import io.opencensus.trace.export.ExportComponent;
+import io.opencensus.implcore.trace.export.SpanExporterConfig.DropPolicy;
+import io.opencensus.metrics.DerivedDoubleGauge;
+import io.opencensus.metrics.DerivedLongGauge;
+import io.opencensus.metrics.LabelKey;
+import io.opencensus.metrics.LabelValue;
+import io.opencensus.metrics.MetricOptions;
+import io.opencensus.metrics.Metrics;
 import io.opencensus.trace.export.SpanData;
 import io.opencensus.trace.export.SpanExporter;
 import java.util.ArrayList;
@@ -28,13 +36,31 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.logging.Level;
-import java.util.logging.Logger;
-import javax.annotation.concurrent.GuardedBy;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import javax.annotation.Nullable;
 
 /** Implementation of the {@link SpanExporter}. */
 public final class SpanExporterImpl extends SpanExporter {
-  private static final Logger logger = Logger.getLogger(ExportComponent.class.getName());
+  private static final String METRIC_NAME_PREFIX = "opencensus.io/trace/exporter/";
+  @VisibleForTesting static final String QUEUE_SIZE = METRIC_NAME_PREFIX + "queue_size";
+  @VisibleForTesting static final String EXPORTED_SPANS = METRIC_NAME_PREFIX + "exported_spans";
+  @VisibleForTesting static final String DROPPED_SPANS = METRIC_NAME_PREFIX + "dropped_spans";
+  private static final String HANDLER_METRIC_NAME_PREFIX = METRIC_NAME_PREFIX + "handler/";
+
+  @VisibleForTesting
+  static final String HANDLER_EXPORTED_SPANS = HANDLER_METRIC_NAME_PREFIX + "exported_spans";
+
+  @VisibleForTesting
+  static final String HANDLER_FAILED_SPANS = HANDLER_METRIC_NAME_PREFIX + "failed_spans";
+
+  @VisibleForTesting
+  static final String HANDLER_DROPPED_SPANS = HANDLER_METRIC_NAME_PREFIX + "dropped_spans";
+
+  @VisibleForTesting
+  static final String HANDLER_EXPORT_LATENCY = HANDLER_METRIC_NAME_PREFIX + "export_latency";
 
   private final Worker worker;
   private final Thread workerThread;
@@ -50,8 +76,26 @@ public final class SpanExporterImpl extends SpanExporter {
    * @param scheduleDelay the maximum delay.
    */
   static SpanExporterImpl create(int bufferSize, Duration scheduleDelay) {
+    return create(bufferSize, scheduleDelay, SpanExporterConfig.DEFAULT);
+  }
+
+  /**
+   * Constructs a {@code SpanExporterImpl} that exports the {@link SpanData} asynchronously.
+   *
+   * <p>Starts a separate thread that wakes up every {@code scheduleDelay} and exports any available
+   * spans data. If the number of buffered SpanData objects is greater than {@code bufferSize} then
+   * the thread wakes up sooner. At most {@code config.getMaxQueueSize()} spans are buffered, the
+   * other spans are dropped according to {@code config.getDropPolicy()}. Every registered handler
+   * exports the batches of spans in a thread of its own (see {@link HandlerExporter}).
+   *
+   * @param bufferSize the size of the buffered span data.
+   * @param scheduleDelay the maximum delay.
+   * @param config the configuration of the queues of the spans waiting to be exported.
+   */
+  static SpanExporterImpl create(
+      int bufferSize, Duration scheduleDelay, SpanExporterConfig config) {
     // TODO(bdrutu): Consider to add a shutdown hook to not avoid dropping data.
-    Worker worker = new Worker(bufferSize, scheduleDelay);
+    Worker worker = new Worker(bufferSize, scheduleDelay, config);
     return new SpanExporterImpl(worker);
   }
 
@@ -81,11 +125,13 @@ public final class SpanExporterImpl extends SpanExporter {
   void shutdown() {
     flush();
     workerThread.interrupt();
+    worker.stopHandlers();
   }
 
   private SpanExporterImpl(Worker worker) {
     this.workerThread =
         new DaemonThreadFactory("ExportComponent.ServiceExporterThread").newThread(worker);
+    worker.thread = workerThread;
     this.workerThread.start();
     this.worker = worker;
   }
@@ -95,120 +141,300 @@ public final class SpanExporterImpl extends SpanExporter {
     return workerThread;
   }
 
-  // Worker in a thread that batches multiple span data and calls the registered services to export
-  // that data.
+  @VisibleForTesting
+  @Nullable
+  HandlerExporter getHandlerExporter(String name) {
+    return worker.handlerExporters.get(name);
+  }
+
+  @VisibleForTesting
+  long getExportedSpans() {
+    return worker.exportedSpans.get();
+  }
+
+  @VisibleForTesting
+  long getDroppedSpans() {
+    return worker.droppedSpans.get();
+  }
+
+  /**
+   * Exports the number of queued spans, and the number of spans that were exported and dropped, as
+   * gauges. For every handler, exports the number of spans that it exported, failed to export and
+   * dropped, and the latency of its last export. Replaces the gauges of any previously registered
+   * {@code SpanExporterImpl}.
+   */
+  void registerMetrics() {
+    worker.registerMetrics();
+  }
+
+  // Worker in a thread that batches multiple span data and hands that data to the registered
+  // services, which export it in threads of their own.
   //
   // The map of registered handlers is implemented using ConcurrentHashMap ensuring full
   // concurrency of retrievals and adjustable expected concurrency for updates. Retrievals
   // reflect the results of the most recently completed update operations held upon their onset.
   //
-  // The list of batched data is protected by an explicit monitor object which ensures full
-  // concurrency.
+  // The spans waiting to be exported are kept in a bounded queue that producers don't lock, and
+  // are converted to SpanData directly into the batch that is handed to the services.
   private static final class Worker implements Runnable {
-    private final Object monitor = new Object();
+    private final BoundedArrayQueue<RecordEventsSpanImpl> spans;
+    private final DropPolicy dropPolicy;
+    // Whether a producer already woke up the worker thread for the current batch.
+    private final AtomicBoolean exportRequested = new AtomicBoolean();
+    private final AtomicLong exportedSpans = new AtomicLong();
+    private final AtomicLong droppedSpans = new AtomicLong();
 
-    @GuardedBy("monitor")
-    private final List<RecordEventsSpanImpl> spans;
-
-    private final Map<String, Handler> serviceHandlers = new ConcurrentHashMap<String, Handler>();
+    private final Map<String, HandlerExporter> handlerExporters =
+        new ConcurrentHashMap<String, HandlerExporter>();
+    private final SpanExporterConfig config;
     private final int bufferSize;
-    private final long scheduleDelayMillis;
+    private final long scheduleDelayNanos;
+    @Nullable private volatile Thread thread;
+    private volatile boolean metricsRegistered;
 
     // See SpanExporterImpl#addSpan.
     private void addSpan(RecordEventsSpanImpl span) {
-      synchronized (monitor) {
-        this.spans.add(span);
-        if (spans.size() > bufferSize) {
-          monitor.notifyAll();
+      if (!spans.offer(span)) {
+        if (dropPolicy == DropPolicy.DROP_NEWEST) {
+          droppedSpans.incrementAndGet();
+          return;
+        }
+        // Make room by dropping the oldest spans, which may take a few attempts when other
+        // producers fill the queue concurrently.
+        do {
+          if (spans.poll() != null) {
+            droppedSpans.incrementAndGet();
+          }
+        } while (!spans.offer(span));
+      }
+      if (spans.size() >= bufferSize && exportRequested.compareAndSet(false, true)) {
+        Thread workerThread = thread;
+        if (workerThread != null) {
+          LockSupport.unpark(workerThread);
         }
       }
     }
 
     // See SpanExporter#registerHandler.
     private void registerHandler(String name, Handler serviceHandler) {
-      serviceHandlers.put(name, serviceHandler);
+      HandlerExporter handlerExporter = HandlerExporter.create(name, serviceHandler, config);
+      HandlerExporter previous = handlerExporters.put(name, handlerExporter);
+      if (previous != null) {
+        previous.stop();
+      }
+      if (metricsRegistered) {
+        ExporterMetrics.exportHandler(name, handlerExporter);
+      }
     }
 
     // See SpanExporter#unregisterHandler.
     private void unregisterHandler(String name) {
-      serviceHandlers.remove(name);
+      HandlerExporter handlerExporter = handlerExporters.remove(name);
+      if (handlerExporter != null) {
+        handlerExporter.stop();
+        if (metricsRegistered) {
+          ExporterMetrics.removeHandler(name);
+        }
+      }
+    }
+
+    private void registerMetrics() {
+      metricsRegistered = true;
+      ExporterMetrics.export(this);
+      for (Map.Entry<String, HandlerExporter> it : handlerExporters.entrySet()) {
+        ExporterMetrics.exportHandler(it.getKey(), it.getValue());
+      }
     }
 
-    // Exports the list of SpanData to all the ServiceHandlers.
+    // Hands the list of SpanData to all the ServiceHandlers. The list is unmodifiable, so it is
+    // shared by all of them.
     private void onBatchExport(List<SpanData> spanDataList) {
-      // From the java documentation of the ConcurrentHashMap#entrySet():
+      // From the java documentation of the ConcurrentHashMap#values():
       // The view's iterator is a "weakly consistent" iterator that will never throw
       // ConcurrentModificationException, and guarantees to traverse elements as they existed
       // upon construction of the iterator, and may (but is not guaranteed to) reflect any
       // modifications subsequent to construction.
-      for (Map.Entry<String, Handler> it : serviceHandlers.entrySet()) {
-        // In case of any exception thrown by the service handlers continue to run.
-        try {
-          it.getValue().export(spanDataList);
-        } catch (Throwable e) {
-          logger.log(Level.WARNING, "Exception thrown by the service export " + it.getKey(), e);
-        }
+      for (HandlerExporter handlerExporter : handlerExporters.values()) {
+        handlerExporter.addBatch(spanDataList);
+      }
+    }
+
+    private void stopHandlers() {
+      for (HandlerExporter handlerExporter : handlerExporters.values()) {
+        handlerExporter.stop();
       }
     }
 
-    private Worker(int bufferSize, Duration scheduleDelay) {
-      spans = new ArrayList<RecordEventsSpanImpl>(bufferSize);
+    private Worker(int bufferSize, Duration scheduleDelay, SpanExporterConfig config) {
+      spans = new BoundedArrayQueue<RecordEventsSpanImpl>(config.getMaxQueueSize());
+      dropPolicy = config.getDropPolicy();
+      this.config = config;
       this.bufferSize = bufferSize;
-      this.scheduleDelayMillis = scheduleDelay.toMillis();
+      this.scheduleDelayNanos = TimeUnit.MILLISECONDS.toNanos(scheduleDelay.toMillis());
     }
 
-    // Returns an unmodifiable list of all buffered spans data to ensure that any registered
-    // service handler cannot modify the list.
-    private static List<SpanData> fromSpanImplToSpanData(List<RecordEventsSpanImpl> spans) {
-      List<SpanData> spanDatas = new ArrayList<SpanData>(spans.size());
-      for (RecordEventsSpanImpl span : spans) {
+    // Removes the queued spans and returns an unmodifiable list of their span data, to ensure that
+    // any registered service handler cannot modify the list. At most a full queue is removed, so
+    // that the producers cannot keep the worker from exporting.
+    private List<SpanData> pollSpanData() {
+      int size = spans.size();
+      if (size == 0) {
+        return Collections.<SpanData>emptyList();
+      }
+      List<SpanData> spanDatas = new ArrayList<SpanData>(size);
+      RecordEventsSpanImpl span;
+      while (spanDatas.size() < spans.capacity() && (span = spans.poll()) != null) {
         spanDatas.add(span.toSpanData());
       }
       return Collections.unmodifiableList(spanDatas);
     }
 
+    private void exportQueuedSpans() {
+      List<SpanData> spanDataList = pollSpanData();
+      if (!spanDataList.isEmpty()) {
+        onBatchExport(spanDataList);
+        exportedSpans.addAndGet(spanDataList.size());
+      }
+    }
+
     @Override
     public void run() {
       while (true) {
-        // Copy all the batched spans in a separate list to release the monitor lock asap to
-        // avoid blocking the producer thread.
-        List<RecordEventsSpanImpl> spansCopy;
-        synchronized (monitor) {
-          if (spans.size() < bufferSize) {
-            do {
-              // In the case of a spurious wakeup we export only if we have at least one span in
-              // the batch. It is acceptable because batching is a best effort mechanism here.
-              try {
-                monitor.wait(scheduleDelayMillis);
-              } catch (InterruptedException ie) {
-                // Preserve the interruption status as per guidance and stop doing any work.
-                Thread.currentThread().interrupt();
-                return;
-              }
-            } while (spans.isEmpty());
+        if (spans.size() < bufferSize) {
+          // In the case of a spurious wakeup we export the spans that are available. It is
+          // acceptable because batching is a best effort mechanism here. A schedule delay of zero
+          // means that the worker only wakes up when the batch is full.
+          if (scheduleDelayNanos > 0) {
+            LockSupport.parkNanos(this, scheduleDelayNanos);
+          } else {
+            LockSupport.park(this);
+          }
+          if (Thread.currentThread().isInterrupted()) {
+            // Preserve the interruption status as per guidance and stop doing any work.
+            return;
           }
-          spansCopy = new ArrayList<RecordEventsSpanImpl>(spans);
-          spans.clear();
-        }
-        // Execute the batch export outside the synchronized to not block all producers.
-        final List<SpanData> spanDataList = fromSpanImplToSpanData(spansCopy);
-        if (!spanDataList.isEmpty()) {
-          onBatchExport(spanDataList);
         }
+        exportRequested.set(false);
+        // Execute the batch export without blocking the producers.
+        exportQueuedSpans();
       }
     }
 
+    // Exports the queued spans, and waits until every handler exported its queued batches.
     void flush() {
-      List<RecordEventsSpanImpl> spansCopy;
-      synchronized (monitor) {
-        spansCopy = new ArrayList<RecordEventsSpanImpl>(spans);
-        spans.clear();
+      exportQueuedSpans();
+      for (HandlerExporter handlerExporter : handlerExporters.values()) {
+        handlerExporter.flush();
       }
+    }
+  }
 
-      final List<SpanData> spanDataList = fromSpanImplToSpanData(spansCopy);
-      if (!spanDataList.isEmpty()) {
-        onBatchExport(spanDataList);
-      }
+  private enum AtomicLongFunction implements ToLongFunction<AtomicLong> {
+    INSTANCE;
+
+    @Override
+    public long applyAsLong(AtomicLong value) {
+      return value.get();
+    }
+  }
+
+  private enum ExportLatencyFunction implements ToDoubleFunction<HandlerExporter> {
+    INSTANCE;
+
+    @Override
+    public double applyAsDouble(HandlerExporter handlerExporter) {
+      return handlerExporter.lastExportLatencyNanos / 1e6;
+    }
+  }
+
+  private enum QueueSizeFunction implements ToLongFunction<Worker> {
+    INSTANCE;
+
+    @Override
+    public long applyAsLong(Worker worker) {
+      return worker.spans.size();
+    }
+  }
+
+  // Holds the gauges, which are only created when an exporter is registered.
+  private static final class ExporterMetrics {
+    private static final DerivedLongGauge QUEUE_SIZE_GAUGE =
+        addGauge(QUEUE_SIZE, "Number of spans waiting to be exported");
+    private static final DerivedLongGauge EXPORTED_SPANS_GAUGE =
+        addGauge(EXPORTED_SPANS, "Number of spans handed to the exporters");
+    private static final DerivedLongGauge DROPPED_SPANS_GAUGE =
+        addGauge(DROPPED_SPANS, "Number of spans dropped because the export queue was full");
+    private static final List<LabelKey> HANDLER_LABEL_KEYS =
+        Collections.singletonList(LabelKey.create("handler", "The name of the handler."));
+    private static final DerivedLongGauge HANDLER_EXPORTED_SPANS_GAUGE =
+        addHandlerGauge(HANDLER_EXPORTED_SPANS, "Number of spans exported by the handler");
+    private static final DerivedLongGauge HANDLER_FAILED_SPANS_GAUGE =
+        addHandlerGauge(
+            HANDLER_FAILED_SPANS,
+            "Number of spans that the handler failed to export after retries");
+    private static final DerivedLongGauge HANDLER_DROPPED_SPANS_GAUGE =
+        addHandlerGauge(
+            HANDLER_DROPPED_SPANS, "Number of spans dropped because the handler queue was full");
+    private static final DerivedDoubleGauge HANDLER_EXPORT_LATENCY_GAUGE =
+        Metrics.getMetricRegistry()
+            .addDerivedDoubleGauge(
+                HANDLER_EXPORT_LATENCY,
+                MetricOptions.builder()
+                    .setDescription("Latency of the last export of the handler, with its retries")
+                    .setUnit("ms")
+                    .setLabelKeys(HANDLER_LABEL_KEYS)
+                    .build());
+
+    private static DerivedLongGauge addGauge(String name, String description) {
+      return Metrics.getMetricRegistry()
+          .addDerivedLongGauge(
+              name, MetricOptions.builder().setDescription(description).setUnit("1").build());
+    }
+
+    private static DerivedLongGauge addHandlerGauge(String name, String description) {
+      return Metrics.getMetricRegistry()
+          .addDerivedLongGauge(
+              name,
+              MetricOptions.builder()
+                  .setDescription(description)
+                  .setUnit("1")
+                  .setLabelKeys(HANDLER_LABEL_KEYS)
+                  .build());
+    }
+
+    // Replaces the time series of any previously registered worker.
+    private static synchronized void export(Worker worker) {
+      List<LabelValue> labelValues = Collections.<LabelValue>emptyList();
+      QUEUE_SIZE_GAUGE.removeTimeSeries(labelValues);
+      QUEUE_SIZE_GAUGE.createTimeSeries(labelValues, worker, QueueSizeFunction.INSTANCE);
+      EXPORTED_SPANS_GAUGE.removeTimeSeries(labelValues);
+      EXPORTED_SPANS_GAUGE.createTimeSeries(
+          labelValues, worker.exportedSpans, AtomicLongFunction.INSTANCE);
+      DROPPED_SPANS_GAUGE.removeTimeSeries(labelValues);
+      DROPPED_SPANS_GAUGE.createTimeSeries(
+          labelValues, worker.droppedSpans, AtomicLongFunction.INSTANCE);
+    }
+
+    // Replaces the time series of any previously registered handler with the same name.
+    private static synchronized void exportHandler(String name, HandlerExporter handlerExporter) {
+      removeHandler(name);
+      List<LabelValue> labelValues = Collections.singletonList(LabelValue.create(name));
+      HANDLER_EXPORTED_SPANS_GAUGE.createTimeSeries(
+          labelValues, handlerExporter.exportedSpans, AtomicLongFunction.INSTANCE);
+      HANDLER_FAILED_SPANS_GAUGE.createTimeSeries(
+          labelValues, handlerExporter.failedSpans, AtomicLongFunction.INSTANCE);
+      HANDLER_DROPPED_SPANS_GAUGE.createTimeSeries(
+          labelValues, handlerExporter.droppedSpans, AtomicLongFunction.INSTANCE);
+      HANDLER_EXPORT_LATENCY_GAUGE.createTimeSeries(
+          labelValues, handlerExporter, ExportLatencyFunction.INSTANCE);
+    }
+
+    private static synchronized void removeHandler(String name) {
+      List<LabelValue> labelValues = Collections.singletonList(LabelValue.create(name));
+      HANDLER_EXPORTED_SPANS_GAUGE.removeTimeSeries(labelValues);
+      HANDLER_FAILED_SPANS_GAUGE.removeTimeSeries(labelValues);
+      HANDLER_DROPPED_SPANS_GAUGE.removeTimeSeries(labelValues);
+      HANDLER_EXPORT_LATENCY_GAUGE.removeTimeSeries(labelValues);
     }
   }
 }
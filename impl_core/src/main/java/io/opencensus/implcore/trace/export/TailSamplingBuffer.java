@@ -0,0 +1,350 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.implcore.trace.export;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.annotations.VisibleForTesting;
+import io.opencensus.common.Clock;
+import io.opencensus.common.Duration;
+import io.opencensus.common.ToLongFunction;
+import io.opencensus.implcore.internal.DaemonThreadFactory;
+import io.opencensus.implcore.trace.RecordEventsSpanImpl;
+import io.opencensus.metrics.DerivedLongGauge;
+import io.opencensus.metrics.LabelValue;
+import io.opencensus.metrics.MetricOptions;
+import io.opencensus.metrics.MetricRegistry;
+import io.opencensus.trace.TraceId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Buffers the ended spans that were not sampled but record events, grouped by trace, and exports
+ * the whole traces that contain a span with an error status or a latency above a threshold.
+ *
+ * <p>The spans of a trace are buffered for a fixed time after the first of them ended, then the
+ * trace is either exported or dropped. The spans of a kept trace that end after the decision are
+ * exported directly. The number of buffered spans is bounded: when the buffer is full the oldest
+ * trace is evicted, which means dropped unless it already contains an error or a slow span.
+ *
+ * <p>Only the spans that record events can be buffered, i.e. spans that are sampled or for which
+ * {@code setRecordEvents(true)} was called. The exported spans keep their sampling decision.
+ */
+@ThreadSafe
+public final class TailSamplingBuffer {
+  private static final String METRIC_NAME_PREFIX = "opencensus.io/trace/tail_sampling/";
+  @VisibleForTesting static final String BUFFERED_SPANS = METRIC_NAME_PREFIX + "buffered_spans";
+  @VisibleForTesting static final String KEPT_SPANS = METRIC_NAME_PREFIX + "kept_spans";
+  @VisibleForTesting static final String DROPPED_SPANS = METRIC_NAME_PREFIX + "dropped_spans";
+  @VisibleForTesting static final String EVICTED_SPANS = METRIC_NAME_PREFIX + "evicted_spans";
+
+  // The number of kept traces that are remembered to export their late spans.
+  private static final int MAX_KEPT_TRACES = 1024;
+
+  private final SpanExporterImpl spanExporter;
+  private final Clock clock;
+  private final long decisionWaitNanos;
+  private final long latencyThresholdNanos;
+  private final int maxBufferedSpans;
+  private final Object monitor = new Object();
+
+  // The buffered traces, ordered by the time their first span was added, which is also the order
+  // of their decision times.
+  @GuardedBy("monitor")
+  private final LinkedHashMap<TraceId, BufferedTrace> traces =
+      new LinkedHashMap<TraceId, BufferedTrace>();
+
+  @GuardedBy("monitor")
+  private final Map<TraceId, Boolean> keptTraces =
+      new LinkedHashMap<TraceId, Boolean>() {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<TraceId, Boolean> eldest) {
+          return size() > MAX_KEPT_TRACES;
+        }
+      };
+
+  @GuardedBy("monitor")
+  private int bufferedSpans;
+
+  private final AtomicLong keptSpans = new AtomicLong();
+  private final AtomicLong droppedSpans = new AtomicLong();
+  private final AtomicLong evictedSpans = new AtomicLong();
+  @Nullable private volatile Thread workerThread;
+
+  @VisibleForTesting
+  TailSamplingBuffer(SpanExporterImpl spanExporter, Clock clock, TailSamplingConfig config) {
+    this.spanExporter = checkNotNull(spanExporter, "spanExporter");
+    this.clock = checkNotNull(clock, "clock");
+    this.decisionWaitNanos = toNanos(config.getDecisionWait());
+    this.latencyThresholdNanos = toNanos(config.getLatencyThreshold());
+    this.maxBufferedSpans = config.getMaxBufferedSpans();
+  }
+
+  /**
+   * Constructs a {@code TailSamplingBuffer} that exports the kept traces to the given {@code
+   * SpanExporterImpl}, and starts a separate thread that decides whether the buffered traces are
+   * kept when their time is up.
+   *
+   * @param spanExporter the {@code SpanExporterImpl} to export the kept spans to.
+   * @param clock the clock used to measure how long the spans are buffered.
+   * @param config the configuration of the buffer.
+   * @return a new {@code TailSamplingBuffer}.
+   */
+  static TailSamplingBuffer create(
+      SpanExporterImpl spanExporter, Clock clock, TailSamplingConfig config) {
+    TailSamplingBuffer buffer = new TailSamplingBuffer(spanExporter, clock, config);
+    Thread thread =
+        new DaemonThreadFactory("ExportComponent.TailSamplingThread")
+            .newThread(buffer.new Worker());
+    buffer.workerThread = thread;
+    thread.start();
+    return buffer;
+  }
+
+  /**
+   * Adds an ended {@code Span} that was not sampled to the buffer.
+   *
+   * @param span the {@code Span} to be added.
+   */
+  public void addSpan(RecordEventsSpanImpl span) {
+    boolean keep = !span.getStatus().isOk() || span.getLatencyNs() >= latencyThresholdNanos;
+    TraceId traceId = span.getContext().getTraceId();
+    List<RecordEventsSpanImpl> spansToExport = null;
+    synchronized (monitor) {
+      if (keptTraces.containsKey(traceId)) {
+        spansToExport = Collections.singletonList(span);
+        keptSpans.incrementAndGet();
+      } else {
+        BufferedTrace trace = traces.get(traceId);
+        if (trace == null) {
+          trace = new BufferedTrace(clock.nowNanos() + decisionWaitNanos);
+          traces.put(traceId, trace);
+        }
+        trace.spans.add(span);
+        trace.keep |= keep;
+        bufferedSpans++;
+        if (bufferedSpans > maxBufferedSpans) {
+          spansToExport = evictOldestTrace();
+        }
+      }
+    }
+    export(spansToExport);
+  }
+
+  /**
+   * Decides whether the traces whose time is up are kept, and exports the kept ones.
+   *
+   * @return the time in nanoseconds until the next decision, or the decision wait if no trace is
+   *     buffered.
+   */
+  @VisibleForTesting
+  long decideExpiredTraces() {
+    List<RecordEventsSpanImpl> spansToExport = new ArrayList<RecordEventsSpanImpl>();
+    long nanosUntilNextDecision = decisionWaitNanos;
+    synchronized (monitor) {
+      long nowNanos = clock.nowNanos();
+      for (Iterator<Map.Entry<TraceId, BufferedTrace>> i = traces.entrySet().iterator();
+          i.hasNext(); ) {
+        Map.Entry<TraceId, BufferedTrace> entry = i.next();
+        long nanosUntilDecision = entry.getValue().decisionNanos - nowNanos;
+        if (nanosUntilDecision > 0) {
+          nanosUntilNextDecision = nanosUntilDecision;
+          break;
+        }
+        i.remove();
+        decide(entry.getKey(), entry.getValue(), spansToExport);
+      }
+    }
+    export(spansToExport);
+    return nanosUntilNextDecision;
+  }
+
+  /** Decides whether all the buffered traces are kept now, and exports the kept ones. */
+  void flush() {
+    List<RecordEventsSpanImpl> spansToExport = new ArrayList<RecordEventsSpanImpl>();
+    synchronized (monitor) {
+      for (Map.Entry<TraceId, BufferedTrace> entry : traces.entrySet()) {
+        decide(entry.getKey(), entry.getValue(), spansToExport);
+      }
+      traces.clear();
+    }
+    export(spansToExport);
+  }
+
+  void shutdown() {
+    flush();
+    Thread thread = workerThread;
+    if (thread != null) {
+      thread.interrupt();
+    }
+  }
+
+  // Removes the oldest trace, and returns its spans if it is kept.
+  @GuardedBy("monitor")
+  @Nullable
+  private List<RecordEventsSpanImpl> evictOldestTrace() {
+    Iterator<Map.Entry<TraceId, BufferedTrace>> i = traces.entrySet().iterator();
+    Map.Entry<TraceId, BufferedTrace> oldest = i.next();
+    i.remove();
+    BufferedTrace trace = oldest.getValue();
+    if (trace.keep) {
+      List<RecordEventsSpanImpl> spansToExport = new ArrayList<RecordEventsSpanImpl>();
+      decide(oldest.getKey(), trace, spansToExport);
+      return spansToExport;
+    }
+    bufferedSpans -= trace.spans.size();
+    evictedSpans.addAndGet(trace.spans.size());
+    return null;
+  }
+
+  // Decides whether a trace that was removed from the buffer is kept, and adds its spans to the
+  // given list if it is.
+  @GuardedBy("monitor")
+  private void decide(
+      TraceId traceId, BufferedTrace trace, List<RecordEventsSpanImpl> spansToExport) {
+    bufferedSpans -= trace.spans.size();
+    if (trace.keep) {
+      keptTraces.put(traceId, Boolean.TRUE);
+      spansToExport.addAll(trace.spans);
+      keptSpans.addAndGet(trace.spans.size());
+    } else {
+      droppedSpans.addAndGet(trace.spans.size());
+    }
+  }
+
+  // Exports the spans outside of the monitor, so that the producers are not blocked by the
+  // exporter.
+  private void export(@Nullable List<RecordEventsSpanImpl> spansToExport) {
+    if (spansToExport != null) {
+      for (RecordEventsSpanImpl span : spansToExport) {
+        spanExporter.addSpan(span);
+      }
+    }
+  }
+
+  @VisibleForTesting
+  int getBufferedSpans() {
+    synchronized (monitor) {
+      return bufferedSpans;
+    }
+  }
+
+  @VisibleForTesting
+  long getKeptSpans() {
+    return keptSpans.get();
+  }
+
+  @VisibleForTesting
+  long getDroppedSpans() {
+    return droppedSpans.get();
+  }
+
+  @VisibleForTesting
+  long getEvictedSpans() {
+    return evictedSpans.get();
+  }
+
+  /**
+   * Exports the number of buffered spans, and the number of spans that were kept, dropped and
+   * evicted, as gauges. Must be called at most once per {@code MetricRegistry}.
+   *
+   * @param registry the registry to add the gauges to.
+   */
+  public void registerMetrics(MetricRegistry registry) {
+    addGauge(registry, BUFFERED_SPANS, "Number of spans waiting for a tail sampling decision")
+        .createTimeSeries(
+            Collections.<LabelValue>emptyList(),
+            this,
+            new ToLongFunction<TailSamplingBuffer>() {
+              @Override
+              public long applyAsLong(TailSamplingBuffer buffer) {
+                return buffer.getBufferedSpans();
+              }
+            });
+    addGauge(registry, KEPT_SPANS, "Number of spans kept because their trace was slow or failed")
+        .createTimeSeries(
+            Collections.<LabelValue>emptyList(), keptSpans, AtomicLongFunction.INSTANCE);
+    addGauge(registry, DROPPED_SPANS, "Number of spans dropped after the tail sampling decision")
+        .createTimeSeries(
+            Collections.<LabelValue>emptyList(), droppedSpans, AtomicLongFunction.INSTANCE);
+    addGauge(
+            registry,
+            EVICTED_SPANS,
+            "Number of spans dropped before the tail sampling decision because the buffer was full")
+        .createTimeSeries(
+            Collections.<LabelValue>emptyList(), evictedSpans, AtomicLongFunction.INSTANCE);
+  }
+
+  private static DerivedLongGauge addGauge(
+      MetricRegistry registry, String name, String description) {
+    return registry.addDerivedLongGauge(
+        name, MetricOptions.builder().setDescription(description).setUnit("1").build());
+  }
+
+  private static long toNanos(Duration duration) {
+    return TimeUnit.SECONDS.toNanos(duration.getSeconds()) + duration.getNanos();
+  }
+
+  // The spans of a trace, and whether the trace is kept.
+  private static final class BufferedTrace {
+    private final long decisionNanos;
+    private final List<RecordEventsSpanImpl> spans = new ArrayList<RecordEventsSpanImpl>(4);
+    private boolean keep;
+
+    private BufferedTrace(long decisionNanos) {
+      this.decisionNanos = decisionNanos;
+    }
+  }
+
+  private enum AtomicLongFunction implements ToLongFunction<AtomicLong> {
+    INSTANCE;
+
+    @Override
+    public long applyAsLong(AtomicLong value) {
+      return value.get();
+    }
+  }
+
+  // Decides whether the buffered traces are kept when their time is up.
+  private final class Worker implements Runnable {
+    @Override
+    public void run() {
+      while (true) {
+        long nanosUntilNextDecision = decideExpiredTraces();
+        try {
+          // Sleeps at least a millisecond, to not spin when a decision is due in less than that.
+          Thread.sleep(Math.max(TimeUnit.NANOSECONDS.toMillis(nanosUntilNextDecision), 1));
+        } catch (InterruptedException ie) {
+          // Preserve the interruption status as per guidance and stop doing any work.
+          Thread.currentThread().interrupt();
+          return;
+        }
+      }
+    }
+  }
+}
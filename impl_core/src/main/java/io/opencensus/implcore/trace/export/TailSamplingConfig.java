@@ -0,0 +1,143 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.implcore.trace.export;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.auto.value.AutoValue;
+import io.opencensus.common.Duration;
+import javax.annotation.concurrent.Immutable;
+
+/** Configuration of the {@link TailSamplingBuffer}. */
+@Immutable
+@AutoValue
+public abstract class TailSamplingConfig {
+  private static final Duration DEFAULT_DECISION_WAIT = Duration.create(10, 0);
+  private static final Duration DEFAULT_LATENCY_THRESHOLD = Duration.create(1, 0);
+  private static final int DEFAULT_MAX_BUFFERED_SPANS = 10000;
+
+  /** Default {@code TailSamplingConfig}. */
+  public static final TailSamplingConfig DEFAULT =
+      TailSamplingConfig.builder()
+          .setDecisionWait(DEFAULT_DECISION_WAIT)
+          .setLatencyThreshold(DEFAULT_LATENCY_THRESHOLD)
+          .setMaxBufferedSpans(DEFAULT_MAX_BUFFERED_SPANS)
+          .setExportMetrics(false)
+          .build();
+
+  TailSamplingConfig() {}
+
+  /**
+   * Returns how long the spans of a trace are buffered, after the first of them ended, before
+   * deciding whether the trace is kept.
+   *
+   * @return how long the spans of a trace are buffered.
+   */
+  public abstract Duration getDecisionWait();
+
+  /**
+   * Returns the latency from which a span is kept, with the other spans of its trace.
+   *
+   * @return the latency from which a span is kept.
+   */
+  public abstract Duration getLatencyThreshold();
+
+  /**
+   * Returns the maximum number of buffered spans. When the buffer is full, the oldest trace is
+   * evicted.
+   *
+   * @return the maximum number of buffered spans.
+   */
+  public abstract int getMaxBufferedSpans();
+
+  /**
+   * Returns whether the numbers of buffered, kept and dropped spans are exported as metrics. Off by
+   * default, like the metrics of the span exporter.
+   *
+   * @return whether the metrics of the tail sampling buffer are exported.
+   */
+  public abstract boolean getExportMetrics();
+
+  private static Builder builder() {
+    return new AutoValue_TailSamplingConfig.Builder();
+  }
+
+  /**
+   * Returns a {@link Builder} initialized to the same property values as the current instance.
+   *
+   * @return a {@link Builder} initialized to the same property values as the current instance.
+   */
+  public abstract Builder toBuilder();
+
+  /** A {@code Builder} class for {@link TailSamplingConfig}. */
+  @AutoValue.Builder
+  public abstract static class Builder {
+
+    /**
+     * Sets how long the spans of a trace are buffered before deciding whether the trace is kept.
+     *
+     * @param decisionWait how long the spans of a trace are buffered.
+     * @return this.
+     */
+    public abstract Builder setDecisionWait(Duration decisionWait);
+
+    /**
+     * Sets the latency from which a span is kept, with the other spans of its trace.
+     *
+     * @param latencyThreshold the latency from which a span is kept.
+     * @return this.
+     */
+    public abstract Builder setLatencyThreshold(Duration latencyThreshold);
+
+    /**
+     * Sets the maximum number of buffered spans.
+     *
+     * @param maxBufferedSpans the maximum number of buffered spans.
+     * @return this.
+     */
+    public abstract Builder setMaxBufferedSpans(int maxBufferedSpans);
+
+    /**
+     * Sets whether the metrics of the tail sampling buffer are exported.
+     *
+     * @param exportMetrics whether the metrics of the tail sampling buffer are exported.
+     * @return this.
+     */
+    public abstract Builder setExportMetrics(boolean exportMetrics);
+
+    abstract TailSamplingConfig autoBuild();
+
+    /**
+     * Builds and returns a {@code TailSamplingConfig} with the desired values.
+     *
+     * @return a {@code TailSamplingConfig} with the desired values.
+     * @throws NullPointerException if a duration is {@code null}.
+     * @throws IllegalArgumentException if a duration is negative or the maximum number of buffered
+     *     spans is not positive.
+     */
+    public TailSamplingConfig build() {
+      TailSamplingConfig config = autoBuild();
+      checkArgument(
+          config.getDecisionWait().compareTo(Duration.create(0, 0)) >= 0, "Negative decisionWait.");
+      checkArgument(
+          config.getLatencyThreshold().compareTo(Duration.create(0, 0)) >= 0,
+          "Negative latencyThreshold.");
+      checkArgument(config.getMaxBufferedSpans() > 0, "maxBufferedSpans must be positive.");
+      return config;
+    }
+  }
+}
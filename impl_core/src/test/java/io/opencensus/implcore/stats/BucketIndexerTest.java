@@ -0,0 +1,151 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.implcore.stats;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import io.opencensus.stats.BucketBoundaries;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link BucketIndexer}. */
+@RunWith(JUnit4.class)
+public class BucketIndexerTest {
+
+  private static final double[] SPECIAL_VALUES =
+      new double[] {
+        Double.NEGATIVE_INFINITY,
+        -Double.MAX_VALUE,
+        -1.0,
+        -Double.MIN_VALUE,
+        -0.0,
+        0.0,
+        Double.MIN_VALUE,
+        Double.MAX_VALUE,
+        Double.POSITIVE_INFINITY,
+        Double.NaN
+      };
+
+  @Test
+  public void binarySearch() {
+    double[] boundaries = new double[] {-10.0, 0.0, 1.0, 5.0, 10.0, 100.0};
+    for (double value : new double[] {-20.0, -10.0, -5.0, 0.5, 1.0, 4.9, 5.0, 99.0, 100.0}) {
+      assertThat(BucketIndexer.binarySearch(boundaries, value))
+          .isEqualTo(linearSearch(boundaries, value));
+    }
+    for (double value : SPECIAL_VALUES) {
+      assertThat(BucketIndexer.binarySearch(boundaries, value))
+          .isEqualTo(linearSearch(boundaries, value));
+    }
+    assertThat(BucketIndexer.binarySearch(new double[0], 1.0)).isEqualTo(0);
+  }
+
+  @Test
+  public void explicit() {
+    BucketIndexer indexer =
+        BucketIndexer.create(BucketBoundaries.create(Arrays.asList(1.0, 2.0, 4.0)));
+    assertThat(indexer.boundaries).isEqualTo(new double[] {1.0, 2.0, 4.0});
+    assertThat(indexer.getBucketIndex(0.5)).isEqualTo(0);
+    assertThat(indexer.getBucketIndex(1.0)).isEqualTo(1);
+    assertThat(indexer.getBucketIndex(3.0)).isEqualTo(2);
+    assertThat(indexer.getBucketIndex(4.0)).isEqualTo(3);
+
+    BucketIndexer empty =
+        BucketIndexer.create(BucketBoundaries.create(Collections.<Double>emptyList()));
+    assertThat(empty.getBucketIndex(1.0)).isEqualTo(0);
+    assertThat(empty.getBucketIndex(Double.NaN)).isEqualTo(0);
+  }
+
+  @Test
+  public void exponential() {
+    BucketIndexer indexer = BucketIndexer.create(BucketBoundaries.exponential(3, 2.0, 1.0));
+    assertThat(indexer.boundaries).isEqualTo(new double[] {1.0, 2.0, 4.0, 8.0});
+    assertThat(indexer.getBucketIndex(0.5)).isEqualTo(0);
+    assertThat(indexer.getBucketIndex(1.0)).isEqualTo(1);
+    assertThat(indexer.getBucketIndex(3.0)).isEqualTo(2);
+    assertThat(indexer.getBucketIndex(7.99)).isEqualTo(3);
+    assertThat(indexer.getBucketIndex(8.0)).isEqualTo(4);
+    assertThat(indexer.getBucketIndex(1e300)).isEqualTo(4);
+  }
+
+  @Test
+  public void exponential_AgreesWithBinarySearch() {
+    verifyAgreesWithBinarySearch(BucketBoundaries.exponential(100, 1.1, 0.001));
+    verifyAgreesWithBinarySearch(BucketBoundaries.exponential(30, 1.5, 1.0));
+    verifyAgreesWithBinarySearch(BucketBoundaries.exponential(1000, 1.01, 1e-6));
+  }
+
+  @Test
+  public void logLinear() {
+    BucketIndexer indexer = BucketIndexer.create(BucketBoundaries.logLinear(1.0, 2, 4));
+    assertThat(indexer.boundaries)
+        .isEqualTo(new double[] {1.0, 1.25, 1.5, 1.75, 2.0, 2.5, 3.0, 3.5, 4.0});
+    assertThat(indexer.getBucketIndex(0.5)).isEqualTo(0);
+    assertThat(indexer.getBucketIndex(1.0)).isEqualTo(1);
+    assertThat(indexer.getBucketIndex(1.3)).isEqualTo(2);
+    assertThat(indexer.getBucketIndex(2.0)).isEqualTo(5);
+    assertThat(indexer.getBucketIndex(3.9)).isEqualTo(8);
+    assertThat(indexer.getBucketIndex(4.0)).isEqualTo(9);
+    assertThat(indexer.getBucketIndex(1e300)).isEqualTo(9);
+  }
+
+  @Test
+  public void logLinear_AgreesWithBinarySearch() {
+    verifyAgreesWithBinarySearch(BucketBoundaries.logLinear(0.001, 20, 16));
+    verifyAgreesWithBinarySearch(BucketBoundaries.logLinear(1.0, 30, 10));
+    verifyAgreesWithBinarySearch(BucketBoundaries.logLinear(0.3, 10, 1));
+  }
+
+  // Checks the boundaries, their neighbours, special values, and random values over the whole
+  // range.
+  private static void verifyAgreesWithBinarySearch(BucketBoundaries bucketBoundaries) {
+    BucketIndexer indexer = BucketIndexer.create(bucketBoundaries);
+    double[] boundaries = indexer.boundaries;
+    List<Double> values = new ArrayList<Double>();
+    for (double boundary : boundaries) {
+      values.add(boundary);
+      values.add(Math.nextUp(boundary));
+      values.add(Math.nextAfter(boundary, Double.NEGATIVE_INFINITY));
+    }
+    for (double value : SPECIAL_VALUES) {
+      values.add(value);
+    }
+    Random random = new Random(1234);
+    double max = boundaries[boundaries.length - 1] * 2;
+    for (int i = 0; i < 10000; i++) {
+      values.add(random.nextDouble() * max);
+    }
+    for (double value : values) {
+      assertThat(indexer.getBucketIndex(value))
+          .isEqualTo(BucketIndexer.binarySearch(boundaries, value));
+    }
+  }
+
+  private static int linearSearch(double[] boundaries, double value) {
+    int index = 0;
+    while (index < boundaries.length && !(value < boundaries[index])) {
+      index++;
+    }
+    return index;
+  }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.implcore.stats;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import io.opencensus.common.Timestamp;
+import io.opencensus.implcore.stats.MutableAggregation.MutableCount;
+import io.opencensus.implcore.stats.MutableAggregation.MutableDistribution;
+import io.opencensus.implcore.stats.MutableAggregation.MutableLastValueDouble;
+import io.opencensus.implcore.stats.MutableAggregation.MutableMean;
+import io.opencensus.implcore.stats.MutableAggregation.MutableSumDouble;
+import io.opencensus.metrics.data.AttachmentValue;
+import io.opencensus.stats.Aggregation.Count;
+import io.opencensus.stats.Aggregation.Distribution;
+import io.opencensus.stats.Aggregation.LastValue;
+import io.opencensus.stats.Aggregation.Mean;
+import io.opencensus.stats.Aggregation.Sum;
+import io.opencensus.stats.BucketBoundaries;
+import io.opencensus.stats.Measure.MeasureDouble;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link IntervalTimeSeries}. */
+@RunWith(JUnit4.class)
+public class IntervalTimeSeriesTest {
+
+  @Rule public final ExpectedException thrown = ExpectedException.none();
+
+  private static final double TOLERANCE = 1e-6;
+  private static final MeasureDouble MEASURE_DOUBLE =
+      MeasureDouble.create("measure1", "description", "1");
+  private static final Timestamp TIMESTAMP = Timestamp.create(60, 0);
+  private static final Map<String, AttachmentValue> ATTACHMENTS =
+      Collections.<String, AttachmentValue>emptyMap();
+
+  @Test
+  public void preventNonPositiveSize() {
+    thrown.expect(IllegalArgumentException.class);
+    new IntervalTimeSeries(0, Mean.create(), MEASURE_DOUBLE);
+  }
+
+  @Test
+  public void preventNullAggregation() {
+    thrown.expect(NullPointerException.class);
+    new IntervalTimeSeries(5, null, MEASURE_DOUBLE);
+  }
+
+  @Test
+  public void preventNullMeasure() {
+    thrown.expect(NullPointerException.class);
+    new IntervalTimeSeries(5, Mean.create(), null);
+  }
+
+  @Test
+  public void combine_Empty() {
+    assertThat(new IntervalTimeSeries(5, Mean.create(), MEASURE_DOUBLE).combine(4, 1.0)).isNull();
+  }
+
+  @Test
+  public void recordAndCombine() {
+    IntervalTimeSeries timeSeries = new IntervalTimeSeries(3, Mean.create(), MEASURE_DOUBLE);
+    timeSeries.record(0, 5.0, ATTACHMENTS, TIMESTAMP);
+    timeSeries.record(0, 15.0, ATTACHMENTS, TIMESTAMP);
+    timeSeries.record(2, 10.0, ATTACHMENTS, TIMESTAMP);
+    MutableMean mean = (MutableMean) timeSeries.combine(2, 1.0);
+    assertThat(mean.getSum()).isWithin(TOLERANCE).of(30);
+    assertThat(mean.getCount()).isEqualTo(3);
+  }
+
+  @Test
+  public void combine_FractionOfOldestBucket() {
+    IntervalTimeSeries timeSeries = new IntervalTimeSeries(3, Sum.create(), MEASURE_DOUBLE);
+    timeSeries.record(1, 10.0, ATTACHMENTS, TIMESTAMP);
+    timeSeries.record(2, 20.0, ATTACHMENTS, TIMESTAMP);
+    timeSeries.record(3, 40.0, ATTACHMENTS, TIMESTAMP);
+    assertThat(((MutableSumDouble) timeSeries.combine(3, 0.5)).getSum())
+        .isWithin(TOLERANCE)
+        .of(10 * 0.5 + 20 + 40);
+  }
+
+  @Test
+  public void reuseSlotsOfExpiredBuckets() {
+    IntervalTimeSeries timeSeries = new IntervalTimeSeries(3, Count.create(), MEASURE_DOUBLE);
+    timeSeries.record(0, 1.0, ATTACHMENTS, TIMESTAMP);
+    timeSeries.record(1, 1.0, ATTACHMENTS, TIMESTAMP);
+    timeSeries.record(1, 1.0, ATTACHMENTS, TIMESTAMP);
+    // Bucket 3 is stored in the slot of bucket 0, which has expired.
+    timeSeries.record(3, 1.0, ATTACHMENTS, TIMESTAMP);
+    assertThat(((MutableCount) timeSeries.combine(3, 1.0)).getCount()).isEqualTo(3);
+    // Buckets 0 to 3 have expired, and buckets 4 and 5 are empty.
+    assertThat(timeSeries.combine(6, 1.0)).isNull();
+    timeSeries.record(7, 1.0, ATTACHMENTS, TIMESTAMP);
+    assertThat(((MutableCount) timeSeries.combine(7, 1.0)).getCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void combine_SlidingWindow() {
+    int size = 5;
+    IntervalTimeSeries timeSeries = new IntervalTimeSeries(size, Sum.create(), MEASURE_DOUBLE);
+    double[] sums = new double[40];
+    // Move forward by 0 to 6 buckets at a time, so that both small steps and jumps over the whole
+    // interval are covered.
+    long bucketNumber = 0;
+    for (int i = 0; bucketNumber < sums.length; i++) {
+      double value = i + 1;
+      timeSeries.record(bucketNumber, value, ATTACHMENTS, TIMESTAMP);
+      sums[(int) bucketNumber] += value;
+      double expected = 0;
+      for (long b = Math.max(bucketNumber - size + 1, 0); b <= bucketNumber; b++) {
+        expected += sums[(int) b];
+      }
+      assertThat(((MutableSumDouble) timeSeries.combine(bucketNumber, 1.0)).getSum())
+          .isWithin(TOLERANCE)
+          .of(expected);
+      bucketNumber += (i * 7) % 11 % 7;
+    }
+  }
+
+  @Test
+  public void combine_DoesNotKeepRoundingErrors() {
+    int size = 4;
+    IntervalTimeSeries timeSeries = new IntervalTimeSeries(size, Sum.create(), MEASURE_DOUBLE);
+    // The small values are lost when they are added to the large one, and subtracting the large
+    // one doesn't bring them back.
+    timeSeries.record(0, 1e16, ATTACHMENTS, TIMESTAMP);
+    for (long bucketNumber = 1; bucketNumber < 4 * size; bucketNumber++) {
+      timeSeries.record(bucketNumber, 0.1, ATTACHMENTS, TIMESTAMP);
+    }
+    assertThat(((MutableSumDouble) timeSeries.combine(4 * size - 1, 1.0)).getSum())
+        .isWithin(TOLERANCE)
+        .of(0.1 * size);
+  }
+
+  @Test
+  public void combine_SlidingWindowOfDistribution() {
+    IntervalTimeSeries timeSeries =
+        new IntervalTimeSeries(
+            3,
+            Distribution.create(BucketBoundaries.create(Arrays.asList(10.0, 20.0))),
+            MEASURE_DOUBLE);
+    timeSeries.record(0, 5.0, ATTACHMENTS, TIMESTAMP);
+    timeSeries.record(0, 5.0, ATTACHMENTS, TIMESTAMP);
+    timeSeries.record(1, 15.0, ATTACHMENTS, TIMESTAMP);
+    timeSeries.record(2, 25.0, ATTACHMENTS, TIMESTAMP);
+    timeSeries.record(3, 15.0, ATTACHMENTS, TIMESTAMP);
+    MutableDistribution distribution = (MutableDistribution) timeSeries.combine(3, 1.0);
+    assertThat(distribution.getCount()).isEqualTo(3);
+    assertThat(distribution.getBucketCounts()).isEqualTo(new long[] {0, 2, 1});
+    assertThat(distribution.getMean()).isWithin(TOLERANCE).of(55.0 / 3);
+    // Half of bucket 2 is still in the interval.
+    distribution = (MutableDistribution) timeSeries.combine(4, 0.5);
+    assertThat(distribution.getCount()).isEqualTo(2);
+    assertThat(distribution.getBucketCounts()).isEqualTo(new long[] {0, 1, 1});
+  }
+
+  @Test
+  public void combine_LastValue() {
+    IntervalTimeSeries timeSeries = new IntervalTimeSeries(3, LastValue.create(), MEASURE_DOUBLE);
+    timeSeries.record(0, 5.0, ATTACHMENTS, TIMESTAMP);
+    timeSeries.record(1, 15.0, ATTACHMENTS, TIMESTAMP);
+    assertThat(((MutableLastValueDouble) timeSeries.combine(2, 1.0)).getLastValue())
+        .isWithin(TOLERANCE)
+        .of(15.0);
+  }
+}
@@ -18,18 +18,44 @@ package io.opencensus.implcore.stats;
 
 import static com.google.common.truth.Truth.assertThat;
 
+import io.opencensus.common.Duration;
 import io.opencensus.common.Timestamp;
 import io.opencensus.implcore.internal.CurrentState.State;
+import io.opencensus.implcore.stats.MutableAggregation.MutablePercentiles;
+import io.opencensus.implcore.tags.TagMapImpl;
+import io.opencensus.implcore.tags.TagValueWithMetadata;
+import io.opencensus.metrics.LabelValue;
+import io.opencensus.metrics.data.AttachmentValue;
+import io.opencensus.metrics.export.Metric;
+import io.opencensus.metrics.export.MetricDescriptor;
+import io.opencensus.metrics.export.Point;
+import io.opencensus.metrics.export.TimeSeries;
+import io.opencensus.metrics.export.Value;
+import io.opencensus.stats.Aggregation.Count;
 import io.opencensus.stats.Aggregation.Mean;
+import io.opencensus.stats.Aggregation.Percentiles;
+import io.opencensus.stats.Aggregation.Sum;
+import io.opencensus.stats.AggregationData.CountData;
+import io.opencensus.stats.AggregationData.SumDataDouble;
 import io.opencensus.stats.Measure;
+import io.opencensus.stats.Measure.MeasureDouble;
 import io.opencensus.stats.View;
 import io.opencensus.stats.View.AggregationWindow.Cumulative;
 import io.opencensus.stats.View.Name;
 import io.opencensus.stats.ViewData;
 import io.opencensus.stats.ViewData.AggregationWindowData.CumulativeData;
 import io.opencensus.tags.TagKey;
+import io.opencensus.tags.TagMetadata;
+import io.opencensus.tags.TagMetadata.TagTtl;
+import io.opencensus.tags.TagValue;
 import io.opencensus.testing.common.TestClock;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
@@ -66,4 +92,336 @@ public class MeasureToViewMapTest {
         .isEqualTo(CumulativeData.create(Timestamp.create(10, 20), Timestamp.create(30, 40)));
     assertThat(viewData.getAggregationMap()).isEmpty();
   }
+
+  @Test
+  public void testConcurrentRecording() throws InterruptedException {
+    final MeasureToViewMap measureToViewMap = new MeasureToViewMap();
+    final TestClock clock = TestClock.create(Timestamp.create(10, 20));
+    final MeasureDouble measure1 = MeasureDouble.create("measure 1", "description", "1");
+    final MeasureDouble measure2 = MeasureDouble.create("measure 2", "description", "1");
+    final TagKey key = TagKey.create("key");
+    View.Name countViewName = View.Name.create("count view");
+    View.Name sumViewName = View.Name.create("sum view");
+    measureToViewMap.registerView(
+        View.create(
+            countViewName, "description", measure1, Count.create(), Arrays.asList(key), CUMULATIVE),
+        clock);
+    measureToViewMap.registerView(
+        View.create(
+            sumViewName, "description", measure2, Sum.create(), Arrays.asList(key), CUMULATIVE),
+        clock);
+
+    final int numThreads = 8;
+    final int numRecordsPerThread = 1000;
+    final CountDownLatch startLatch = new CountDownLatch(1);
+    List<Thread> threads = new ArrayList<Thread>();
+    for (int i = 0; i < numThreads; i++) {
+      // Two threads share each tag value, so that time series are recorded concurrently.
+      final TagMapImpl tags =
+          new TagMapImpl(
+              Collections.singletonMap(
+                  key,
+                  TagValueWithMetadata.create(
+                      TagValue.create("value" + i % (numThreads / 2)),
+                      TagMetadata.create(TagTtl.UNLIMITED_PROPAGATION))));
+      Thread thread =
+          new Thread(
+              new Runnable() {
+                @Override
+                public void run() {
+                  try {
+                    startLatch.await();
+                  } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                  }
+                  for (int j = 0; j < numRecordsPerThread; j++) {
+                    measureToViewMap.record(
+                        tags,
+                        MeasureMapInternal.builder().put(measure1, 1.0).put(measure2, 2.0).build(),
+                        clock.now());
+                  }
+                }
+              });
+      thread.start();
+      threads.add(thread);
+    }
+    startLatch.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    ViewData countViewData = measureToViewMap.getView(countViewName, clock, State.ENABLED);
+    ViewData sumViewData = measureToViewMap.getView(sumViewName, clock, State.ENABLED);
+    assertThat(countViewData.getAggregationMap()).hasSize(numThreads / 2);
+    assertThat(sumViewData.getAggregationMap()).hasSize(numThreads / 2);
+    for (int i = 0; i < numThreads / 2; i++) {
+      List<TagValue> tagValues = Arrays.asList(TagValue.create("value" + i));
+      assertThat(countViewData.getAggregationMap().get(tagValues))
+          .isEqualTo(CountData.create(2 * numRecordsPerThread));
+      assertThat(sumViewData.getAggregationMap().get(tagValues))
+          .isEqualTo(SumDataDouble.create(2 * numRecordsPerThread * 2.0));
+    }
+  }
+
+  @Test
+  public void testMaxTimeSeries() {
+    MeasureToViewMap measureToViewMap = new MeasureToViewMap();
+    TestClock clock = TestClock.create(Timestamp.create(10, 20));
+    TagKey key = TagKey.create("key");
+    View view =
+        View.create(VIEW_NAME, "description", MEASURE, Count.create(), Arrays.asList(key), 2);
+    measureToViewMap.registerView(view, clock);
+    for (int i = 0; i < 5; i++) {
+      measureToViewMap.record(
+          createTags(key, "value" + i),
+          MeasureMapInternal.builder().put((MeasureDouble) MEASURE, 1.0).build(),
+          clock.now());
+    }
+    // Existing time series are still recorded into.
+    measureToViewMap.record(
+        createTags(key, "value0"),
+        MeasureMapInternal.builder().put((MeasureDouble) MEASURE, 1.0).build(),
+        clock.now());
+
+    ViewData viewData = measureToViewMap.getView(VIEW_NAME, clock, State.ENABLED);
+    assertThat(viewData.getAggregationMap())
+        .containsExactly(
+            Arrays.asList(TagValue.create("value0")),
+            CountData.create(2),
+            Arrays.asList(TagValue.create("value1")),
+            CountData.create(1),
+            Arrays.asList(MutableViewData.OVERFLOW_TAG_VALUE),
+            CountData.create(3));
+
+    clock.setTime(Timestamp.create(30, 40));
+    List<Metric> metrics = measureToViewMap.getMetrics(clock, State.ENABLED);
+    assertThat(metrics).hasSize(2);
+    assertThat(metrics.get(1))
+        .isEqualTo(
+            Metric.createWithOneTimeSeries(
+                MeasureToViewMap.DROPPED_MEASUREMENTS,
+                TimeSeries.createWithOnePoint(
+                    Arrays.asList(LabelValue.create(VIEW_NAME.asString())),
+                    Point.create(Value.longValue(3), Timestamp.create(30, 40)),
+                    Timestamp.create(10, 20))));
+    assertThat(measureToViewMap.getMetrics(clock, State.DISABLED)).isEmpty();
+  }
+
+  @Test
+  public void testMaxTimeSeries_ClearStatsResetsDroppedMeasurements() {
+    MeasureToViewMap measureToViewMap = new MeasureToViewMap();
+    TestClock clock = TestClock.create(Timestamp.create(10, 20));
+    TagKey key = TagKey.create("key");
+    measureToViewMap.registerView(
+        View.create(VIEW_NAME, "description", MEASURE, Count.create(), Arrays.asList(key), 1),
+        clock);
+    MeasureMapInternal measurement =
+        MeasureMapInternal.builder().put((MeasureDouble) MEASURE, 1.0).build();
+    measureToViewMap.record(createTags(key, "value0"), measurement, clock.now());
+    measureToViewMap.record(createTags(key, "value1"), measurement, clock.now());
+    assertThat(measureToViewMap.getMetrics(clock, State.ENABLED)).hasSize(2);
+
+    measureToViewMap.clearStats();
+    measureToViewMap.record(createTags(key, "value0"), measurement, clock.now());
+    List<Metric> metrics = measureToViewMap.getMetrics(clock, State.ENABLED);
+    assertThat(metrics).hasSize(1);
+    assertThat(metrics.get(0).getMetricDescriptor().getName()).isEqualTo(VIEW_NAME.asString());
+  }
+
+  @Test
+  public void testMaxTimeSeries_NoDroppedMeasurements() {
+    MeasureToViewMap measureToViewMap = new MeasureToViewMap();
+    TestClock clock = TestClock.create(Timestamp.create(10, 20));
+    TagKey key = TagKey.create("key");
+    measureToViewMap.registerView(
+        View.create(VIEW_NAME, "description", MEASURE, Count.create(), Arrays.asList(key), 2),
+        clock);
+    measureToViewMap.record(
+        createTags(key, "value"),
+        MeasureMapInternal.builder().put((MeasureDouble) MEASURE, 1.0).build(),
+        clock.now());
+    List<Metric> metrics = measureToViewMap.getMetrics(clock, State.ENABLED);
+    assertThat(metrics).hasSize(1);
+    assertThat(metrics.get(0).getMetricDescriptor().getName()).isEqualTo(VIEW_NAME.asString());
+  }
+
+  @Test
+  public void testGetDeltaMetrics() {
+    MeasureToViewMap measureToViewMap = new MeasureToViewMap();
+    TestClock clock = TestClock.create(Timestamp.create(10, 20));
+    TagKey key = TagKey.create("key");
+    measureToViewMap.registerView(
+        View.create(VIEW_NAME, "description", MEASURE, Count.create(), Arrays.asList(key)), clock);
+    MeasureMapInternal measurement =
+        MeasureMapInternal.builder().put((MeasureDouble) MEASURE, 1.0).build();
+    measureToViewMap.record(createTags(key, "value1"), measurement, clock.now());
+    measureToViewMap.record(createTags(key, "value2"), measurement, clock.now());
+    measureToViewMap.record(createTags(key, "value2"), measurement, clock.now());
+
+    clock.setTime(Timestamp.create(30, 40));
+    List<Metric> metrics = measureToViewMap.getDeltaMetrics(clock, State.ENABLED);
+    assertThat(metrics).hasSize(1);
+    assertThat(metrics.get(0).getTimeSeriesList())
+        .containsExactly(
+            TimeSeries.createWithOnePoint(
+                Arrays.asList(LabelValue.create("value1")),
+                Point.create(Value.longValue(1), Timestamp.create(30, 40)),
+                Timestamp.create(10, 20)),
+            TimeSeries.createWithOnePoint(
+                Arrays.asList(LabelValue.create("value2")),
+                Point.create(Value.longValue(2), Timestamp.create(30, 40)),
+                Timestamp.create(10, 20)));
+
+    // Only the updated time series is exported, with the values recorded since the last export.
+    measureToViewMap.record(createTags(key, "value2"), measurement, clock.now());
+    clock.setTime(Timestamp.create(50, 60));
+    assertThat(measureToViewMap.getDeltaMetrics(clock, State.ENABLED))
+        .containsExactly(
+            Metric.createWithOneTimeSeries(
+                metrics.get(0).getMetricDescriptor(),
+                TimeSeries.createWithOnePoint(
+                    Arrays.asList(LabelValue.create("value2")),
+                    Point.create(Value.longValue(1), Timestamp.create(50, 60)),
+                    Timestamp.create(30, 40))));
+
+    clock.setTime(Timestamp.create(70, 80));
+    assertThat(measureToViewMap.getDeltaMetrics(clock, State.ENABLED)).isEmpty();
+    assertThat(measureToViewMap.getDeltaMetrics(clock, State.DISABLED)).isEmpty();
+  }
+
+  @Test
+  public void testGetMetrics_IntervalView() {
+    MeasureToViewMap measureToViewMap = new MeasureToViewMap();
+    TestClock clock = TestClock.create(Timestamp.create(10, 0));
+    TagKey key = TagKey.create("key");
+    measureToViewMap.registerView(
+        View.create(
+            VIEW_NAME,
+            "description",
+            MEASURE,
+            Sum.create(),
+            Arrays.asList(key),
+            View.AggregationWindow.Interval.create(Duration.create(8, 0))),
+        clock);
+    measureToViewMap.record(
+        createTags(key, "value"),
+        MeasureMapInternal.builder().put((MeasureDouble) MEASURE, 3.0).build(),
+        clock.now());
+
+    clock.setTime(Timestamp.create(12, 0));
+    List<Metric> metrics = measureToViewMap.getMetrics(clock, State.ENABLED);
+    assertThat(metrics).hasSize(1);
+    assertThat(metrics.get(0).getMetricDescriptor().getType())
+        .isEqualTo(MetricDescriptor.Type.GAUGE_DOUBLE);
+    assertThat(metrics.get(0).getTimeSeriesList())
+        .containsExactly(
+            TimeSeries.createWithOnePoint(
+                Arrays.asList(LabelValue.create("value")),
+                Point.create(Value.doubleValue(3.0), Timestamp.create(12, 0)),
+                null));
+    // Interval views aren't reset by delta exports.
+    assertThat(measureToViewMap.getDeltaMetrics(clock, State.ENABLED)).isEqualTo(metrics);
+
+    // All the values have expired, and the time series is removed.
+    clock.setTime(Timestamp.create(30, 0));
+    metrics = measureToViewMap.getMetrics(clock, State.ENABLED);
+    assertThat(metrics).hasSize(1);
+    assertThat(metrics.get(0).getTimeSeriesList()).isEmpty();
+    assertThat(measureToViewMap.getMetrics(clock, State.DISABLED)).isEmpty();
+  }
+
+  @Test
+  public void testGetMetrics_PercentilesView() {
+    MeasureToViewMap measureToViewMap = new MeasureToViewMap();
+    TestClock clock = TestClock.create(Timestamp.create(10, 0));
+    TagKey key = TagKey.create("key");
+    Percentiles percentiles = Percentiles.create(Arrays.asList(50.0, 99.0));
+    measureToViewMap.registerView(
+        View.create(VIEW_NAME, "description", MEASURE, percentiles, Arrays.asList(key)), clock);
+    MutablePercentiles expected = MutablePercentiles.create(percentiles);
+    for (int i = 1; i <= 100; i++) {
+      measureToViewMap.record(
+          createTags(key, "value"),
+          MeasureMapInternal.builder().put((MeasureDouble) MEASURE, i).build(),
+          clock.now());
+      expected.add(i, Collections.<String, AttachmentValue>emptyMap(), clock.now());
+    }
+
+    clock.setTime(Timestamp.create(12, 0));
+    List<Metric> metrics = measureToViewMap.getMetrics(clock, State.ENABLED);
+    assertThat(metrics).hasSize(1);
+    assertThat(metrics.get(0).getMetricDescriptor().getType())
+        .isEqualTo(MetricDescriptor.Type.SUMMARY);
+    assertThat(metrics.get(0).getTimeSeriesList())
+        .containsExactly(
+            TimeSeries.createWithOnePoint(
+                Arrays.asList(LabelValue.create("value")),
+                expected.toPoint(Timestamp.create(12, 0)),
+                Timestamp.create(10, 0)));
+    assertThat(expected.getCount()).isEqualTo(100);
+    assertThat(expected.getValueAtPercentile(99.0)).isWithin(99 * 0.01).of(99);
+  }
+
+  @Test
+  public void testRecord_ViewsWithDifferentColumns() {
+    MeasureToViewMap measureToViewMap = new MeasureToViewMap();
+    TestClock clock = TestClock.create(Timestamp.create(10, 0));
+    TagKey key1 = TagKey.create("key1");
+    TagKey key2 = TagKey.create("key2");
+    // The views with equal columns share the tag values looked up for the first of them.
+    List<List<TagKey>> columns =
+        Arrays.asList(
+            Arrays.asList(key1),
+            Arrays.asList(TagKey.create("key1")),
+            Arrays.asList(key2),
+            Arrays.asList(key1, key2),
+            Arrays.asList(key1));
+    for (int i = 0; i < columns.size(); i++) {
+      measureToViewMap.registerView(
+          View.create(
+              View.Name.create("view " + i),
+              "description",
+              MEASURE,
+              Count.create(),
+              columns.get(i),
+              CUMULATIVE),
+          clock);
+    }
+    Map<TagKey, TagValueWithMetadata> tags = new HashMap<TagKey, TagValueWithMetadata>();
+    tags.put(
+        key1,
+        TagValueWithMetadata.create(
+            TagValue.create("value1"), TagMetadata.create(TagTtl.UNLIMITED_PROPAGATION)));
+    tags.put(
+        key2,
+        TagValueWithMetadata.create(
+            TagValue.create("value2"), TagMetadata.create(TagTtl.UNLIMITED_PROPAGATION)));
+    measureToViewMap.record(
+        new TagMapImpl(tags),
+        MeasureMapInternal.builder().put((MeasureDouble) MEASURE, 3.0).build(),
+        clock.now());
+
+    List<List<TagValue>> expectedKeys =
+        Arrays.asList(
+            Arrays.asList(TagValue.create("value1")),
+            Arrays.asList(TagValue.create("value1")),
+            Arrays.asList(TagValue.create("value2")),
+            Arrays.asList(TagValue.create("value1"), TagValue.create("value2")),
+            Arrays.asList(TagValue.create("value1")));
+    for (int i = 0; i < columns.size(); i++) {
+      ViewData viewData =
+          measureToViewMap.getView(View.Name.create("view " + i), clock, State.ENABLED);
+      assertThat(viewData.getAggregationMap())
+          .containsExactly(expectedKeys.get(i), CountData.create(1));
+    }
+  }
+
+  private static TagMapImpl createTags(TagKey key, String value) {
+    return new TagMapImpl(
+        Collections.singletonMap(
+            key,
+            TagValueWithMetadata.create(
+                TagValue.create(value), TagMetadata.create(TagTtl.UNLIMITED_PROPAGATION))));
+  }
 }
@@ -27,6 +27,7 @@ import io.opencensus.stats.Aggregation.Count;
 import io.opencensus.stats.Aggregation.Distribution;
 import io.opencensus.stats.Aggregation.LastValue;
 import io.opencensus.stats.Aggregation.Mean;
+import io.opencensus.stats.Aggregation.Percentiles;
 import io.opencensus.stats.Aggregation.Sum;
 import io.opencensus.stats.BucketBoundaries;
 import io.opencensus.stats.Measure.MeasureDouble;
@@ -70,6 +71,7 @@ public class MetricUtilsTest {
   private static final Mean MEAN = Mean.create();
   private static final Distribution DISTRIBUTION = Distribution.create(BUCKET_BOUNDARIES);
   private static final LastValue LAST_VALUE = LastValue.create();
+  private static final Percentiles PERCENTILES = Percentiles.create(Arrays.asList(50.0, 99.0));
   private static final View VIEW_1 =
       View.create(
           VIEW_NAME, VIEW_DESCRIPTION, MEASURE_DOUBLE, LAST_VALUE, Collections.singletonList(KEY));
@@ -113,6 +115,31 @@ public class MetricUtilsTest {
         .isEqualTo(Type.CUMULATIVE_DISTRIBUTION);
     assertThat(MetricUtils.getType(MEASURE_LONG, DISTRIBUTION))
         .isEqualTo(Type.CUMULATIVE_DISTRIBUTION);
+    assertThat(MetricUtils.getType(MEASURE_DOUBLE, PERCENTILES)).isEqualTo(Type.SUMMARY);
+    assertThat(MetricUtils.getType(MEASURE_LONG, PERCENTILES)).isEqualTo(Type.SUMMARY);
+  }
+
+  @Test
+  public void intervalViewToMetricDescriptor() {
+    MetricDescriptor metricDescriptor = MetricUtils.intervalViewToMetricDescriptor(VIEW_2);
+    assertThat(metricDescriptor.getName()).isEqualTo(VIEW_2.getName().asString());
+    assertThat(metricDescriptor.getUnit()).isEqualTo(MEASURE_UNIT);
+    assertThat(metricDescriptor.getType()).isEqualTo(Type.GAUGE_DOUBLE);
+    assertThat(metricDescriptor.getLabelKeys()).containsExactly(LabelKey.create(KEY.getName(), ""));
+  }
+
+  @Test
+  public void getIntervalType() {
+    assertThat(MetricUtils.getIntervalType(MEASURE_DOUBLE, LAST_VALUE))
+        .isEqualTo(Type.GAUGE_DOUBLE);
+    assertThat(MetricUtils.getIntervalType(MEASURE_LONG, LAST_VALUE)).isEqualTo(Type.GAUGE_INT64);
+    assertThat(MetricUtils.getIntervalType(MEASURE_DOUBLE, SUM)).isEqualTo(Type.GAUGE_DOUBLE);
+    assertThat(MetricUtils.getIntervalType(MEASURE_LONG, SUM)).isEqualTo(Type.GAUGE_INT64);
+    assertThat(MetricUtils.getIntervalType(MEASURE_LONG, MEAN)).isEqualTo(Type.GAUGE_DOUBLE);
+    assertThat(MetricUtils.getIntervalType(MEASURE_DOUBLE, COUNT)).isEqualTo(Type.GAUGE_INT64);
+    assertThat(MetricUtils.getIntervalType(MEASURE_DOUBLE, DISTRIBUTION))
+        .isEqualTo(Type.GAUGE_DISTRIBUTION);
+    assertThat(MetricUtils.getIntervalType(MEASURE_DOUBLE, PERCENTILES)).isEqualTo(Type.SUMMARY);
   }
 
   @Test
@@ -20,14 +20,18 @@ import static com.google.common.truth.Truth.assertThat;
 import static io.opencensus.implcore.stats.StatsTestUtil.assertAggregationDataEquals;
 
 import com.google.common.collect.ImmutableList;
+import io.opencensus.common.Function;
+import io.opencensus.common.Functions;
 import io.opencensus.common.Timestamp;
 import io.opencensus.implcore.stats.MutableAggregation.MutableCount;
 import io.opencensus.implcore.stats.MutableAggregation.MutableDistribution;
 import io.opencensus.implcore.stats.MutableAggregation.MutableLastValueDouble;
 import io.opencensus.implcore.stats.MutableAggregation.MutableLastValueLong;
 import io.opencensus.implcore.stats.MutableAggregation.MutableMean;
+import io.opencensus.implcore.stats.MutableAggregation.MutablePercentiles;
 import io.opencensus.implcore.stats.MutableAggregation.MutableSumDouble;
 import io.opencensus.implcore.stats.MutableAggregation.MutableSumLong;
+import io.opencensus.implcore.stats.MutableAggregation.SubtractableAggregation;
 import io.opencensus.metrics.data.AttachmentValue;
 import io.opencensus.metrics.data.AttachmentValue.AttachmentValueString;
 import io.opencensus.metrics.data.Exemplar;
@@ -35,16 +39,21 @@ import io.opencensus.metrics.export.Distribution;
 import io.opencensus.metrics.export.Distribution.Bucket;
 import io.opencensus.metrics.export.Distribution.BucketOptions;
 import io.opencensus.metrics.export.Point;
+import io.opencensus.metrics.export.Summary;
+import io.opencensus.metrics.export.Summary.Snapshot.ValueAtPercentile;
 import io.opencensus.metrics.export.Value;
+import io.opencensus.stats.Aggregation;
 import io.opencensus.stats.AggregationData;
 import io.opencensus.stats.AggregationData.CountData;
 import io.opencensus.stats.AggregationData.DistributionData;
 import io.opencensus.stats.AggregationData.LastValueDataDouble;
 import io.opencensus.stats.AggregationData.LastValueDataLong;
 import io.opencensus.stats.AggregationData.MeanData;
+import io.opencensus.stats.AggregationData.PercentilesData;
 import io.opencensus.stats.AggregationData.SumDataDouble;
 import io.opencensus.stats.AggregationData.SumDataLong;
 import io.opencensus.stats.BucketBoundaries;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -113,7 +122,7 @@ public class MutableAggregationTest {
   @Test
   public void testAdd() {
     List<MutableAggregation> aggregations =
-        Arrays.asList(
+        Arrays.<MutableAggregation>asList(
             MutableSumDouble.create(),
             MutableSumLong.create(),
             MutableCount.create(),
@@ -198,13 +207,13 @@ public class MutableAggregationTest {
   public void testCombine_SumCountMean() {
     // combine() for Mutable Sum, Count and Mean will pick up fractional stats
     List<MutableAggregation> aggregations1 =
-        Arrays.asList(
+        Arrays.<MutableAggregation>asList(
             MutableSumDouble.create(),
             MutableSumLong.create(),
             MutableCount.create(),
             MutableMean.create());
     List<MutableAggregation> aggregations2 =
-        Arrays.asList(
+        Arrays.<MutableAggregation>asList(
             MutableSumDouble.create(),
             MutableSumLong.create(),
             MutableCount.create(),
@@ -222,7 +231,7 @@ public class MutableAggregationTest {
     }
 
     List<MutableAggregation> combined =
-        Arrays.asList(
+        Arrays.<MutableAggregation>asList(
             MutableSumDouble.create(),
             MutableSumLong.create(),
             MutableCount.create(),
@@ -242,7 +251,6 @@ public class MutableAggregationTest {
 
   @Test
   public void testCombine_Distribution() {
-    // combine() for Mutable Distribution will ignore fractional stats
     MutableDistribution distribution1 = MutableDistribution.create(BUCKET_BOUNDARIES);
     MutableDistribution distribution2 = MutableDistribution.create(BUCKET_BOUNDARIES);
     MutableDistribution distribution3 = MutableDistribution.create(BUCKET_BOUNDARIES);
@@ -259,7 +267,6 @@ public class MutableAggregationTest {
 
     MutableDistribution combined = MutableDistribution.create(BUCKET_BOUNDARIES);
     combined.combine(distribution1, 1.0); // distribution1 will be combined
-    combined.combine(distribution2, 0.6); // distribution2 will be ignored
     verifyMutableDistribution(combined, 0, 2, 50.0, new long[] {2, 0});
 
     combined.combine(distribution2, 1.0); // distribution2 will be combined
@@ -268,6 +275,212 @@ public class MutableAggregationTest {
     verifyMutableDistribution(combined, 0, 8, 1500.0, new long[] {5, 3});
   }
 
+  @Test
+  public void testCombine_DistributionFraction() {
+    // combine() for Mutable Distribution will scale the bucket counts of fractional stats
+    MutableDistribution distribution1 = MutableDistribution.create(BUCKET_BOUNDARIES);
+    MutableDistribution distribution2 = MutableDistribution.create(BUCKET_BOUNDARIES);
+    for (double val : Arrays.asList(5.0, -5.0)) {
+      distribution1.add(val, Collections.<String, AttachmentValue>emptyMap(), TIMESTAMP);
+    }
+    for (double val : Arrays.asList(10.0, 20.0)) {
+      distribution2.add(val, Collections.<String, AttachmentValue>emptyMap(), TIMESTAMP);
+    }
+
+    MutableDistribution combined = MutableDistribution.create(BUCKET_BOUNDARIES);
+    combined.combine(distribution1, 1.0);
+    combined.combine(distribution2, 0.6); // one value of 15.0 out of distribution2
+    verifyMutableDistribution(combined, 5.0, 3, 225.0, new long[] {2, 1});
+
+    combined.combine(distribution2, 0.2); // nothing out of distribution2
+    verifyMutableDistribution(combined, 5.0, 3, 225.0, new long[] {2, 1});
+  }
+
+  @Test
+  public void testCombine_DistributionFractionRoundsCumulativeCounts() {
+    MutableDistribution distribution = MutableDistribution.create(BUCKET_BOUNDARIES);
+    for (double val : Arrays.asList(5.0, 15.0)) {
+      distribution.add(val, Collections.<String, AttachmentValue>emptyMap(), TIMESTAMP);
+    }
+    MutableDistribution combined = MutableDistribution.create(BUCKET_BOUNDARIES);
+    // Half a value in each bucket, which rounds up to one value in total.
+    combined.combine(distribution, 0.5);
+    assertThat(combined.getCount()).isEqualTo(1);
+    assertThat(combined.getBucketCounts()).isEqualTo(new long[] {1, 0});
+  }
+
+  @Test
+  public void testPercentiles() {
+    Aggregation.Percentiles percentiles =
+        Aggregation.Percentiles.create(Arrays.asList(50.0, 100.0), 0.01);
+    MutablePercentiles mutablePercentiles = MutablePercentiles.create(percentiles);
+    assertThat(mutablePercentiles.toAggregationData())
+        .isEqualTo(
+            PercentilesData.create(
+                0,
+                0,
+                Arrays.asList(
+                    ValueAtPercentile.create(50.0, 0), ValueAtPercentile.create(100.0, 0))));
+
+    for (double val : Arrays.asList(-5.0, 10.0, 20.0)) {
+      mutablePercentiles.add(val, Collections.<String, AttachmentValue>emptyMap(), TIMESTAMP);
+    }
+    // The negative value is recorded as 0.
+    assertThat(mutablePercentiles.getCount()).isEqualTo(3);
+    assertThat(mutablePercentiles.getSum()).isWithin(TOLERANCE).of(30);
+    assertThat(mutablePercentiles.getValueAtPercentile(50.0)).isWithin(10 * 0.01).of(10);
+    assertThat(mutablePercentiles.getValueAtPercentile(100.0)).isWithin(20 * 0.01).of(20);
+
+    Summary summary =
+        mutablePercentiles
+            .toPoint(TIMESTAMP)
+            .getValue()
+            .match(
+                Functions.<Summary>throwAssertionError(),
+                Functions.<Summary>throwAssertionError(),
+                Functions.<Summary>throwAssertionError(),
+                new Function<Summary, Summary>() {
+                  @Override
+                  public Summary apply(Summary arg) {
+                    return arg;
+                  }
+                },
+                Functions.<Summary>throwAssertionError());
+    assertThat(summary.getCount()).isEqualTo(3);
+    assertThat(summary.getSum()).isWithin(TOLERANCE).of(30);
+    assertThat(summary.getSnapshot().getValueAtPercentiles())
+        .isEqualTo(
+            ((PercentilesData) mutablePercentiles.toAggregationData()).getValueAtPercentiles());
+  }
+
+  @Test
+  public void testCombineAndSubtract_Percentiles() {
+    Aggregation.Percentiles percentiles =
+        Aggregation.Percentiles.create(Arrays.asList(50.0, 100.0));
+    MutablePercentiles percentiles1 = MutablePercentiles.create(percentiles);
+    MutablePercentiles percentiles2 = MutablePercentiles.create(percentiles);
+    for (double val : Arrays.asList(10.0, 20.0)) {
+      percentiles1.add(val, Collections.<String, AttachmentValue>emptyMap(), TIMESTAMP);
+    }
+    for (double val : Arrays.asList(30.0, 40.0)) {
+      percentiles2.add(val, Collections.<String, AttachmentValue>emptyMap(), TIMESTAMP);
+    }
+
+    MutablePercentiles combined = MutablePercentiles.create(percentiles);
+    combined.combine(percentiles1, 1.0);
+    combined.combine(percentiles2, 0.5); // one value of percentiles2
+    assertThat(combined.getCount()).isEqualTo(3);
+    assertThat(combined.getSum()).isWithin(TOLERANCE).of(65);
+
+    combined.subtract(percentiles1);
+    assertThat(combined.getCount()).isEqualTo(1);
+    assertThat(combined.getSum()).isWithin(TOLERANCE).of(35);
+  }
+
+  @Test
+  public void testPercentiles_ToPointAndReset() {
+    MutablePercentiles mutablePercentiles =
+        MutablePercentiles.create(Aggregation.Percentiles.create(Arrays.asList(50.0)));
+    mutablePercentiles.add(10.0, Collections.<String, AttachmentValue>emptyMap(), TIMESTAMP);
+    assertThat(mutablePercentiles.toPointAndReset(TIMESTAMP))
+        .isEqualTo(mutablePercentilesWithOneValue(10.0).toPoint(TIMESTAMP));
+    assertThat(mutablePercentiles.getCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void testSubtract_SumCountMean() {
+    List<MutableAggregation> aggregations1 =
+        Arrays.<MutableAggregation>asList(
+            MutableSumDouble.create(),
+            MutableSumLong.create(),
+            MutableCount.create(),
+            MutableMean.create());
+    List<SubtractableAggregation> aggregations2 =
+        Arrays.<SubtractableAggregation>asList(
+            MutableSumDouble.create(),
+            MutableSumLong.create(),
+            MutableCount.create(),
+            MutableMean.create());
+    for (double val : Arrays.asList(-1.0, -5.0)) {
+      for (MutableAggregation aggregation : aggregations1) {
+        aggregation.add(val, Collections.<String, AttachmentValue>emptyMap(), TIMESTAMP);
+      }
+    }
+    for (double val : Arrays.asList(10.0, 50.0, 30.0)) {
+      for (SubtractableAggregation aggregation : aggregations2) {
+        aggregation.add(val, Collections.<String, AttachmentValue>emptyMap(), TIMESTAMP);
+      }
+    }
+
+    for (int i = 0; i < aggregations1.size(); i++) {
+      aggregations2.get(i).combine(aggregations1.get(i), 1.0);
+      aggregations2.get(i).subtract(aggregations1.get(i));
+    }
+
+    assertThat(((MutableSumDouble) aggregations2.get(0)).getSum()).isWithin(TOLERANCE).of(90);
+    assertThat(((MutableSumLong) aggregations2.get(1)).getSum()).isWithin(TOLERANCE).of(90);
+    assertThat(((MutableCount) aggregations2.get(2)).getCount()).isEqualTo(3);
+    assertThat(((MutableMean) aggregations2.get(3)).getMean()).isWithin(TOLERANCE).of(30);
+  }
+
+  @Test
+  public void testSubtract_Distribution() {
+    MutableDistribution distribution1 = MutableDistribution.create(BUCKET_BOUNDARIES);
+    MutableDistribution distribution2 = MutableDistribution.create(BUCKET_BOUNDARIES);
+    MutableDistribution distribution3 = MutableDistribution.create(BUCKET_BOUNDARIES);
+    for (double val : Arrays.asList(5.0, -5.0)) {
+      distribution1.add(val, Collections.<String, AttachmentValue>emptyMap(), TIMESTAMP);
+    }
+    for (double val : Arrays.asList(10.0, 20.0)) {
+      distribution2.add(val, Collections.<String, AttachmentValue>emptyMap(), TIMESTAMP);
+    }
+    for (double val : Arrays.asList(-10.0, 15.0, -15.0, -20.0)) {
+      distribution3.add(val, Collections.<String, AttachmentValue>emptyMap(), TIMESTAMP);
+    }
+
+    MutableDistribution combined = MutableDistribution.create(BUCKET_BOUNDARIES);
+    combined.combine(distribution1, 1.0);
+    combined.combine(distribution2, 1.0);
+    combined.combine(distribution3, 1.0);
+    combined.subtract(distribution2);
+    verifyMutableDistribution(combined, -5.0, 6, 850.0, new long[] {5, 1});
+    combined.subtract(distribution1);
+    verifyMutableDistribution(combined, -7.5, 4, 725.0, new long[] {3, 1});
+    combined.subtract(distribution3);
+    verifyMutableDistribution(combined, 0, 0, 0, new long[] {0, 0});
+  }
+
+  @Test
+  public void testSubtract_DistributionExemplars() {
+    MutableDistribution distribution1 = MutableDistribution.create(BUCKET_BOUNDARIES);
+    MutableDistribution distribution2 = MutableDistribution.create(BUCKET_BOUNDARIES);
+    Map<String, AttachmentValue> attachments1 =
+        Collections.<String, AttachmentValue>singletonMap("k", ATTACHMENT_VALUE_1);
+    Map<String, AttachmentValue> attachments2 =
+        Collections.<String, AttachmentValue>singletonMap("k", ATTACHMENT_VALUE_2);
+    distribution1.add(5.0, attachments1, TIMESTAMP);
+    distribution1.add(15.0, attachments1, TIMESTAMP);
+    distribution2.add(25.0, attachments2, TIMESTAMP);
+
+    MutableDistribution combined = MutableDistribution.create(BUCKET_BOUNDARIES);
+    combined.combine(distribution1, 1.0);
+    combined.combine(distribution2, 1.0);
+    combined.subtract(distribution1);
+    // The exemplar of the first bucket came from distribution1, the one of the second bucket
+    // didn't.
+    assertThat(combined.getExemplars()[0]).isNull();
+    assertThat(combined.getExemplars()[1]).isSameAs(distribution2.getExemplars()[1]);
+  }
+
+  @Test
+  public void testSubtractable() {
+    assertThat(MutableSumDouble.create()).isInstanceOf(SubtractableAggregation.class);
+    assertThat(MutableCount.create()).isInstanceOf(SubtractableAggregation.class);
+    assertThat(MutableDistribution.create(BUCKET_BOUNDARIES))
+        .isInstanceOf(SubtractableAggregation.class);
+    assertThat(MutableLastValueDouble.create()).isNotInstanceOf(SubtractableAggregation.class);
+  }
+
   @Test
   public void mutableAggregation_ToAggregationData() {
     assertThat(MutableSumDouble.create().toAggregationData()).isEqualTo(SumDataDouble.create(0));
@@ -306,6 +519,125 @@ public class MutableAggregationTest {
                 TIMESTAMP));
   }
 
+  @Test
+  public void mutableAggregation_ToPointAndReset() {
+    Timestamp timestamp2 = Timestamp.create(70, 0);
+    List<MutableAggregation> aggregations =
+        Arrays.<MutableAggregation>asList(
+            MutableSumDouble.create(),
+            MutableSumLong.create(),
+            MutableCount.create(),
+            MutableMean.create(),
+            MutableDistribution.create(BUCKET_BOUNDARIES),
+            MutableLastValueDouble.create(),
+            MutableLastValueLong.create());
+    for (MutableAggregation aggregation : aggregations) {
+      aggregation.add(-5.0, Collections.<String, AttachmentValue>emptyMap(), TIMESTAMP);
+      aggregation.add(15.0, Collections.<String, AttachmentValue>emptyMap(), TIMESTAMP);
+    }
+    List<Point> points = new ArrayList<Point>();
+    for (MutableAggregation aggregation : aggregations) {
+      points.add(aggregation.toPointAndReset(TIMESTAMP));
+    }
+    assertThat(points)
+        .containsExactly(
+            Point.create(Value.doubleValue(10.0), TIMESTAMP),
+            Point.create(Value.longValue(10), TIMESTAMP),
+            Point.create(Value.longValue(2), TIMESTAMP),
+            Point.create(Value.doubleValue(5.0), TIMESTAMP),
+            Point.create(
+                Value.distributionValue(
+                    Distribution.create(
+                        2,
+                        10.0,
+                        200.0,
+                        BucketOptions.explicitOptions(BUCKET_BOUNDARIES.getBoundaries()),
+                        Arrays.asList(Bucket.create(1), Bucket.create(1)))),
+                TIMESTAMP),
+            Point.create(Value.doubleValue(15.0), TIMESTAMP),
+            Point.create(Value.longValue(15), TIMESTAMP))
+        .inOrder();
+
+    // Everything but the last values starts over.
+    for (MutableAggregation aggregation : aggregations) {
+      aggregation.add(1.0, Collections.<String, AttachmentValue>emptyMap(), timestamp2);
+    }
+    points.clear();
+    for (MutableAggregation aggregation : aggregations) {
+      points.add(aggregation.toPointAndReset(timestamp2));
+    }
+    assertThat(points)
+        .containsExactly(
+            Point.create(Value.doubleValue(1.0), timestamp2),
+            Point.create(Value.longValue(1), timestamp2),
+            Point.create(Value.longValue(1), timestamp2),
+            Point.create(Value.doubleValue(1.0), timestamp2),
+            Point.create(
+                Value.distributionValue(
+                    Distribution.create(
+                        1,
+                        1.0,
+                        0.0,
+                        BucketOptions.explicitOptions(BUCKET_BOUNDARIES.getBoundaries()),
+                        Arrays.asList(Bucket.create(1), Bucket.create(0)))),
+                timestamp2),
+            Point.create(Value.doubleValue(1.0), timestamp2),
+            Point.create(Value.longValue(1), timestamp2))
+        .inOrder();
+  }
+
+  @Test
+  public void mutableAggregation_DirtyFlag() {
+    MutableAggregation aggregation = MutableCount.create();
+    assertThat(aggregation.clearDirty()).isFalse();
+    aggregation.add(1.0, Collections.<String, AttachmentValue>emptyMap(), TIMESTAMP);
+    aggregation.markDirty();
+    aggregation.markDirty();
+    assertThat(aggregation.clearDirty()).isTrue();
+    assertThat(aggregation.clearDirty()).isFalse();
+  }
+
+  @Test
+  public void mutableDistribution_ToPoint_BucketLayouts() {
+    MutableDistribution exponential =
+        MutableDistribution.create(BucketBoundaries.exponential(2, 2.0, 1.0));
+    exponential.add(0.5, Collections.<String, AttachmentValue>emptyMap(), TIMESTAMP);
+    exponential.add(3.0, Collections.<String, AttachmentValue>emptyMap(), TIMESTAMP);
+    exponential.add(4.0, Collections.<String, AttachmentValue>emptyMap(), TIMESTAMP);
+    assertThat(exponential.toPoint(TIMESTAMP))
+        .isEqualTo(
+            Point.create(
+                Value.distributionValue(
+                    Distribution.create(
+                        3,
+                        7.5,
+                        6.5,
+                        BucketOptions.exponentialOptions(2, 2.0, 1.0),
+                        Arrays.asList(
+                            Bucket.create(1),
+                            Bucket.create(0),
+                            Bucket.create(1),
+                            Bucket.create(1)))),
+                TIMESTAMP));
+
+    // Log-linear boundaries have no compact representation, they are exported explicitly.
+    assertThat(MutableDistribution.create(BucketBoundaries.logLinear(1.0, 1, 2)).toPoint(TIMESTAMP))
+        .isEqualTo(
+            Point.create(
+                Value.distributionValue(
+                    Distribution.create(
+                        0,
+                        0,
+                        0,
+                        BucketOptions.explicitOptions(Arrays.asList(1.0, 1.5, 2.0)),
+                        Arrays.asList(
+                            Bucket.create(0),
+                            Bucket.create(0),
+                            Bucket.create(0),
+                            Bucket.create(0)))),
+                TIMESTAMP));
+  }
+
   private static void verifyMutableDistribution(
       MutableDistribution mutableDistribution,
       double mean,
@@ -319,4 +651,11 @@ public class MutableAggregationTest {
         .of(sumOfSquaredDeviations);
     assertThat(mutableDistribution.getBucketCounts()).isEqualTo(bucketCounts);
   }
+
+  private static MutablePercentiles mutablePercentilesWithOneValue(double value) {
+    MutablePercentiles mutablePercentiles =
+        MutablePercentiles.create(Aggregation.Percentiles.create(Arrays.asList(50.0)));
+    mutablePercentiles.add(value, Collections.<String, AttachmentValue>emptyMap(), TIMESTAMP);
+    return mutablePercentiles;
+  }
 }
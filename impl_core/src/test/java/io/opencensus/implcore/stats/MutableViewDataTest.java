@@ -19,6 +19,7 @@ package io.opencensus.implcore.stats;
 import static com.google.common.truth.Truth.assertThat;
 
 import io.opencensus.common.Timestamp;
+import io.opencensus.tags.TagValue;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
@@ -30,5 +31,7 @@ public class MutableViewDataTest {
   @Test
   public void testConstants() {
     assertThat(MutableViewData.ZERO_TIMESTAMP).isEqualTo(Timestamp.create(0, 0));
+    assertThat(MutableViewData.OVERFLOW_TAG_VALUE)
+        .isEqualTo(TagValue.create("opencensus_overflow"));
   }
 }
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.implcore.stats;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link QuantileSketch}. */
+@RunWith(JUnit4.class)
+public class QuantileSketchTest {
+
+  @Rule public final ExpectedException thrown = ExpectedException.none();
+
+  private static final double RELATIVE_ACCURACY = 0.01;
+  private static final double[] QUANTILES = {0.0, 0.1, 0.5, 0.9, 0.99, 0.999, 1.0};
+
+  @Test
+  public void preventRelativeAccuracyOutOfRange() {
+    thrown.expect(IllegalArgumentException.class);
+    new QuantileSketch(0.0);
+  }
+
+  @Test
+  public void empty() {
+    QuantileSketch sketch = new QuantileSketch(RELATIVE_ACCURACY);
+    assertThat(sketch.getCount()).isEqualTo(0);
+    assertThat(sketch.getSum()).isEqualTo(0.0);
+    assertThat(sketch.getValueAtQuantile(0.5)).isEqualTo(0.0);
+  }
+
+  @Test
+  public void getValueAtQuantile_WithinRelativeAccuracy() {
+    QuantileSketch sketch = new QuantileSketch(RELATIVE_ACCURACY);
+    double[] values = new double[10000];
+    Random random = new Random(1234);
+    for (int i = 0; i < values.length; i++) {
+      // Log-normal values, like latencies.
+      values[i] = Math.exp(random.nextGaussian() * 2 + 3);
+      sketch.add(values[i]);
+    }
+    assertThat(sketch.getCount()).isEqualTo(values.length);
+    assertWithinRelativeAccuracy(sketch, values);
+  }
+
+  @Test
+  public void estimatesAreWithinExtremeValues() {
+    QuantileSketch sketch = new QuantileSketch(RELATIVE_ACCURACY);
+    sketch.add(5.0);
+    sketch.add(5.0);
+    for (double quantile : QUANTILES) {
+      assertThat(sketch.getValueAtQuantile(quantile)).isEqualTo(5.0);
+    }
+    assertThat(sketch.getSum()).isEqualTo(10.0);
+  }
+
+  @Test
+  public void valuesThatAreNotPositiveAreCountedAsZero() {
+    QuantileSketch sketch = new QuantileSketch(RELATIVE_ACCURACY);
+    sketch.add(-5.0);
+    sketch.add(0.0);
+    sketch.add(Double.NaN);
+    sketch.add(10.0);
+    assertThat(sketch.getCount()).isEqualTo(4);
+    assertThat(sketch.getSum()).isEqualTo(10.0);
+    assertThat(sketch.getValueAtQuantile(0.5)).isEqualTo(0.0);
+    assertThat(sketch.getValueAtQuantile(1.0)).isEqualTo(10.0);
+  }
+
+  @Test
+  public void add_Sketch() {
+    QuantileSketch sketch1 = new QuantileSketch(RELATIVE_ACCURACY);
+    QuantileSketch sketch2 = new QuantileSketch(RELATIVE_ACCURACY);
+    double[] values = new double[2000];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = i;
+      (i % 2 == 0 ? sketch1 : sketch2).add(values[i]);
+    }
+    QuantileSketch combined = new QuantileSketch(RELATIVE_ACCURACY);
+    combined.add(sketch1, 1.0);
+    combined.add(sketch2, 1.0);
+    assertThat(combined.getCount()).isEqualTo(values.length);
+    assertWithinRelativeAccuracy(combined, values);
+  }
+
+  @Test
+  public void add_FractionOfSketch() {
+    QuantileSketch sketch = new QuantileSketch(RELATIVE_ACCURACY);
+    for (int i = 0; i < 10; i++) {
+      sketch.add(100.0);
+    }
+    QuantileSketch combined = new QuantileSketch(RELATIVE_ACCURACY);
+    combined.add(sketch, 0.25);
+    assertThat(combined.getCount()).isEqualTo(3);
+    assertThat(combined.getSum()).isWithin(1e-6).of(300.0);
+    assertThat(combined.getValueAtQuantile(0.5)).isEqualTo(100.0);
+  }
+
+  @Test
+  public void add_PreventDifferentRelativeAccuracies() {
+    QuantileSketch sketch = new QuantileSketch(RELATIVE_ACCURACY);
+    thrown.expect(IllegalArgumentException.class);
+    sketch.add(new QuantileSketch(0.02), 1.0);
+  }
+
+  @Test
+  public void subtract() {
+    QuantileSketch sketch1 = new QuantileSketch(RELATIVE_ACCURACY);
+    QuantileSketch sketch2 = new QuantileSketch(RELATIVE_ACCURACY);
+    double[] values = new double[1000];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = i + 1;
+      sketch1.add(values[i]);
+      sketch2.add(values[i] * 1000);
+    }
+    QuantileSketch combined = new QuantileSketch(RELATIVE_ACCURACY);
+    combined.add(sketch1, 1.0);
+    combined.add(sketch2, 1.0);
+    combined.subtract(sketch2);
+    assertThat(combined.getCount()).isEqualTo(values.length);
+    assertThat(combined.getSum()).isWithin(1e-6).of(sketch1.getSum());
+    assertWithinRelativeAccuracy(combined, values);
+    combined.subtract(sketch1);
+    assertThat(combined.getCount()).isEqualTo(0);
+    assertThat(combined.getSum()).isEqualTo(0.0);
+    assertThat(combined.getCapacity()).isEqualTo(0);
+  }
+
+  @Test
+  public void numberOfBucketsIsBounded() {
+    QuantileSketch sketch = new QuantileSketch(RELATIVE_ACCURACY);
+    double[] values = new double[1200];
+    for (int i = 0; i < values.length; i++) {
+      // From 1e-300 to 1e300, which is far more than the maximum number of buckets.
+      values[i] = Math.pow(10, i / 2 - 300);
+      sketch.add(values[i]);
+    }
+    assertThat(sketch.getCapacity()).isAtMost(QuantileSketch.MAX_NUM_BUCKETS);
+    Arrays.sort(values);
+    // The lowest buckets were merged, but the highest quantiles are still accurate.
+    for (double quantile : new double[] {0.99, 1.0}) {
+      double expected = values[(int) (quantile * (values.length - 1))];
+      assertThat(sketch.getValueAtQuantile(quantile))
+          .isWithin(expected * RELATIVE_ACCURACY)
+          .of(expected);
+    }
+  }
+
+  @Test
+  public void numberOfBucketsIsBounded_DecreasingValues() {
+    QuantileSketch sketch = new QuantileSketch(RELATIVE_ACCURACY);
+    for (int i = 300; i >= -300; i--) {
+      sketch.add(Math.pow(10, i));
+    }
+    assertThat(sketch.getCapacity()).isAtMost(QuantileSketch.MAX_NUM_BUCKETS);
+    assertThat(sketch.getCount()).isEqualTo(601);
+    assertThat(sketch.getValueAtQuantile(1.0)).isWithin(1e300 * RELATIVE_ACCURACY).of(1e300);
+    assertThat(sketch.getValueAtQuantile(0.99)).isWithin(1e294 * RELATIVE_ACCURACY).of(1e294);
+  }
+
+  private static void assertWithinRelativeAccuracy(QuantileSketch sketch, double[] values) {
+    double[] sorted = values.clone();
+    Arrays.sort(sorted);
+    for (double quantile : QUANTILES) {
+      double expected = sorted[(int) (quantile * (sorted.length - 1))];
+      assertThat(sketch.getValueAtQuantile(quantile))
+          .isWithin(expected * RELATIVE_ACCURACY)
+          .of(expected);
+    }
+  }
+}
@@ -24,7 +24,9 @@ import com.google.common.collect.ImmutableMap;
 import io.grpc.Context;
 import io.opencensus.common.Duration;
 import io.opencensus.common.Timestamp;
+import io.opencensus.implcore.internal.EventQueue;
 import io.opencensus.implcore.internal.SimpleEventQueue;
+import io.opencensus.implcore.stats.StatsComponentImplBase.RecordingMode;
 import io.opencensus.implcore.stats.StatsTestUtil.SimpleTagContext;
 import io.opencensus.metrics.data.AttachmentValue;
 import io.opencensus.metrics.data.AttachmentValue.AttachmentValueString;
@@ -36,6 +38,7 @@ import io.opencensus.stats.AggregationData.CountData;
 import io.opencensus.stats.AggregationData.DistributionData;
 import io.opencensus.stats.BucketBoundaries;
 import io.opencensus.stats.Measure.MeasureDouble;
+import io.opencensus.stats.MeasureBatch;
 import io.opencensus.stats.MeasureMap;
 import io.opencensus.stats.StatsCollectionState;
 import io.opencensus.stats.StatsComponent;
@@ -51,6 +54,7 @@ import io.opencensus.tags.TagKey;
 import io.opencensus.tags.TagValue;
 import io.opencensus.tags.unsafe.ContextUtils;
 import io.opencensus.testing.common.TestClock;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -295,6 +299,42 @@ public final class StatsRecorderImplTest {
         1e-6);
   }
 
+  @Test
+  public void record_DirectRecordingModeBypassesQueue() {
+    // A queue that never processes its entries.
+    EventQueue droppingQueue =
+        new EventQueue() {
+          @Override
+          public void enqueue(Entry entry) {}
+
+          @Override
+          public void shutdown() {}
+        };
+    StatsComponent directStatsComponent =
+        new StatsComponentImplBase(droppingQueue, testClock, RecordingMode.DIRECT);
+    View view =
+        View.create(
+            VIEW_NAME,
+            "description",
+            MEASURE_DOUBLE,
+            Sum.create(),
+            Arrays.asList(KEY),
+            Cumulative.create());
+    directStatsComponent.getViewManager().registerView(view);
+    directStatsComponent
+        .getStatsRecorder()
+        .newMeasureMap()
+        .put(MEASURE_DOUBLE, 1.0)
+        .record(new SimpleTagContext(Tag.create(KEY, VALUE)));
+    ViewData viewData = directStatsComponent.getViewManager().getView(VIEW_NAME);
+    StatsTestUtil.assertAggregationMapEquals(
+        viewData.getAggregationMap(),
+        ImmutableMap.of(
+            Arrays.asList(VALUE),
+            StatsTestUtil.createAggregationData(Sum.create(), MEASURE_DOUBLE, 1.0)),
+        1e-6);
+  }
+
   @Test
   @SuppressWarnings("deprecation")
   public void record_StatsDisabled() {
@@ -351,4 +391,168 @@ public final class StatsRecorderImplTest {
             StatsTestUtil.createAggregationData(Sum.create(), MEASURE_DOUBLE, 4.0)),
         1e-6);
   }
+
+  @Test
+  public void recordBatch() {
+    View view =
+        View.create(
+            VIEW_NAME,
+            "description",
+            MEASURE_DOUBLE,
+            Sum.create(),
+            Arrays.asList(KEY),
+            Cumulative.create());
+    viewManager.registerView(view);
+    TagContext tags = new SimpleTagContext(Tag.create(KEY, VALUE));
+    MeasureBatch batch = statsRecorder.newMeasureBatch();
+    batch.newMeasureMap().put(MEASURE_DOUBLE, 1.0).record(tags);
+    batch.newMeasureMap().put(MEASURE_DOUBLE, 2.0).record(tags);
+    batch
+        .newMeasureMap()
+        .put(MEASURE_DOUBLE, 5.0)
+        .record(new SimpleTagContext(Tag.create(KEY, VALUE_2)));
+
+    // Nothing is recorded until the batch is.
+    assertThat(viewManager.getView(VIEW_NAME).getAggregationMap()).isEmpty();
+    batch.record();
+    StatsTestUtil.assertAggregationMapEquals(
+        viewManager.getView(VIEW_NAME).getAggregationMap(),
+        ImmutableMap.of(
+            Arrays.asList(VALUE),
+            StatsTestUtil.createAggregationData(Sum.create(), MEASURE_DOUBLE, 1.0, 2.0),
+            Arrays.asList(VALUE_2),
+            StatsTestUtil.createAggregationData(Sum.create(), MEASURE_DOUBLE, 5.0)),
+        1e-6);
+
+    // Recording the batch again doesn't record the same measurements twice.
+    batch.record();
+    batch.newMeasureMap().put(MEASURE_DOUBLE, 3.0).record(tags);
+    batch.record();
+    StatsTestUtil.assertAggregationMapEquals(
+        viewManager.getView(VIEW_NAME).getAggregationMap(),
+        ImmutableMap.of(
+            Arrays.asList(VALUE),
+            StatsTestUtil.createAggregationData(Sum.create(), MEASURE_DOUBLE, 1.0, 2.0, 3.0),
+            Arrays.asList(VALUE_2),
+            StatsTestUtil.createAggregationData(Sum.create(), MEASURE_DOUBLE, 5.0)),
+        1e-6);
+  }
+
+  @Test
+  public void recordBatch_OneQueueEntry() {
+    final List<EventQueue.Entry> entries = new ArrayList<EventQueue.Entry>();
+    EventQueue queue =
+        new EventQueue() {
+          @Override
+          public void enqueue(Entry entry) {
+            entries.add(entry);
+          }
+
+          @Override
+          public void shutdown() {}
+        };
+    StatsRecorder recorder = new StatsComponentImplBase(queue, testClock).getStatsRecorder();
+    MeasureBatch batch = recorder.newMeasureBatch();
+    batch
+        .newMeasureMap()
+        .put(MEASURE_DOUBLE, 1.0)
+        .record(new SimpleTagContext(Tag.create(KEY, VALUE)));
+    batch
+        .newMeasureMap()
+        .put(MEASURE_DOUBLE_NO_VIEW_1, 2.0)
+        .record(new SimpleTagContext(Tag.create(KEY, VALUE_2)));
+    assertThat(entries).isEmpty();
+    batch.record();
+    assertThat(entries).hasSize(1);
+    assertThat(((EventQueue.PartitionedEntry) entries.get(0)).getPartitionKey())
+        .isEqualTo(MEASURE_DOUBLE.getName());
+
+    // An empty batch isn't enqueued.
+    batch.record();
+    assertThat(entries).hasSize(1);
+  }
+
+  @Test
+  public void recordBatch_DropNegativeMeasureMap() {
+    View view =
+        View.create(
+            VIEW_NAME,
+            "description",
+            MEASURE_DOUBLE,
+            Sum.create(),
+            Arrays.asList(KEY),
+            Cumulative.create());
+    viewManager.registerView(view);
+    MeasureBatch batch = statsRecorder.newMeasureBatch();
+    batch
+        .newMeasureMap()
+        .put(MEASURE_DOUBLE, -1.0)
+        .record(new SimpleTagContext(Tag.create(KEY, VALUE)));
+    batch
+        .newMeasureMap()
+        .put(MEASURE_DOUBLE, 1.0)
+        .record(new SimpleTagContext(Tag.create(KEY, VALUE_2)));
+    batch.record();
+
+    // Only the MeasureMap with the negative value should be dropped.
+    StatsTestUtil.assertAggregationMapEquals(
+        viewManager.getView(VIEW_NAME).getAggregationMap(),
+        ImmutableMap.of(
+            Arrays.asList(VALUE_2),
+            StatsTestUtil.createAggregationData(Sum.create(), MEASURE_DOUBLE, 1.0)),
+        1e-6);
+  }
+
+  @Test
+  public void recordBatch_DirectRecordingMode() {
+    StatsComponent directStatsComponent =
+        new StatsComponentImplBase(new SimpleEventQueue(), testClock, RecordingMode.DIRECT);
+    View view =
+        View.create(
+            VIEW_NAME,
+            "description",
+            MEASURE_DOUBLE,
+            Sum.create(),
+            Arrays.asList(KEY),
+            Cumulative.create());
+    directStatsComponent.getViewManager().registerView(view);
+    MeasureBatch batch = directStatsComponent.getStatsRecorder().newMeasureBatch();
+    batch
+        .newMeasureMap()
+        .put(MEASURE_DOUBLE, 1.0)
+        .record(new SimpleTagContext(Tag.create(KEY, VALUE)));
+    batch
+        .newMeasureMap()
+        .put(MEASURE_DOUBLE, 2.0)
+        .record(new SimpleTagContext(Tag.create(KEY, VALUE)));
+    batch.record();
+    StatsTestUtil.assertAggregationMapEquals(
+        directStatsComponent.getViewManager().getView(VIEW_NAME).getAggregationMap(),
+        ImmutableMap.of(
+            Arrays.asList(VALUE),
+            StatsTestUtil.createAggregationData(Sum.create(), MEASURE_DOUBLE, 1.0, 2.0)),
+        1e-6);
+  }
+
+  @Test
+  @SuppressWarnings("deprecation")
+  public void recordBatch_StatsDisabled() {
+    View view =
+        View.create(
+            VIEW_NAME,
+            "description",
+            MEASURE_DOUBLE,
+            Sum.create(),
+            Arrays.asList(KEY),
+            Cumulative.create());
+    viewManager.registerView(view);
+    statsComponent.setState(StatsCollectionState.DISABLED);
+    MeasureBatch batch = statsRecorder.newMeasureBatch();
+    batch
+        .newMeasureMap()
+        .put(MEASURE_DOUBLE, 1.0)
+        .record(new SimpleTagContext(Tag.create(KEY, VALUE)));
+    batch.record();
+    assertThat(viewManager.getView(VIEW_NAME)).isEqualTo(createEmptyViewData(view));
+  }
 }
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.implcore.stats;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableMap;
+import io.opencensus.implcore.tags.TagValueWithMetadata;
+import io.opencensus.tags.TagKey;
+import io.opencensus.tags.TagMetadata;
+import io.opencensus.tags.TagMetadata.TagTtl;
+import io.opencensus.tags.TagValue;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link TagValuesProbe}. */
+@RunWith(JUnit4.class)
+public class TagValuesProbeTest {
+
+  private static final TagMetadata METADATA_UNLIMITED_PROPAGATION =
+      TagMetadata.create(TagTtl.UNLIMITED_PROPAGATION);
+  private static final TagKey ORIGINATOR = TagKey.create("originator");
+  private static final TagKey CALLER = TagKey.create("caller");
+  private static final TagKey METHOD = TagKey.create("method");
+  private static final TagValue CALLER_V = TagValue.create("some caller");
+  private static final TagValue METHOD_V = TagValue.create("some method");
+  private static final TagValueWithMetadata CALLER_V_WITH_MD =
+      TagValueWithMetadata.create(CALLER_V, METADATA_UNLIMITED_PROPAGATION);
+  private static final TagValueWithMetadata METHOD_V_WITH_MD =
+      TagValueWithMetadata.create(METHOD_V, METADATA_UNLIMITED_PROPAGATION);
+  private static final Map<TagKey, TagValueWithMetadata> TAGS =
+      ImmutableMap.of(CALLER, CALLER_V_WITH_MD, METHOD, METHOD_V_WITH_MD);
+
+  @Test
+  public void fill() {
+    List<TagKey> columns = Arrays.asList(CALLER, METHOD, ORIGINATOR);
+    assertThat(TagValuesProbe.fill(TAGS, ColumnProjection.create(columns)))
+        .containsExactly(CALLER_V, METHOD_V, RecordUtils.UNKNOWN_TAG_VALUE)
+        .inOrder();
+  }
+
+  @Test
+  public void columnProjection_Equals() {
+    ColumnProjection projection = ColumnProjection.create(Arrays.asList(CALLER, METHOD));
+    assertThat(projection.size()).isEqualTo(2);
+    assertThat(projection.get(1)).isEqualTo(METHOD);
+    assertThat(projection)
+        .isEqualTo(
+            ColumnProjection.create(
+                Arrays.asList(TagKey.create("caller"), TagKey.create("method"))));
+    assertThat(projection.hashCode())
+        .isEqualTo(ColumnProjection.create(Arrays.asList(CALLER, METHOD)).hashCode());
+    assertThat(projection).isNotEqualTo(ColumnProjection.create(Arrays.asList(METHOD, CALLER)));
+    assertThat(projection).isNotEqualTo(ColumnProjection.create(Arrays.asList(CALLER)));
+    assertThat(projection).isNotEqualTo(Arrays.asList(CALLER, METHOD));
+  }
+
+  @Test
+  public void fill_ReusesProbeOfCurrentThread() {
+    TagValuesProbe probe =
+        TagValuesProbe.fill(TAGS, ColumnProjection.create(Arrays.asList(CALLER, METHOD)));
+    assertThat(
+            TagValuesProbe.fill(TAGS, ColumnProjection.create(Collections.singletonList(METHOD))))
+        .isSameAs(probe);
+    assertThat(probe).containsExactly(METHOD_V);
+  }
+
+  @Test
+  public void fill_GrowsCapacity() {
+    TagKey[] columns = new TagKey[20];
+    Arrays.fill(columns, CALLER);
+    assertThat(TagValuesProbe.fill(TAGS, ColumnProjection.create(Arrays.asList(columns))))
+        .hasSize(20);
+    assertThat(
+            TagValuesProbe.fill(TAGS, ColumnProjection.create(Collections.singletonList(METHOD))))
+        .containsExactly(METHOD_V);
+  }
+
+  @Test
+  public void fill_DifferentProbesOnDifferentThreads() throws InterruptedException {
+    TagValuesProbe probe =
+        TagValuesProbe.fill(TAGS, ColumnProjection.create(Collections.singletonList(CALLER)));
+    final AtomicReference<TagValuesProbe> otherProbe = new AtomicReference<TagValuesProbe>();
+    Thread thread =
+        new Thread(
+            new Runnable() {
+              @Override
+              public void run() {
+                otherProbe.set(
+                    TagValuesProbe.fill(
+                        TAGS, ColumnProjection.create(Collections.singletonList(METHOD))));
+              }
+            });
+    thread.start();
+    thread.join();
+    assertThat(otherProbe.get()).isNotSameAs(probe);
+    assertThat(probe).containsExactly(CALLER_V);
+  }
+
+  @Test
+  public void equalsAndHashCode() {
+    List<TagKey> columns = Arrays.asList(CALLER, ORIGINATOR);
+    List</*@Nullable*/ TagValue> expected = Arrays.asList(CALLER_V, null);
+    TagValuesProbe probe = TagValuesProbe.fill(TAGS, ColumnProjection.create(columns));
+    assertThat(probe.hashCode()).isEqualTo(expected.hashCode());
+    assertThat(probe.equals(expected)).isTrue();
+    assertThat(probe.equals(new LinkedList</*@Nullable*/ TagValue>(expected))).isTrue();
+    assertThat(probe.equals(Arrays.asList(CALLER_V, METHOD_V))).isFalse();
+    assertThat(probe.equals(Collections.singletonList(CALLER_V))).isFalse();
+    assertThat(expected.equals(probe)).isTrue();
+  }
+
+  @Test
+  public void lookUpMapKeyedByTagValueLists() {
+    Map<List</*@Nullable*/ TagValue>, String> map =
+        new HashMap<List</*@Nullable*/ TagValue>, String>();
+    map.put(Arrays.asList(CALLER_V, METHOD_V), "value");
+    assertThat(
+            map.get(
+                TagValuesProbe.fill(TAGS, ColumnProjection.create(Arrays.asList(CALLER, METHOD)))))
+        .isEqualTo("value");
+    assertThat(
+            map.get(
+                TagValuesProbe.fill(TAGS, ColumnProjection.create(Arrays.asList(METHOD, CALLER)))))
+        .isNull();
+  }
+
+  @Test
+  public void copy() {
+    TagValuesProbe probe =
+        TagValuesProbe.fill(TAGS, ColumnProjection.create(Arrays.asList(CALLER, METHOD)));
+    List</*@Nullable*/ TagValue> copy = probe.copy();
+    assertThat(copy).isEqualTo(probe);
+    TagValuesProbe.fill(TAGS, ColumnProjection.create(Collections.singletonList(ORIGINATOR)));
+    // The copy isn't affected by the next recording.
+    assertThat(copy).containsExactly(CALLER_V, METHOD_V).inOrder();
+  }
+}
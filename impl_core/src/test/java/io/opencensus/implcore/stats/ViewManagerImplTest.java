@@ -535,6 +535,36 @@ public class ViewManagerImplTest {
         EPSILON);
   }
 
+  @Test
+  public void testRecordInterval_NumBuckets() {
+    // The interval is 10 seconds, and each of its 10 buckets has a duration of 1 second.
+    View view =
+        View.create(
+            VIEW_NAME,
+            VIEW_DESCRIPTION,
+            MEASURE_DOUBLE,
+            SUM,
+            Arrays.asList(KEY),
+            Interval.create(TEN_SECONDS, 10));
+    long startTimeMillis = 30 * MILLIS_PER_SECOND; // start at 30s
+    clock.setTime(Timestamp.fromMillis(startTimeMillis));
+    viewManager.registerView(view);
+
+    TagContext tags = tagger.emptyBuilder().put(KEY, VALUE).build();
+    for (int i = 0; i < 10; i++) {
+      // Add one value to each bucket, at 30.5s, 31.5s, etc.
+      clock.setTime(Timestamp.fromMillis(startTimeMillis + i * MILLIS_PER_SECOND + 500));
+      statsRecorder.newMeasureMap().put(MEASURE_DOUBLE, 1.0).record(tags);
+    }
+
+    clock.setTime(Timestamp.fromMillis(startTimeMillis + 10 * MILLIS_PER_SECOND + 600));
+    // 40.6s, 60% of the value in the first bucket [30.0, 31.0) should have expired.
+    StatsTestUtil.assertAggregationMapEquals(
+        viewManager.getView(VIEW_NAME).getAggregationMap(),
+        ImmutableMap.of(Arrays.asList(VALUE), SumDataDouble.create(9.4)),
+        EPSILON);
+  }
+
   @Test
   public void testRecordIntervalMultipleTagValues() {
     // The interval is 10 seconds, i.e. values should expire after 10 seconds.
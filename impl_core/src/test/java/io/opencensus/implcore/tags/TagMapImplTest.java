@@ -33,8 +33,12 @@ import io.opencensus.tags.TagMetadata;
 import io.opencensus.tags.TagMetadata.TagTtl;
 import io.opencensus.tags.TagValue;
 import io.opencensus.tags.Tagger;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import org.junit.Rule;
 import org.junit.Test;
@@ -134,6 +138,60 @@ public class TagMapImplTest {
     builder.remove(null);
   }
 
+  @Test
+  public void put_manyKeys() {
+    TagContextBuilder builder = tagger.emptyBuilder();
+    TagContextBuilder reverseBuilder = tagger.emptyBuilder();
+    List<TagKey> keys = new ArrayList<TagKey>();
+    for (int i = 0; i < 20; i++) {
+      keys.add(TagKey.create("k" + i));
+    }
+    for (int i = 0; i < 20; i++) {
+      builder.put(keys.get(i), V1);
+      reverseBuilder.put(keys.get(19 - i), V1);
+    }
+    TagMapImpl tags = (TagMapImpl) builder.remove(keys.get(10)).build();
+    TagMapImpl reverseTags = (TagMapImpl) reverseBuilder.remove(keys.get(10)).build();
+    keys.remove(10);
+    assertThat(getKeys(tags)).containsExactlyElementsIn(keys);
+    // The tags are sorted in the same order, whatever order they were added in.
+    assertThat(getKeys(reverseTags)).containsExactlyElementsIn(getKeys(tags)).inOrder();
+    for (TagKey key : keys) {
+      assertThat(tags.get(key)).isEqualTo(VM1);
+    }
+  }
+
+  @Test
+  public void get() {
+    TagMapImpl tags = new TagMapImpl(ImmutableMap.of(K1, VM1, K2, VM2));
+    assertThat(tags.get(K2)).isEqualTo(VM2);
+    assertThat(tags.get(TagKey.create("k1"))).isEqualTo(VM1);
+    assertThat(tags.get(TagKey.create("k0"))).isNull();
+    assertThat(tags.getTags().get(K1)).isEqualTo(VM1);
+    assertThat(tags.getTags().get("k1")).isNull();
+    assertThat(tags.getTags().containsKey(TagKey.create("k3"))).isFalse();
+  }
+
+  @Test
+  public void getTags_unmodifiable() {
+    TagMapImpl tags = new TagMapImpl(ImmutableMap.of(K1, VM1));
+    thrown.expect(UnsupportedOperationException.class);
+    tags.getTags().put(K2, VM2);
+  }
+
+  @Test
+  public void build_empty() {
+    assertThat(tagger.emptyBuilder().put(K1, V1).remove(K1).build()).isSameAs(TagMapImpl.EMPTY);
+  }
+
+  @Test
+  public void usableAsMapKey() {
+    Map<TagContext, String> map = new HashMap<TagContext, String>();
+    map.put(tagger.emptyBuilder().put(K1, V1).put(K2, V2).build(), "value");
+    assertThat(map.get(tagger.emptyBuilder().put(K2, V2).put(K1, V1).build())).isEqualTo("value");
+    assertThat(map.get(tagger.emptyBuilder().put(K1, V1).build())).isNull();
+  }
+
   @Test
   public void testIterator() {
     TagMapImpl tags = new TagMapImpl(ImmutableMap.of(K1, VM1, K2, VM2));
@@ -174,4 +232,12 @@ public class TagMapImplTest {
         .addEqualityGroup(tagger.emptyBuilder().put(K1, V2).put(K2, V1).build())
         .testEquals();
   }
+
+  private static List<TagKey> getKeys(TagMapImpl tags) {
+    List<TagKey> keys = new ArrayList<TagKey>();
+    for (Iterator<Tag> i = tags.getIterator(); i.hasNext(); ) {
+      keys.add(i.next().getKey());
+    }
+    return keys;
+  }
 }
@@ -19,6 +19,7 @@ package io.opencensus.implcore.tags.propagation;
 import static com.google.common.truth.Truth.assertThat;
 
 import com.google.common.collect.ImmutableSet;
+import io.opencensus.implcore.tags.TagMapImpl;
 import io.opencensus.implcore.tags.TagsComponentImplBase;
 import io.opencensus.implcore.tags.TagsTestUtil;
 import io.opencensus.tags.Tag;
@@ -32,8 +33,11 @@ import io.opencensus.tags.TagsComponent;
 import io.opencensus.tags.propagation.TagContextBinarySerializer;
 import io.opencensus.tags.propagation.TagContextDeserializationException;
 import io.opencensus.tags.propagation.TagContextSerializationException;
+import java.nio.ByteBuffer;
 import java.util.Iterator;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.ExpectedException;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
 
@@ -45,6 +49,8 @@ import org.junit.runners.JUnit4;
  */
 @RunWith(JUnit4.class)
 public final class TagContextBinarySerializerImplTest {
+  @Rule public final ExpectedException thrown = ExpectedException.none();
+
   private final TagsComponent tagsComponent = new TagsComponentImplBase();
   private final TagContextBinarySerializer serializer =
       tagsComponent.getTagPropagationComponent().getBinarySerializer();
@@ -113,4 +119,78 @@ public final class TagContextBinarySerializerImplTest {
     tagsComponent.setState(TaggingState.ENABLED);
     assertThat(serializer.fromByteArray(serialized)).isEqualTo(tagContext);
   }
+
+  @Test
+  public void getSerializedSize() throws TagContextSerializationException {
+    assertThat(serializer.getSerializedSize(tagContext))
+        .isEqualTo(serializer.toByteArray(tagContext).length);
+  }
+
+  @Test
+  public void writeTo() throws TagContextSerializationException {
+    byte[] serialized = serializer.toByteArray(tagContext);
+    ByteBuffer buffer = ByteBuffer.allocate(serialized.length);
+    serializer.writeTo(tagContext, buffer);
+    assertThat(buffer.hasRemaining()).isFalse();
+    assertThat(buffer.array()).isEqualTo(serialized);
+  }
+
+  @Test
+  public void writeTo_BufferTooSmall() throws TagContextSerializationException {
+    ByteBuffer buffer = ByteBuffer.allocate(serializer.getSerializedSize(tagContext) - 1);
+    thrown.expect(TagContextSerializationException.class);
+    thrown.expectMessage("Buffer too small");
+    try {
+      serializer.writeTo(tagContext, buffer);
+    } finally {
+      assertThat(buffer.position()).isEqualTo(0);
+    }
+  }
+
+  @Test
+  @SuppressWarnings("deprecation")
+  public void writeTo_TaggingDisabled() throws TagContextSerializationException {
+    tagsComponent.setState(TaggingState.DISABLED);
+    ByteBuffer buffer = ByteBuffer.allocate(16);
+    serializer.writeTo(tagContext, buffer);
+    assertThat(buffer.position()).isEqualTo(0);
+    assertThat(serializer.getSerializedSize(tagContext)).isEqualTo(0);
+  }
+
+  @Test
+  public void fromByteBuffer_DirectBuffer()
+      throws TagContextDeserializationException, TagContextSerializationException {
+    ByteBuffer buffer = ByteBuffer.allocateDirect(serializer.getSerializedSize(tagContext));
+    serializer.writeTo(tagContext, buffer);
+    buffer.flip();
+    assertThat(serializer.fromByteBuffer(buffer)).isEqualTo(tagContext);
+    assertThat(buffer.hasRemaining()).isFalse();
+  }
+
+  @Test
+  @SuppressWarnings("deprecation")
+  public void fromByteBuffer_TaggingDisabled()
+      throws TagContextDeserializationException, TagContextSerializationException {
+    ByteBuffer buffer = ByteBuffer.wrap(serializer.toByteArray(tagContext));
+    tagsComponent.setState(TaggingState.DISABLED);
+    assertThat(TagsTestUtil.tagContextToList(serializer.fromByteBuffer(buffer))).isEmpty();
+    assertThat(buffer.hasRemaining()).isFalse();
+  }
+
+  @Test
+  public void fromByteArray_InvalidRange() throws TagContextDeserializationException {
+    thrown.expect(IndexOutOfBoundsException.class);
+    serializer.fromByteArray(new byte[4], 2, 3);
+  }
+
+  @Test
+  public void fromByteArray_ReusesDecodedKeysAndValues()
+      throws TagContextDeserializationException, TagContextSerializationException {
+    byte[] serialized = serializer.toByteArray(tagContext);
+    TagMapImpl tags1 = (TagMapImpl) serializer.fromByteArray(serialized);
+    TagMapImpl tags2 = (TagMapImpl) serializer.fromByteArray(serialized.clone());
+    assertThat(tags2).isEqualTo(tags1);
+    assertThat(tags2.getKey(0)).isSameAs(tags1.getKey(0));
+    assertThat(tags2.getValue(0)).isSameAs(tags1.getValue(0));
+  }
 }
@@ -26,6 +26,7 @@ import io.opencensus.tags.TagValue;
 import io.opencensus.tags.Tagger;
 import io.opencensus.tags.TagsComponent;
 import io.opencensus.tags.propagation.TagContextBinarySerializer;
+import java.nio.ByteBuffer;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
@@ -81,5 +82,17 @@ public class TagContextRoundtripTest {
     byte[] bytes = serializer.toByteArray(expected);
     TagContext actual = serializer.fromByteArray(bytes);
     assertThat(actual).isEqualTo(expected);
+
+    // Serialize between other bytes, to check that only the given range is used.
+    ByteBuffer buffer = ByteBuffer.allocate(serializer.getSerializedSize(expected) + 4);
+    buffer.putShort((short) -1);
+    serializer.writeTo(expected, buffer);
+    assertThat(buffer.position()).isEqualTo(bytes.length + 2);
+    buffer.putShort((short) -1);
+    assertThat(serializer.fromByteArray(buffer.array(), 2, bytes.length)).isEqualTo(expected);
+    buffer.limit(2 + bytes.length);
+    buffer.position(2);
+    assertThat(serializer.fromByteBuffer(buffer)).isEqualTo(expected);
+    assertThat(buffer.remaining()).isEqualTo(0);
   }
 }
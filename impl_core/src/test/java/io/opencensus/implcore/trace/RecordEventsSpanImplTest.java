@@ -347,6 +347,35 @@ public class RecordEventsSpanImplTest {
     }
   }
 
+  @Test
+  public void puttingTheSameAttributeDoesNotEvictOtherAttributes() {
+    final int maxNumberOfAttributes = 8;
+    TraceParams traceParams =
+        TraceParams.DEFAULT.toBuilder().setMaxNumberOfAttributes(maxNumberOfAttributes).build();
+    RecordEventsSpanImpl span =
+        RecordEventsSpanImpl.startSpan(
+            spanContext,
+            SPAN_NAME,
+            null,
+            parentSpanId,
+            false,
+            traceParams,
+            startEndHandler,
+            timestampConverter,
+            testClock);
+    span.putAttribute("MyStringAttributeKey0", AttributeValue.longAttributeValue(0));
+    for (int i = 0; i < 4 * maxNumberOfAttributes; i++) {
+      span.putAttribute("MyStringAttributeKey1", AttributeValue.longAttributeValue(i));
+    }
+    SpanData spanData = span.toSpanData();
+    assertThat(spanData.getAttributes().getAttributeMap())
+        .containsExactly(
+            "MyStringAttributeKey0",
+            AttributeValue.longAttributeValue(0),
+            "MyStringAttributeKey1",
+            AttributeValue.longAttributeValue(4 * maxNumberOfAttributes - 1));
+  }
+
   @Test
   public void droppingAndAddingAttributes() {
     final int maxNumberOfAttributes = 8;
@@ -445,6 +474,62 @@ public class RecordEventsSpanImplTest {
     }
   }
 
+  @Test
+  public void concurrentEvents() throws InterruptedException {
+    final int maxNumberOfEvents = 8;
+    final int numberOfThreads = 4;
+    final int eventsPerThread = 100;
+    TraceParams traceParams =
+        TraceParams.DEFAULT
+            .toBuilder()
+            .setMaxNumberOfAnnotations(maxNumberOfEvents)
+            .setMaxNumberOfAttributes(maxNumberOfEvents)
+            .build();
+    final RecordEventsSpanImpl span =
+        RecordEventsSpanImpl.startSpan(
+            spanContext,
+            SPAN_NAME,
+            null,
+            parentSpanId,
+            false,
+            traceParams,
+            startEndHandler,
+            timestampConverter,
+            testClock);
+    final Annotation annotation = Annotation.fromDescription(ANNOTATION_DESCRIPTION);
+    Thread[] threads = new Thread[numberOfThreads];
+    for (int i = 0; i < numberOfThreads; i++) {
+      final String attributeKey = "MyStringAttributeKey" + i;
+      threads[i] =
+          new Thread(
+              new Runnable() {
+                @Override
+                public void run() {
+                  for (int j = 0; j < eventsPerThread; j++) {
+                    span.addAnnotation(annotation);
+                    span.putAttribute(attributeKey, AttributeValue.longAttributeValue(j));
+                  }
+                }
+              });
+      threads[i].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    span.end();
+    SpanData spanData = span.toSpanData();
+    assertThat(spanData.getAnnotations().getEvents().size()).isEqualTo(maxNumberOfEvents);
+    assertThat(spanData.getAnnotations().getDroppedEventsCount())
+        .isEqualTo(numberOfThreads * eventsPerThread - maxNumberOfEvents);
+    Map<String, AttributeValue> attributeMap = spanData.getAttributes().getAttributeMap();
+    assertThat(attributeMap.size()).isEqualTo(numberOfThreads);
+    assertThat(attributeMap.size() + spanData.getAttributes().getDroppedAttributesCount())
+        .isEqualTo(numberOfThreads * eventsPerThread);
+    for (AttributeValue value : attributeMap.values()) {
+      assertThat(value).isEqualTo(AttributeValue.longAttributeValue(eventsPerThread - 1));
+    }
+  }
+
   @Test
   public void droppingNetworkEvents() {
     final int maxNumberOfNetworkEvents = 8;
@@ -17,11 +17,14 @@
 package io.opencensus.implcore.trace;
 
 import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.when;
 
 import io.opencensus.implcore.trace.RecordEventsSpanImpl.StartEndHandler;
+import io.opencensus.implcore.trace.config.TraceConfigImpl;
 import io.opencensus.implcore.trace.internal.RandomHandler;
 import io.opencensus.testing.common.TestClock;
+import io.opencensus.trace.AttributeValue;
 import io.opencensus.trace.Span;
 import io.opencensus.trace.Span.Kind;
 import io.opencensus.trace.Span.Options;
@@ -59,7 +62,7 @@ public class SpanBuilderImplTest {
     MockitoAnnotations.initMocks(this);
     spanBuilderOptions =
         new SpanBuilderImpl.Options(randomHandler, startEndHandler, testClock, traceConfig);
-    when(traceConfig.getActiveTraceParams()).thenReturn(alwaysSampleTraceParams);
+    when(traceConfig.getActiveTraceParams(anyString())).thenReturn(alwaysSampleTraceParams);
   }
 
   @Test
@@ -82,6 +85,37 @@ public class SpanBuilderImplTest {
         .isInstanceOf(NoRecordEventsSpanImpl.class);
   }
 
+  @Test
+  public void startSpan_UsesSpanNamePrefixTraceParams() {
+    TraceConfigImpl traceConfigImpl = new TraceConfigImpl();
+    traceConfigImpl.updateActiveTraceParams(alwaysSampleTraceParams);
+    traceConfigImpl.updateSpanNamePrefixTraceParams(
+        "Health/",
+        TraceParams.DEFAULT
+            .toBuilder()
+            .setSampler(Samplers.neverSample())
+            .setMaxNumberOfAttributes(1)
+            .build());
+    SpanBuilderImpl.Options options =
+        new SpanBuilderImpl.Options(randomHandler, startEndHandler, testClock, traceConfigImpl);
+    Span healthSpan = SpanBuilderImpl.createWithParent("Health/Check", null, options).startSpan();
+    assertThat(healthSpan.getContext().getTraceOptions().isSampled()).isFalse();
+    RecordEventsSpanImpl span =
+        (RecordEventsSpanImpl)
+            SpanBuilderImpl.createWithParent("Checkout", null, options).startSpan();
+    assertThat(span.getContext().getTraceOptions().isSampled()).isTrue();
+    // The other TraceParams of the prefix are used as well.
+    RecordEventsSpanImpl recordedHealthSpan =
+        (RecordEventsSpanImpl)
+            SpanBuilderImpl.createWithParent("Health/Check", null, options)
+                .setRecordEvents(true)
+                .startSpan();
+    recordedHealthSpan.putAttribute("key1", AttributeValue.booleanAttributeValue(true));
+    recordedHealthSpan.putAttribute("key2", AttributeValue.booleanAttributeValue(true));
+    assertThat(recordedHealthSpan.toSpanData().getAttributes().getDroppedAttributesCount())
+        .isEqualTo(1);
+  }
+
   @Test
   public void setSpanKind_NotNull() {
     RecordEventsSpanImpl span =
@@ -359,7 +393,7 @@ public class SpanBuilderImplTest {
 
   @Test
   public void startRemoteChildSpan_WithProbabilitySamplerDefaultSampler() {
-    when(traceConfig.getActiveTraceParams()).thenReturn(TraceParams.DEFAULT);
+    when(traceConfig.getActiveTraceParams(anyString())).thenReturn(TraceParams.DEFAULT);
     // This traceId will not be sampled by the ProbabilitySampler because the first 8 bytes as long
     // is not less than probability * Long.MAX_VALUE;
     TraceId traceId =
@@ -398,7 +432,7 @@ public class SpanBuilderImplTest {
     assertThat(childSpan.getContext().getTraceOptions().isSampled()).isTrue();
     childSpan.end();
 
-    assertThat(traceConfig.getActiveTraceParams()).isEqualTo(TraceParams.DEFAULT);
+    assertThat(traceConfig.getActiveTraceParams(SPAN_NAME)).isEqualTo(TraceParams.DEFAULT);
 
     // If parent is not sampled then the remote child must be not sampled.
     childSpan =
@@ -50,4 +50,59 @@ public class TraceConfigImplTest {
     traceConfig.updateActiveTraceParams(TraceParams.DEFAULT);
     assertThat(traceConfig.getActiveTraceParams()).isEqualTo(TraceParams.DEFAULT);
   }
+
+  @Test
+  public void spanNamePrefixTraceParams() {
+    TraceParams health = TraceParams.DEFAULT.toBuilder().setSampler(Samplers.neverSample()).build();
+    TraceParams grpc = TraceParams.DEFAULT.toBuilder().setSampler(Samplers.alwaysSample()).build();
+    TraceParams grpcHealth = TraceParams.DEFAULT.toBuilder().setMaxNumberOfLinks(1).build();
+    traceConfig.updateSpanNamePrefixTraceParams("Health", health);
+    traceConfig.updateSpanNamePrefixTraceParams("Sent.", grpc);
+    traceConfig.updateSpanNamePrefixTraceParams("Sent.grpc.health", grpcHealth);
+    assertThat(traceConfig.getSpanNamePrefixTraceParams())
+        .containsExactly("Health", health, "Sent.", grpc, "Sent.grpc.health", grpcHealth);
+    assertThat(traceConfig.getActiveTraceParams("Health")).isEqualTo(health);
+    assertThat(traceConfig.getActiveTraceParams("HealthCheck")).isEqualTo(health);
+    assertThat(traceConfig.getActiveTraceParams("Sent.Checkout")).isEqualTo(grpc);
+    assertThat(traceConfig.getActiveTraceParams("Sent.grpc.health.v1.Check")).isEqualTo(grpcHealth);
+    // Prefixes don't match shorter or different names.
+    assertThat(traceConfig.getActiveTraceParams("Healt")).isEqualTo(TraceParams.DEFAULT);
+    assertThat(traceConfig.getActiveTraceParams("Sent")).isEqualTo(TraceParams.DEFAULT);
+    assertThat(traceConfig.getActiveTraceParams("")).isEqualTo(TraceParams.DEFAULT);
+    assertThat(traceConfig.getActiveTraceParams("Recv.Checkout")).isEqualTo(TraceParams.DEFAULT);
+  }
+
+  @Test
+  public void spanNamePrefixTraceParams_EmptyPrefixMatchesAllNames() {
+    TraceParams traceParams =
+        TraceParams.DEFAULT.toBuilder().setSampler(Samplers.alwaysSample()).build();
+    traceConfig.updateSpanNamePrefixTraceParams("", traceParams);
+    assertThat(traceConfig.getActiveTraceParams("")).isEqualTo(traceParams);
+    assertThat(traceConfig.getActiveTraceParams("MySpanName")).isEqualTo(traceParams);
+  }
+
+  @Test
+  public void spanNamePrefixTraceParams_UpdateAndRemove() {
+    TraceParams health = TraceParams.DEFAULT.toBuilder().setSampler(Samplers.neverSample()).build();
+    TraceParams newHealth =
+        TraceParams.DEFAULT.toBuilder().setSampler(Samplers.alwaysSample()).build();
+    traceConfig.updateSpanNamePrefixTraceParams("Health", health);
+    traceConfig.updateSpanNamePrefixTraceParams("Health", newHealth);
+    assertThat(traceConfig.getSpanNamePrefixTraceParams()).containsExactly("Health", newHealth);
+    assertThat(traceConfig.getActiveTraceParams("HealthCheck")).isEqualTo(newHealth);
+    traceConfig.removeSpanNamePrefixTraceParams("Other");
+    traceConfig.removeSpanNamePrefixTraceParams("Health");
+    assertThat(traceConfig.getSpanNamePrefixTraceParams()).isEmpty();
+    assertThat(traceConfig.getActiveTraceParams("HealthCheck")).isEqualTo(TraceParams.DEFAULT);
+  }
+
+  @Test
+  public void spanNamePrefixTraceParams_FollowActiveTraceParamsWhenNoPrefixMatches() {
+    TraceParams traceParams =
+        TraceParams.DEFAULT.toBuilder().setSampler(Samplers.alwaysSample()).build();
+    traceConfig.updateSpanNamePrefixTraceParams("Health", TraceParams.DEFAULT);
+    traceConfig.updateActiveTraceParams(traceParams);
+    assertThat(traceConfig.getActiveTraceParams("MySpanName")).isEqualTo(traceParams);
+    assertThat(traceConfig.getActiveTraceParams("HealthCheck")).isEqualTo(TraceParams.DEFAULT);
+  }
 }
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.implcore.trace.export;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link BoundedArrayQueue}. */
+@RunWith(JUnit4.class)
+public class BoundedArrayQueueTest {
+  @Rule public final ExpectedException thrown = ExpectedException.none();
+
+  private final BoundedArrayQueue<Integer> queue = new BoundedArrayQueue<Integer>(3);
+
+  @Test
+  public void disallowNonPositiveCapacity() {
+    thrown.expect(IllegalArgumentException.class);
+    new BoundedArrayQueue<Integer>(0);
+  }
+
+  @Test
+  public void pollEmptyQueue() {
+    assertThat(queue.poll()).isNull();
+    assertThat(queue.size()).isEqualTo(0);
+  }
+
+  @Test
+  public void offerAndPollInOrder() {
+    assertThat(queue.offer(1)).isTrue();
+    assertThat(queue.offer(2)).isTrue();
+    assertThat(queue.size()).isEqualTo(2);
+    assertThat(queue.poll()).isEqualTo(1);
+    assertThat(queue.poll()).isEqualTo(2);
+    assertThat(queue.poll()).isNull();
+  }
+
+  @Test
+  public void offerToFullQueue() {
+    assertThat(queue.offer(1)).isTrue();
+    assertThat(queue.offer(2)).isTrue();
+    assertThat(queue.offer(3)).isTrue();
+    assertThat(queue.offer(4)).isFalse();
+    assertThat(queue.size()).isEqualTo(3);
+    assertThat(queue.poll()).isEqualTo(1);
+    assertThat(queue.offer(4)).isTrue();
+  }
+
+  @Test
+  public void wrapAround() {
+    for (int i = 0; i < 10; i++) {
+      assertThat(queue.offer(i)).isTrue();
+      assertThat(queue.offer(i + 100)).isTrue();
+      assertThat(queue.poll()).isEqualTo(i);
+      assertThat(queue.poll()).isEqualTo(i + 100);
+    }
+    assertThat(queue.size()).isEqualTo(0);
+  }
+
+  @Test
+  public void concurrentProducers() throws InterruptedException {
+    final int producers = 4;
+    final int elementsPerProducer = 10000;
+    final BoundedArrayQueue<Integer> queue =
+        new BoundedArrayQueue<Integer>(producers * elementsPerProducer);
+    List<Thread> threads = new ArrayList<Thread>();
+    for (int p = 0; p < producers; p++) {
+      final int producer = p;
+      Thread thread =
+          new Thread(
+              new Runnable() {
+                @Override
+                public void run() {
+                  for (int i = 0; i < elementsPerProducer; i++) {
+                    queue.offer(producer * elementsPerProducer + i);
+                  }
+                }
+              });
+      thread.start();
+      threads.add(thread);
+    }
+    // Consume concurrently with the producers.
+    boolean[] seen = new boolean[producers * elementsPerProducer];
+    int[] lastSeen = new int[producers];
+    Arrays.fill(lastSeen, -1);
+    int count = 0;
+    while (count < seen.length) {
+      Integer element = queue.poll();
+      if (element == null) {
+        Thread.yield();
+        continue;
+      }
+      assertThat(seen[element]).isFalse();
+      seen[element] = true;
+      // The elements of each producer are polled in the order in which they were added.
+      int producer = element / elementsPerProducer;
+      assertThat(element % elementsPerProducer).isGreaterThan(lastSeen[producer]);
+      lastSeen[producer] = element % elementsPerProducer;
+      count++;
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertThat(queue.poll()).isNull();
+  }
+}
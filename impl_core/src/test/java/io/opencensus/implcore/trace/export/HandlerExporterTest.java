@@ -0,0 +1,194 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.implcore.trace.export;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import io.opencensus.common.Duration;
+import io.opencensus.implcore.trace.export.SpanExporterConfig.DropPolicy;
+import io.opencensus.testing.export.TestHandler;
+import io.opencensus.trace.export.SpanData;
+import io.opencensus.trace.export.SpanExporter.Handler;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link HandlerExporter}. */
+@RunWith(JUnit4.class)
+public class HandlerExporterTest {
+  private static final String HANDLER_NAME = "test.service";
+  private static final SpanExporterConfig CONFIG =
+      SpanExporterConfig.DEFAULT
+          .toBuilder()
+          .setHandlerQueueSize(2)
+          .setHandlerTimeout(Duration.create(0, 0))
+          .setHandlerMaxRetries(2)
+          .setHandlerRetryDelay(Duration.create(0, 1000000))
+          .build();
+
+  private final SpanData spanData1 = mock(SpanData.class);
+  private final SpanData spanData2 = mock(SpanData.class);
+  private final SpanData spanData3 = mock(SpanData.class);
+  private final TestHandler serviceHandler = new TestHandler();
+
+  @Test
+  public void exportBatchesInOrder() {
+    HandlerExporter handlerExporter = new HandlerExporter(HANDLER_NAME, serviceHandler, CONFIG);
+    handlerExporter.addBatch(Arrays.asList(spanData1, spanData2));
+    handlerExporter.addBatch(Collections.singletonList(spanData3));
+    handlerExporter.flush();
+    assertThat(serviceHandler.waitForExport(3))
+        .containsExactly(spanData1, spanData2, spanData3)
+        .inOrder();
+    assertThat(handlerExporter.exportedSpans.get()).isEqualTo(3);
+  }
+
+  @Test
+  public void dropNewestBatchWhenQueueIsFull() {
+    HandlerExporter handlerExporter = new HandlerExporter(HANDLER_NAME, serviceHandler, CONFIG);
+    handlerExporter.addBatch(Collections.singletonList(spanData1));
+    handlerExporter.addBatch(Collections.singletonList(spanData2));
+    handlerExporter.addBatch(Collections.singletonList(spanData3));
+    handlerExporter.flush();
+    assertThat(serviceHandler.waitForExport(2)).containsExactly(spanData1, spanData2).inOrder();
+    assertThat(handlerExporter.droppedSpans.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void dropOldestBatchWhenQueueIsFull() {
+    HandlerExporter handlerExporter =
+        new HandlerExporter(
+            HANDLER_NAME,
+            serviceHandler,
+            CONFIG.toBuilder().setDropPolicy(DropPolicy.DROP_OLDEST).build());
+    handlerExporter.addBatch(Collections.singletonList(spanData1));
+    handlerExporter.addBatch(Collections.singletonList(spanData2));
+    handlerExporter.addBatch(Collections.singletonList(spanData3));
+    handlerExporter.flush();
+    assertThat(serviceHandler.waitForExport(2)).containsExactly(spanData2, spanData3).inOrder();
+    assertThat(handlerExporter.droppedSpans.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void retryFailedExport() {
+    Handler mockServiceHandler = mock(Handler.class);
+    doThrow(new IllegalStateException("Try again."))
+        .doNothing()
+        .when(mockServiceHandler)
+        .export(anyListOf(SpanData.class));
+    HandlerExporter handlerExporter = new HandlerExporter(HANDLER_NAME, mockServiceHandler, CONFIG);
+    List<SpanData> batch = Collections.singletonList(spanData1);
+    handlerExporter.addBatch(batch);
+    handlerExporter.flush();
+    verify(mockServiceHandler, times(2)).export(batch);
+    assertThat(handlerExporter.exportedSpans.get()).isEqualTo(1);
+    assertThat(handlerExporter.failedSpans.get()).isEqualTo(0);
+  }
+
+  @Test
+  public void giveUpAfterMaxRetries() {
+    Handler mockServiceHandler = mock(Handler.class);
+    doThrow(new IllegalStateException("No export for you."))
+        .when(mockServiceHandler)
+        .export(anyListOf(SpanData.class));
+    HandlerExporter handlerExporter = new HandlerExporter(HANDLER_NAME, mockServiceHandler, CONFIG);
+    List<SpanData> batch = Arrays.asList(spanData1, spanData2);
+    handlerExporter.addBatch(batch);
+    handlerExporter.flush();
+    verify(mockServiceHandler, times(3)).export(batch);
+    assertThat(handlerExporter.exportedSpans.get()).isEqualTo(0);
+    assertThat(handlerExporter.failedSpans.get()).isEqualTo(2);
+  }
+
+  @Test(timeout = 10000L)
+  public void interruptSlowExportAfterTimeout() {
+    final CountDownLatch interrupted = new CountDownLatch(1);
+    Handler blockingServiceHandler =
+        new Handler() {
+          @Override
+          public void export(Collection<SpanData> spanDataList) {
+            try {
+              new CountDownLatch(1).await();
+            } catch (InterruptedException e) {
+              interrupted.countDown();
+            }
+          }
+        };
+    HandlerExporter handlerExporter =
+        new HandlerExporter(
+            HANDLER_NAME,
+            blockingServiceHandler,
+            CONFIG
+                .toBuilder()
+                .setHandlerTimeout(Duration.create(0, 10000000))
+                .setHandlerMaxRetries(0)
+                .build());
+    handlerExporter.addBatch(Collections.singletonList(spanData1));
+    handlerExporter.flush();
+    assertThat(handlerExporter.failedSpans.get()).isEqualTo(1);
+    assertThat(handlerExporter.lastExportLatencyNanos).isAtLeast(10000000L);
+    handlerExporter.stop();
+    // The handler is interrupted once the export timed out.
+    try {
+      interrupted.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @Test
+  public void exportInExporterThread() throws InterruptedException {
+    HandlerExporter handlerExporter = HandlerExporter.create(HANDLER_NAME, serviceHandler, CONFIG);
+    handlerExporter.addBatch(Collections.singletonList(spanData1));
+    assertThat(serviceHandler.waitForExport(1)).containsExactly(spanData1);
+    handlerExporter.stop();
+    Thread exporterThread = handlerExporter.getExporterThread();
+    assertThat(exporterThread).isNotNull();
+    // Test that the exporter thread will stop.
+    exporterThread.join();
+  }
+
+  @Test
+  public void retryDoesNotExportOtherBatchesTwice() {
+    Handler mockServiceHandler = mock(Handler.class);
+    List<SpanData> batch1 = Collections.singletonList(spanData1);
+    List<SpanData> batch2 = Collections.singletonList(spanData2);
+    doThrow(new IllegalStateException("Try again."))
+        .doNothing()
+        .when(mockServiceHandler)
+        .export(batch1);
+    doNothing().when(mockServiceHandler).export(batch2);
+    HandlerExporter handlerExporter = new HandlerExporter(HANDLER_NAME, mockServiceHandler, CONFIG);
+    handlerExporter.addBatch(batch1);
+    handlerExporter.addBatch(batch2);
+    handlerExporter.flush();
+    verify(mockServiceHandler, times(2)).export(batch1);
+    verify(mockServiceHandler, times(1)).export(batch2);
+    assertThat(handlerExporter.exportedSpans.get()).isEqualTo(2);
+  }
+}
@@ -17,9 +17,12 @@
 package io.opencensus.implcore.trace.export;
 
 import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyZeroInteractions;
 
 import io.opencensus.common.Duration;
 import io.opencensus.common.Timestamp;
+import io.opencensus.implcore.internal.EventQueue;
 import io.opencensus.implcore.internal.SimpleEventQueue;
 import io.opencensus.implcore.trace.RecordEventsSpanImpl;
 import io.opencensus.implcore.trace.RecordEventsSpanImpl.StartEndHandler;
@@ -176,6 +179,17 @@ public class InProcessSampledSpanStoreImplTest {
         .containsExactly(REGISTERED_SPAN_NAME);
   }
 
+  @Test
+  public void registerUnregisterSpanNames_DoNotWaitForEventQueue() {
+    EventQueue eventQueue = mock(EventQueue.class);
+    InProcessSampledSpanStoreImpl store = new InProcessSampledSpanStoreImpl(eventQueue);
+    store.registerSpanNamesForCollection(Collections.singletonList(REGISTERED_SPAN_NAME));
+    assertThat(store.getRegisteredSpanNamesForCollection()).containsExactly(REGISTERED_SPAN_NAME);
+    store.unregisterSpanNamesForCollection(Collections.singletonList(REGISTERED_SPAN_NAME));
+    assertThat(store.getRegisteredSpanNamesForCollection()).isEmpty();
+    verifyZeroInteractions(eventQueue);
+  }
+
   @Test
   public void registerSpanNamesViaSpanBuilderOption() {
     assertThat(sampleStore.getRegisteredSpanNamesForCollection())
@@ -26,6 +26,7 @@ import io.opencensus.implcore.internal.SimpleEventQueue;
 import io.opencensus.implcore.trace.RecordEventsSpanImpl;
 import io.opencensus.implcore.trace.RecordEventsSpanImpl.StartEndHandler;
 import io.opencensus.implcore.trace.StartEndHandlerImpl;
+import io.opencensus.implcore.trace.export.SpanExporterConfig.DropPolicy;
 import io.opencensus.testing.export.TestHandler;
 import io.opencensus.trace.SpanContext;
 import io.opencensus.trace.SpanId;
@@ -34,8 +35,10 @@ import io.opencensus.trace.TraceOptions;
 import io.opencensus.trace.config.TraceParams;
 import io.opencensus.trace.export.SpanData;
 import io.opencensus.trace.export.SpanExporter.Handler;
+import java.util.Collection;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.CountDownLatch;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -191,6 +194,55 @@ public class SpanExporterImplTest {
     assertThat(exported2).containsExactly(span1.toSpanData(), span2.toSpanData());
   }
 
+  @Test(timeout = 10000L)
+  public void slowServiceDoesNotDelayOtherServices() {
+    final CountDownLatch unblock = new CountDownLatch(1);
+    Handler blockingServiceHandler =
+        new Handler() {
+          @Override
+          public void export(Collection<SpanData> spanDataList) {
+            try {
+              unblock.await();
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+            }
+          }
+        };
+    SpanExporterImpl spanExporter = SpanExporterImpl.create(1, Duration.create(1, 0));
+    StartEndHandler startEndHandler =
+        new StartEndHandlerImpl(spanExporter, runningSpanStore, null, new SimpleEventQueue());
+
+    spanExporter.registerHandler("blocking.service", blockingServiceHandler);
+    spanExporter.registerHandler("test.service", serviceHandler);
+
+    try {
+      RecordEventsSpanImpl span1 = createSampledEndedSpan(startEndHandler, SPAN_NAME_1);
+      assertThat(serviceHandler.waitForExport(1)).containsExactly(span1.toSpanData());
+      RecordEventsSpanImpl span2 = createSampledEndedSpan(startEndHandler, SPAN_NAME_2);
+      assertThat(serviceHandler.waitForExport(1)).containsExactly(span2.toSpanData());
+      HandlerExporter blockingHandlerExporter = spanExporter.getHandlerExporter("blocking.service");
+      assertThat(blockingHandlerExporter).isNotNull();
+      assertThat(blockingHandlerExporter.exportedSpans.get()).isEqualTo(0);
+    } finally {
+      unblock.countDown();
+    }
+  }
+
+  @Test
+  public void unregisterServiceStopsItsThread() throws InterruptedException {
+    SpanExporterImpl spanExporter = SpanExporterImpl.create(4, Duration.create(1, 0));
+
+    spanExporter.registerHandler("test.service", serviceHandler);
+    HandlerExporter handlerExporter = spanExporter.getHandlerExporter("test.service");
+    assertThat(handlerExporter).isNotNull();
+    spanExporter.unregisterHandler("test.service");
+    assertThat(spanExporter.getHandlerExporter("test.service")).isNull();
+    Thread exporterThread = handlerExporter.getExporterThread();
+    assertThat(exporterThread).isNotNull();
+    // Test that the exporter thread will stop.
+    exporterThread.join();
+  }
+
   @Test
   public void exportNotSampledSpans() {
     SpanExporterImpl spanExporter = SpanExporterImpl.create(4, Duration.create(1, 0));
@@ -230,4 +282,57 @@ public class SpanExporterImplTest {
 
     assertThat(exported).containsExactly(span2.toSpanData());
   }
+
+  @Test
+  public void dropNewestSpansWhenQueueIsFull() {
+    // The worker thread never wakes up before the flush.
+    SpanExporterImpl spanExporter =
+        SpanExporterImpl.create(
+            100,
+            Duration.create(0, 0),
+            SpanExporterConfig.DEFAULT
+                .toBuilder()
+                .setMaxQueueSize(2)
+                .setDropPolicy(DropPolicy.DROP_NEWEST)
+                .build());
+    StartEndHandler startEndHandler =
+        new StartEndHandlerImpl(spanExporter, runningSpanStore, null, new SimpleEventQueue());
+
+    spanExporter.registerHandler("test.service", serviceHandler);
+
+    RecordEventsSpanImpl span1 = createSampledEndedSpan(startEndHandler, SPAN_NAME_1);
+    RecordEventsSpanImpl span2 = createSampledEndedSpan(startEndHandler, SPAN_NAME_1);
+    createSampledEndedSpan(startEndHandler, SPAN_NAME_1);
+    spanExporter.flush();
+    List<SpanData> exported = serviceHandler.waitForExport(2);
+    assertThat(exported).containsExactly(span1.toSpanData(), span2.toSpanData()).inOrder();
+    assertThat(spanExporter.getExportedSpans()).isEqualTo(2);
+    assertThat(spanExporter.getDroppedSpans()).isEqualTo(1);
+  }
+
+  @Test
+  public void dropOldestSpansWhenQueueIsFull() {
+    SpanExporterImpl spanExporter =
+        SpanExporterImpl.create(
+            100,
+            Duration.create(0, 0),
+            SpanExporterConfig.DEFAULT
+                .toBuilder()
+                .setMaxQueueSize(2)
+                .setDropPolicy(DropPolicy.DROP_OLDEST)
+                .build());
+    StartEndHandler startEndHandler =
+        new StartEndHandlerImpl(spanExporter, runningSpanStore, null, new SimpleEventQueue());
+
+    spanExporter.registerHandler("test.service", serviceHandler);
+
+    createSampledEndedSpan(startEndHandler, SPAN_NAME_1);
+    RecordEventsSpanImpl span2 = createSampledEndedSpan(startEndHandler, SPAN_NAME_1);
+    RecordEventsSpanImpl span3 = createSampledEndedSpan(startEndHandler, SPAN_NAME_1);
+    spanExporter.flush();
+    List<SpanData> exported = serviceHandler.waitForExport(2);
+    assertThat(exported).containsExactly(span2.toSpanData(), span3.toSpanData()).inOrder();
+    assertThat(spanExporter.getExportedSpans()).isEqualTo(2);
+    assertThat(spanExporter.getDroppedSpans()).isEqualTo(1);
+  }
 }
@@ -0,0 +1,240 @@
+/*
+ * Copyright 2019, OpenCensus Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.opencensus.implcore.trace.export;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import io.opencensus.common.Duration;
+import io.opencensus.implcore.internal.SimpleEventQueue;
+import io.opencensus.implcore.trace.RecordEventsSpanImpl;
+import io.opencensus.implcore.trace.RecordEventsSpanImpl.StartEndHandler;
+import io.opencensus.implcore.trace.StartEndHandlerImpl;
+import io.opencensus.testing.common.TestClock;
+import io.opencensus.testing.export.TestHandler;
+import io.opencensus.trace.EndSpanOptions;
+import io.opencensus.trace.SpanContext;
+import io.opencensus.trace.SpanId;
+import io.opencensus.trace.Status;
+import io.opencensus.trace.TraceId;
+import io.opencensus.trace.TraceOptions;
+import io.opencensus.trace.config.TraceParams;
+import java.util.Random;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+/** Unit tests for {@link TailSamplingBuffer}. */
+@RunWith(JUnit4.class)
+public class TailSamplingBufferTest {
+  private static final String SPAN_NAME = "MySpanName";
+  private static final Duration DECISION_WAIT = Duration.create(10, 0);
+  private static final TailSamplingConfig CONFIG =
+      TailSamplingConfig.DEFAULT
+          .toBuilder()
+          .setDecisionWait(DECISION_WAIT)
+          .setLatencyThreshold(Duration.create(1, 0))
+          .setMaxBufferedSpans(4)
+          .build();
+
+  private final Random random = new Random(1234);
+  private final TestClock testClock = TestClock.create();
+  private final TestHandler serviceHandler = new TestHandler();
+  private final SpanExporterImpl spanExporter = SpanExporterImpl.create(4, Duration.create(1, 0));
+  private final TailSamplingBuffer buffer = new TailSamplingBuffer(spanExporter, testClock, CONFIG);
+  @Mock private StartEndHandler startEndHandler;
+
+  @Before
+  public void setUp() {
+    MockitoAnnotations.initMocks(this);
+    spanExporter.registerHandler("test.service", serviceHandler);
+  }
+
+  @After
+  public void tearDown() {
+    spanExporter.shutdown();
+  }
+
+  private RecordEventsSpanImpl createNotSampledEndedSpan(
+      TraceId traceId, Duration latency, Status status) {
+    RecordEventsSpanImpl span =
+        RecordEventsSpanImpl.startSpan(
+            SpanContext.create(traceId, SpanId.generateRandomId(random), TraceOptions.DEFAULT),
+            SPAN_NAME,
+            null,
+            null,
+            false,
+            TraceParams.DEFAULT,
+            startEndHandler,
+            null,
+            testClock);
+    testClock.advanceTime(latency);
+    span.end(EndSpanOptions.builder().setStatus(status).build());
+    return span;
+  }
+
+  @Test
+  public void keepSlowTrace() {
+    TraceId traceId = TraceId.generateRandomId(random);
+    RecordEventsSpanImpl fastSpan =
+        createNotSampledEndedSpan(traceId, Duration.create(0, 1000), Status.OK);
+    RecordEventsSpanImpl slowSpan =
+        createNotSampledEndedSpan(traceId, Duration.create(2, 0), Status.OK);
+    buffer.addSpan(fastSpan);
+    buffer.addSpan(slowSpan);
+    assertThat(buffer.getBufferedSpans()).isEqualTo(2);
+    testClock.advanceTime(DECISION_WAIT);
+    buffer.decideExpiredTraces();
+    assertThat(buffer.getBufferedSpans()).isEqualTo(0);
+    assertThat(buffer.getKeptSpans()).isEqualTo(2);
+    assertThat(serviceHandler.waitForExport(2))
+        .containsExactly(fastSpan.toSpanData(), slowSpan.toSpanData());
+  }
+
+  @Test
+  public void keepFailedTrace() {
+    TraceId traceId = TraceId.generateRandomId(random);
+    RecordEventsSpanImpl span1 =
+        createNotSampledEndedSpan(traceId, Duration.create(0, 1000), Status.OK);
+    RecordEventsSpanImpl span2 =
+        createNotSampledEndedSpan(traceId, Duration.create(0, 1000), Status.UNAVAILABLE);
+    buffer.addSpan(span1);
+    buffer.addSpan(span2);
+    testClock.advanceTime(DECISION_WAIT);
+    buffer.decideExpiredTraces();
+    assertThat(buffer.getKeptSpans()).isEqualTo(2);
+    assertThat(serviceHandler.waitForExport(2))
+        .containsExactly(span1.toSpanData(), span2.toSpanData());
+  }
+
+  @Test
+  public void dropFastTrace() {
+    TraceId traceId = TraceId.generateRandomId(random);
+    buffer.addSpan(createNotSampledEndedSpan(traceId, Duration.create(0, 1000), Status.OK));
+    buffer.addSpan(createNotSampledEndedSpan(traceId, Duration.create(0, 1000), Status.OK));
+    testClock.advanceTime(DECISION_WAIT);
+    buffer.decideExpiredTraces();
+    assertThat(buffer.getBufferedSpans()).isEqualTo(0);
+    assertThat(buffer.getKeptSpans()).isEqualTo(0);
+    assertThat(buffer.getDroppedSpans()).isEqualTo(2);
+  }
+
+  @Test
+  public void decideOnlyAfterDecisionWait() {
+    TraceId traceId1 = TraceId.generateRandomId(random);
+    TraceId traceId2 = TraceId.generateRandomId(random);
+    buffer.addSpan(createNotSampledEndedSpan(traceId1, Duration.create(2, 0), Status.OK));
+    testClock.advanceTime(Duration.create(5, 0));
+    buffer.addSpan(createNotSampledEndedSpan(traceId2, Duration.create(0, 1000), Status.OK));
+    assertThat(buffer.decideExpiredTraces()).isEqualTo(5000000000L - 1000);
+    assertThat(buffer.getBufferedSpans()).isEqualTo(2);
+    testClock.advanceTime(Duration.create(5, 0));
+    assertThat(buffer.decideExpiredTraces()).isEqualTo(5000000000L);
+    assertThat(buffer.getBufferedSpans()).isEqualTo(1);
+    assertThat(buffer.getKeptSpans()).isEqualTo(1);
+  }
+
+  @Test
+  public void exportLateSpansOfKeptTrace() {
+    TraceId traceId = TraceId.generateRandomId(random);
+    RecordEventsSpanImpl slowSpan =
+        createNotSampledEndedSpan(traceId, Duration.create(2, 0), Status.OK);
+    buffer.addSpan(slowSpan);
+    testClock.advanceTime(DECISION_WAIT);
+    buffer.decideExpiredTraces();
+    RecordEventsSpanImpl lateSpan =
+        createNotSampledEndedSpan(traceId, Duration.create(0, 1000), Status.OK);
+    buffer.addSpan(lateSpan);
+    assertThat(buffer.getBufferedSpans()).isEqualTo(0);
+    assertThat(buffer.getKeptSpans()).isEqualTo(2);
+    assertThat(serviceHandler.waitForExport(2))
+        .containsExactly(slowSpan.toSpanData(), lateSpan.toSpanData());
+  }
+
+  @Test
+  public void evictOldestTraceWhenFull() {
+    TraceId oldestTraceId = TraceId.generateRandomId(random);
+    buffer.addSpan(createNotSampledEndedSpan(oldestTraceId, Duration.create(0, 1000), Status.OK));
+    buffer.addSpan(createNotSampledEndedSpan(oldestTraceId, Duration.create(0, 1000), Status.OK));
+    for (int i = 0; i < 3; i++) {
+      buffer.addSpan(
+          createNotSampledEndedSpan(
+              TraceId.generateRandomId(random), Duration.create(0, 1000), Status.OK));
+    }
+    assertThat(buffer.getBufferedSpans()).isEqualTo(3);
+    assertThat(buffer.getEvictedSpans()).isEqualTo(2);
+    assertThat(buffer.getDroppedSpans()).isEqualTo(0);
+  }
+
+  @Test
+  public void exportKeptTraceWhenEvicted() {
+    TraceId oldestTraceId = TraceId.generateRandomId(random);
+    RecordEventsSpanImpl slowSpan =
+        createNotSampledEndedSpan(oldestTraceId, Duration.create(2, 0), Status.OK);
+    buffer.addSpan(slowSpan);
+    for (int i = 0; i < 4; i++) {
+      buffer.addSpan(
+          createNotSampledEndedSpan(
+              TraceId.generateRandomId(random), Duration.create(0, 1000), Status.OK));
+    }
+    assertThat(buffer.getBufferedSpans()).isEqualTo(4);
+    assertThat(buffer.getEvictedSpans()).isEqualTo(0);
+    assertThat(buffer.getKeptSpans()).isEqualTo(1);
+    assertThat(serviceHandler.waitForExport(1)).containsExactly(slowSpan.toSpanData());
+  }
+
+  @Test
+  public void flushDecidesAllTraces() {
+    RecordEventsSpanImpl slowSpan =
+        createNotSampledEndedSpan(
+            TraceId.generateRandomId(random), Duration.create(2, 0), Status.OK);
+    buffer.addSpan(slowSpan);
+    buffer.addSpan(
+        createNotSampledEndedSpan(
+            TraceId.generateRandomId(random), Duration.create(0, 1000), Status.OK));
+    buffer.flush();
+    assertThat(buffer.getBufferedSpans()).isEqualTo(0);
+    assertThat(buffer.getKeptSpans()).isEqualTo(1);
+    assertThat(buffer.getDroppedSpans()).isEqualTo(1);
+    assertThat(serviceHandler.waitForExport(1)).containsExactly(slowSpan.toSpanData());
+  }
+
+  @Test
+  public void startEndHandlerAddsNotSampledSpans() {
+    StartEndHandler tailSamplingStartEndHandler =
+        new StartEndHandlerImpl(spanExporter, null, null, buffer, new SimpleEventQueue());
+    RecordEventsSpanImpl span =
+        RecordEventsSpanImpl.startSpan(
+            SpanContext.create(
+                TraceId.generateRandomId(random),
+                SpanId.generateRandomId(random),
+                TraceOptions.DEFAULT),
+            SPAN_NAME,
+            null,
+            null,
+            false,
+            TraceParams.DEFAULT,
+            tailSamplingStartEndHandler,
+            null,
+            testClock);
+    span.end(EndSpanOptions.builder().setStatus(Status.INTERNAL).build());
+    assertThat(buffer.getBufferedSpans()).isEqualTo(1);
+  }
+}
@@ -25,7 +25,7 @@ import io.opencensus.stats.StatsComponent;
 public final class StatsComponentImplLite extends StatsComponentImplBase {
 
   public StatsComponentImplLite() {
-    // TODO(sebright): Use a more efficient queue implementation.
-    super(new SimpleEventQueue(), MillisClock.getInstance());
+    // SimpleEventQueue processes entries on the caller thread anyway, so skip the queue entirely.
+    super(new SimpleEventQueue(), MillisClock.getInstance(), RecordingMode.DIRECT);
   }
 }